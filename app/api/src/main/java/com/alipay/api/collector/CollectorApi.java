@@ -19,15 +19,21 @@ package com.alipay.api.collector;
 import com.alipay.application.service.collector.AgentService;
 import com.alipay.application.service.collector.domain.TaskResp;
 import com.alipay.application.service.resource.SaveResourceService;
+import com.alipay.application.service.rule.job.ResourceEvaluator;
 import com.alipay.application.share.request.collector.*;
 import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.application.share.request.rule.EvaluateResourceRequest;
 import com.alipay.application.share.vo.ApiResponse;
 import com.alipay.application.share.vo.collector.AgentCloudAccountVO;
 import com.alipay.application.share.vo.collector.Registry;
+import com.alipay.application.share.vo.collector.ResourceManifestVO;
+import com.alipay.application.share.vo.resource.ResourceIngestResultVO;
+import com.alipay.application.share.vo.rule.ResourceEvaluationVO;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -35,6 +41,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 
 /*
@@ -55,18 +62,59 @@ public class CollectorApi {
     @Resource
     private AgentService agentService;
 
+    @Resource
+    private ResourceEvaluator resourceEvaluator;
+
     private static final String PERSISTENT_TOKEN = "PERSISTENTTOKEN";
     private static final String ONCE_TOKEN = "ONCETOKEN";
 
     @PostMapping("/resource")
-    public ApiResponse<String> acceptResourceData(@Validated @RequestBody DataPushRequest dataPushRequest,
-                                                  BindingResult err) throws InterruptedException {
+    public ApiResponse<ResourceIngestResultVO> acceptResourceData(@Validated @RequestBody DataPushRequest dataPushRequest,
+                                                                  BindingResult err) throws InterruptedException {
         if (err.hasErrors()) {
             return new ApiResponse<>(err);
         }
 
-        saveResourceService.acceptResourceData(dataPushRequest);
-        return ApiResponse.SUCCESS;
+        ResourceIngestResultVO result = saveResourceService.acceptResourceData(dataPushRequest);
+        return new ApiResponse<>(result);
+    }
+
+    /**
+     * Streamed push, NDJSON (application/x-ndjson) with a header line and one resource instance per line, compressed
+     * with gzip or zstd as given by Content-Encoding. It is written in chunks while it is read
+     */
+    @PostMapping("/resource/stream")
+    public ApiResponse<ResourceIngestResultVO> acceptResourceStream(HttpServletRequest request) throws IOException {
+        ResourceIngestResultVO result = saveResourceService.acceptResourceStream(request.getInputStream(),
+                request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        return new ApiResponse<>(result);
+    }
+
+    /**
+     * Stored resources of a resource type of an account with their content fingerprints, a collector with delta
+     * support pushes only the new and changed ones, the ids of the unchanged ones and the ids it no longer finds
+     */
+    @PostMapping("/resourceManifest")
+    public ApiResponse<ResourceManifestVO> queryResourceManifest(@Validated @RequestBody QueryResourceManifestRequest req,
+                                                                 BindingResult err) {
+        if (err.hasErrors()) {
+            return new ApiResponse<>(err);
+        }
+
+        return new ApiResponse<>(saveResourceService.queryResourceManifest(req.getCloudAccountId(), req.getResourceType()));
+    }
+
+    /**
+     * Evaluate a freshly collected resource now, the instance is stored by the regular push
+     */
+    @PostMapping("/evaluateResource")
+    public ApiResponse<ResourceEvaluationVO> evaluateResource(@Validated @RequestBody EvaluateResourceRequest req,
+                                                              BindingResult err) {
+        if (err.hasErrors()) {
+            return new ApiResponse<>(err);
+        }
+
+        return new ApiResponse<>(resourceEvaluator.evaluate(req, null));
     }
 
     @PostMapping("/acceptRunningFinishSignal")
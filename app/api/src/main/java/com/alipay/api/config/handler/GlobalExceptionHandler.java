@@ -19,10 +19,13 @@ package com.alipay.api.config.handler;
 import com.alibaba.fastjson.JSON;
 import com.alipay.application.share.vo.ApiResponse;
 import com.alipay.common.exception.BizException;
+import com.alipay.common.exception.IngestQueueFullException;
 import com.alipay.common.exception.OpenAipNoAuthException;
 import com.alipay.common.exception.UserNoLoginException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -46,6 +49,16 @@ public class GlobalExceptionHandler {
         return new ApiResponse<>(ApiResponse.ACCESS_DENIED, "OPENAPI_AUTH_FAILED", e.getMsg());
     }
 
+    /**
+     * Backpressure of the resource ingest queue, the collector retries after the Retry-After delay
+     */
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ApiResponse<String>> exceptionHandler(IngestQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ApiResponse<>(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMsg()));
+    }
+
     @ExceptionHandler(BizException.class)
     public ApiResponse<String> exceptionHandler(BizException e) {
         log.error("Exception occurred!", e);
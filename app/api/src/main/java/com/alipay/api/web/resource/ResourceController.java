@@ -16,10 +16,13 @@
  */
 package com.alipay.api.web.resource;
 
+import com.alipay.api.config.filter.annotation.aop.AdminPermissionLimit;
 import com.alipay.api.config.filter.annotation.aop.AuthenticateToken;
 import com.alipay.api.config.filter.annotation.aop.RateLimit;
 import com.alipay.api.config.filter.annotation.aop.RateLimit.KeyStrategy;
 import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.service.resource.ResourceIngestSpool;
+import com.alipay.application.service.resource.ResourceInstanceCompressor;
 import com.alipay.application.share.request.base.IdListRequest;
 import com.alipay.application.share.request.resource.QueryGroupTypeListRequest;
 import com.alipay.application.share.request.resource.QueryResourceDetailRequest;
@@ -28,6 +31,8 @@ import com.alipay.application.share.request.resource.QueryResourceListRequest;
 import com.alipay.application.share.request.rule.LinkDataParam;
 import com.alipay.application.share.vo.ApiResponse;
 import com.alipay.application.share.vo.ListVO;
+import com.alipay.application.share.vo.resource.IngestSpoolStatusVO;
+import com.alipay.application.share.vo.resource.InstanceStorageReportVO;
 import com.alipay.application.share.vo.resource.ResourceGroupTypeVO;
 import com.alipay.application.share.vo.resource.ResourceInstanceVO;
 import com.alipay.application.share.vo.resource.ResourceRiskCountVO;
@@ -62,6 +67,12 @@ public class ResourceController {
     @Resource
     private IQueryResource iQueryResource;
 
+    @Resource
+    private ResourceIngestSpool resourceIngestSpool;
+
+    @Resource
+    private ResourceInstanceCompressor resourceInstanceCompressor;
+
     @GetMapping("/typeList")
     public ApiResponse<List<ResourcePO>> queryTypeList(@RequestParam(required = false) String platform) {
         return iQueryResource.queryTypeList(platform);
@@ -155,4 +166,36 @@ public class ResourceController {
 
         return iQueryResource.queryResourceRiskQuantity(idListRequest);
     }
+
+    /**
+     * Collector pushes in the write-ahead spool of this node, not written to the database yet
+     */
+    @AuthenticateToken
+    @GetMapping("/queryIngestSpoolStatus")
+    public ApiResponse<IngestSpoolStatusVO> queryIngestSpoolStatus() {
+        return new ApiResponse<>(resourceIngestSpool.status());
+    }
+
+    /**
+     * Stored and compressed instance document bytes per resource type
+     */
+    @AuthenticateToken
+    @GetMapping("/queryInstanceStorageReport")
+    public ApiResponse<InstanceStorageReportVO> queryInstanceStorageReport(@RequestParam(required = false) String platform) {
+        return new ApiResponse<>(resourceInstanceCompressor.report(platform));
+    }
+
+    /**
+     * Compress the instance documents stored as plain json, up to maxRows of them when it is given, and report the
+     * bytes saved
+     */
+    @AuthenticateToken
+    @AdminPermissionLimit
+    @PostMapping("/compressInstances")
+    public ApiResponse<InstanceStorageReportVO> compressInstances(@RequestParam(required = false) Long maxRows) {
+        long migrated = resourceInstanceCompressor.migrate(maxRows);
+        InstanceStorageReportVO reportVO = resourceInstanceCompressor.report(null);
+        reportVO.setMigratedRows(migrated);
+        return new ApiResponse<>(reportVO);
+    }
 }
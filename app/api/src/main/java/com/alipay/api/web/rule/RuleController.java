@@ -16,23 +16,32 @@
  */
 package com.alipay.api.web.rule;
 
+import com.alipay.api.config.filter.annotation.aop.AdminPermissionLimit;
 import com.alipay.api.config.filter.annotation.aop.AuthenticateToken;
 import com.alipay.api.config.filter.annotation.aop.RateLimit;
 import com.alipay.api.utils.ZipUtil;
 import com.alipay.application.service.rule.RuleService;
 import com.alipay.application.service.rule.exposed.InitRuleService;
+import com.alipay.application.service.rule.job.ResourceEvaluator;
+import com.alipay.application.service.rule.job.ScanScheduler;
 import com.alipay.application.service.rule.job.ScanService;
 import com.alipay.application.share.request.base.IdListRequest;
 import com.alipay.application.share.request.base.IdRequest;
 import com.alipay.application.share.request.rule.*;
 import com.alipay.application.share.vo.ApiResponse;
 import com.alipay.application.share.vo.ListVO;
+import com.alipay.application.share.vo.rule.IncrementalScanReportVO;
+import com.alipay.application.share.vo.rule.RuleCostVO;
+import com.alipay.application.share.vo.rule.ResourceEvaluationVO;
 import com.alipay.application.share.vo.rule.RuleTypeVO;
 import com.alipay.application.share.vo.rule.RuleVO;
+import com.alipay.application.share.vo.rule.ScanSchedulerStatusVO;
+import com.alipay.application.share.vo.rule.ShardingScanProgressVO;
 import com.alipay.common.enums.RiskLevel;
 import com.alipay.common.enums.Status;
 import com.alipay.common.exception.BizException;
 import com.alipay.common.utils.PreventingSQLJoint;
+import com.alipay.dao.context.UserInfoContext;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -74,6 +83,12 @@ public class RuleController {
     @Resource
     private ScanService scanService;
 
+    @Resource
+    private ScanScheduler scanScheduler;
+
+    @Resource
+    private ResourceEvaluator resourceEvaluator;
+
     @Resource
     private InitRuleService initRuleService;
 
@@ -118,7 +133,13 @@ public class RuleController {
         if (err.hasErrors()) {
             return new ApiResponse<>(err);
         }
-        return scanService.scanByRule(request.getId());
+        ApiResponse<String> check = scanService.checkScanRule(request.getId());
+        if (check.getCode() != ApiResponse.SUCCESS_CODE) {
+            return check;
+        }
+        scanScheduler.submit(ScanScheduler.Priority.INTERACTIVE, UserInfoContext.getCurrentUser().getTenantId(),
+                ScanScheduler.ruleKey(request.getId()), () -> scanService.scanByRule(request.getId()));
+        return ApiResponse.SUCCESS;
     }
 
     /**
@@ -129,7 +150,80 @@ public class RuleController {
         if (err.hasErrors()) {
             return new ApiResponse<>(err);
         }
-        return scanService.scanRuleList(request.getIdList());
+        // No rule is queued unless all of them can be scanned
+        for (Long ruleId : request.getIdList()) {
+            ApiResponse<String> check = scanService.checkScanRule(ruleId);
+            if (check.getCode() != ApiResponse.SUCCESS_CODE) {
+                return new ApiResponse<>(check.getCode(), "Rule " + ruleId + ": " + check.getMsg());
+            }
+        }
+        Long tenantId = UserInfoContext.getCurrentUser().getTenantId();
+        for (Long ruleId : request.getIdList()) {
+            scanScheduler.submit(ScanScheduler.Priority.INTERACTIVE, tenantId, ScanScheduler.ruleKey(ruleId),
+                    () -> scanService.scanByRule(ruleId));
+        }
+        return ApiResponse.SUCCESS;
+    }
+
+    /**
+     * Evaluate the applicable rules of one resource now and update its findings, without waiting for a scan
+     */
+    @AuthenticateToken
+    @PostMapping("/evaluateResource")
+    public ApiResponse<ResourceEvaluationVO> evaluateResource(@Validated @RequestBody EvaluateResourceRequest request,
+                                                              BindingResult err) {
+        if (err.hasErrors()) {
+            return new ApiResponse<>(err);
+        }
+        return new ApiResponse<>(resourceEvaluator.evaluate(request, UserInfoContext.getCurrentUser().getTenantId()));
+    }
+
+    /**
+     * Progress of the sharded scan on this node
+     */
+    @AuthenticateToken
+    @GetMapping("/queryShardingScanProgress")
+    public ApiResponse<ShardingScanProgressVO> queryShardingScanProgress() {
+        return new ApiResponse<>(scanService.getShardingScanProgress());
+    }
+
+    /**
+     * Queued and running scans of the scan scheduler on this node
+     */
+    @AuthenticateToken
+    @GetMapping("/queryScanSchedulerStatus")
+    public ApiResponse<ScanSchedulerStatusVO> queryScanSchedulerStatus() {
+        return new ApiResponse<>(scanScheduler.getStatus());
+    }
+
+    /**
+     * Evaluations run and skipped by the current or last scan run on this node
+     */
+    @AuthenticateToken
+    @GetMapping("/queryIncrementalScanReport")
+    public ApiResponse<IncrementalScanReportVO> queryIncrementalScanReport() {
+        return new ApiResponse<>(scanService.getIncrementalScanReport());
+    }
+
+    /**
+     * Rules with the highest evaluation, merge and write cost on this node in the rolling window of the profiler
+     */
+    @AuthenticateToken
+    @AdminPermissionLimit
+    @GetMapping("/querySlowestRules")
+    public ApiResponse<List<RuleCostVO>> querySlowestRules(@RequestParam(defaultValue = "20") Integer limit) {
+        return new ApiResponse<>(scanService.getSlowestRules(limit));
+    }
+
+    /**
+     * Evaluate every resource in the next scan run instead of skipping unchanged ones
+     */
+    @AuthenticateToken
+    @AdminPermissionLimit
+    @PostMapping("/requestFullScan")
+    public ApiResponse<String> requestFullScan() {
+        scanService.requestFullScan();
+        return ApiResponse.SUCCESS;
     }
 
     /**
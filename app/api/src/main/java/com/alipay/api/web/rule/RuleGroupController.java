@@ -18,11 +18,13 @@ package com.alipay.api.web.rule;
 
 import com.alipay.api.config.filter.annotation.aop.AuthenticateToken;
 import com.alipay.application.service.rule.RuleGroupService;
+import com.alipay.application.service.rule.job.ScanScheduler;
 import com.alipay.application.service.rule.job.ScanService;
 import com.alipay.application.share.request.rule.RuleGroupRequest;
 import com.alipay.application.share.vo.ApiResponse;
 import com.alipay.application.share.vo.ListVO;
 import com.alipay.application.share.vo.rule.RuleGroupVO;
+import com.alipay.dao.context.UserInfoContext;
 import com.alipay.dao.dto.RuleGroupDTO;
 import jakarta.annotation.Resource;
 import org.springframework.beans.BeanUtils;
@@ -49,6 +51,9 @@ public class RuleGroupController {
     @Resource
     private ScanService scanService;
 
+    @Resource
+    private ScanScheduler scanScheduler;
+
     /**
      * Save the risk rule group interface
      */
@@ -66,7 +71,12 @@ public class RuleGroupController {
     @AuthenticateToken
     @PostMapping("/scanByGroup")
     public ApiResponse<String> scanByGroup(@RequestParam Long id) {
-        scanService.scanByGroup(id);
+        ApiResponse<String> check = scanService.checkScanGroup(id);
+        if (check.getCode() != ApiResponse.SUCCESS_CODE) {
+            return check;
+        }
+        scanScheduler.submit(ScanScheduler.Priority.INTERACTIVE, UserInfoContext.getCurrentUser().getTenantId(),
+                ScanScheduler.groupKey(id), () -> scanService.scanByGroup(id));
         return ApiResponse.SUCCESS;
     }
 
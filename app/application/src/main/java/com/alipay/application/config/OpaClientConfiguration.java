@@ -17,11 +17,21 @@
 package com.alipay.application.config;
 
 
-import com.bisnode.opa.client.OpaClient;
+import com.alipay.application.service.rule.domain.repo.engine.EmbeddedPolicyEngine;
+import com.alipay.application.service.rule.domain.repo.engine.OpaTransport;
+import com.alipay.application.service.rule.domain.repo.engine.OpaTransportProperties;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyCompiler;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngineProperties;
+import com.alipay.application.service.rule.domain.repo.engine.RemotePolicyEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 /*
  *@title OpaClientConfiguration
  *@description
@@ -29,16 +39,31 @@ import org.springframework.context.annotation.Configuration;
  *@version 1.0
  *@create 2025/3/12 15:24
  */
+@Slf4j
 @Configuration
 public class OpaClientConfiguration {
 
     @Value("${opa.url}")
     private String opaUrl;
 
+    @Bean(destroyMethod = "close")
+    public OpaTransport opaTransport(OpaTransportProperties properties, MeterRegistry meterRegistry) {
+        List<String> endpoints = properties.getEndpoints().isEmpty() ? List.of(opaUrl) : properties.getEndpoints();
+        log.info("OPA endpoints: {}, balancing: {}", endpoints, properties.getBalancing());
+        return new OpaTransport(endpoints, properties, meterRegistry);
+    }
+
     @Bean
-    public OpaClient opaClient() {
-        return OpaClient.builder()
-                .opaConfiguration(opaUrl)
-                .build();
+    public PolicyEngine policyEngine(OpaTransport opaTransport, PolicyEngineProperties properties) {
+        RemotePolicyEngine remote = new RemotePolicyEngine(opaTransport);
+        if (!EmbeddedPolicyEngine.NAME.equals(properties.getType())) {
+            return remote;
+        }
+
+        log.info("Use the embedded policy engine, opa binary: {}", properties.getBinary());
+        PolicyCompiler compiler = new PolicyCompiler(properties.getBinary(), properties.getWorkDir(),
+                properties.getCompileTimeoutMs());
+        return new EmbeddedPolicyEngine(compiler, properties.isFallbackRemote() ? remote : null,
+                properties.getMaxIdleEvaluators());
     }
 }
@@ -73,7 +73,7 @@ public class CollectorRecordServiceImpl implements CollectorRecordService {
         // set percent
         for (CollectorRecordVO recordVO : result){
             IQueryResourceDTO iQueryResourceDTO = IQueryResourceDTO.builder().cloudAccountId(recordVO.getCloudAccountId()).build();
-            List<CloudResourceInstancePO> resouceList = cloudResourceInstanceMapper.findByCond(iQueryResourceDTO);
+            List<CloudResourceInstancePO> resouceList = cloudResourceInstanceMapper.findBaseByCond(iQueryResourceDTO);
             recordVO.setPercent("0.00");
             if (CollectionUtils.isNotEmpty(resouceList)) {
                 int total = resouceList.size();
@@ -85,6 +85,16 @@ public class AgentServiceImpl implements AgentService {
      */
     private static final Integer MAX_ACCOUNT_COUNT = 50;
 
+    /**
+     * Interval at which a finished collection checks again for its pushes not written yet
+     */
+    private static final long PENDING_PUSH_CHECK_SECONDS = 10;
+
+    /**
+     * Time a finished collection waits at most for its pushes to be written
+     */
+    private static final long PENDING_PUSH_MAX_WAIT_MS = 60 * 60 * 1000L;
+
     @Resource
     private AgentRegistryMapper agentRegistryMapper;
     @Resource
@@ -618,6 +628,39 @@ public class AgentServiceImpl implements AgentService {
 
     }
 
+    /**
+     * Delete the resources the collection did not report and scan the account, once the pushes of the account
+     * accepted by this node are written. Pushes still not written after the maximum wait keep the delete from running
+     */
+    private void commitCollection(String cloudAccountId, long waitUntil) {
+        if (saveResourceService.hasPendingPushes(cloudAccountId)) {
+            if (System.currentTimeMillis() < waitUntil) {
+                log.info("Pushes of cloudAccountId:{} are not written yet, delete historical version data later", cloudAccountId);
+                SchedulerManager.getScheduler().schedule(
+                        () -> commitCollection(cloudAccountId, waitUntil),
+                        PENDING_PUSH_CHECK_SECONDS,
+                        TimeUnit.SECONDS
+                );
+                return;
+            }
+            // the resources of the pushes not written would be deleted, the next collection deletes the stale ones
+            log.warn("Pushes of cloudAccountId:{} are still not written, skip deleting historical version data", cloudAccountId);
+            try {
+                accountScanJob.submitScanByCloudAccountId(cloudAccountId);
+            } catch (Exception e) {
+                log.error("Scan failed, cloudAccountId:{}", cloudAccountId, e);
+            }
+            return;
+        }
+
+        try {
+            clearJob.commitDeleteResourceByCloudAccount(cloudAccountId);
+            accountScanJob.submitScanByCloudAccountId(cloudAccountId);
+        } catch (Exception e) {
+            log.error("Delete historical version data or scan failed, cloudAccountId:{}", cloudAccountId, e);
+        }
+    }
+
     @Transactional(rollbackFor = RuntimeException.class)
     @Override
     public void runningFinishSignal(String cloudAccountId, Long taskId) {
@@ -667,17 +710,11 @@ public class AgentServiceImpl implements AgentService {
             if (collectRecordInfo != null && collectRecordInfo.getEnableCollection()) {
                 log.info("Delete historical version data or scan, cloudAccountId:{}", cloudAccountId);
                 // Delayed tasks:Delete historical version data
-                // Delete 10s to prevent data submission from not completing
+                // Delete 60s later to prevent data submission from not completing, and not before the queued and
+                // spooled pushes of the account are written
+                long waitUntil = System.currentTimeMillis() + PENDING_PUSH_MAX_WAIT_MS;
                 SchedulerManager.getScheduler().schedule(
-                        () ->
-                        {
-                            try {
-                                clearJob.commitDeleteResourceByCloudAccount(cloudAccountId);
-                                accountScanJob.scanByCloudAccountId(cloudAccountId);
-                            } catch (Exception e) {
-                                log.error("Delete historical version data or scan failed, cloudAccountId:{}", cloudAccountId, e);
-                            }
-                        },
+                        () -> commitCollection(cloudAccountId, waitUntil),
                         60,
                         TimeUnit.SECONDS
                 );
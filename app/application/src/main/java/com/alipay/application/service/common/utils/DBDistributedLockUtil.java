@@ -154,6 +154,46 @@ public class DBDistributedLockUtil {
         return false;
     }
 
+    /**
+     * 加入其他节点持有的锁，分片扫描的各节点共享规则锁，加入后可以续期
+     *
+     * @return 锁是否存在
+     */
+    public boolean joinLock(String taskName) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM local_task_locks WHERE task_name = ?",
+                Integer.class,
+                taskName
+        );
+        if (count == null || count == 0) {
+            return false;
+        }
+        currentLocks.put(taskName, new LockInfo(taskName, getHostName(), System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * 不再续期共享的锁，锁由最后完成的节点释放
+     */
+    public void leaveLock(String taskName) {
+        currentLocks.remove(taskName);
+    }
+
+    /**
+     * 锁是否被持有且未过期
+     *
+     * @param expireTime 锁过期时间（毫秒）
+     */
+    public boolean isLocked(String taskName, long expireTime) {
+        List<Timestamp> records = jdbcTemplate.queryForList(
+                "SELECT gmt_modified FROM local_task_locks WHERE task_name = ?",
+                Timestamp.class,
+                taskName
+        );
+        return !records.isEmpty()
+                && Duration.between(records.get(0).toInstant(), Instant.now()).toMillis() <= expireTime;
+    }
+
     /**
      * 释放分布式锁
      */
@@ -168,6 +208,39 @@ public class DBDistributedLockUtil {
         }
     }
 
+    /**
+     * 释放指定主机持有的锁，用于主机重启后释放中断任务遗留的锁
+     *
+     * @return 是否释放
+     */
+    public boolean releaseLock(String taskName, String host) {
+        try {
+            return jdbcTemplate.update(
+                    "DELETE FROM local_task_locks WHERE task_name = ? AND execute_host = ?",
+                    taskName, host
+            ) > 0;
+        } finally {
+            currentLocks.remove(taskName);
+        }
+    }
+
+    /**
+     * 释放超过指定时间未续期的锁，持有者已不再推进任务，无论锁属于哪台主机
+     *
+     * @param staleTime 未续期的时间（毫秒）
+     * @return 是否释放
+     */
+    public boolean releaseStaleLock(String taskName, long staleTime) {
+        Timestamp staleBefore = Timestamp.from(Instant.now().minusMillis(staleTime));
+        boolean released = jdbcTemplate.update(
+                "DELETE FROM local_task_locks WHERE task_name = ? AND gmt_modified < ?",
+                taskName, staleBefore
+        ) > 0;
+        if (released) {
+            currentLocks.remove(taskName);
+        }
+        return released;
+    }
 
     // 辅助记录类
     private record LockRecord(String executeHost, Instant gmtModified) {
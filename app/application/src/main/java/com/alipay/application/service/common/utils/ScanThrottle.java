@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.common.utils;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title ScanThrottle
+ *@description Paces scan and clear units with a rate adjusted by additive increase and multiplicative decrease
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/23 10:20
+ */
+@Slf4j
+@Component
+public class ScanThrottle {
+
+    /**
+     * Timer recorded by the scan result writer on every flush
+     */
+    static final String WRITE_TIMER = "cloudrec.scan.result.flush";
+
+    @Resource
+    private ScanThrottleProperties scanThrottleProperties;
+
+    @Resource
+    private DataSource dataSource;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Permitted units per second
+     */
+    private double rate;
+
+    private long nextPermitNanos;
+
+    private long lastAdjustNanos;
+
+    private Signals lastSignals = new Signals(0, 1, 0, 0, 0, 0);
+
+    @PostConstruct
+    public void init() {
+        rate = clamp(scanThrottleProperties.getInitialRate());
+        lastAdjustNanos = System.nanoTime();
+        lastSignals = sample();
+        Gauge.builder("cloudrec.scan.throttle.rate", this, ScanThrottle::getRate)
+                .description("scan units permitted per second")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wait until the next unit is permitted. The first unit after an idle period passes at once, the following
+     * units are spaced by the current rate, shared by all threads.
+     */
+    public void acquire() {
+        if (!Boolean.TRUE.equals(scanThrottleProperties.getEnabled())) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - lastAdjustNanos >= TimeUnit.MILLISECONDS.toNanos(scanThrottleProperties.getAdjustIntervalMs())) {
+                adjust();
+                lastAdjustNanos = now;
+            }
+            long start = Math.max(now, nextPermitNanos);
+            nextPermitNanos = start + (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            waitNanos = start - now;
+        }
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        meterRegistry.timer("cloudrec.scan.throttle.wait").record(waitNanos, TimeUnit.NANOSECONDS);
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Thread sleep error", e);
+        }
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Compare the signals with the previous sample: halve the rate when the database is overloaded, otherwise
+     * raise it by one step
+     */
+    synchronized void adjust() {
+        Signals signals = sample();
+        String overload = overload(signals, lastSignals);
+        lastSignals = signals;
+
+        double previous = rate;
+        if (overload != null) {
+            rate = clamp(rate * scanThrottleProperties.getDecreaseFactor());
+            log.info("Scan throttle decreased rate from {} to {}, {}", previous, rate, overload);
+        } else {
+            rate = clamp(rate + scanThrottleProperties.getIncreaseStep());
+        }
+    }
+
+    private String overload(Signals current, Signals previous) {
+        double activeRatio = (double) current.active / Math.max(1, current.maxActive);
+        if (activeRatio > scanThrottleProperties.getMaxActiveRatio()) {
+            return String.format("active connections %d of %d", current.active, current.maxActive);
+        }
+
+        long waits = current.poolWaitCount - previous.poolWaitCount;
+        if (waits > 0) {
+            long avgWaitMs = TimeUnit.NANOSECONDS.toMillis((current.poolWaitNanos - previous.poolWaitNanos) / waits);
+            if (avgWaitMs > scanThrottleProperties.getMaxPoolWaitMs()) {
+                return String.format("average pool wait %d ms", avgWaitMs);
+            }
+        }
+
+        long writes = current.writeCount - previous.writeCount;
+        if (writes > 0) {
+            long avgWriteMs = TimeUnit.NANOSECONDS.toMillis((current.writeNanos - previous.writeNanos) / writes);
+            if (avgWriteMs > scanThrottleProperties.getMaxWriteLatencyMs()) {
+                return String.format("average result flush %d ms", avgWriteMs);
+            }
+        }
+        return null;
+    }
+
+    private Signals sample() {
+        int active = 0;
+        int maxActive = 1;
+        long poolWaitCount = 0;
+        long poolWaitNanos = 0;
+        if (dataSource instanceof DruidDataSource druidDataSource) {
+            active = druidDataSource.getActiveCount();
+            maxActive = druidDataSource.getMaxActive();
+            poolWaitCount = druidDataSource.getNotEmptyWaitCount();
+            poolWaitNanos = druidDataSource.getNotEmptyWaitNanos();
+        }
+
+        long writeCount = 0;
+        long writeNanos = 0;
+        Timer writeTimer = meterRegistry.find(WRITE_TIMER).timer();
+        if (writeTimer != null) {
+            writeCount = writeTimer.count();
+            writeNanos = (long) writeTimer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        return new Signals(active, maxActive, poolWaitCount, poolWaitNanos, writeCount, writeNanos);
+    }
+
+    private double clamp(double value) {
+        return Math.max(scanThrottleProperties.getMinRate(), Math.min(scanThrottleProperties.getMaxRate(), value));
+    }
+
+    private record Signals(int active, int maxActive, long poolWaitCount, long poolWaitNanos, long writeCount,
+                           long writeNanos) {
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.common.utils;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the adaptive throttle between scan and clear units
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.throttle")
+public class ScanThrottleProperties {
+
+    /**
+     * Whether units are throttled at all
+     * Default: true
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Units permitted per second when the application starts
+     * Default: 5, the rate of the former fixed 200 ms pause
+     */
+    private Double initialRate = 5.0;
+
+    /**
+     * Floor of the permitted units per second
+     * Default: 1
+     */
+    private Double minRate = 1.0;
+
+    /**
+     * Ceiling of the permitted units per second
+     * Default: 100
+     */
+    private Double maxRate = 100.0;
+
+    /**
+     * Units per second added after a healthy adjust interval
+     * Default: 1
+     */
+    private Double increaseStep = 1.0;
+
+    /**
+     * Factor the rate is multiplied with after an overloaded adjust interval
+     * Default: 0.5
+     */
+    private Double decreaseFactor = 0.5;
+
+    /**
+     * Interval between two rate adjustments, in milliseconds
+     * Default: 5 seconds
+     */
+    private Long adjustIntervalMs = 5 * 1000L;
+
+    /**
+     * Share of the pool's max active connections in use above which the database counts as overloaded
+     * Default: 0.8
+     */
+    private Double maxActiveRatio = 0.8;
+
+    /**
+     * Average wait for a pooled connection above which the database counts as overloaded, in milliseconds
+     * Default: 50
+     */
+    private Long maxPoolWaitMs = 50L;
+
+    /**
+     * Average scan result flush latency above which the database counts as overloaded, in milliseconds
+     * Default: 1000
+     */
+    private Long maxWriteLatencyMs = 1000L;
+}
@@ -44,7 +44,7 @@ public class DelResourceServiceImpl implements DelResourceService {
                     .scrollId(scrollId)
                     .size(size)
                     .build();
-            List<CloudResourceInstancePO> cloudResourceInstancePOS = cloudResourceInstanceMapper.findByCondWithScrollId(request);
+            List<CloudResourceInstancePO> cloudResourceInstancePOS = cloudResourceInstanceMapper.findBaseByCondWithScrollId(request);
             if (CollectionUtils.isEmpty(cloudResourceInstancePOS)) {
                 break;
             } else {
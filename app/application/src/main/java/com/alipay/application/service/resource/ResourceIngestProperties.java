@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for writing the resources pushed by the collector
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "resource.ingest")
+public class ResourceIngestProperties {
+
+    /**
+     * Resources looked up and written per statement, instances are large so keep it moderate
+     * Default: 200
+     */
+    private Integer batchSize = 200;
+
+    /**
+     * Hand the collectors a manifest of the stored resources so they push only new and changed ones, false makes
+     * them push everything
+     * Default: true
+     */
+    private boolean deltaEnabled = true;
+
+    /**
+     * Streamed pushes written at the same time, a push above it is answered with 429
+     * Default: 8
+     */
+    private int streamMaxConcurrent = 8;
+
+    /**
+     * Retry-After hint of a streamed push answered with 429, in seconds
+     * Default: 5
+     */
+    private long streamRetryAfterSeconds = 5L;
+}
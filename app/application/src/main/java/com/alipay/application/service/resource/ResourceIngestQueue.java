@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.common.exception.IngestQueueFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/*
+ *@title ResourceIngestQueue
+ *@description Bounded in-memory queue of the collector pushes, one per platform, written by a fixed number of
+ * workers. The platforms take turns so a big region does not hold back the others. The pushes of one (cloud account,
+ * resource type) are written one after the other in the order they were queued, a push written outside of the
+ * queue, e.g. a streamed one, takes its turn among them with {@link #awaitTurn(String, String)}. A full queue rejects the push
+ * with a Retry-After hint instead of blocking the servlet thread or flooding the database
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/31 10:30
+ */
+@Slf4j
+@Component
+public class ResourceIngestQueue {
+
+    @Resource
+    private ResourceIngestQueueProperties resourceIngestQueueProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * spoolSequence is the position of the push in the spool, -1 when it is not spooled. ticket is the position of
+     * the push among the pushes of its (cloud account, resource type)
+     */
+    private record Task(DataPushRequest.Data data, long spoolSequence, String platform, String lane, long ticket,
+                        long enqueuedNanos) {
+    }
+
+    /**
+     * pushes of one (cloud account, resource type), issued tickets and written ones
+     */
+    private static class Lane {
+
+        private long issued;
+
+        private long done;
+    }
+
+    private final Map<String, BlockingQueue<Task>> queues = new ConcurrentHashMap<>();
+
+    private final List<String> platforms = new CopyOnWriteArrayList<>();
+
+    /**
+     * one permit per queued push
+     */
+    private final Semaphore queued = new Semaphore(0);
+
+    private final AtomicInteger turn = new AtomicInteger();
+
+    /**
+     * lanes with pushes queued or being written, guarded by itself together with pendingPerAccount
+     */
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    /**
+     * pushes queued or being written by cloud account
+     */
+    private final Map<String, Integer> pendingPerAccount = new HashMap<>();
+
+    /**
+     * moving average of the time a push takes to write
+     */
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    private ExecutorService workers;
+
+    private volatile boolean stopped;
+
+    public boolean isEnabled() {
+        return resourceIngestQueueProperties.isEnabled();
+    }
+
+    /**
+     * Start the workers, every queued push is passed to the writer
+     */
+    public void start(Consumer<DataPushRequest.Data> writer) {
+        start((data, spoolSequence) -> writer.accept(data));
+    }
+
+    /**
+     * Start the workers, every queued push is passed to the writer with its spool sequence
+     */
+    public synchronized void start(ObjLongConsumer<DataPushRequest.Data> writer) {
+        if (!isEnabled() || workers != null) {
+            return;
+        }
+        int count = Math.max(1, resourceIngestQueueProperties.getWorkers());
+        AtomicInteger index = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(count, r -> new Thread(r, "ResourceIngest-" + index.incrementAndGet()));
+        for (int i = 0; i < count; i++) {
+            workers.execute(() -> drain(writer));
+        }
+        log.info("Resource ingest queue started, workers:{}, capacityPerPlatform:{}", count,
+                resourceIngestQueueProperties.getCapacityPerPlatform());
+    }
+
+    /**
+     * Queue a push
+     *
+     * @throws IngestQueueFullException if the queue of the platform is full
+     */
+    public void offer(DataPushRequest.Data data) {
+        offer(data, -1L);
+    }
+
+    /**
+     * Queue a push appended to the spool, the sequence is handed to the writer
+     *
+     * @throws IngestQueueFullException if the queue of the platform is full
+     */
+    public void offer(DataPushRequest.Data data, long spoolSequence) {
+        String platform = StringUtils.defaultIfBlank(data.getPlatform(), "unknown");
+        if (stopped) {
+            throw new IngestQueueFullException("resource ingest queue is shutting down",
+                    resourceIngestQueueProperties.getRetryAfterMaxSeconds());
+        }
+
+        BlockingQueue<Task> queue = queues.computeIfAbsent(platform, this::newQueue);
+        String laneKey = laneKey(data.getCloudAccountId(), data.getResourceType());
+        synchronized (lanes) {
+            // the ticket is taken with the offer, so the tickets of a lane are in the order of its queue
+            Lane lane = lanes.computeIfAbsent(laneKey, k -> new Lane());
+            if (!queue.offer(new Task(data, spoolSequence, platform, laneKey, lane.issued, System.nanoTime()))) {
+                if (lane.issued == lane.done) {
+                    lanes.remove(laneKey);
+                }
+                meterRegistry.counter("cloudrec.ingest.queue.rejected", "platform", platform).increment();
+                long retryAfter = retryAfterSeconds(queue.size());
+                log.warn("Resource ingest queue of {} is full, cloudAccountId:{}, resourceType:{}, retryAfter:{}s",
+                        platform, data.getCloudAccountId(), data.getResourceType(), retryAfter);
+                throw new IngestQueueFullException("resource ingest queue of " + platform + " is full", retryAfter);
+            }
+            lane.issued++;
+            pendingPerAccount.merge(String.valueOf(data.getCloudAccountId()), 1, Integer::sum);
+        }
+        queued.release();
+    }
+
+    /**
+     * Wait for the turn of a push written outside of the queue. It is written after the pushes of its (cloud account,
+     * resource type) queued before it and before the ones queued after it, and counts as pending until the turn is
+     * closed
+     *
+     * @return the turn, to close once the push is written or failed
+     */
+    public Turn awaitTurn(String cloudAccountId, String resourceType) {
+        String laneKey = laneKey(cloudAccountId, resourceType);
+        long ticket;
+        synchronized (lanes) {
+            ticket = lanes.computeIfAbsent(laneKey, k -> new Lane()).issued++;
+            pendingPerAccount.merge(String.valueOf(cloudAccountId), 1, Integer::sum);
+        }
+
+        // the turn is taken even if interrupted, giving it up before it comes would let a later push go first
+        boolean interrupted = false;
+        while (true) {
+            try {
+                awaitTurn(laneKey, ticket);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new Turn(laneKey, String.valueOf(cloudAccountId));
+    }
+
+    /**
+     * Pushes of a cloud account queued or being written
+     */
+    public int pending(String cloudAccountId) {
+        synchronized (lanes) {
+            return pendingPerAccount.getOrDefault(cloudAccountId, 0);
+        }
+    }
+
+    /**
+     * Time the workers need for the queued pushes of a platform, at least one second
+     */
+    long retryAfterSeconds(int depth) {
+        int count = Math.max(1, resourceIngestQueueProperties.getWorkers());
+        long nanos = (long) depth * writeNanos.get() / count;
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(nanos) + 1;
+        return Math.min(Math.max(1L, resourceIngestQueueProperties.getRetryAfterMaxSeconds()), seconds);
+    }
+
+    public int depth() {
+        return queued.availablePermits();
+    }
+
+    private BlockingQueue<Task> newQueue(String platform) {
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(Math.max(1, resourceIngestQueueProperties.getCapacityPerPlatform()));
+        Gauge.builder("cloudrec.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Collector pushes waiting to be written")
+                .tag("platform", platform)
+                .register(meterRegistry);
+        platforms.add(platform);
+        return queue;
+    }
+
+    private void drain(ObjLongConsumer<DataPushRequest.Data> writer) {
+        while (true) {
+            try {
+                if (!queued.tryAcquire(1, TimeUnit.SECONDS)) {
+                    if (stopped) {
+                        return;
+                    }
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            Task task = next();
+            if (task == null) {
+                // not visible yet, keep the permit for it
+                queued.release();
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                awaitTurn(task.lane(), task.ticket());
+                writer.accept(task.data(), task.spoolSequence());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Write of a queued push failed, cloudAccountId:{}, resourceType:{}",
+                        task.data().getCloudAccountId(), task.data().getResourceType(), e);
+            } finally {
+                finishTurn(task.lane(), String.valueOf(task.data().getCloudAccountId()));
+                long end = System.nanoTime();
+                writeNanos.updateAndGet(avg -> avg == 0 ? end - start : (avg * 7 + (end - start)) / 8);
+                Timer.builder("cloudrec.ingest.queue.latency")
+                        .description("Time from queueing a push to having it written")
+                        .tag("platform", task.platform())
+                        .register(meterRegistry)
+                        .record(end - task.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Wait until the older pushes of the lane are written, they were taken from the queue before this one so they are
+     * being written by other workers
+     */
+    private void awaitTurn(String laneKey, long ticket) throws InterruptedException {
+        synchronized (lanes) {
+            while (lanes.get(laneKey).done != ticket) {
+                lanes.wait();
+            }
+        }
+    }
+
+    private void finishTurn(String laneKey, String cloudAccountId) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(laneKey);
+            if (++lane.done == lane.issued) {
+                lanes.remove(laneKey);
+            }
+            if (pendingPerAccount.merge(cloudAccountId, -1, Integer::sum) <= 0) {
+                pendingPerAccount.remove(cloudAccountId);
+            }
+            lanes.notifyAll();
+        }
+    }
+
+    private static String laneKey(String cloudAccountId, String resourceType) {
+        return cloudAccountId + "/" + resourceType;
+    }
+
+    /**
+     * Next push, the platforms take turns
+     */
+    private Task next() {
+        int size = platforms.size();
+        int start = Math.floorMod(turn.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            BlockingQueue<Task> queue = queues.get(platforms.get((start + i) % size));
+            Task task = queue == null ? null : queue.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop accepting pushes and give the queued ones time to be written
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopped = true;
+        if (workers == null) {
+            return;
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(resourceIngestQueueProperties.getShutdownTimeoutMs(), TimeUnit.MILLISECONDS)) {
+            log.warn("Resource ingest queue stopped with {} pushes not written", depth());
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Turn of a push written outside of the queue, see {@link #awaitTurn(String, String)}
+     */
+    public final class Turn implements AutoCloseable {
+
+        private final String laneKey;
+
+        private final String cloudAccountId;
+
+        private boolean closed;
+
+        private Turn(String laneKey, String cloudAccountId) {
+            this.laneKey = laneKey;
+            this.cloudAccountId = cloudAccountId;
+        }
+
+        /**
+         * Let the next push of the lane go
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                finishTurn(laneKey, cloudAccountId);
+            }
+        }
+    }
+}
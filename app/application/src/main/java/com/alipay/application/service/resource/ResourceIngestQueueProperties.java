@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the queue between the collector pushes and the resource writes
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "resource.ingest.queue")
+public class ResourceIngestQueueProperties {
+
+    /**
+     * Acknowledge a spooled push once it is queued and write it in the background, false writes it before
+     * responding. Without the spool every push is written before responding
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Pushes queued per platform, a push above it is answered with 429 and a Retry-After hint
+     * Default: 200
+     */
+    private int capacityPerPlatform = 200;
+
+    /**
+     * Threads writing the queued pushes, the platforms take turns
+     * Default: 8
+     */
+    private int workers = 8;
+
+    /**
+     * Upper bound of the Retry-After hint, the hint is the time the workers need for the queued pushes
+     * Default: 60 seconds
+     */
+    private long retryAfterMaxSeconds = 60L;
+
+    /**
+     * Time the queued pushes are given to be written on shutdown
+     * Default: 30 seconds
+     */
+    private long shutdownTimeoutMs = 30 * 1000L;
+}
@@ -0,0 +1,600 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alipay.application.share.vo.resource.IngestSpoolStatusVO;
+import com.alipay.common.exception.IngestQueueFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+ *@title ResourceIngestSpool
+ *@description Write-ahead spool of the collector pushes on local disk. A push is appended to the current segment
+ * file before it is acknowledged and marked done once it is written to the database. The pushes whose write failed
+ * and the ones found in the segments on startup are applied again in the order they were appended, a segment is
+ * deleted when none of its pushes is pending. A push that fails does not hold back the ones after it, it is tried
+ * again on the next replays and moved to the dead-letter file after the maximum attempts. The replay does not order
+ * a push against the ones written since, the writer gets the sequence to drop a replay a newer push overtook. A push
+ * is written at least once, a crash between the write and the done mark writes it again
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/31 16:40
+ */
+@Slf4j
+@Component
+public class ResourceIngestSpool {
+
+    @Resource
+    private ResourceIngestSpoolProperties resourceIngestSpoolProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private static final byte PENDING = 0;
+
+    private static final byte DONE = 1;
+
+    /**
+     * payload length, state, append time and CRC32 of the append time and the payload
+     */
+    private static final int RECORD_HEADER_BYTES = 4 + 1 + 8 + 8;
+
+    /**
+     * key groups the pushes, e.g. by cloud account, null if it is unknown
+     */
+    private record Entry(long segment, long offset, int length, long appendedAt, String key) {
+
+        long bytes() {
+            return RECORD_HEADER_BYTES + length;
+        }
+    }
+
+    private record Record(byte state, long appendedAt, byte[] payload) {
+    }
+
+    /**
+     * pushes not written yet by sequence, the sequence follows the order of the appends
+     */
+    private final NavigableMap<Long, Entry> pending = new TreeMap<>();
+
+    /**
+     * pending pushes a queue worker or the replayer is writing
+     */
+    private final Set<Long> inFlight = new HashSet<>();
+
+    /**
+     * segment files by the sequence they start at, with their size
+     */
+    private final NavigableMap<Long, Long> segments = new TreeMap<>();
+
+    private final Map<Long, Integer> pendingPerSegment = new HashMap<>();
+
+    private final Map<String, Integer> pendingPerKey = new HashMap<>();
+
+    /**
+     * failed replays of the pending pushes
+     */
+    private final Map<Long, Integer> attempts = new HashMap<>();
+
+    private final Object replayLock = new Object();
+
+    private Path dir;
+
+    private FileChannel active;
+
+    private long activeSegment = -1L;
+
+    private long nextSequence;
+
+    private long totalBytes;
+
+    private long pendingBytes;
+
+    private ObjLongConsumer<String> writer;
+
+    private Function<String, String> keyOf;
+
+    private ScheduledExecutorService replayer;
+
+    public boolean isEnabled() {
+        return resourceIngestSpoolProperties.isEnabled();
+    }
+
+    /**
+     * Load the pending pushes of the segments on disk and start replaying them
+     *
+     * @param writer writes a push with its sequence, throws when it cannot be written
+     * @param keyOf  key of a push recovered from disk, the one given to {@link #append} when it was spooled
+     */
+    public synchronized void start(ObjLongConsumer<String> writer, Function<String, String> keyOf) {
+        if (!isEnabled() || this.writer != null) {
+            return;
+        }
+        this.writer = writer;
+        this.keyOf = keyOf;
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("resource ingest spool cannot be read, dir:" + resourceIngestSpoolProperties.getDir(), e);
+        }
+
+        Gauge.builder("cloudrec.ingest.spool.pending.bytes", this, spool -> spool.status().getPendingBytes())
+                .description("Bytes of the spooled pushes not written to the database yet")
+                .register(meterRegistry);
+        Gauge.builder("cloudrec.ingest.spool.dead_letter.bytes", this, spool -> spool.status().getDeadLetterBytes())
+                .description("Bytes of the pushes moved to the dead-letter file")
+                .register(meterRegistry);
+        Gauge.builder("cloudrec.ingest.spool.oldest.age", this, spool -> spool.status().getOldestEntryAgeMs() / 1000.0)
+                .description("Seconds since the oldest pending push was spooled")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        long interval = Math.max(100L, resourceIngestSpoolProperties.getReplayIntervalMs());
+        replayer = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "ResourceIngestSpoolReplay"));
+        replayer.scheduleWithFixedDelay(() -> {
+            try {
+                replay();
+            } catch (Exception e) {
+                log.error("Replay of the resource ingest spool failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sequence the next append gets, the pushes appended so far are older than a push written now without the spool
+     */
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Append a push, it is pending and in flight until it is completed or released
+     *
+     * @param key key the pending pushes are counted by, see {@link #pending}
+     * @return the sequence of the push
+     * @throws IngestQueueFullException if the spool reached its size cap
+     */
+    public synchronized long append(String key, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        long recordBytes = RECORD_HEADER_BYTES + bytes.length;
+        if (totalBytes + recordBytes > resourceIngestSpoolProperties.getMaxBytes()) {
+            meterRegistry.counter("cloudrec.ingest.spool.rejected").increment();
+            log.warn("Resource ingest spool is full, pendingBytes:{}, totalBytes:{}", pendingBytes, totalBytes);
+            throw new IngestQueueFullException("resource ingest spool is full", resourceIngestSpoolProperties.getRetryAfterSeconds());
+        }
+
+        try {
+            if (active == null || segments.get(activeSegment) >= resourceIngestSpoolProperties.getSegmentBytes()) {
+                roll();
+            }
+            long offset = segments.get(activeSegment);
+            long appendedAt = System.currentTimeMillis();
+            ByteBuffer buffer = ByteBuffer.allocate((int) recordBytes);
+            buffer.putInt(bytes.length).put(PENDING).putLong(appendedAt).putLong(checksum(appendedAt, bytes)).put(bytes);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                active.write(buffer, offset + buffer.position());
+            }
+            if (resourceIngestSpoolProperties.isFsync()) {
+                active.force(false);
+            }
+
+            long sequence = nextSequence++;
+            pending.put(sequence, new Entry(activeSegment, offset, bytes.length, appendedAt, key));
+            inFlight.add(sequence);
+            pendingPerSegment.merge(activeSegment, 1, Integer::sum);
+            countKey(key, 1);
+            segments.put(activeSegment, offset + recordBytes);
+            totalBytes += recordBytes;
+            pendingBytes += recordBytes;
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("append to the resource ingest spool failed", e);
+        }
+    }
+
+    /**
+     * The push is written or given up, it is marked done and its segment deleted once nothing in it is pending
+     */
+    public synchronized void complete(long sequence) {
+        inFlight.remove(sequence);
+        attempts.remove(sequence);
+        Entry entry = pending.remove(sequence);
+        if (entry == null) {
+            return;
+        }
+        pendingBytes -= entry.bytes();
+        countKey(entry.key(), -1);
+
+        int left = pendingPerSegment.merge(entry.segment(), -1, Integer::sum);
+        if (left > 0 || entry.segment() == activeSegment) {
+            if (left == 0) {
+                pendingPerSegment.remove(entry.segment());
+            }
+            markDone(entry);
+            return;
+        }
+        pendingPerSegment.remove(entry.segment());
+        deleteSegment(entry.segment());
+    }
+
+    /**
+     * The write of the push failed, the replayer applies it again
+     */
+    public synchronized void release(long sequence) {
+        inFlight.remove(sequence);
+    }
+
+    /**
+     * Apply the pending pushes nobody is writing in the order they were appended. A failed push is left for the next
+     * replay, or moved to the dead-letter file once it failed the maximum attempts
+     *
+     * @return the pushes written
+     */
+    int replay() {
+        synchronized (replayLock) {
+            int applied = 0;
+            for (Long sequence : replayable()) {
+                Entry entry = claim(sequence);
+                if (entry == null) {
+                    continue;
+                }
+
+                String payload;
+                try {
+                    payload = read(entry);
+                } catch (IOException e) {
+                    log.error("Spooled push {} cannot be read and is dropped, segment:{}, offset:{}", sequence,
+                            entry.segment(), entry.offset(), e);
+                    meterRegistry.counter("cloudrec.ingest.spool.corrupt").increment();
+                    complete(sequence);
+                    continue;
+                }
+
+                try {
+                    writer.accept(payload, sequence);
+                } catch (Exception e) {
+                    failed(sequence, entry, e);
+                    continue;
+                }
+                complete(sequence);
+                applied++;
+            }
+            if (applied > 0) {
+                meterRegistry.counter("cloudrec.ingest.spool.replayed").increment(applied);
+                log.info("Replayed {} pushes of the resource ingest spool", applied);
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Pushes of a key not written yet
+     */
+    public synchronized int pending(String key) {
+        return pendingPerKey.getOrDefault(key, 0);
+    }
+
+    /**
+     * Count a failed replay, a push that failed the maximum attempts is moved to the dead-letter file
+     */
+    private synchronized void failed(long sequence, Entry entry, Exception e) {
+        int failures = attempts.merge(sequence, 1, Integer::sum);
+        if (failures < Math.max(1, resourceIngestSpoolProperties.getMaxReplayAttempts())) {
+            release(sequence);
+            log.warn("Replay of push {} of the resource ingest spool failed {} times: {}", sequence, failures,
+                    e.getMessage());
+            return;
+        }
+
+        try {
+            deadLetter(entry);
+        } catch (IOException io) {
+            // the push stays pending and is tried again, nothing is lost
+            release(sequence);
+            log.error("Push {} of the resource ingest spool cannot be moved to the dead-letter file", sequence, io);
+            return;
+        }
+        meterRegistry.counter("cloudrec.ingest.spool.dead_lettered").increment();
+        log.error("Push {} of the resource ingest spool failed {} times and is moved to {}: {}", sequence, failures,
+                dir.resolve(DEAD_LETTER_FILE), e.getMessage());
+        complete(sequence);
+    }
+
+    /**
+     * Copy the record of the push to the end of the dead-letter file
+     */
+    private void deadLetter(Entry entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate((int) entry.bytes());
+        try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.READ)) {
+            readFully(channel, record, entry.offset());
+        }
+        try (FileChannel channel = FileChannel.open(dir.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (resourceIngestSpoolProperties.isFsync()) {
+                channel.force(false);
+            }
+        }
+    }
+
+    public synchronized IngestSpoolStatusVO status() {
+        IngestSpoolStatusVO vo = new IngestSpoolStatusVO();
+        vo.setEnabled(isEnabled());
+        vo.setPendingEntries(pending.size());
+        vo.setInFlightEntries(inFlight.size());
+        vo.setPendingBytes(pendingBytes);
+        vo.setTotalBytes(totalBytes);
+        vo.setMaxBytes(resourceIngestSpoolProperties.getMaxBytes());
+        vo.setSegments(segments.size());
+        long oldest = pending.values().stream().mapToLong(Entry::appendedAt).min().orElse(System.currentTimeMillis());
+        vo.setOldestEntryAgeMs(Math.max(0L, System.currentTimeMillis() - oldest));
+        try {
+            Path deadLetter = dir == null ? null : dir.resolve(DEAD_LETTER_FILE);
+            vo.setDeadLetterBytes(deadLetter != null && Files.exists(deadLetter) ? Files.size(deadLetter) : 0L);
+        } catch (IOException e) {
+            vo.setDeadLetterBytes(0L);
+        }
+        return vo;
+    }
+
+    private synchronized List<Long> replayable() {
+        List<Long> sequences = new ArrayList<>();
+        for (Long sequence : pending.keySet()) {
+            if (!inFlight.contains(sequence)) {
+                sequences.add(sequence);
+            }
+        }
+        return sequences;
+    }
+
+    private synchronized Entry claim(long sequence) {
+        Entry entry = pending.get(sequence);
+        if (entry == null || !inFlight.add(sequence)) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Read the segments in order, the sequence continues over the done records so the new segments sort after the
+     * old ones. A segment is cut at its first torn or corrupt record, the tail of a crash in the middle of an append
+     */
+    private synchronized void recover() throws IOException {
+        dir = Paths.get(resourceIngestSpoolProperties.getDir());
+        Files.createDirectories(dir);
+
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        ids.sort(null);
+
+        long sequence = 0;
+        for (long id : ids) {
+            sequence = Math.max(sequence, id);
+            int count = 0;
+            long offset = 0;
+            try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                Record record;
+                while ((record = readRecord(channel, offset, size)) != null) {
+                    if (record.state() == PENDING) {
+                        Entry entry = new Entry(id, offset, record.payload().length, record.appendedAt(),
+                                keyOf(record.payload()));
+                        pending.put(sequence, entry);
+                        pendingBytes += entry.bytes();
+                        countKey(entry.key(), 1);
+                        count++;
+                    }
+                    sequence++;
+                    offset += RECORD_HEADER_BYTES + record.payload().length;
+                }
+                if (offset < size) {
+                    log.warn("Segment {} of the resource ingest spool is cut at {} of {} bytes", id, offset, size);
+                    meterRegistry.counter("cloudrec.ingest.spool.corrupt").increment();
+                    channel.truncate(offset);
+                }
+            }
+
+            if (count == 0) {
+                Files.deleteIfExists(segmentPath(id));
+                continue;
+            }
+            segments.put(id, offset);
+            pendingPerSegment.put(id, count);
+            totalBytes += offset;
+        }
+        nextSequence = sequence;
+        log.info("Resource ingest spool recovered, dir:{}, segments:{}, pending:{}, pendingBytes:{}",
+                dir.toAbsolutePath(), segments.size(), pending.size(), pendingBytes);
+    }
+
+    private String keyOf(byte[] payload) {
+        try {
+            return keyOf.apply(new String(payload, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            // the replay reports the push that cannot be parsed
+            return null;
+        }
+    }
+
+    private void countKey(String key, int delta) {
+        if (key != null && pendingPerKey.merge(key, delta, Integer::sum) <= 0) {
+            pendingPerKey.remove(key);
+        }
+    }
+
+    /**
+     * Close the current segment, delete it if nothing in it is pending, and start a new one
+     */
+    private void roll() throws IOException {
+        if (active != null) {
+            long previous = activeSegment;
+            active.close();
+            active = null;
+            activeSegment = -1L;
+            if (!pendingPerSegment.containsKey(previous)) {
+                deleteSegment(previous);
+            }
+        }
+        long id = nextSequence;
+        active = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = id;
+        segments.put(id, 0L);
+    }
+
+    private void deleteSegment(long id) {
+        if (id == activeSegment) {
+            return;
+        }
+        Long size = segments.remove(id);
+        totalBytes -= size == null ? 0L : size;
+        try {
+            Files.deleteIfExists(segmentPath(id));
+        } catch (IOException e) {
+            log.warn("Segment {} of the resource ingest spool cannot be deleted", id, e);
+        }
+    }
+
+    /**
+     * A lost mark only makes the push written again
+     */
+    private void markDone(Entry entry) {
+        ByteBuffer state = ByteBuffer.wrap(new byte[]{DONE});
+        try {
+            if (entry.segment() == activeSegment) {
+                active.write(state, entry.offset() + 4);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.WRITE)) {
+                channel.write(state, entry.offset() + 4);
+            }
+        } catch (IOException e) {
+            log.warn("Done mark of segment {} offset {} failed", entry.segment(), entry.offset(), e);
+        }
+    }
+
+    private String read(Entry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.READ)) {
+            Record record = readRecord(channel, entry.offset(), channel.size());
+            if (record == null || record.payload().length != entry.length()) {
+                throw new IOException("checksum mismatch");
+            }
+            return new String(record.payload(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The record at the offset, null if it is torn or its checksum does not match
+     */
+    private static Record readRecord(FileChannel channel, long offset, long size) throws IOException {
+        if (offset + RECORD_HEADER_BYTES > size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        readFully(channel, header, offset);
+        int length = header.getInt();
+        byte state = header.get();
+        long appendedAt = header.getLong();
+        long checksum = header.getLong();
+        if (length < 0 || offset + RECORD_HEADER_BYTES + length > size || (state != PENDING && state != DONE)) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+        if (checksum(appendedAt, payload.array()) != checksum) {
+            return null;
+        }
+        return new Record(state, appendedAt, payload.array());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of segment");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static long checksum(long appendedAt, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(appendedAt).array());
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Stop the replayer, the pending pushes stay in the segments for the next start
+     */
+    @PreDestroy
+    public synchronized void shutdown() throws IOException {
+        if (replayer != null) {
+            replayer.shutdownNow();
+        }
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+        activeSegment = -1L;
+        log.info("Resource ingest spool stopped, pending:{}, pendingBytes:{}", pending.size(), pendingBytes);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the local write-ahead spool of the collector pushes
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "resource.ingest.spool")
+public class ResourceIngestSpoolProperties {
+
+    /**
+     * Append every accepted push to the spool before acknowledging it, it is removed once written to the database.
+     * False writes every push before acknowledging it and retries a failed write a few times in memory
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directory of the segment files, it has to survive a restart of the application
+     * Default: data/ingest-spool
+     */
+    private String dir = "data/ingest-spool";
+
+    /**
+     * Bytes of all segment files, a push above it is answered with 429 and a Retry-After hint
+     * Default: 1 GB
+     */
+    private long maxBytes = 1024L * 1024 * 1024;
+
+    /**
+     * Size at which the segment being appended to is closed and a new one started
+     * Default: 64 MB
+     */
+    private long segmentBytes = 64L * 1024 * 1024;
+
+    /**
+     * Force every append to disk before acknowledging the push, false leaves it to the operating system
+     * Default: true
+     */
+    private boolean fsync = true;
+
+    /**
+     * Interval at which the pushes whose write failed, or that were spooled before a restart, are applied again
+     * Default: 10 seconds
+     */
+    private long replayIntervalMs = 10 * 1000L;
+
+    /**
+     * Failed replays after which a push is moved to the dead-letter file of the spool dir, so it does not hold the
+     * spool space. The file has the format of the segments and is left to the operator
+     * Default: 10
+     */
+    private int maxReplayAttempts = 10;
+
+    /**
+     * Retry-After hint of a push rejected because the spool is full
+     * Default: 60 seconds
+     */
+    private long retryAfterSeconds = 60L;
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alipay.application.share.vo.resource.InstanceStorageReportVO;
+import com.alipay.common.exception.BizException;
+import com.alipay.dao.converter.InstanceDocumentCodec;
+import com.alipay.dao.mapper.CloudResourceInstanceMapper;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ *@title ResourceInstanceCompressor
+ *@description Migration of the instance documents stored as plain json to the compressed column, and the report of
+ * the bytes it saved. A run can be stopped at any row and started again, it only reads the rows still stored plain
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 10:20
+ */
+@Slf4j
+@Component
+public class ResourceInstanceCompressor {
+
+    @Resource
+    private CloudResourceInstanceMapper cloudResourceInstanceMapper;
+
+    @Resource
+    private ResourceInstanceStorageProperties resourceInstanceStorageProperties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Compress up to maxRows plain documents, all of them when maxRows is null
+     *
+     * @return the rows compressed
+     */
+    public long migrate(Long maxRows) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BizException("The instance compression migration is already running");
+        }
+        try {
+            int batchSize = Math.max(1, resourceInstanceStorageProperties.getMigrationBatchSize());
+            int level = resourceInstanceStorageProperties.getCompressionLevel();
+            long migrated = 0;
+            long skipped = 0;
+            long scrollId = 0L;
+            while (maxRows == null || migrated < maxRows) {
+                List<CloudResourceInstancePO> list = cloudResourceInstanceMapper.findPlainInstanceWithScrollId(scrollId, batchSize);
+                if (CollectionUtils.isEmpty(list)) {
+                    break;
+                }
+                for (CloudResourceInstancePO po : list) {
+                    if (maxRows != null && migrated >= maxRows) {
+                        break;
+                    }
+                    byte[] plain = po.getInstance().getBytes(StandardCharsets.UTF_8);
+                    byte[] compressed = InstanceDocumentCodec.encode(plain, level);
+                    if (cloudResourceInstanceMapper.compressInstance(po.getId(), po.getInstance(), compressed, plain.length) > 0) {
+                        migrated++;
+                    } else {
+                        skipped++;
+                    }
+                }
+                if (list.size() < batchSize) {
+                    break;
+                }
+                scrollId = list.get(list.size() - 1).getId();
+            }
+            log.info("Instance compression migration compressed {} rows, {} rows changed while being read", migrated, skipped);
+            return migrated;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public InstanceStorageReportVO report(String platform) {
+        List<InstanceStorageReportVO.ResourceTypeStorage> resourceTypes = cloudResourceInstanceMapper.findInstanceStorageStat(platform)
+                .stream().map(InstanceStorageReportVO.ResourceTypeStorage::build).toList();
+        InstanceStorageReportVO reportVO = new InstanceStorageReportVO();
+        reportVO.setCompressEnabled(resourceInstanceStorageProperties.isCompress());
+        reportVO.setResourceTypes(resourceTypes);
+        reportVO.setPlainRows(resourceTypes.stream().mapToLong(e -> e.getRows() - e.getCompressedRows()).sum());
+        reportVO.setSavedBytes(resourceTypes.stream().mapToLong(InstanceStorageReportVO.ResourceTypeStorage::getSavedBytes).sum());
+        return reportVO;
+    }
+}
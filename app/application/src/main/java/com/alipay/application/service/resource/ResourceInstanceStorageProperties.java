@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for storing the instance documents of the resources
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "resource.instance-storage")
+public class ResourceInstanceStorageProperties {
+
+    /**
+     * Write the instance document of new and changed resources zstd compressed, rows stored either way stay readable
+     * Default: false
+     */
+    private boolean compress = false;
+
+    /**
+     * zstd level of the compressed documents, higher levels save a little more for a lot more CPU
+     * Default: 3
+     */
+    private int compressionLevel = 3;
+
+    /**
+     * Rows read per statement by the migration that compresses the stored documents
+     * Default: 200
+     */
+    private int migrationBatchSize = 200;
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.application.share.request.resource.ResourceInstance;
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/*
+ *@title ResourceStreamReader
+ *@description Reader of a streamed collector push: NDJSON, optionally gzip or zstd compressed. The first line is the
+ * header, a {@link DataPushRequest.Data} without resourceInstancesAll, every following line is one
+ * {@link ResourceInstance}. The instances are read in chunks, a push never has to fit in memory
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/31 16:10
+ */
+public class ResourceStreamReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    private int lineNumber;
+
+    /**
+     * @param contentEncoding Content-Encoding of the request: gzip, zstd, identity or none
+     */
+    public ResourceStreamReader(InputStream body, String contentEncoding) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(decode(body, contentEncoding), StandardCharsets.UTF_8));
+    }
+
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        String encoding = StringUtils.trimToEmpty(contentEncoding).toLowerCase();
+        return switch (encoding) {
+            case "", "identity" -> body;
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, 64 * 1024);
+            case "zstd" -> new ZstdInputStream(body);
+            default -> throw new IllegalArgumentException("unsupported Content-Encoding: " + contentEncoding);
+        };
+    }
+
+    /**
+     * Read the header line
+     *
+     * @throws IllegalArgumentException if the header is missing or incomplete
+     */
+    public DataPushRequest.Data readHeader() throws IOException {
+        String line = nextLine();
+        if (line == null) {
+            throw new IllegalArgumentException("empty push, the header line is missing");
+        }
+        DataPushRequest.Data header = JSON.parseObject(line, DataPushRequest.Data.class);
+        if (StringUtils.isAnyBlank(header.getVersion(), header.getCloudAccountId(), header.getPlatform(),
+                header.getResourceType())) {
+            throw new IllegalArgumentException("header needs version, cloudAccountId, platform and resourceType");
+        }
+        header.setResourceInstancesAll(null);
+        return header;
+    }
+
+    /**
+     * Read up to size instances
+     *
+     * @return the instances, empty at the end of the push
+     */
+    public List<ResourceInstance> readChunk(int size) throws IOException {
+        List<ResourceInstance> chunk = new ArrayList<>(size);
+        String line;
+        while (chunk.size() < size && (line = nextLine()) != null) {
+            try {
+                chunk.add(JSON.parseObject(line, ResourceInstance.class));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("invalid resource instance on line " + lineNumber, e);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Next non-blank line
+     */
+    private String nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -17,8 +17,11 @@
 package com.alipay.application.service.resource;
 
 import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.application.share.vo.collector.ResourceManifestVO;
+import com.alipay.application.share.vo.resource.ResourceIngestResultVO;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 /*
  *@title SaveResouceService
@@ -30,11 +33,31 @@ import java.io.IOException;
 public interface SaveResourceService {
 
 
-    void saveOrUpdateData(DataPushRequest.Data dataPushRequest)
+    ResourceIngestResultVO saveOrUpdateData(DataPushRequest.Data dataPushRequest)
             throws IOException, InterruptedException;
 
 
-    void acceptResourceData(DataPushRequest dataPushRequest) throws InterruptedException;
+    ResourceIngestResultVO acceptResourceData(DataPushRequest dataPushRequest);
+
+
+    /**
+     * Write a streamed push chunk by chunk while it is read, see {@link ResourceStreamReader} for the format
+     *
+     * @param contentEncoding gzip, zstd or none
+     */
+    ResourceIngestResultVO acceptResourceStream(InputStream body, String contentEncoding) throws IOException;
+
+
+    /**
+     * Stored resource ids and content fingerprints of a resource type of an account, for the delta push
+     */
+    ResourceManifestVO queryResourceManifest(String cloudAccountId, String resourceType);
+
+
+    /**
+     * Whether pushes of the account were accepted by this node and are not written yet, queued or spooled
+     */
+    boolean hasPendingPushes(String cloudAccountId);
 
 
     void refreshResourceUpdateTime(String cloudAccountId);
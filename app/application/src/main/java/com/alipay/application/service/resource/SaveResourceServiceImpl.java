@@ -19,28 +19,42 @@ package com.alipay.application.service.resource;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.alipay.application.service.collector.SchedulerManager;
+import com.alipay.application.service.resource.job.ClearJob;
 import com.alipay.application.share.request.resource.DataPushRequest;
 import com.alipay.application.share.request.resource.ResourceInstance;
+import com.alipay.application.share.vo.collector.ResourceManifestVO;
+import com.alipay.application.share.vo.resource.ResourceIngestResultVO;
 import com.alipay.common.enums.Status;
+import com.alipay.common.exception.IngestQueueFullException;
 import com.alipay.dao.mapper.CloudAccountMapper;
 import com.alipay.dao.mapper.CloudResourceInstanceMapper;
 import com.alipay.dao.mapper.ResourceDetailConfigMapper;
 import com.alipay.dao.po.CloudAccountPO;
 import com.alipay.dao.po.CloudResourceInstancePO;
 import com.alipay.dao.po.ResourceDetailConfigPO;
+import com.google.common.collect.Iterables;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -59,51 +73,51 @@ public class SaveResourceServiceImpl implements SaveResourceService {
     @Resource
     private AsyncTaskMonitorService asyncTaskMonitorService;
 
+    @Resource
+    private ResourceIngestProperties resourceIngestProperties;
+
+    @Resource
+    private ResourceIngestQueue resourceIngestQueue;
+
+    @Resource
+    private ResourceIngestSpool resourceIngestSpool;
+
+    @Resource
+    private ResourceInstanceStorageProperties resourceInstanceStorageProperties;
+
+    @Resource
+    private ClearJob clearJob;
+
+    /**
+     * streamed pushes written at the same time
+     */
+    private Semaphore streamSlots;
+
+    /**
+     * spool sequence and version of the last push written, by (cloud account, resource type). A streamed push has the
+     * sequence the spool gives next when it starts
+     */
+    private record Written(long sequence, String version) {
+    }
+
+    private final Map<String, Written> lastWritten = new ConcurrentHashMap<>();
+
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final int RETRY_DELAY_SECONDS = 120;
 
-    public void saveOrUpdateData(DataPushRequest.Data dataPushRequest) {
-        saveOrUpdateDataWithRetry(dataPushRequest, 0);
+    public ResourceIngestResultVO saveOrUpdateData(DataPushRequest.Data dataPushRequest) {
+        return saveOrUpdateDataWithRetry(dataPushRequest, 0);
     }
 
-    private void saveOrUpdateDataWithRetry(DataPushRequest.Data dataPushRequest, int retryCount) {
+    private ResourceIngestResultVO saveOrUpdateDataWithRetry(DataPushRequest.Data dataPushRequest, int retryCount) {
         CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(dataPushRequest.getCloudAccountId());
         if (cloudAccountPO == null) {
             log.warn("account not found, cloudAccountId:{}", dataPushRequest.getCloudAccountId());
-            return;
+            return null;
         }
 
         try {
-            for (ResourceInstance resourceInstance : dataPushRequest.getResourceInstancesAll()) {
-                CloudResourceInstancePO cloudResourceInstancePO = cloudResourceInstanceMapper.findOne(dataPushRequest.getPlatform(), dataPushRequest.getResourceType(), dataPushRequest.getCloudAccountId(), resourceInstance.getResourceId());
-                if (cloudResourceInstancePO == null) {
-                    cloudResourceInstancePO = new CloudResourceInstancePO();
-                    cloudResourceInstancePO.setAddress(resourceInstance.getAddress());
-                    cloudResourceInstancePO.setCloudAccountId(dataPushRequest.getCloudAccountId());
-                    cloudResourceInstancePO.setAlias(cloudAccountPO.getAlias());
-                    cloudResourceInstancePO.setResourceType(dataPushRequest.getResourceType());
-                    cloudResourceInstancePO.setPlatform(dataPushRequest.getPlatform());
-                    cloudResourceInstancePO.setResourceId(resourceInstance.getResourceId());
-                    cloudResourceInstancePO.setResourceName(resourceInstance.getResourceName());
-                    cloudResourceInstancePO.setInstance(JSON.toJSONString(resourceInstance.getInstance(), SerializerFeature.WriteMapNullValue));
-                    cloudResourceInstancePO.setVersion(dataPushRequest.getVersion());
-                    cloudResourceInstancePO.setTenantId(cloudAccountPO.getTenantId());
-                    cloudResourceInstancePO.setCustomFieldValue(parseCustomField(cloudResourceInstancePO));
-                    cloudResourceInstanceMapper.insertSelective(cloudResourceInstancePO);
-                } else {
-                    cloudResourceInstancePO.setResourceName(resourceInstance.getResourceName());
-                    cloudResourceInstancePO.setInstance(JSON.toJSONString(resourceInstance.getInstance(), SerializerFeature.WriteMapNullValue));
-                    cloudResourceInstancePO.setAddress(resourceInstance.getAddress());
-                    cloudResourceInstancePO.setVersion(dataPushRequest.getVersion());
-                    cloudResourceInstancePO.setTenantId(cloudAccountPO.getTenantId());
-                    cloudResourceInstancePO.setGmtModified(new Date());
-                    cloudResourceInstancePO.setCustomFieldValue(parseCustomField(cloudResourceInstancePO));
-                    // Clean up pre-delete tags
-                    cloudResourceInstancePO.setDeletedAt(null);
-                    cloudResourceInstancePO.setDelNum(0);
-                    cloudResourceInstanceMapper.updateByPrimaryKeySelective(cloudResourceInstancePO);
-                }
-            }
+            return write(dataPushRequest, cloudAccountPO);
         } catch (Exception e) {
             log.warn("cloud account id :{} save resource instance error, retry count: {}", cloudAccountPO.getCloudAccountId(), retryCount, e);
             if (retryCount < MAX_RETRY_ATTEMPTS) {
@@ -122,34 +136,321 @@ public class SaveResourceServiceImpl implements SaveResourceService {
                 log.error("cloud account id :{} save resource instance failed after {} retries", cloudAccountPO.getCloudAccountId(), MAX_RETRY_ATTEMPTS);
             }
         }
+        return null;
+    }
+
+    /**
+     * Write a spooled push, a failure is thrown so the push stays in the spool
+     */
+    private ResourceIngestResultVO writeSpooled(DataPushRequest.Data dataPushRequest, long spoolSequence) {
+        CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(dataPushRequest.getCloudAccountId());
+        if (cloudAccountPO == null) {
+            log.warn("account not found, cloudAccountId:{}", dataPushRequest.getCloudAccountId());
+            return null;
+        }
+        ResourceIngestResultVO result = write(dataPushRequest, cloudAccountPO);
+        Written written = new Written(spoolSequence, dataPushRequest.getVersion());
+        lastWritten.merge(laneKey(dataPushRequest), written, (a, b) -> a.sequence() >= b.sequence() ? a : b);
+        return result;
+    }
+
+    private static String laneKey(DataPushRequest.Data dataPushRequest) {
+        return dataPushRequest.getCloudAccountId() + "/" + dataPushRequest.getResourceType();
+    }
+
+    private ResourceIngestResultVO write(DataPushRequest.Data dataPushRequest, CloudAccountPO cloudAccountPO) {
+        // The detail configs are the same for all resources of the push
+        List<ResourceDetailConfigPO> detailConfigList = resourceDetailConfigMapper.findList(dataPushRequest.getPlatform(),
+                dataPushRequest.getResourceType(), null, Status.valid.name());
+
+        ResourceIngestResultVO result = new ResourceIngestResultVO();
+        if (dataPushRequest.getResourceInstancesAll() != null) {
+            for (List<ResourceInstance> batch : Iterables.partition(lastByResourceId(dataPushRequest.getResourceInstancesAll()),
+                    resourceIngestProperties.getBatchSize())) {
+                saveOrUpdateBatch(dataPushRequest, cloudAccountPO, detailConfigList, batch, result);
+            }
+        }
+        applyDelta(dataPushRequest, cloudAccountPO, result);
+        return result;
+    }
+
+    /**
+     * Refresh the resources a delta push reports unchanged and delete the ones it reports gone, a full push has
+     * neither. An unchanged resource that is no longer stored is left out of the next manifest and pushed in full
+     */
+    private void applyDelta(DataPushRequest.Data dataPushRequest, CloudAccountPO cloudAccountPO, ResourceIngestResultVO result) {
+        int batchSize = resourceIngestProperties.getBatchSize();
+        if (!CollectionUtils.isEmpty(dataPushRequest.getUnchangedResourceIds())) {
+            Date now = new Date();
+            for (List<String> batch : Iterables.partition(new LinkedHashSet<>(dataPushRequest.getUnchangedResourceIds()), batchSize)) {
+                int refreshed = cloudResourceInstanceMapper.refreshByResourceIdList(dataPushRequest.getPlatform(),
+                        dataPushRequest.getResourceType(), dataPushRequest.getCloudAccountId(), batch,
+                        dataPushRequest.getVersion(), cloudAccountPO.getTenantId(), now);
+                if (refreshed < batch.size()) {
+                    log.info("{} unchanged resources of the delta push are not stored, cloudAccountId:{}, resourceType:{}",
+                            batch.size() - refreshed, dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType());
+                }
+                result.setUnchanged(result.getUnchanged() + refreshed);
+            }
+        }
+
+        if (!CollectionUtils.isEmpty(dataPushRequest.getDeletedResourceIds())) {
+            for (List<String> batch : Iterables.partition(new LinkedHashSet<>(dataPushRequest.getDeletedResourceIds()), batchSize)) {
+                List<Long> idList = cloudResourceInstanceMapper.findIdListByResourceIdList(dataPushRequest.getPlatform(),
+                        dataPushRequest.getResourceType(), dataPushRequest.getCloudAccountId(), batch);
+                if (!idList.isEmpty()) {
+                    clearJob.deleteResources(idList);
+                    result.setDeleted(result.getDeleted() + idList.size());
+                }
+            }
+        }
+    }
+
+    @Override
+    public ResourceManifestVO queryResourceManifest(String cloudAccountId, String resourceType) {
+        ResourceManifestVO manifest = new ResourceManifestVO();
+        manifest.setCloudAccountId(cloudAccountId);
+        manifest.setResourceType(resourceType);
+        manifest.setEnabled(false);
+        manifest.setFingerprints(new HashMap<>());
+        CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(cloudAccountId);
+        if (!resourceIngestProperties.isDeltaEnabled() || cloudAccountPO == null) {
+            return manifest;
+        }
+
+        manifest.setEnabled(true);
+        manifest.setPlatform(cloudAccountPO.getPlatform());
+        for (CloudResourceInstancePO po : cloudResourceInstanceMapper.findManifest(cloudAccountPO.getPlatform(), resourceType, cloudAccountId)) {
+            if (po.getResourceId() != null) {
+                manifest.getFingerprints().put(po.getResourceId(), Objects.toString(po.getContentFingerprint(), ""));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * The push in the data field of a collector request
+     */
+    public static DataPushRequest.Data parseData(String data) {
+        return JSON.parseObject(data, DataPushRequest.Data.class);
+    }
+
+    /**
+     * Instance json stored for a resource, null fields are kept so that the policies see them
+     */
+    public static String instanceJson(ResourceInstance resourceInstance) {
+        return JSON.toJSONString(resourceInstance.getInstance(), SerializerFeature.WriteMapNullValue);
+    }
+
+    /**
+     * A resource pushed twice is written once with its last content
+     */
+    private static Collection<ResourceInstance> lastByResourceId(List<ResourceInstance> resourceInstances) {
+        Map<String, ResourceInstance> resourceInstanceMap = new LinkedHashMap<>();
+        for (ResourceInstance resourceInstance : resourceInstances) {
+            if (resourceInstance != null) {
+                resourceInstanceMap.put(resourceInstance.getResourceId(), resourceInstance);
+            }
+        }
+        return resourceInstanceMap.values();
     }
 
+    /**
+     * Look up the stored rows of a batch with one query, write the new and changed resources with one upsert and
+     * only refresh the version of the unchanged ones
+     */
+    private void saveOrUpdateBatch(DataPushRequest.Data dataPushRequest, CloudAccountPO cloudAccountPO,
+                                   List<ResourceDetailConfigPO> detailConfigList, List<ResourceInstance> batch,
+                                   ResourceIngestResultVO result) {
+        List<String> resourceIdList = batch.stream().map(ResourceInstance::getResourceId).filter(Objects::nonNull).toList();
+        Map<String, CloudResourceInstancePO> storedMap = new HashMap<>();
+        if (!resourceIdList.isEmpty()) {
+            for (CloudResourceInstancePO stored : cloudResourceInstanceMapper.findByResourceIdList(dataPushRequest.getPlatform(),
+                    dataPushRequest.getResourceType(), dataPushRequest.getCloudAccountId(), resourceIdList)) {
+                storedMap.put(stored.getResourceId(), stored);
+            }
+        }
+
+        Date now = new Date();
+        List<CloudResourceInstancePO> changedList = new ArrayList<>();
+        List<Long> unchangedIdList = new ArrayList<>();
+        for (ResourceInstance resourceInstance : batch) {
+            String instance = instanceJson(resourceInstance);
+            String customFieldValue = parseCustomField(instance, detailConfigList);
+            CloudResourceInstancePO stored = storedMap.get(resourceInstance.getResourceId());
+            if (stored != null && isUnchanged(stored, resourceInstance, instance, customFieldValue)) {
+                unchangedIdList.add(stored.getId());
+                continue;
+            }
+
+            CloudResourceInstancePO cloudResourceInstancePO = new CloudResourceInstancePO();
+            cloudResourceInstancePO.setGmtModified(now);
+            cloudResourceInstancePO.setAddress(resourceInstance.getAddress());
+            cloudResourceInstancePO.setCloudAccountId(dataPushRequest.getCloudAccountId());
+            cloudResourceInstancePO.setAlias(cloudAccountPO.getAlias());
+            cloudResourceInstancePO.setResourceType(dataPushRequest.getResourceType());
+            cloudResourceInstancePO.setPlatform(dataPushRequest.getPlatform());
+            cloudResourceInstancePO.setResourceId(resourceInstance.getResourceId());
+            cloudResourceInstancePO.setResourceName(resourceInstance.getResourceName());
+            cloudResourceInstancePO.setInstance(instance);
+            cloudResourceInstancePO.setVersion(dataPushRequest.getVersion());
+            cloudResourceInstancePO.setTenantId(cloudAccountPO.getTenantId());
+            cloudResourceInstancePO.setCustomFieldValue(customFieldValue);
+            cloudResourceInstancePO.setContentFingerprint(resourceInstance.getFingerprint());
+            if (resourceInstanceStorageProperties.isCompress()) {
+                cloudResourceInstancePO.compressInstance(resourceInstanceStorageProperties.getCompressionLevel());
+            }
+            changedList.add(cloudResourceInstancePO);
+            if (stored == null) {
+                result.setInserted(result.getInserted() + 1);
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+            }
+        }
+
+        if (!changedList.isEmpty()) {
+            cloudResourceInstanceMapper.batchUpsert(changedList);
+        }
+        // Clean up pre-delete tags of the unchanged resources as well
+        if (!unchangedIdList.isEmpty()) {
+            cloudResourceInstanceMapper.refreshByIdList(unchangedIdList, dataPushRequest.getVersion(),
+                    cloudAccountPO.getTenantId(), now);
+            result.setUnchanged(result.getUnchanged() + unchangedIdList.size());
+        }
+    }
+
+    /**
+     * Empty name, address and custom field values of the push keep the stored ones, so they are not a change, nor is
+     * a missing fingerprint of a collector without delta support
+     */
+    private static boolean isUnchanged(CloudResourceInstancePO stored, ResourceInstance resourceInstance, String instance,
+                                       String customFieldValue) {
+        return Objects.equals(stored.getInstance(), instance)
+                && (resourceInstance.getResourceName() == null || resourceInstance.getResourceName().equals(stored.getResourceName()))
+                && (resourceInstance.getAddress() == null || resourceInstance.getAddress().equals(stored.getAddress()))
+                && (customFieldValue == null || customFieldValue.equals(stored.getCustomFieldValue()))
+                && (resourceInstance.getFingerprint() == null || resourceInstance.getFingerprint().equals(stored.getContentFingerprint()));
+    }
+
+    @PostConstruct
+    void init() {
+        streamSlots = new Semaphore(Math.max(1, resourceIngestProperties.getStreamMaxConcurrent()));
+        resourceIngestSpool.start(this::replay,
+                payload -> parseData(payload).getCloudAccountId());
+        resourceIngestQueue.start(this::ingest);
+    }
+
+    /**
+     * Spool the push, queue it and acknowledge it. A push is only acknowledged before it is written when it is
+     * spooled, without the spool or the queue it is written before returning and the counts are known
+     *
+     * @throws com.alipay.common.exception.IngestQueueFullException if the spool or the queue of the platform is full
+     */
     @Override
-    public void acceptResourceData(DataPushRequest dataReq) {
+    public ResourceIngestResultVO acceptResourceData(DataPushRequest dataReq) {
         String data = dataReq.getData();
-        DataPushRequest.Data parseObject = JSON.parseObject(data, DataPushRequest.Data.class);
+        DataPushRequest.Data parseObject = parseData(data);
+        long spoolSequence = resourceIngestSpool.isEnabled()
+                ? resourceIngestSpool.append(parseObject.getCloudAccountId(), data) : -1L;
 
+        // the queue is in memory only, a push is acknowledged once queued only if it is on disk as well
+        if (!resourceIngestQueue.isEnabled() || spoolSequence < 0) {
+            return ingest(parseObject, spoolSequence);
+        }
         try {
-            // Process data asynchronously to improve response time
-            saveOrUpdateDataAsync(parseObject);
-        } catch (Exception e) {
-            log.error("acceptResourceData error", e);
-            return;
+            resourceIngestQueue.offer(parseObject, spoolSequence);
+        } catch (IngestQueueFullException e) {
+            // not accepted, the collector pushes it again
+            if (spoolSequence >= 0) {
+                resourceIngestSpool.complete(spoolSequence);
+            }
+            throw e;
         }
-
-        log.info("Resource data accepted for async processing, cloudAccountId: {}, resourceType: {}, platform: {}",
+        log.info("Resource data queued, cloudAccountId: {}, resourceType: {}, platform: {}",
                 parseObject.getCloudAccountId(), parseObject.getResourceType(), parseObject.getPlatform());
+        ResourceIngestResultVO result = new ResourceIngestResultVO();
+        result.setQueued(true);
+        return result;
+    }
+
+    @Override
+    public boolean hasPendingPushes(String cloudAccountId) {
+        return resourceIngestQueue.pending(cloudAccountId) > 0 || resourceIngestSpool.pending(cloudAccountId) > 0;
     }
 
     /**
-     * Asynchronously process resource data to improve API response time
-     * Uses dedicated thread pool for resource data processing with monitoring
+     * The stream is read and written on the request thread in chunks of the batch size, so only one chunk is in
+     * memory. It takes its turn among the queued pushes of its (cloud account, resource type), and a spooled push
+     * older than the stream is not replayed over it. The stream is not spooled: a failed chunk fails the request, the
+     * collector pushes again and the written chunks are upserted again
+     */
+    @Override
+    public ResourceIngestResultVO acceptResourceStream(InputStream body, String contentEncoding) throws IOException {
+        if (!streamSlots.tryAcquire()) {
+            throw new IngestQueueFullException("too many streamed pushes", resourceIngestProperties.getStreamRetryAfterSeconds());
+        }
+        try (ResourceStreamReader reader = new ResourceStreamReader(body, contentEncoding)) {
+            DataPushRequest.Data header = reader.readHeader();
+            CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(header.getCloudAccountId());
+            if (cloudAccountPO == null) {
+                log.warn("account not found, cloudAccountId:{}", header.getCloudAccountId());
+                return null;
+            }
+
+            List<ResourceDetailConfigPO> detailConfigList = resourceDetailConfigMapper.findList(header.getPlatform(),
+                    header.getResourceType(), null, Status.valid.name());
+            ResourceIngestResultVO result = new ResourceIngestResultVO();
+            int batchSize = resourceIngestProperties.getBatchSize();
+            long resources = 0;
+            long spoolSequence = resourceIngestSpool.nextSequence();
+            try (ResourceIngestQueue.Turn ignored = resourceIngestQueue.awaitTurn(header.getCloudAccountId(), header.getResourceType())) {
+                for (List<ResourceInstance> chunk = reader.readChunk(batchSize); !chunk.isEmpty(); chunk = reader.readChunk(batchSize)) {
+                    saveOrUpdateBatch(header, cloudAccountPO, detailConfigList, new ArrayList<>(lastByResourceId(chunk)), result);
+                    resources += chunk.size();
+                }
+                Written written = new Written(spoolSequence, header.getVersion());
+                lastWritten.merge(laneKey(header), written, (a, b) -> a.sequence() >= b.sequence() ? a : b);
+            }
+
+            log.info("Streamed resource data written, cloudAccountId: {}, resourceType: {}, platform: {}, resources: {}, inserted: {}, updated: {}, unchanged: {}",
+                    header.getCloudAccountId(), header.getResourceType(), header.getPlatform(), resources,
+                    result.getInserted(), result.getUpdated(), result.getUnchanged());
+            return result;
+        } finally {
+            streamSlots.release();
+        }
+    }
+
+    /**
+     * Apply a push of the spool, it was spooled before a restart or its first write failed. A push of an older
+     * collection than a push written since is dropped, the pushes of the same collection are written in any order
+     */
+    private void replay(String payload, long spoolSequence) {
+        DataPushRequest.Data dataPushRequest = parseData(payload);
+        Written newer = lastWritten.get(laneKey(dataPushRequest));
+        if (newer != null && newer.sequence() > spoolSequence && !Objects.equals(newer.version(), dataPushRequest.getVersion())) {
+            log.warn("Drop spooled push {} of version {}, push {} of version {} was written since, cloudAccountId: {}, resourceType: {}",
+                    spoolSequence, dataPushRequest.getVersion(), newer.sequence(), newer.version(),
+                    dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType());
+            return;
+        }
+        ResourceIngestResultVO result = writeSpooled(dataPushRequest, spoolSequence);
+        log.info("Replayed spooled push for cloudAccountId: {}, resourceType: {}, platform: {}, inserted: {}, updated: {}, unchanged: {}",
+                dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType(), dataPushRequest.getPlatform(),
+                result == null ? 0 : result.getInserted(), result == null ? 0 : result.getUpdated(),
+                result == null ? 0 : result.getUnchanged());
+    }
+
+    /**
+     * Write a push with monitoring, on a worker of the ingest queue or on the request thread. A spooled push is
+     * completed in the spool once written, a failed one is left to the replayer of the spool, the others are retried
+     * in memory
      *
      * @param dataPushRequest the data to be processed
-     * @return CompletableFuture for async operation tracking
+     * @param spoolSequence   sequence of the push in the spool, -1 when it is not spooled
+     * @return the inserted, updated and unchanged counts, null when the push failed
      */
-    @Async("resourceDataTaskExecutor")
-    public CompletableFuture<Void> saveOrUpdateDataAsync(DataPushRequest.Data dataPushRequest) {
+    private ResourceIngestResultVO ingest(DataPushRequest.Data dataPushRequest, long spoolSequence) {
         String taskId = generateTaskId(dataPushRequest);
 
         // Record task submission for monitoring
@@ -159,27 +460,36 @@ public class SaveResourceServiceImpl implements SaveResourceService {
                 dataPushRequest.getPlatform());
 
         try {
-            log.info("Starting async processing [{}] for cloudAccountId: {}, resourceType: {}, platform: {}",
+            log.info("Starting processing [{}] for cloudAccountId: {}, resourceType: {}, platform: {}",
                     taskId, dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType(), dataPushRequest.getPlatform());
 
-            this.saveOrUpdateData(dataPushRequest);
+            ResourceIngestResultVO result;
+            if (spoolSequence < 0) {
+                result = this.saveOrUpdateData(dataPushRequest);
+            } else {
+                result = writeSpooled(dataPushRequest, spoolSequence);
+                resourceIngestSpool.complete(spoolSequence);
+            }
 
             // Record successful completion
             asyncTaskMonitorService.recordTaskCompletion(taskId);
 
-            log.info("Completed async processing [{}] for cloudAccountId: {}, resourceType: {}, platform: {}",
-                    taskId, dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType(), dataPushRequest.getPlatform());
+            log.info("Completed processing [{}] for cloudAccountId: {}, resourceType: {}, platform: {}, inserted: {}, updated: {}, unchanged: {}",
+                    taskId, dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType(), dataPushRequest.getPlatform(),
+                    result == null ? 0 : result.getInserted(), result == null ? 0 : result.getUpdated(),
+                    result == null ? 0 : result.getUnchanged());
 
-            return CompletableFuture.completedFuture(null);
+            return result;
         } catch (Exception e) {
+            if (spoolSequence >= 0) {
+                resourceIngestSpool.release(spoolSequence);
+            }
             // Record task failure
             asyncTaskMonitorService.recordTaskFailure(taskId, e);
 
-            log.error("Async processing failed [{}] for cloudAccountId: {}, resourceType: {}, platform: {}",
+            log.error("Processing failed [{}] for cloudAccountId: {}, resourceType: {}, platform: {}",
                     taskId, dataPushRequest.getCloudAccountId(), dataPushRequest.getResourceType(), dataPushRequest.getPlatform(), e);
-
-            // Return completed future even on error to prevent blocking
-            return CompletableFuture.completedFuture(null);
+            return null;
         }
     }
 
@@ -213,12 +523,16 @@ public class SaveResourceServiceImpl implements SaveResourceService {
         // Query all configurations
         List<ResourceDetailConfigPO> list = resourceDetailConfigMapper.findList(resourceInstance.getPlatform(),
                 resourceInstance.getResourceType(), null, Status.valid.name());
+        return parseCustomField(resourceInstance.getInstance(), list);
+    }
+
+    private String parseCustomField(String instance, List<ResourceDetailConfigPO> list) {
         if (CollectionUtils.isEmpty(list)) {
             return null;
         }
 
         // Parse asset data
-        Object document = Configuration.defaultConfiguration().jsonProvider().parse(resourceInstance.getInstance());
+        Object document = Configuration.defaultConfiguration().jsonProvider().parse(instance);
         List<String> fieldValueList = getPath(document, list);
         if (CollectionUtils.isEmpty(fieldValueList)) {
             return null;
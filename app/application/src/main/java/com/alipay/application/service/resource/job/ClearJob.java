@@ -16,6 +16,7 @@
  */
 package com.alipay.application.service.resource.job;
 
+import java.util.List;
 
 /*
  *@title ClearJob
@@ -37,6 +38,13 @@ public interface ClearJob {
      */
     void commitDeleteResourceByCloudAccount(String cloudAccountId);
 
+    /**
+     * Delete resources the collector reported as gone, their risks are marked as not existing
+     *
+     * @param idList resource instance id list
+     */
+    void deleteResources(List<Long> idList);
+
     /**
      * 缓存清理
      */
@@ -18,6 +18,7 @@ package com.alipay.application.service.resource.job;
 
 
 import com.alipay.application.service.common.utils.DbCacheUtil;
+import com.alipay.application.service.common.utils.ScanThrottle;
 import com.alipay.application.service.resource.DelResourceService;
 import com.alipay.application.service.risk.RiskStatusManager;
 import com.alipay.application.service.risk.domain.repo.RiskRepository;
@@ -69,6 +70,9 @@ public class ClearJobImpl implements ClearJob {
     @Resource
     private RiskRepository riskRepository;
 
+    @Resource
+    private ScanThrottle scanThrottle;
+
     /**
      * The number of assets deleted at a time
      */
@@ -106,15 +110,9 @@ public class ClearJobImpl implements ClearJob {
                 // idList too large, split and delete
                 List<List<Long>> idListSplit = Lists.partition(idList, 100);
                 for (List<Long> idListSub : idListSplit) {
-                    Thread.sleep(200);
+                    scanThrottle.acquire();
                     // 1. change risk status
-                    ruleScanResultMapper.updateResourceStatus(idListSub, ResourceStatus.not_exist.name());
-                    for (Long id : idListSub) {
-                        CloudResourceInstancePO cloudResourceInstancePO = cloudResourceInstanceMapper.selectByPrimaryKey(id);
-                        if (cloudResourceInstancePO != null) {
-                            riskStatusManager.unrepairedToRepaired(cloudResourceInstancePO.getResourceId(), cloudResourceInstancePO.getResourceType(), cloudResourceInstancePO.getPlatform());
-                        }
-                    }
+                    markNotExist(idListSub);
                     // 2. delete resource
                     cloudResourceInstanceMapper.deletedByIdList(idListSub);
                 }
@@ -133,13 +131,7 @@ public class ClearJobImpl implements ClearJob {
             List<List<Long>> idListSplit = Lists.partition(idList, 300);
             for (List<Long> idListSub : idListSplit) {
                 // 1. change risk status
-                ruleScanResultMapper.updateResourceStatus(idListSub, ResourceStatus.not_exist.name());
-                for (Long id : idListSub) {
-                    CloudResourceInstancePO cloudResourceInstancePO = cloudResourceInstanceMapper.selectByPrimaryKey(id);
-                    if (cloudResourceInstancePO != null) {
-                        riskStatusManager.unrepairedToRepaired(cloudResourceInstancePO.getResourceId(), cloudResourceInstancePO.getResourceType(), cloudResourceInstancePO.getPlatform());
-                    }
-                }
+                markNotExist(idListSub);
             }
 
             // If the deletion mark is not cleared after two pre-deletions, it will be physically deleted directly.
@@ -147,6 +139,22 @@ public class ClearJobImpl implements ClearJob {
         }
     }
 
+    @Override
+    public void deleteResources(List<Long> idList) {
+        for (List<Long> idListSub : Lists.partition(idList, 300)) {
+            markNotExist(idListSub);
+            cloudResourceInstanceMapper.deletedByIdList(idListSub);
+        }
+    }
+
+    private void markNotExist(List<Long> idList) {
+        ruleScanResultMapper.updateResourceStatus(idList, ResourceStatus.not_exist.name());
+        // Only the identity of the resources is needed, not their instance documents
+        for (CloudResourceInstancePO cloudResourceInstancePO : cloudResourceInstanceMapper.findByIdList(idList)) {
+            riskStatusManager.unrepairedToRepaired(cloudResourceInstancePO.getResourceId(), cloudResourceInstancePO.getResourceType(), cloudResourceInstancePO.getPlatform());
+        }
+    }
+
     @Override
     public void cacheClearHandler() {
         dbCacheUtil.clear();
@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource.task;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alipay.application.service.common.utils.SpringUtils;
+import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.share.request.rule.LinkDataParam;
+import com.alipay.common.enums.AssociativeMode;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ *@title LinkedResourceJoiner
+ *@description Hash join of primary resources with their linked resources. The linked resources of a
+ * (platform, linked type, cloud account) are loaded once and indexed by the value of linkedKey2, every primary
+ * resource probes the index with the value of linkedKey1 instead of scanning all linked resources.
+ * Linked documents above the spill threshold are kept in a temp file that is deleted on close
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/9 15:30
+ */
+@Slf4j
+public class LinkedResourceJoiner implements AutoCloseable {
+
+    private final List<LinkDataParam> linkedDataList;
+
+    private final String cloudAccountId;
+
+    private final IQueryResource iQueryResource;
+
+    private final ResourceJoinProperties properties;
+
+    /**
+     * Indexes of the linked data list, by platform of the primary resources
+     */
+    private final Map<String, List<LinkIndex>> indexesByPlatform = new HashMap<>();
+
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+
+    public LinkedResourceJoiner(List<LinkDataParam> linkedDataList, String cloudAccountId,
+                                IQueryResource iQueryResource, ResourceJoinProperties properties) {
+        this.linkedDataList = linkedDataList;
+        this.cloudAccountId = cloudAccountId;
+        this.iQueryResource = iQueryResource;
+        this.properties = properties;
+    }
+
+    /**
+     * Open a joiner with the beans of the application context, close it after the last merge
+     */
+    public static LinkedResourceJoiner open(List<LinkDataParam> linkedDataList, String cloudAccountId) {
+        return new LinkedResourceJoiner(linkedDataList, cloudAccountId,
+                SpringUtils.getApplicationContext().getBean(IQueryResource.class),
+                SpringUtils.getApplicationContext().getBean(ResourceJoinProperties.class));
+    }
+
+    /**
+     * Mount the linked resources on the primary resources, the instance json of the primary resources is replaced
+     *
+     * @param orgInstanceData primary resources of one platform and cloud account
+     * @return the primary resources
+     */
+    public List<CloudResourceInstancePO> merge(List<CloudResourceInstancePO> orgInstanceData) {
+        if (orgInstanceData == null || orgInstanceData.isEmpty()) {
+            return orgInstanceData;
+        }
+        if (linkedDataList == null || linkedDataList.isEmpty()) {
+            return orgInstanceData;
+        }
+
+        List<LinkIndex> indexes;
+        try {
+            indexes = indexes(orgInstanceData.get(0).getPlatform());
+        } catch (Exception e) {
+            log.error("resource mergeJson error", e);
+            return orgInstanceData;
+        }
+
+        // Turn on concurrent task
+        Configuration config = Configuration.defaultConfiguration();
+        orgInstanceData.parallelStream().forEach(instance -> {
+            try {
+                log.info("resourceId {} start query...", instance.getResourceId());
+                DocumentContext context = JsonPath.using(config).parse(instance.getInstance());
+                for (LinkIndex index : indexes) {
+                    mergeOne(instance, context, index);
+                }
+                log.info("resourceId {} end query !!!", instance.getResourceId());
+            } catch (Exception e) {
+                List<String> list = linkedDataList.stream().map(l -> l == null ? null : l.getLinkedKey1()).toList();
+                List<String> list2 = linkedDataList.stream().map(l -> l == null ? null : l.getLinkedKey2()).toList();
+                log.error("resource mergeJson error,linkedKey1:{} linkedKey2:{} resourceId:{}", list, list2,
+                        instance.getResourceId(), e);
+            }
+        });
+        return orgInstanceData;
+    }
+
+    private void mergeOne(CloudResourceInstancePO instance, DocumentContext context, LinkIndex index) {
+        LinkDataParam linkedData = index.linkedData;
+        List<Object> newArrayData = new ArrayList<>();
+        Object newObjData = null;
+
+        if (Objects.equals(linkedData.getAssociativeMode(), AssociativeMode.MANY_TO_ONE.getName())) {
+            // 无关联字段，直接将关联资产挂载到主资产上
+            if (index.first != null) {
+                newObjData = JSON.parseObject(index.document(index.first));
+            }
+        } else {
+            String linkedKey1 = linkedData.getLinkedKey1();
+            if (linkedKey1 == null) {
+                log.warn("linkedKey1 is null, skipping");
+                return;
+            }
+
+            Object primaryDataValue;
+            try {
+                primaryDataValue = context.read(linkedKey1);
+            } catch (Exception e) {
+                log.warn("primaryDataValue is null, linkedKey:{}", linkedKey1, e);
+                return;
+            }
+
+            if (primaryDataValue instanceof List<?> primaryDataValueList) {
+                // 主资产的值为数组时，挂载值包含在数组中的关联资产，按关联资产的顺序最多挂载数组长度条
+                for (Entry entry : index.probeAll(primaryDataValueList)) {
+                    newArrayData.add(JSON.parseObject(index.document(entry)));
+                }
+            } else {
+                Entry entry = index.probe(String.valueOf(primaryDataValue));
+                if (entry != null) {
+                    if (Objects.equals(linkedData.getAssociativeMode(), AssociativeMode.ONE_TO_ONE.getName())) {
+                        newObjData = JSON.parseObject(index.document(entry));
+                    } else {
+                        newArrayData.add(JSON.parseObject(index.document(entry)));
+                    }
+                }
+            }
+        }
+
+        String newKeyName = linkedData.getNewKeyName();
+        if (newKeyName == null) {
+            log.warn("newKeyName is null, skipping");
+            return;
+        }
+
+        Map<String, Object> map = context.json();
+        if (newObjData != null) {
+            map.put(newKeyName, newObjData);
+        } else if (!newArrayData.isEmpty()) {
+            map.put(newKeyName, newArrayData);
+        } else {
+            map.put(newKeyName, null);
+        }
+        instance.setInstance(JSON.toJSONString(map, SerializerFeature.WriteMapNullValue));
+    }
+
+    private synchronized List<LinkIndex> indexes(String platform) {
+        List<LinkIndex> indexes = indexesByPlatform.get(platform);
+        if (indexes != null) {
+            return indexes;
+        }
+        indexes = new ArrayList<>();
+        for (LinkDataParam linkedData : linkedDataList) {
+            // Check if linkedData and its resourceType are valid
+            if (linkedData == null || linkedData.getResourceType() == null || linkedData.getResourceType().size() < 2) {
+                log.warn("Invalid linkedData or resourceType, skipping this linkedData");
+                continue;
+            }
+            indexes.add(build(platform, linkedData));
+        }
+        indexesByPlatform.put(platform, indexes);
+        return indexes;
+    }
+
+    private LinkIndex build(String platform, LinkDataParam linkedData) {
+        long start = System.currentTimeMillis();
+        String resourceType = linkedData.getResourceType().get(1);
+        boolean manyToOne = Objects.equals(linkedData.getAssociativeMode(), AssociativeMode.MANY_TO_ONE.getName());
+        JsonPath linkedKey2 = null;
+        if (!manyToOne && linkedData.getLinkedKey2() != null) {
+            try {
+                linkedKey2 = JsonPath.compile(linkedData.getLinkedKey2());
+            } catch (Exception e) {
+                log.warn("Invalid linkedKey2:{}", linkedData.getLinkedKey2(), e);
+            }
+        }
+
+        LinkIndex index = new LinkIndex(linkedData);
+        int seq = 0;
+        long scrollId = 0L;
+        while (true) {
+            List<CloudResourceInstancePO> page = iQueryResource.queryByCond(platform, resourceType, cloudAccountId,
+                    scrollId, properties.getPageSize());
+            for (CloudResourceInstancePO linkedInstance : page) {
+                int entrySeq = seq++;
+                if (manyToOne) {
+                    // only the first linked resource is mounted
+                    if (entrySeq == 0 && linkedInstance != null && linkedInstance.getInstance() != null) {
+                        index.first = store(index, entrySeq, linkedInstance.getInstance());
+                    }
+                    continue;
+                }
+                if (linkedKey2 == null || linkedInstance == null || linkedInstance.getInstance() == null) {
+                    continue;
+                }
+
+                Object linkedDataValue;
+                try {
+                    Object linkedDocument = Configuration.defaultConfiguration().jsonProvider()
+                            .parse(linkedInstance.getInstance());
+                    linkedDataValue = linkedKey2.read(linkedDocument);
+                } catch (Exception e) {
+                    log.warn("linkedDataValue is null, linkedKey:{}", linkedData.getLinkedKey2(), e);
+                    continue;
+                }
+                if (linkedDataValue == null) {
+                    continue;
+                }
+                index.add(String.valueOf(linkedDataValue), store(index, entrySeq, linkedInstance.getInstance()));
+            }
+
+            if (manyToOne || page.size() < properties.getPageSize()) {
+                break;
+            }
+            scrollId = page.get(page.size() - 1).getId();
+        }
+
+        log.info("Linked index built, platform:{}, resourceType:{}, cloudAccountId:{}, linkedResources:{}, keys:{}, spilled:{}, cost:{}ms",
+                platform, resourceType, cloudAccountId, seq, index.entries.size(), index.spillFile != null,
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private Entry store(LinkIndex index, int seq, String document) {
+        Entry entry = new Entry(seq);
+        if (index.spillFile == null && index.memoryBytes + (long) document.length() * 2 > properties.getSpillThresholdBytes()) {
+            spill(index);
+        }
+        if (index.spillFile != null) {
+            index.spillFile.append(entry, document);
+        } else {
+            entry.document = document;
+            index.memoryBytes += (long) document.length() * 2;
+        }
+        return entry;
+    }
+
+    /**
+     * Move the documents of an index to a temp file, the keys and offsets stay in memory
+     */
+    private void spill(LinkIndex index) {
+        SpillFile spillFile = new SpillFile(spillDir());
+        spillFiles.add(spillFile);
+        if (index.first != null) {
+            spillFile.append(index.first, index.first.document);
+            index.first.document = null;
+        }
+        for (List<Entry> entries : index.entries.values()) {
+            for (Entry entry : entries) {
+                spillFile.append(entry, entry.document);
+                entry.document = null;
+            }
+        }
+        index.spillFile = spillFile;
+        index.memoryBytes = 0;
+        log.info("Linked resources of {} spilled to {}", index.linkedData.getNewKeyName(), spillFile.path);
+    }
+
+    private Path spillDir() {
+        return StringUtils.isBlank(properties.getSpillDir()) ? Paths.get(System.getProperty("java.io.tmpdir"))
+                : Paths.get(properties.getSpillDir());
+    }
+
+    @Override
+    public void close() {
+        for (SpillFile spillFile : spillFiles) {
+            spillFile.close();
+        }
+        spillFiles.clear();
+        indexesByPlatform.clear();
+    }
+
+    private static class Entry {
+
+        /**
+         * position of the linked resource in the loaded list
+         */
+        private final int seq;
+
+        private String document;
+
+        private long offset;
+
+        private int length;
+
+        private Entry(int seq) {
+            this.seq = seq;
+        }
+    }
+
+    private static class LinkIndex {
+
+        private final LinkDataParam linkedData;
+
+        /**
+         * linked resources by the string value of linkedKey2, in load order
+         */
+        private final Map<String, List<Entry>> entries = new HashMap<>();
+
+        private Entry first;
+
+        private long memoryBytes;
+
+        private SpillFile spillFile;
+
+        private LinkIndex(LinkDataParam linkedData) {
+            this.linkedData = linkedData;
+        }
+
+        private void add(String key, Entry entry) {
+            entries.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+        }
+
+        private Entry probe(String key) {
+            List<Entry> list = entries.get(key);
+            return list == null ? null : list.get(0);
+        }
+
+        /**
+         * Linked resources whose value is one of the string values, in load order and at most as many as values
+         */
+        private List<Entry> probeAll(List<?> values) {
+            if (values.isEmpty()) {
+                return List.of();
+            }
+            Set<String> keys = new LinkedHashSet<>();
+            for (Object value : values) {
+                if (value instanceof String s) {
+                    keys.add(s);
+                }
+            }
+            List<Entry> matched = new ArrayList<>();
+            for (String key : keys) {
+                List<Entry> list = entries.get(key);
+                if (list != null) {
+                    matched.addAll(list);
+                }
+            }
+            if (keys.size() > 1) {
+                matched.sort(Comparator.comparingInt(e -> e.seq));
+            }
+            return matched.size() > values.size() ? matched.subList(0, values.size()) : matched;
+        }
+
+        private String document(Entry entry) {
+            return entry.document != null ? entry.document : spillFile.read(entry);
+        }
+    }
+
+    private static class SpillFile {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private SpillFile(Path dir) {
+            try {
+                Files.createDirectories(dir);
+                this.path = Files.createTempFile(dir, "cloudrec-join-", ".spill");
+                this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create spill file in " + dir, e);
+            }
+        }
+
+        private void append(Entry entry, String document) {
+            byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, size + buffer.position());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write spill file " + path, e);
+            }
+            entry.offset = size;
+            entry.length = bytes.length;
+            size += bytes.length;
+        }
+
+        /**
+         * Positional reads, safe for concurrent probes
+         */
+        private String read(Entry entry) {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of spill file");
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read spill file " + path, e);
+            }
+            return new String(buffer.array(), StandardCharsets.UTF_8);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close spill file {}", path, e);
+            }
+        }
+    }
+}
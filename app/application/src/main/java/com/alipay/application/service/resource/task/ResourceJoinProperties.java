@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource.task;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for joining linked resources to the primary resources
+ * The linked side is indexed by its join field, its documents are spilled to a temp file when they get too large
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "resource.join")
+public class ResourceJoinProperties {
+
+    /**
+     * Size of the linked documents kept in memory, above it they are spilled to disk
+     * Default: 64 MB
+     */
+    private Long spillThresholdBytes = 64L * 1024 * 1024;
+
+    /**
+     * Directory of the spill files, empty for the system temp directory
+     * Default: empty
+     */
+    private String spillDir = "";
+
+    /**
+     * Page size when loading the linked resources
+     * Default: 1000
+     */
+    private Integer pageSize = 1000;
+}
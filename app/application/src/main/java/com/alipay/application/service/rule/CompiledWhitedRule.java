@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.share.request.rule.WhitedRuleConfigDTO;
+import com.alipay.common.enums.WhitedRuleOperatorEnum;
+import com.alipay.dao.po.RuleScanResultPO;
+import com.alipay.dao.po.WhitedRuleConfigPO;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/*
+ *@title CompiledWhitedRule
+ *@description A rule engine whitelist compiled once into an immutable predicate tree. Conditions read the fields
+ * of RuleScanResultPO through its getters and give the same result as WhitedRuleEngineMatcher.matchWhitelistRule,
+ * which converts the finding to a map and evaluates the condition string for every match
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/30 14:10
+ */
+public final class CompiledWhitedRule {
+
+    /**
+     * Matches nothing, used for a whitelist that cannot be compiled
+     */
+    public static final CompiledWhitedRule NEVER = new CompiledWhitedRule(po -> false);
+
+    /**
+     * Fields of RuleScanResultPO by the key used in the whitelist config, with the string value the finding
+     * has after the JSON round trip of WhitedRuleEngineMatcher.convertObjectToMap
+     */
+    private static final Map<String, Function<RuleScanResultPO, Object>> FIELDS = new HashMap<>();
+
+    static {
+        FIELDS.put("id", RuleScanResultPO::getId);
+        FIELDS.put("gmtCreate", RuleScanResultPO::getGmtCreate);
+        FIELDS.put("gmtModified", RuleScanResultPO::getGmtModified);
+        FIELDS.put("ruleId", RuleScanResultPO::getRuleId);
+        FIELDS.put("cloudAccountId", RuleScanResultPO::getCloudAccountId);
+        FIELDS.put("resourceId", RuleScanResultPO::getResourceId);
+        FIELDS.put("resourceName", RuleScanResultPO::getResourceName);
+        FIELDS.put("updateTime", RuleScanResultPO::getUpdateTime);
+        FIELDS.put("platform", RuleScanResultPO::getPlatform);
+        FIELDS.put("resourceType", RuleScanResultPO::getResourceType);
+        FIELDS.put("region", RuleScanResultPO::getRegion);
+        FIELDS.put("tenantId", RuleScanResultPO::getTenantId);
+        FIELDS.put("version", RuleScanResultPO::getVersion);
+        FIELDS.put("status", RuleScanResultPO::getStatus);
+        FIELDS.put("result", RuleScanResultPO::getResult);
+        FIELDS.put("ruleSnapshoot", RuleScanResultPO::getRuleSnapshoot);
+        FIELDS.put("resourceSnapshoot", RuleScanResultPO::getResourceSnapshoot);
+        FIELDS.put("ignoreReasonType", RuleScanResultPO::getIgnoreReasonType);
+        FIELDS.put("ignoreReason", RuleScanResultPO::getIgnoreReason);
+        FIELDS.put("isNew", RuleScanResultPO::getIsNew);
+        FIELDS.put("cloudResourceInstanceId", RuleScanResultPO::getCloudResourceInstanceId);
+        FIELDS.put("resourceStatus", RuleScanResultPO::getResourceStatus);
+        FIELDS.put("whitedId", RuleScanResultPO::getWhitedId);
+    }
+
+    private final Predicate<RuleScanResultPO> root;
+
+    private CompiledWhitedRule(Predicate<RuleScanResultPO> root) {
+        this.root = root;
+    }
+
+    public boolean matches(RuleScanResultPO ruleScanResultPO) {
+        return ruleScanResultPO != null && root.test(ruleScanResultPO);
+    }
+
+    /**
+     * Compile the rule config of a whitelist
+     *
+     * @throws IllegalArgumentException if the rule config or the condition is not valid
+     */
+    public static CompiledWhitedRule compile(WhitedRuleConfigPO whitedRuleConfigPO) {
+        List<WhitedRuleConfigDTO> ruleConfigList;
+        try {
+            ruleConfigList = JSON.parseArray(whitedRuleConfigPO.getRuleConfig(), WhitedRuleConfigDTO.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid rule config: " + e.getMessage(), e);
+        }
+        return compile(ruleConfigList, whitedRuleConfigPO.getCondition());
+    }
+
+    /**
+     * Compile rule items and the condition combining them by item id, e.g. "(1 OR 2) AND 3"
+     *
+     * @throws IllegalArgumentException if an item or the condition is not valid
+     */
+    public static CompiledWhitedRule compile(List<WhitedRuleConfigDTO> ruleConfigList, String condition) {
+        if (ruleConfigList == null) {
+            return NEVER;
+        }
+        if (ruleConfigList.isEmpty()) {
+            return new CompiledWhitedRule(po -> true);
+        }
+
+        Map<Integer, Predicate<RuleScanResultPO>> items = new HashMap<>();
+        for (WhitedRuleConfigDTO ruleConfig : ruleConfigList) {
+            items.put(ruleConfig.getId(), compileItem(ruleConfig));
+        }
+        if (condition == null) {
+            throw new IllegalArgumentException("Condition is null");
+        }
+        String expression = condition.replaceAll("\\bAND\\b", "&&")
+                .replaceAll("\\bOR\\b", "||")
+                .replaceAll("\\s+", "");
+        if (expression.isEmpty()) {
+            throw new IllegalArgumentException("Condition is empty");
+        }
+        return new CompiledWhitedRule(new ConditionParser(expression, items).parse(0).node);
+    }
+
+    private static Predicate<RuleScanResultPO> compileItem(WhitedRuleConfigDTO ruleConfig) {
+        Function<RuleScanResultPO, Object> field = ruleConfig.getKey() == null ? null : FIELDS.get(ruleConfig.getKey());
+        if (field == null) {
+            // the finding has no such key
+            return po -> false;
+        }
+        WhitedRuleOperatorEnum operator = ruleConfig.getOperator();
+        if (operator == null) {
+            throw new IllegalArgumentException("Operator is null, key: " + ruleConfig.getKey());
+        }
+
+        Object value = ruleConfig.getValue();
+        String expected = value == null ? null : value.toString().trim();
+        Predicate<String> test = switch (operator) {
+            case EQ -> {
+                String eq = String.valueOf(expected);
+                yield eq::equals;
+            }
+            case NE -> expected == null ? v -> true : v -> !expected.equals(v);
+            case LIKE -> expected == null ? v -> false : v -> v.contains(expected);
+            case NOT_LIKE -> expected == null ? v -> true : v -> !v.contains(expected);
+            case IN -> {
+                if (expected == null) {
+                    yield v -> false;
+                }
+                Set<String> candidates = split(expected);
+                yield candidates::contains;
+            }
+            case NOT_IN -> {
+                if (expected == null) {
+                    yield v -> true;
+                }
+                Set<String> candidates = split(expected);
+                yield v -> !candidates.contains(v);
+            }
+        };
+
+        return po -> {
+            Object fieldValue = field.apply(po);
+            if (fieldValue == null) {
+                return false;
+            }
+            return test.test(stringValue(fieldValue).trim());
+        };
+    }
+
+    private static Set<String> split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static String stringValue(Object fieldValue) {
+        // dates are serialized as epoch millis
+        if (fieldValue instanceof Date date) {
+            return String.valueOf(date.getTime());
+        }
+        return fieldValue.toString();
+    }
+
+    /**
+     * Builds the tree of a condition with the evaluation order of ExpressionEvaluator: single digit item ids,
+     * operators applied from left to right without precedence, unknown ids are false
+     */
+    private static class ConditionParser {
+
+        private final String expression;
+
+        private final Map<Integer, Predicate<RuleScanResultPO>> items;
+
+        private ConditionParser(String expression, Map<Integer, Predicate<RuleScanResultPO>> items) {
+            this.expression = expression;
+            this.items = items;
+        }
+
+        private Parsed parse(int index) {
+            Predicate<RuleScanResultPO> current = null;
+            String nextOperator = null;
+            int i = index;
+
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                if (Character.isDigit(c)) {
+                    current = combine(current, nextOperator, items.getOrDefault(c - '0', po -> false));
+                    nextOperator = null;
+                    i++;
+                } else if (c == '&') {
+                    i += 2;
+                    nextOperator = "&&";
+                } else if (c == '|') {
+                    i += 2;
+                    nextOperator = "||";
+                } else if (c == '(') {
+                    Parsed nested = parse(i + 1);
+                    current = combine(current, nextOperator, nested.node);
+                    nextOperator = null;
+                    i = nested.index + 1;
+                } else if (c == ')') {
+                    return new Parsed(current != null ? current : po -> false, i);
+                } else {
+                    throw new IllegalArgumentException("Invalid character in condition: " + c);
+                }
+            }
+            return new Parsed(current != null ? current : po -> false, i);
+        }
+
+        private static Predicate<RuleScanResultPO> combine(Predicate<RuleScanResultPO> current, String operator,
+                                                           Predicate<RuleScanResultPO> next) {
+            if (current == null) {
+                return next;
+            }
+            if ("&&".equals(operator)) {
+                return current.and(next);
+            }
+            if ("||".equals(operator)) {
+                return current.or(next);
+            }
+            // an operand without an operator is ignored
+            return current;
+        }
+    }
+
+    private static class Parsed {
+
+        private final Predicate<RuleScanResultPO> node;
+
+        private final int index;
+
+        private Parsed(Predicate<RuleScanResultPO> node, int index) {
+            this.node = node;
+            this.index = index;
+        }
+    }
+}
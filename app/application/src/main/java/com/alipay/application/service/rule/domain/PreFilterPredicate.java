@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/*
+ *@title PreFilterPredicate
+ *@description Cheap condition a resource must meet for the rule to flag it, declared in the preFilter list of
+ * metadata.json. All predicates of the list must hold, a resource failing one is compliant without evaluating
+ * the policy, e.g.
+ * [{"path": "$.BucketPolicy.Statement", "op": "exists"},
+ *  {"any": [{"path": "$.Acl", "op": "eq", "value": "public-read"}, {"path": "$.Acl", "op": "eq", "value": "public-read-write"}]}]
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/30 17:05
+ */
+@Getter
+@Setter
+public class PreFilterPredicate {
+
+    /**
+     * JSONPath into the policy input, i.e. the resource after merging its linked data
+     */
+    private String path;
+
+    /**
+     * exists, notExists, eq, ne, in, matches or anyKey. eq, ne, in and matches hold when one of the values the
+     * path selects holds
+     */
+    private String op;
+
+    /**
+     * value of eq and ne, list of in and anyKey, regex of matches
+     */
+    private Object value;
+
+    /**
+     * holds when one of these predicates holds, instead of path and op
+     */
+    private List<PreFilterPredicate> any;
+}
@@ -81,6 +81,11 @@ public class RuleAgg {
      */
     private String linkedDataList;
 
+    /**
+     * 预过滤条件，{@link PreFilterPredicate} 列表的json，为空时从策略推断
+     */
+    private String preFilter;
+
     /**
      * 唯一code
      */
@@ -163,6 +168,7 @@ public class RuleAgg {
                 ", advice='" + advice + '\'' +
                 ", link='" + link + '\'' +
                 ", linkedDataList='" + linkedDataList + '\'' +
+                ", preFilter='" + preFilter + '\'' +
                 ", ruleCode='" + ruleCode + '\'' +
                 ", riskCount=" + riskCount +
                 ", regoPolicy='" + regoPolicy + '\'' +
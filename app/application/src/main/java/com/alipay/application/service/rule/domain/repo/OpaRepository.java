@@ -63,6 +63,16 @@ public interface OpaRepository {
 
     Map<String, Object> callOpa(String path, String policyContent, String input);
 
+    /**
+     * 批量调用opa服务，按批次大小拆分，每批一次查询
+     *
+     * @param path          规则路径
+     * @param policyContent 策略内容
+     * @param inputs        资源id -> 资源数据
+     * @return 资源id -> 结果
+     */
+    Map<String, Map<String, Object>> batchCallOpa(String path, String policyContent, Map<String, String> inputs);
+
     /**
      * 解析规则路径
      *
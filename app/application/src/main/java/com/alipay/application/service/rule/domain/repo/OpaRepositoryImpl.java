@@ -24,17 +24,23 @@ package com.alipay.application.service.rule.domain.repo;
  *@create 2024/6/5 17:16
  */
 
-import com.alibaba.fastjson.JSON;
-import com.bisnode.opa.client.OpaClient;
-import com.bisnode.opa.client.data.OpaDocument;
-import com.bisnode.opa.client.policy.OpaPolicy;
-import com.bisnode.opa.client.query.QueryForDocumentRequest;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.job.context.PolicySyncManager;
+import com.alipay.application.service.rule.job.context.RuleScanContext;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngineProperties;
+import com.google.common.collect.Iterables;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,17 +49,24 @@ import java.util.regex.Pattern;
 class OpaRepositoryImpl implements OpaRepository {
 
     @Resource
-    private OpaClient client;
+    private PolicyEngine policyEngine;
 
+    @Resource
+    private PolicyEngineProperties policyEngineProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private PolicySyncManager policySyncManager;
 
     @Override
     public String createOrUpdatePolicy(String policyContent) {
         String regoPackage = findPackage(policyContent);
-
-        OpaPolicy opaPolicy = new OpaPolicy(regoPackage, policyContent);
+        policySyncManager.forget(regoPackage);
 
         try {
-            client.createOrUpdatePolicy(opaPolicy);
+            policyEngine.createOrUpdatePolicy(regoPackage, policyContent);
         } catch (Exception e) {
             return e.getMessage();
         }
@@ -62,9 +75,9 @@ class OpaRepositoryImpl implements OpaRepository {
 
     @Override
     public void createOrUpdatePolicy(String path, String policyContent) {
-        OpaPolicy opaPolicy = new OpaPolicy(path, policyContent);
+        policySyncManager.forget(path);
         try {
-            client.createOrUpdatePolicy(opaPolicy);
+            policyEngine.createOrUpdatePolicy(path, policyContent);
         } catch (Exception e) {
             log.error("createOrUpdatePolicy error:{}, policyContent:{}", e, policyContent);
         }
@@ -72,9 +85,9 @@ class OpaRepositoryImpl implements OpaRepository {
 
     @Override
     public void upsertData(String path, Object data) {
-        OpaDocument opaDocument = new OpaDocument(path, JSON.toJSONString(data));
+        policySyncManager.forget(path);
         try {
-            client.createOrOverwriteDocument(opaDocument);
+            policyEngine.upsertData(path, data);
         } catch (Exception e) {
             log.info("upsertData error:{}", e.getMessage());
         }
@@ -90,12 +103,10 @@ class OpaRepositoryImpl implements OpaRepository {
         if (policyContent.contains("http.send")) {
             throw new RuntimeException("The function http.send is not currently supported");
         }
-        Object obj = JSON.parse(jsonInputStr);
         String aPackage = findPackage(policyContent);
         Map resp = new HashMap<>();
         try {
-            QueryForDocumentRequest ageRequest = new QueryForDocumentRequest(obj, aPackage);
-            resp = client.queryForDocument(ageRequest, Map.class);
+            resp = policyEngine.evaluate(aPackage, policyContent, jsonInputStr);
         } catch (Exception e) {
             resp.put("error", e.getMessage());
             resp.put("risk", false);
@@ -109,11 +120,9 @@ class OpaRepositoryImpl implements OpaRepository {
         if (policyContent.contains("http.send")) {
             throw new RuntimeException("The function http.send is not currently supported");
         }
-        Object obj = JSON.parse(jsonInputStr);
         Map resp = new HashMap<>();
         try {
-            QueryForDocumentRequest ageRequest = new QueryForDocumentRequest(obj, path);
-            resp = client.queryForDocument(ageRequest, Map.class);
+            resp = policyEngine.evaluate(path, policyContent, jsonInputStr);
         } catch (Exception e) {
             resp.put("error", e.getMessage());
             resp.put("risk", false);
@@ -123,6 +132,64 @@ class OpaRepositoryImpl implements OpaRepository {
         return resp;
     }
 
+    @Override
+    public Map<String, Map<String, Object>> batchCallOpa(String path, String policyContent,
+                                                         Map<String, String> inputs) {
+        if (policyContent.contains("http.send")) {
+            throw new RuntimeException("The function http.send is not currently supported");
+        }
+        // The scan sets the rule it evaluates, other callers are tagged none
+        RuleAgg currentRule = RuleScanContext.getCurrentRule();
+        Timer timer = Timer.builder("cloudrec.opa.batch")
+                .description("Latency of one batch policy evaluation")
+                .tag("engine", policyEngine.name())
+                .tag("rule", currentRule == null ? "none" : String.valueOf(currentRule.getRuleCode()))
+                .register(meterRegistry);
+
+        Map<String, Map<String, Object>> resp = new HashMap<>(inputs.size() * 2);
+        int batchSize = Math.max(1, policyEngineProperties.getBatchSize());
+        for (List<Map.Entry<String, String>> batch : Iterables.partition(inputs.entrySet(), batchSize)) {
+            Map<String, String> batchInputs = new LinkedHashMap<>(batch.size() * 2);
+            batch.forEach(e -> batchInputs.put(e.getKey(), e.getValue()));
+
+            long start = System.nanoTime();
+            try {
+                evaluateBatch(path, policyContent, batchInputs, resp);
+            } finally {
+                long cost = System.nanoTime() - start;
+                timer.record(cost, TimeUnit.NANOSECONDS);
+                log.info("batchCallOpa path:{}, engine:{}, size:{}, cost:{}ms", path, policyEngine.name(),
+                        batchInputs.size(), TimeUnit.NANOSECONDS.toMillis(cost));
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * A failed batch is split in halves until the failing documents are evaluated alone, so one bad document or a
+     * timeout of a large batch only fails the resources it belongs to instead of clearing the risks of the whole page
+     */
+    private void evaluateBatch(String path, String policyContent, Map<String, String> batchInputs,
+                               Map<String, Map<String, Object>> resp) {
+        if (batchInputs.size() == 1) {
+            Map.Entry<String, String> input = batchInputs.entrySet().iterator().next();
+            resp.put(input.getKey(), callOpa(path, policyContent, input.getValue()));
+            return;
+        }
+        try {
+            resp.putAll(policyEngine.evaluateBatch(path, policyContent, batchInputs));
+        } catch (Exception e) {
+            log.warn("batchCallOpa error, path:{}, size:{}, evaluating it in halves", path, batchInputs.size(), e);
+            List<Map.Entry<String, String>> entries = List.copyOf(batchInputs.entrySet());
+            int half = entries.size() / 2;
+            for (List<Map.Entry<String, String>> part : List.of(entries.subList(0, half), entries.subList(half, entries.size()))) {
+                Map<String, String> partInputs = new LinkedHashMap<>(part.size() * 2);
+                part.forEach(entry -> partInputs.put(entry.getKey(), entry.getValue()));
+                evaluateBatch(path, policyContent, partInputs, resp);
+            }
+        }
+    }
+
     public String findPackage(String policyContent) {
         String pattern = "package\\s+([\\w.]+)";
 
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+
+import java.util.Map;
+
+/*
+ *@title BatchPolicy
+ *@description Wrapper policy that evaluates a policy package for every document of input.batch in one query
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/18 14:30
+ */
+public final class BatchPolicy {
+
+    /**
+     * Rule of the wrapper package holding id -> package document
+     */
+    public static final String RESULTS = "results";
+
+    private static final String SUFFIX = "_batch";
+
+    private BatchPolicy() {
+    }
+
+    /**
+     * Path of the wrapper package
+     *
+     * @param path path of the wrapped policy
+     * @return wrapper path
+     */
+    public static String path(String path) {
+        return path + SUFFIX;
+    }
+
+    /**
+     * Wrapper policy of a package
+     *
+     * @param path path of the wrapped policy
+     * @return wrapper policy content
+     */
+    public static String policy(String path) {
+        return String.format("""
+                package %s
+
+                import rego.v1
+
+                %s[id] := doc if {
+                    some id, resource in input.batch
+                    doc := data.%s with input as resource
+                }
+                """, path(path), RESULTS, path);
+    }
+
+    /**
+     * Input of the wrapper package, the resource documents are spliced in as they are to avoid parsing them again
+     *
+     * @param inputs id -> input document
+     * @return wrapper input
+     */
+    public static String input(Map<String, String> inputs) {
+        StringBuilder sb = new StringBuilder("{\"batch\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> e : inputs.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            String value = e.getValue();
+            sb.append(JSON.toJSONString(e.getKey())).append(':')
+                    .append(value == null || value.isBlank() ? "null" : value);
+        }
+        return sb.append("}}").toString();
+    }
+}
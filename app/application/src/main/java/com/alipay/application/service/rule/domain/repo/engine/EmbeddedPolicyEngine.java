@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ *@title EmbeddedPolicyEngine
+ *@description Evaluates policies in-process: each policy is compiled once to WebAssembly with the opa binary
+ * and run on a pure JVM runtime, so the scan does not pay an HTTP round trip per resource.
+ * Policies that can not be compiled or use builtins the host does not provide are evaluated remotely.
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+@Slf4j
+public class EmbeddedPolicyEngine implements PolicyEngine {
+
+    public static final String NAME = "embedded";
+
+    private final PolicyCompiler compiler;
+
+    /**
+     * remote engine for unsupported policies, null when fallback is disabled
+     */
+    private final PolicyEngine fallback;
+
+    private final int maxIdleEvaluators;
+
+    private final Map<String, WasmPolicy> policies = new ConcurrentHashMap<>();
+
+    /**
+     * path -> policy content that has to be evaluated by the fallback engine
+     */
+    private final Map<String, String> fallbackPolicies = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    private final JSONObject data = new JSONObject();
+
+    private volatile DataSnapshot snapshot = new DataSnapshot(0, "{}");
+
+    public EmbeddedPolicyEngine(PolicyCompiler compiler, PolicyEngine fallback, int maxIdleEvaluators) {
+        this.compiler = compiler;
+        this.fallback = fallback;
+        this.maxIdleEvaluators = maxIdleEvaluators;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void createOrUpdatePolicy(String path, String policyContent) throws Exception {
+        load(path, policyContent);
+    }
+
+    @Override
+    public void deletePolicy(String path) throws Exception {
+        synchronized (locks.computeIfAbsent(path, k -> new Object())) {
+            policies.remove(path);
+            if (fallbackPolicies.remove(path) != null) {
+                fallback.deletePolicy(path);
+            }
+        }
+    }
+
+    @Override
+    public void upsertData(String path, Object value) throws Exception {
+        synchronized (data) {
+            String[] keys = path.replaceAll("^/+|/+$", "").split("/");
+            JSONObject node = data;
+            for (int i = 0; i < keys.length - 1; i++) {
+                Object child = node.get(keys[i]);
+                if (!(child instanceof JSONObject)) {
+                    child = new JSONObject();
+                    node.put(keys[i], child);
+                }
+                node = (JSONObject) child;
+            }
+            node.put(keys[keys.length - 1], value);
+            snapshot = new DataSnapshot(snapshot.getVersion() + 1, JSON.toJSONString(data));
+        }
+        // keep the remote data in sync for the policies evaluated there
+        if (fallback != null) {
+            fallback.upsertData(path, value);
+        }
+    }
+
+    @Override
+    public Object getData(String path) {
+        synchronized (data) {
+            Object node = data;
+            for (String key : path.replaceAll("^/+|/+$", "").split("/")) {
+                if (!(node instanceof JSONObject)) {
+                    return null;
+                }
+                node = ((JSONObject) node).get(key);
+            }
+            return node;
+        }
+    }
+
+    @Override
+    public Map<String, Object> evaluate(String path, String policyContent, String inputJson) throws Exception {
+        WasmPolicy policy = resolve(path, policyContent);
+        if (policy != null) {
+            return policy.evaluate(inputJson);
+        }
+        return fallback.evaluate(path, policyContent, inputJson);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> evaluateBatch(String path, String policyContent,
+                                                          Map<String, String> inputs) throws Exception {
+        WasmPolicy policy = resolve(path, policyContent);
+        if (policy != null) {
+            return policy.evaluateBatch(inputs);
+        }
+        return fallback.evaluateBatch(path, policyContent, inputs);
+    }
+
+    /**
+     * Find the compiled policy, loading it when it is missing or its content changed
+     *
+     * @return the compiled policy, null if it is evaluated by the fallback engine
+     */
+    private WasmPolicy resolve(String path, String policyContent) throws Exception {
+        WasmPolicy policy = policies.get(path);
+        if (policy != null && (policyContent == null || policyContent.equals(policy.getPolicyContent()))) {
+            return policy;
+        }
+        String remote = fallbackPolicies.get(path);
+        if (remote != null && (policyContent == null || policyContent.equals(remote))) {
+            return null;
+        }
+        if (policyContent == null) {
+            throw new IllegalStateException("policy " + path + " is not loaded");
+        }
+        return load(path, policyContent);
+    }
+
+    /**
+     * Compile and cache a policy, policies that stay unchanged are not compiled again
+     *
+     * @return the compiled policy, null if it is evaluated by the fallback engine
+     */
+    private WasmPolicy load(String path, String policyContent) throws Exception {
+        synchronized (locks.computeIfAbsent(path, k -> new Object())) {
+            WasmPolicy current = policies.get(path);
+            if (current != null && current.getPolicyContent().equals(policyContent)) {
+                return current;
+            }
+            if (Objects.equals(fallbackPolicies.get(path), policyContent)) {
+                return null;
+            }
+
+            try {
+                WasmPolicy policy = new WasmPolicy(path, policyContent, compiler.compile(path, policyContent),
+                        () -> snapshot, maxIdleEvaluators);
+                policies.put(path, policy);
+                fallbackPolicies.remove(path);
+                return policy;
+            } catch (Exception e) {
+                if (fallback == null) {
+                    throw e;
+                }
+                log.warn("policy {} is evaluated by the {} engine: {}", path, fallback.name(), e.getMessage());
+                fallback.createOrUpdatePolicy(path, policyContent);
+                policies.remove(path);
+                fallbackPolicies.put(path, policyContent);
+                return null;
+            }
+        }
+    }
+}
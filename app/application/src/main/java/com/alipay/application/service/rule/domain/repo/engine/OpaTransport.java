@@ -0,0 +1,446 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ *@title OpaTransport
+ *@description HTTP transport to one or more OPA servers over pooled keep-alive connections. Queries go to one
+ * available endpoint, chosen round-robin or by the fewest requests in flight, and fail over to the next one.
+ * Policies and data are written to every available endpoint and remembered, an endpoint that failed is ejected
+ * until a health check passes and gets the remembered writes replayed before it takes queries again. Every endpoint
+ * also holds a marker document written with the replay, a sidecar that restarted between two health checks has lost
+ * it and gets the writes replayed as well, so a restarted sidecar does not answer with missing policies. Documents
+ * the servers already held when this application started are not written again, they are remembered for the
+ * replay all the same
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/30 10:20
+ */
+@Slf4j
+public class OpaTransport implements AutoCloseable {
+
+    /**
+     * Response of an OPA endpoint
+     *
+     * @param status HTTP status
+     * @param body   response body
+     */
+    public record Response(int status, String body) {
+    }
+
+    private record Write(String method, String path, String body, ContentType contentType) {
+    }
+
+    /**
+     * data document written to every endpoint with the replay, an endpoint without it lost its policies and data
+     */
+    static final String MARKER_PATH = "/v1/data/cloudrec_transport/instance";
+
+    /**
+     * body of OPA for an undefined document, e.g. a policy path that is not loaded
+     */
+    private static final String UNDEFINED = "{}";
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+
+    private final OpaTransportProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final Semaphore inFlight;
+
+    private final AtomicInteger turn = new AtomicInteger();
+
+    /**
+     * last write of every policy and data path, replayed to endpoints coming back
+     */
+    private final Map<String, Write> writes = new LinkedHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final ScheduledExecutorService healthChecker;
+
+    private final String marker = UUID.randomUUID().toString();
+
+    public OpaTransport(List<String> urls, OpaTransportProperties properties, MeterRegistry meterRegistry) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("no OPA endpoint");
+        }
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (String url : urls) {
+            endpoints.add(new Endpoint(StringUtils.removeEnd(url.trim(), "/")));
+        }
+
+        Timeout requestTimeout = Timeout.ofMilliseconds(properties.getRequestTimeoutMs());
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(Math.max(1, properties.getMaxConnectionsPerEndpoint()))
+                .setMaxConnTotal(Math.max(1, properties.getMaxConnectionsPerEndpoint()) * endpoints.size())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+                        .setSocketTimeout(requestTimeout)
+                        .build())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(requestTimeout)
+                        .setResponseTimeout(requestTimeout)
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(properties.getKeepAliveMs()))
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getKeepAliveMs()))
+                .disableAutomaticRetries()
+                .build();
+        inFlight = new Semaphore(Math.max(1, properties.getMaxInFlight()));
+
+        Gauge.builder("cloudrec.opa.transport.in_flight", inFlight,
+                        s -> Math.max(1, properties.getMaxInFlight()) - s.availablePermits())
+                .description("OPA requests in flight")
+                .register(meterRegistry);
+        for (Endpoint endpoint : endpoints) {
+            Gauge.builder("cloudrec.opa.transport.available", endpoint, e -> e.ejected ? 0 : 1)
+                    .tag("endpoint", endpoint.url)
+                    .register(meterRegistry);
+            Gauge.builder("cloudrec.opa.transport.outstanding", endpoint, e -> e.outstanding.get())
+                    .tag("endpoint", endpoint.url)
+                    .register(meterRegistry);
+        }
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "opa-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.getHealthCheckIntervalMs() > 0) {
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, properties.getHealthCheckIntervalMs(),
+                    properties.getHealthCheckIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Send a query to one endpoint, a failed endpoint is skipped and the next one is tried. An undefined document
+     * from an endpoint that lost its marker is queried again once the writes are replayed to it
+     *
+     * @param method HTTP method
+     * @param path   path below the base url, e.g. /v1/data/a/b
+     * @param body   json body, null for none
+     */
+    public Response query(String method, String path, String body) throws IOException {
+        IOException failure = null;
+        List<Endpoint> tried = new ArrayList<>(endpoints.size());
+        for (int attempt = 0; attempt < endpoints.size(); attempt++) {
+            Endpoint endpoint = pick(tried);
+            tried.add(endpoint);
+            try {
+                Response response = send(endpoint, method, path, body, ContentType.APPLICATION_JSON);
+                if (isUndefined(path, response) && !hasMarker(endpoint)) {
+                    endpoint.eject("restarted");
+                    if (reinstate(endpoint)) {
+                        response = send(endpoint, method, path, body, ContentType.APPLICATION_JSON);
+                    }
+                }
+                if (response.status() < 500) {
+                    endpoint.succeeded();
+                    return response;
+                }
+                failure = new IOException(endpoint.url + path + " returned " + response.status() + " " + response.body());
+            } catch (IOException e) {
+                failure = e;
+            }
+            endpoint.failed();
+        }
+        throw failure;
+    }
+
+    /**
+     * Write a policy or data document to every available endpoint and remember it for the endpoints coming back.
+     * An endpoint the write fails on is ejected, it gets the write replayed when it is healthy again
+     *
+     * @param method PUT or DELETE
+     * @param path   path below the base url, e.g. /v1/policies/a.b
+     * @param body   body, null for none
+     * @return response of the first endpoint that accepted the write
+     */
+    public Response write(String method, String path, String body, ContentType contentType) throws IOException {
+        synchronized (writeLock) {
+            List<Endpoint> targets = endpoints.stream().filter(e -> !e.ejected).toList();
+            if (targets.isEmpty()) {
+                targets = endpoints;
+            }
+
+            Response accepted = null;
+            IOException failure = null;
+            for (Endpoint endpoint : targets) {
+                try {
+                    Response response = send(endpoint, method, path, body, contentType);
+                    if (response.status() < 500) {
+                        endpoint.succeeded();
+                        if (accepted == null) {
+                            accepted = response;
+                        }
+                        continue;
+                    }
+                    failure = new IOException(endpoint.url + path + " returned " + response.status() + " " + response.body());
+                } catch (IOException e) {
+                    failure = e;
+                }
+                endpoint.eject("write failed");
+            }
+            if (accepted == null) {
+                throw failure;
+            }
+
+            if ("DELETE".equals(method)) {
+                writes.remove(path);
+            } else if (accepted.status() < 300) {
+                writes.remove(path);
+                writes.put(path, new Write(method, path, body, contentType));
+            }
+            return accepted;
+        }
+    }
+
+    /**
+     * Remember a policy or data document the endpoints already hold without writing it, e.g. one a sync skipped
+     * because its content did not change, so it is replayed to the endpoints coming back like a written one
+     *
+     * @param path path below the base url, e.g. /v1/policies/a.b
+     */
+    public void remember(String method, String path, String body, ContentType contentType) {
+        synchronized (writeLock) {
+            writes.remove(path);
+            writes.put(path, new Write(method, path, body, contentType));
+        }
+    }
+
+    private Endpoint pick(List<Endpoint> tried) {
+        List<Endpoint> candidates = endpoints.stream().filter(e -> !e.ejected && !tried.contains(e)).toList();
+        if (candidates.isEmpty()) {
+            // every endpoint is ejected, trying one is better than failing right away
+            candidates = endpoints.stream().filter(e -> !tried.contains(e)).toList();
+        }
+        int start = Math.floorMod(turn.getAndIncrement(), candidates.size());
+        if (properties.getBalancing() == OpaTransportProperties.Balancing.ROUND_ROBIN) {
+            return candidates.get(start);
+        }
+        Endpoint best = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Endpoint candidate = candidates.get((start + i) % candidates.size());
+            if (best == null || candidate.outstanding.get() < best.outstanding.get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private Response send(Endpoint endpoint, String method, String path, String body, ContentType contentType)
+            throws IOException {
+        try {
+            if (!inFlight.tryAcquire(properties.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("too many OPA requests in flight: " + properties.getMaxInFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for an OPA request slot", e);
+        }
+
+        endpoint.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            HttpUriRequestBase request = new HttpUriRequestBase(method, URI.create(endpoint.url + path));
+            if (body != null) {
+                request.setEntity(new StringEntity(body, contentType));
+            }
+            Response response = httpClient.execute(request, r -> new Response(r.getCode(),
+                    r.getEntity() == null ? null : EntityUtils.toString(r.getEntity())));
+            outcome = String.valueOf(response.status());
+            return response;
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+            inFlight.release();
+            Timer.builder("cloudrec.opa.transport.request")
+                    .tag("endpoint", endpoint.url)
+                    .tag("status", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Eject the endpoints that fail the health check, replay the writes to healthy ejected endpoints and to healthy
+     * endpoints that restarted, and take them back
+     */
+    void checkHealth() {
+        for (Endpoint endpoint : endpoints) {
+            boolean healthy;
+            try {
+                HttpUriRequestBase request = new HttpUriRequestBase("GET", URI.create(endpoint.url + "/health"));
+                healthy = httpClient.execute(request, r -> {
+                    EntityUtils.consume(r.getEntity());
+                    return r.getCode() == 200;
+                });
+            } catch (Exception e) {
+                healthy = false;
+            }
+
+            if (!healthy) {
+                endpoint.eject("health check failed");
+            } else if (endpoint.ejected) {
+                reinstate(endpoint);
+            } else if (!hasMarker(endpoint)) {
+                endpoint.eject("restarted");
+                reinstate(endpoint);
+            }
+        }
+    }
+
+    /**
+     * Replay the writes and the marker to an endpoint and take it back
+     *
+     * @return whether the endpoint takes queries again
+     */
+    private boolean reinstate(Endpoint endpoint) {
+        synchronized (writeLock) {
+            if (!endpoint.ejected) {
+                // another thread replayed the writes meanwhile
+                return true;
+            }
+            try {
+                for (Write write : writes.values()) {
+                    Response response = send(endpoint, write.method(), write.path(), write.body(), write.contentType());
+                    if (response.status() >= 300) {
+                        throw new IOException(write.path() + " returned " + response.status() + " " + response.body());
+                    }
+                }
+                Response response = send(endpoint, "PUT", MARKER_PATH, "\"" + marker + "\"",
+                        ContentType.APPLICATION_JSON);
+                if (response.status() >= 300) {
+                    throw new IOException(MARKER_PATH + " returned " + response.status() + " " + response.body());
+                }
+            } catch (IOException e) {
+                log.warn("OPA endpoint {} is healthy but the replay failed, it stays ejected: {}", endpoint.url,
+                        e.getMessage());
+                return false;
+            }
+            endpoint.failures.set(0);
+            endpoint.ejected = false;
+            log.info("OPA endpoint {} is back, {} writes replayed", endpoint.url, writes.size());
+            return true;
+        }
+    }
+
+    /**
+     * Whether the endpoint still holds the marker of the last replay, it does not after a restart
+     */
+    private boolean hasMarker(Endpoint endpoint) {
+        try {
+            Response response = send(endpoint, "GET", MARKER_PATH, null, ContentType.APPLICATION_JSON);
+            return response.status() == 200 && response.body() != null && response.body().contains(marker);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isUndefined(String path, Response response) {
+        return response.status() == 200 && path.startsWith("/v1/data/") && response.body() != null
+                && UNDEFINED.equals(response.body().trim());
+    }
+
+    /**
+     * Number of endpoints that take queries
+     */
+    public int availableEndpoints() {
+        return (int) endpoints.stream().filter(e -> !e.ejected).count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        healthChecker.shutdownNow();
+        httpClient.close();
+        connectionManager.close();
+    }
+
+    private class Endpoint {
+
+        private final String url;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile boolean ejected;
+
+        private Endpoint(String url) {
+            this.url = url;
+        }
+
+        private void succeeded() {
+            failures.set(0);
+        }
+
+        private void failed() {
+            meterRegistry.counter("cloudrec.opa.transport.failures", "endpoint", url).increment();
+            if (failures.incrementAndGet() >= Math.max(1, properties.getFailureThreshold())) {
+                eject(failures.get() + " consecutive failures");
+            }
+        }
+
+        private void eject(String reason) {
+            if (!ejected) {
+                ejected = true;
+                meterRegistry.counter("cloudrec.opa.transport.ejections", "endpoint", url).increment();
+                log.warn("OPA endpoint {} ejected: {}", url, reason);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the HTTP transport of the remote OPA engine
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "opa.transport")
+public class OpaTransportProperties {
+
+    public enum Balancing {
+        /**
+         * the available endpoints take turns
+         */
+        ROUND_ROBIN,
+        /**
+         * the available endpoint with the fewest requests in flight
+         */
+        LEAST_OUTSTANDING
+    }
+
+    /**
+     * Base urls of the OPA servers, policies and data are written to all of them and queries are balanced
+     * Default: empty, opa.url
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * How queries are spread over the endpoints, round-robin or least-outstanding
+     * Default: least-outstanding
+     */
+    private Balancing balancing = Balancing.LEAST_OUTSTANDING;
+
+    /**
+     * Pooled keep-alive connections per endpoint
+     * Default: 16
+     */
+    private int maxConnectionsPerEndpoint = 16;
+
+    /**
+     * Requests in flight over all endpoints, callers above it wait up to the request timeout
+     * Default: 32
+     */
+    private int maxInFlight = 32;
+
+    /**
+     * Connect timeout in milliseconds
+     * Default: 2 seconds
+     */
+    private long connectTimeoutMs = 2000L;
+
+    /**
+     * Timeout of a request, from waiting for a slot to reading the response, in milliseconds
+     * Default: 60 seconds
+     */
+    private long requestTimeoutMs = 60 * 1000L;
+
+    /**
+     * Idle pooled connections are closed after this time, in milliseconds
+     * Default: 60 seconds
+     */
+    private long keepAliveMs = 60 * 1000L;
+
+    /**
+     * Interval of the health checks, an ejected endpoint comes back after a successful check
+     * Default: 5 seconds
+     */
+    private long healthCheckIntervalMs = 5000L;
+
+    /**
+     * Consecutive failed requests after which an endpoint is ejected
+     * Default: 3
+     */
+    private int failureThreshold = 3;
+}
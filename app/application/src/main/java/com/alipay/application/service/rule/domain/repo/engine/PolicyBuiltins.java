@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ *@title PolicyBuiltins
+ *@description Builtins that compiled policies import from the host, see the OPA WebAssembly ABI
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+final class PolicyBuiltins {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final Map<String, Function<List<Object>, Object>> BUILTINS = new HashMap<>();
+
+    static {
+        BUILTINS.put("sprintf", args -> sprintf(String.valueOf(args.get(0)), (List<?>) args.get(1)));
+        BUILTINS.put("time.now_ns", args -> toNanos(Instant.now()));
+        BUILTINS.put("time.parse_rfc3339_ns", args -> toNanos(OffsetDateTime.parse(String.valueOf(args.get(0)),
+                DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant()));
+        BUILTINS.put("time.add_date", args -> {
+            ZonedDateTime time = fromNanos(toLong(args.get(0)));
+            return toNanos(time.plusYears(toLong(args.get(1)))
+                    .plusMonths(toLong(args.get(2)))
+                    .plusDays(toLong(args.get(3)))
+                    .toInstant());
+        });
+    }
+
+    private PolicyBuiltins() {
+    }
+
+    static boolean supports(String name) {
+        return BUILTINS.containsKey(name);
+    }
+
+    /**
+     * Call a builtin
+     *
+     * @param name builtin name
+     * @param args arguments, decoded from their JSON form
+     * @return result, null if it is undefined
+     */
+    static Object call(String name, List<Object> args) {
+        Function<List<Object>, Object> builtin = BUILTINS.get(name);
+        if (builtin == null) {
+            throw new IllegalStateException("builtin " + name + " is not supported");
+        }
+        return builtin.apply(args);
+    }
+
+    /**
+     * Go fmt compatible subset used by the rules: %v %s %d %f %q %% and precision
+     */
+    static String sprintf(String format, List<?> args) {
+        StringBuilder sb = new StringBuilder();
+        int argIndex = 0;
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c != '%' || i + 1 >= format.length()) {
+                sb.append(c);
+                continue;
+            }
+            int start = i + 1;
+            int end = start;
+            while (end < format.length() && (Character.isDigit(format.charAt(end)) || format.charAt(end) == '.')) {
+                end++;
+            }
+            if (end >= format.length()) {
+                sb.append(format, i, end);
+                break;
+            }
+            String precision = format.substring(start, end);
+            char verb = format.charAt(end);
+            i = end;
+            if (verb == '%') {
+                sb.append('%');
+                continue;
+            }
+            if (argIndex >= args.size()) {
+                sb.append("%!").append(verb).append("(MISSING)");
+                continue;
+            }
+            Object arg = args.get(argIndex++);
+            switch (verb) {
+                case 'd' -> sb.append(arg instanceof Number n ? new BigDecimal(n.toString()).toBigInteger() : arg);
+                case 'f' -> sb.append(String.format("%" + (precision.isEmpty() ? ".6" : precision) + "f",
+                        new BigDecimal(String.valueOf(arg))));
+                case 'q' -> sb.append(JSON.toJSONString(String.valueOf(arg)));
+                case 's', 'v' -> sb.append(format(arg));
+                default -> sb.append("%!").append(verb).append('(').append(format(arg)).append(')');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String format(Object arg) {
+        if (arg instanceof String s) {
+            return s;
+        }
+        if (arg instanceof BigDecimal d) {
+            return d.stripTrailingZeros().toPlainString();
+        }
+        return arg == null ? "null" : JSON.toJSONString(arg);
+    }
+
+    private static long toLong(Object value) {
+        return new BigDecimal(String.valueOf(value)).longValue();
+    }
+
+    private static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    private static ZonedDateTime fromNanos(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND))
+                .atZone(ZoneOffset.UTC);
+    }
+}
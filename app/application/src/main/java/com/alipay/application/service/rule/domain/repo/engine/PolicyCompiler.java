@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/*
+ *@title PolicyCompiler
+ *@description Compiles a rego policy to WebAssembly with the opa binary
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+@Slf4j
+public class PolicyCompiler {
+
+    private static final String POLICY_WASM = "policy.wasm";
+
+    private static final int TAR_BLOCK = 512;
+
+    private static final int MAX_OUTPUT = 8192;
+
+    private final String binary;
+
+    private final File workDir;
+
+    private final long timeoutMs;
+
+    public PolicyCompiler(String binary, String workDir, long timeoutMs) {
+        this.binary = binary;
+        this.workDir = new File(workDir);
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Compile the package document of a policy
+     *
+     * @param path          policy path, the rego package
+     * @param policyContent policy content
+     * @return wasm module
+     * @throws IOException the policy could not be compiled
+     */
+    public byte[] compile(String path, String policyContent) throws IOException {
+        File dir = Files.createTempDirectory(mkdirs().toPath(), "build").toFile();
+        try {
+            File policy = new File(dir, "policy.rego");
+            File bundle = new File(dir, "bundle.tar.gz");
+            Files.writeString(policy.toPath(), policyContent);
+
+            String entrypoint = path.replace('.', '/');
+            List<String> command = List.of(binary, "build", "-t", "wasm", "-e", entrypoint,
+                    "-o", bundle.getAbsolutePath(), policy.getAbsolutePath());
+            // Output goes to a file: a child writing more than the pipe buffer would block until the timeout
+            File log = new File(dir, "build.log");
+            Process process = new ProcessBuilder(command).directory(dir).redirectErrorStream(true)
+                    .redirectOutput(log).start();
+            boolean finished = process.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
+            if (!finished) {
+                process.destroyForcibly();
+                throw new IOException("opa build timeout after " + timeoutMs + "ms");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("opa build failed: " + readHead(log));
+            }
+
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(bundle.toPath()))) {
+                return readTarEntry(in, POLICY_WASM);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("opa build interrupted", e);
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * Beginning of the build output, enough to tell the cause without logging every compile error of a large policy
+     */
+    private static String readHead(File log) throws IOException {
+        try (InputStream in = Files.newInputStream(log.toPath())) {
+            return new String(in.readNBytes(MAX_OUTPUT), StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    private File mkdirs() throws IOException {
+        if (!workDir.exists() && !workDir.mkdirs()) {
+            throw new IOException("can not create work dir " + workDir);
+        }
+        return workDir;
+    }
+
+    /**
+     * The bundle is a plain ustar archive, read the entry without pulling in an archive library
+     */
+    private static byte[] readTarEntry(InputStream in, String name) throws IOException {
+        byte[] header = new byte[TAR_BLOCK];
+        while (in.readNBytes(header, 0, TAR_BLOCK) == TAR_BLOCK && header[0] != 0) {
+            String entryName = cString(header, 0, 100);
+            long size = Long.parseLong(cString(header, 124, 12).trim(), 8);
+            long padded = (size + TAR_BLOCK - 1) / TAR_BLOCK * TAR_BLOCK;
+            if (entryName.equals(name) || entryName.endsWith("/" + name)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int) size);
+                out.write(in.readNBytes((int) size));
+                return out.toByteArray();
+            }
+            in.skipNBytes(padded);
+        }
+        throw new IOException(name + " not found in bundle");
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.US_ASCII);
+    }
+}
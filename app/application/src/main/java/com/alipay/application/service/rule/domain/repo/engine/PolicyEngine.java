@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ *@title PolicyEngine
+ *@description Evaluation engine behind OpaRepository, either the remote OPA server or an in-process engine
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+public interface PolicyEngine {
+
+    /**
+     * Engine name, remote or embedded
+     *
+     * @return engine name
+     */
+    String name();
+
+    /**
+     * Create or update a policy
+     *
+     * @param path          policy path, the rego package
+     * @param policyContent policy content
+     * @throws Exception policy could not be loaded
+     */
+    void createOrUpdatePolicy(String path, String policyContent) throws Exception;
+
+    /**
+     * Delete a policy, deleting a policy the engine does not hold is not an error
+     *
+     * @param path policy path, the rego package
+     * @throws Exception policy could not be deleted
+     */
+    void deletePolicy(String path) throws Exception;
+
+    /**
+     * Create or overwrite a data document
+     *
+     * @param path data path
+     * @param data data
+     * @throws Exception data could not be written
+     */
+    void upsertData(String path, Object data) throws Exception;
+
+    /**
+     * Remember a policy the engine already holds without loading it again, so the engine can restore it if a server
+     * behind it loses its policies. Engines that do not lose their policies ignore it
+     *
+     * @param path          policy path, the rego package
+     * @param policyContent policy content
+     */
+    default void rememberPolicy(String path, String policyContent) {
+    }
+
+    /**
+     * Remember a data document the engine already holds without writing it again, see
+     * {@link #rememberPolicy(String, String)}
+     *
+     * @param path data path
+     * @param data data
+     */
+    default void rememberData(String path, Object data) {
+    }
+
+    /**
+     * Read a data document
+     *
+     * @param path data path
+     * @return the document, null if it does not exist or the engine can not read it back
+     * @throws Exception data could not be read
+     */
+    default Object getData(String path) throws Exception {
+        return null;
+    }
+
+    /**
+     * Evaluate the document of a policy package against the input
+     *
+     * @param path          policy path, the rego package
+     * @param policyContent policy content, used to (re)load the policy when the engine does not hold it yet
+     * @param inputJson     input document
+     * @return package document
+     * @throws Exception evaluation failed
+     */
+    Map<String, Object> evaluate(String path, String policyContent, String inputJson) throws Exception;
+
+    /**
+     * Evaluate the document of a policy package against a batch of inputs
+     *
+     * @param path          policy path, the rego package
+     * @param policyContent policy content
+     * @param inputs        id -> input document
+     * @return id -> package document, ids whose document is undefined are absent
+     * @throws Exception evaluation failed
+     */
+    default Map<String, Map<String, Object>> evaluateBatch(String path, String policyContent,
+                                                           Map<String, String> inputs) throws Exception {
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : inputs.entrySet()) {
+            Map<String, Object> result = evaluate(path, policyContent, e.getValue());
+            if (result != null) {
+                results.put(e.getKey(), result);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the policy engine behind OpaRepository
+ * Selects between the remote OPA server and the in-process engine
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "opa.engine")
+public class PolicyEngineProperties {
+
+    /**
+     * Engine type, remote or embedded
+     * Default: remote
+     */
+    private String type = RemotePolicyEngine.NAME;
+
+    /**
+     * Path of the opa binary used to compile policies to WebAssembly
+     * Default: opa, resolved from PATH
+     */
+    private String binary = "opa";
+
+    /**
+     * Working directory for policy compilation
+     * Default: cloudrec-opa under java.io.tmpdir
+     */
+    private String workDir = System.getProperty("java.io.tmpdir") + "/cloudrec-opa";
+
+    /**
+     * Timeout of a single policy compilation in milliseconds
+     * Default: 60 seconds
+     */
+    private Long compileTimeoutMs = 60 * 1000L;
+
+    /**
+     * Evaluate policies the embedded engine cannot load on the remote OPA server
+     * Default: true
+     */
+    private boolean fallbackRemote = true;
+
+    /**
+     * Maximum number of idle evaluator instances kept per policy
+     * Default: 8, the size of the scan thread pool
+     */
+    private Integer maxIdleEvaluators = 8;
+
+    /**
+     * Number of resources evaluated per batch query
+     * Default: 1000, one page of the scan
+     */
+    private Integer batchSize = 1000;
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ *@title RemotePolicyEngine
+ *@description Evaluates policies on the OPA servers through the REST API, over the pooled {@link OpaTransport}
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+public class RemotePolicyEngine implements PolicyEngine {
+
+    public static final String NAME = "remote";
+
+    private final OpaTransport transport;
+
+    /**
+     * paths whose batch wrapper has been pushed
+     */
+    private final Set<String> batchPolicies = ConcurrentHashMap.newKeySet();
+
+    public RemotePolicyEngine(OpaTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void createOrUpdatePolicy(String path, String policyContent) {
+        write("PUT", "/v1/policies/" + path, policyContent, ContentType.TEXT_PLAIN);
+    }
+
+    @Override
+    public void deletePolicy(String path) throws IOException {
+        String batchPath = BatchPolicy.path(path);
+        if (batchPolicies.remove(batchPath)) {
+            delete(batchPath);
+        }
+        delete(path);
+    }
+
+    private void delete(String path) throws IOException {
+        OpaTransport.Response response = transport.write("DELETE", "/v1/policies/" + path, null, null);
+        if (response.status() != 200 && response.status() != 404) {
+            throw new IOException("delete policy " + path + " failed: " + response.status() + " " + response.body());
+        }
+    }
+
+    @Override
+    public void upsertData(String path, Object data) {
+        write("PUT", dataPath(path), JSON.toJSONString(data), ContentType.APPLICATION_JSON);
+    }
+
+    @Override
+    public void rememberPolicy(String path, String policyContent) {
+        transport.remember("PUT", "/v1/policies/" + path, policyContent, ContentType.TEXT_PLAIN);
+    }
+
+    @Override
+    public void rememberData(String path, Object data) {
+        transport.remember("PUT", dataPath(path), JSON.toJSONString(data), ContentType.APPLICATION_JSON);
+    }
+
+    @Override
+    public Object getData(String path) {
+        return query("GET", dataPath(path), null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> evaluate(String path, String policyContent, String inputJson) {
+        JSONObject body = new JSONObject();
+        body.put("input", JSON.parse(inputJson));
+        Object result = query("POST", dataPath(path), body.toJSONString());
+        return result instanceof Map ? (Map<String, Object>) result : null;
+    }
+
+    /**
+     * Data and rule documents are addressed by the package path, a.b.c is /v1/data/a/b/c
+     */
+    private static String dataPath(String path) {
+        return "/v1/data/" + path.replace('.', '/');
+    }
+
+    private void write(String method, String path, String body, ContentType contentType) {
+        try {
+            OpaTransport.Response response = transport.write(method, path, body, contentType);
+            if (response.status() >= 300) {
+                throw new IllegalStateException(method + " " + path + " failed: " + response.status() + " "
+                        + response.body());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the result document, null if it is undefined
+     */
+    private Object query(String method, String path, String body) {
+        try {
+            OpaTransport.Response response = transport.query(method, path, body);
+            if (response.status() >= 300) {
+                throw new IllegalStateException(method + " " + path + " failed: " + response.status() + " "
+                        + response.body());
+            }
+            return JSON.parseObject(response.body()).get("result");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Evaluate the whole batch in one query through the wrapper policy {@link BatchPolicy}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Object>> evaluateBatch(String path, String policyContent,
+                                                          Map<String, String> inputs) {
+        String batchPath = BatchPolicy.path(path);
+        String batchInput = BatchPolicy.input(inputs);
+        if (batchPolicies.add(batchPath)) {
+            pushBatchPolicy(path);
+        }
+
+        Object results = queryResults(batchPath, batchInput);
+        if (results == null && policyContent != null) {
+            // the OPA server lost its policies, e.g. after a restart
+            createOrUpdatePolicy(path, policyContent);
+            pushBatchPolicy(path);
+            results = queryResults(batchPath, batchInput);
+        }
+        if (!(results instanceof Map)) {
+            throw new IllegalStateException("batch policy " + batchPath + " returned no results");
+        }
+
+        Map<String, Map<String, Object>> resultMap = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : ((Map<String, Object>) results).entrySet()) {
+            if (e.getValue() instanceof Map) {
+                resultMap.put(e.getKey(), (Map<String, Object>) e.getValue());
+            }
+        }
+        return resultMap;
+    }
+
+    private void pushBatchPolicy(String path) {
+        String batchPath = BatchPolicy.path(path);
+        try {
+            createOrUpdatePolicy(batchPath, BatchPolicy.policy(path));
+        } catch (RuntimeException e) {
+            batchPolicies.remove(batchPath);
+            throw e;
+        }
+    }
+
+    /**
+     * The batch input is spliced into the request body as it is, the documents of a page are not parsed and
+     * serialized again
+     */
+    private Object queryResults(String batchPath, String batchInput) {
+        Object document = query("POST", dataPath(batchPath), "{\"input\":" + batchInput + "}");
+        return document instanceof Map ? ((Map<?, ?>) document).get(BatchPolicy.RESULTS) : null;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.dylibso.chicory.runtime.ByteBufferMemory;
+import com.dylibso.chicory.runtime.ExportFunction;
+import com.dylibso.chicory.runtime.HostFunction;
+import com.dylibso.chicory.runtime.ImportMemory;
+import com.dylibso.chicory.runtime.ImportValues;
+import com.dylibso.chicory.runtime.Instance;
+import com.dylibso.chicory.runtime.Memory;
+import com.dylibso.chicory.wasm.Parser;
+import com.dylibso.chicory.wasm.WasmModule;
+import com.dylibso.chicory.wasm.types.MemoryImport;
+import com.dylibso.chicory.wasm.types.MemoryLimits;
+import com.dylibso.chicory.wasm.types.ValueType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ *@title WasmPolicy
+ *@description A policy compiled to WebAssembly, evaluated in-process with a pool of module instances
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+class WasmPolicy {
+
+    private static final String ENV = "env";
+
+    private static final int MAX_BUILTIN_ARGS = 4;
+
+    private final String policyContent;
+
+    private final WasmModule module;
+
+    private final MemoryLimits memoryLimits;
+
+    private final Supplier<DataSnapshot> data;
+
+    private final int maxIdle;
+
+    private final Queue<Evaluator> idle = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * builtin id -> builtin name, filled from the first instance
+     */
+    private final Map<Integer, String> builtins;
+
+    private final int entrypoint;
+
+    /**
+     * Load a compiled policy
+     *
+     * @param path          policy path, the rego package
+     * @param policyContent policy content the module was compiled from
+     * @param wasm          wasm module
+     * @param data          supplier of the current data document
+     * @param maxIdle       maximum number of idle instances kept
+     * @throws UnsupportedPolicyException the module imports builtins the host does not provide
+     */
+    WasmPolicy(String path, String policyContent, byte[] wasm, Supplier<DataSnapshot> data, int maxIdle) {
+        this.policyContent = policyContent;
+        this.module = Parser.parse(wasm);
+        this.memoryLimits = module.importSection().stream()
+                .filter(MemoryImport.class::isInstance)
+                .map(i -> ((MemoryImport) i).limits())
+                .findFirst()
+                .orElse(new MemoryLimits(2, MemoryLimits.MAX_PAGES));
+        this.data = data;
+        this.maxIdle = maxIdle;
+
+        Evaluator first = new Evaluator();
+        Map<Integer, String> ids = new HashMap<>();
+        for (Map.Entry<String, Object> e : first.dumpExport("builtins").entrySet()) {
+            if (!PolicyBuiltins.supports(e.getKey())) {
+                throw new UnsupportedPolicyException("builtin " + e.getKey() + " is not supported in-process");
+            }
+            ids.put(((Number) e.getValue()).intValue(), e.getKey());
+        }
+        this.builtins = ids;
+
+        Object id = first.dumpExport("entrypoints").get(path.replace('.', '/'));
+        this.entrypoint = id == null ? 0 : ((Number) id).intValue();
+        release(first);
+    }
+
+    String getPolicyContent() {
+        return policyContent;
+    }
+
+    /**
+     * Evaluate the package document
+     *
+     * @param inputJson input document
+     * @return package document, empty if it is undefined
+     */
+    Map<String, Object> evaluate(String inputJson) {
+        Evaluator evaluator = borrow();
+        // an evaluator that throws is not returned to the pool, its heap may be left in any state
+        Map<String, Object> result = evaluator.eval(inputJson);
+        release(evaluator);
+        return result;
+    }
+
+    /**
+     * Evaluate the package document for a batch of inputs on one instance
+     *
+     * @param inputs id -> input document
+     * @return id -> package document
+     */
+    Map<String, Map<String, Object>> evaluateBatch(Map<String, String> inputs) {
+        Evaluator evaluator = borrow();
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : inputs.entrySet()) {
+            results.put(e.getKey(), evaluator.eval(e.getValue() == null || e.getValue().isBlank()
+                    ? "null" : e.getValue()));
+        }
+        release(evaluator);
+        return results;
+    }
+
+    private Evaluator borrow() {
+        Evaluator evaluator = idle.poll();
+        if (evaluator == null) {
+            return new Evaluator();
+        }
+        idleCount.decrementAndGet();
+        return evaluator;
+    }
+
+    private void release(Evaluator evaluator) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(evaluator);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * A module instance, used by one thread at a time
+     */
+    private class Evaluator {
+
+        private final Instance instance;
+
+        private final Memory memory;
+
+        private final ExportFunction opaEval;
+
+        private final ExportFunction malloc;
+
+        private final ExportFunction jsonParse;
+
+        private final ExportFunction jsonDump;
+
+        private final ExportFunction heapPtrGet;
+
+        private final ExportFunction heapPtrSet;
+
+        /**
+         * heap pointer right after instantiation, data is parsed from here
+         */
+        private final long heapStart;
+
+        private long dataVersion = -1;
+
+        private long dataAddr;
+
+        /**
+         * heap pointer after the data document, each evaluation starts here
+         */
+        private long baseHeap;
+
+        Evaluator() {
+            this.memory = new ByteBufferMemory(memoryLimits);
+            ImportValues.Builder imports = ImportValues.builder()
+                    .addMemory(new ImportMemory(ENV, "memory", memory))
+                    .addFunction(new HostFunction(ENV, "opa_abort", List.of(ValueType.I32), List.of(),
+                            (inst, args) -> {
+                                throw new IllegalStateException("opa_abort: " + memory.readCString((int) args[0]));
+                            }))
+                    .addFunction(new HostFunction(ENV, "opa_println", List.of(ValueType.I32), List.of(),
+                            (inst, args) -> null));
+            for (int n = 0; n <= MAX_BUILTIN_ARGS; n++) {
+                List<ValueType> params = new ArrayList<>(Collections.nCopies(n + 2, ValueType.I32));
+                imports.addFunction(new HostFunction(ENV, "opa_builtin" + n, params, List.of(ValueType.I32),
+                        (inst, args) -> new long[]{callBuiltin(args)}));
+            }
+            this.instance = Instance.builder(module).withImportValues(imports.build()).build();
+            this.opaEval = instance.export("opa_eval");
+            this.malloc = instance.export("opa_malloc");
+            this.jsonParse = instance.export("opa_json_parse");
+            this.jsonDump = instance.export("opa_json_dump");
+            this.heapPtrGet = instance.export("opa_heap_ptr_get");
+            this.heapPtrSet = instance.export("opa_heap_ptr_set");
+            this.heapStart = heapPtrGet.apply()[0];
+        }
+
+        Map<String, Object> eval(String inputJson) {
+            DataSnapshot snapshot = data.get();
+            if (snapshot.getVersion() != dataVersion) {
+                heapPtrSet.apply(heapStart);
+                dataAddr = parse(snapshot.getJson());
+                baseHeap = heapPtrGet.apply()[0];
+                dataVersion = snapshot.getVersion();
+            }
+
+            byte[] input = inputJson.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(baseHeap + input.length);
+            memory.write((int) baseHeap, input);
+            long resultAddr = opaEval.apply(0, entrypoint, dataAddr, baseHeap, input.length,
+                    baseHeap + input.length, 0)[0];
+
+            JSONArray results = JSON.parseArray(memory.readCString((int) resultAddr));
+            if (results == null || results.isEmpty()) {
+                return new JSONObject();
+            }
+            return results.getJSONObject(0).getJSONObject("result");
+        }
+
+        JSONObject dumpExport(String name) {
+            long addr = instance.export(name).apply()[0];
+            return JSON.parseObject(dump(addr));
+        }
+
+        private long callBuiltin(long[] args) {
+            String name = builtins.get((int) args[0]);
+            List<Object> values = new ArrayList<>(args.length - 2);
+            for (int i = 2; i < args.length; i++) {
+                values.add(JSON.parse(dump(args[i])));
+            }
+            Object result = PolicyBuiltins.call(name, values);
+            return result == null ? 0 : parse(JSON.toJSONString(result));
+        }
+
+        private String dump(long addr) {
+            return memory.readCString((int) jsonDump.apply(addr)[0]);
+        }
+
+        private long parse(String json) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            long addr = malloc.apply(bytes.length)[0];
+            memory.write((int) addr, bytes);
+            long value = jsonParse.apply(addr, bytes.length)[0];
+            if (value == 0) {
+                throw new IllegalStateException("opa_json_parse failed");
+            }
+            return value;
+        }
+
+        private void ensureCapacity(long end) {
+            long pages = (end + Memory.PAGE_SIZE - 1) / Memory.PAGE_SIZE;
+            if (pages > memory.pages()) {
+                memory.grow((int) (pages - memory.pages()));
+            }
+        }
+    }
+}
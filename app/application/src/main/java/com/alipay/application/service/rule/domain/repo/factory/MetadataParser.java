@@ -17,6 +17,7 @@
 package com.alipay.application.service.rule.domain.repo.factory;
 
 
+import com.alipay.application.service.rule.domain.PreFilterPredicate;
 import com.alipay.common.enums.RiskLevel;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -134,6 +135,7 @@ public class MetadataParser {
         private String link;
         private String context;
         private String linkedDataList;
+        private List<PreFilterPredicate> preFilter;
 
         public String getPlatform() {
             return platform;
@@ -224,6 +226,14 @@ public class MetadataParser {
             this.linkedDataList = linkedDataList;
         }
 
+        public List<PreFilterPredicate> getPreFilter() {
+            return preFilter;
+        }
+
+        public void setPreFilter(List<PreFilterPredicate> preFilter) {
+            this.preFilter = preFilter;
+        }
+
         @Override
         public String toString() {
             return "Metadata{" +
@@ -238,6 +248,7 @@ public class MetadataParser {
                     ", link='" + link + '\'' +
                     ", context='" + context + '\'' +
                     ", linkedDataList='" + linkedDataList + '\'' +
+                    ", preFilter=" + preFilter +
                     '}';
         }
     }
@@ -17,7 +17,9 @@
 package com.alipay.application.service.rule.domain.repo.factory;
 
 
+import com.alibaba.fastjson.JSON;
 import com.alipay.application.service.rule.domain.GlobalVariable;
+import com.alipay.application.service.rule.domain.PreFilterPredicate;
 import com.alipay.application.service.rule.domain.RuleAgg;
 import com.alipay.application.service.system.domain.enums.Status;
 import org.apache.commons.collections4.CollectionUtils;
@@ -47,6 +49,9 @@ public class RuleFactoryImpl implements RuleFactory {
         ruleAgg.setRuleDesc(metadata.getDescription());
         ruleAgg.setAdvice(metadata.getAdvice());
         ruleAgg.setLinkedDataList(metadata.getLinkedDataList());
+        if (metadata.getPreFilter() != null) {
+            ruleAgg.setPreFilter(JSON.toJSONString(metadata.getPreFilter()));
+        }
         ruleAgg.setRuleTypeList(metadata.getCategoryList());
         ruleAgg.setLink(metadata.getLink());
         ruleAgg.setAdvice(metadata.getAdvice());
@@ -85,6 +90,9 @@ public class RuleFactoryImpl implements RuleFactory {
         metadata.setLevel(ruleAgg.getRiskLevel());
         metadata.setContext(ruleAgg.getContext());
         metadata.setLinkedDataList(ruleAgg.getLinkedDataList());
+        if (ruleAgg.getPreFilter() != null) {
+            metadata.setPreFilter(JSON.parseArray(ruleAgg.getPreFilter(), PreFilterPredicate.class));
+        }
 
         return metadata;
     }
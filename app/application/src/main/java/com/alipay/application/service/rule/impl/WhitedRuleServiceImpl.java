@@ -28,8 +28,10 @@ import com.alipay.application.service.rule.WhitedExampleDataComponent;
 import com.alipay.application.service.rule.WhitedRegoMatcher;
 import com.alipay.application.service.rule.WhitedRuleEngineMatcher;
 import com.alipay.application.service.rule.WhitedRuleService;
+import com.alipay.application.service.rule.job.ScanScheduler;
 import com.alipay.application.service.rule.job.ScanService;
 import com.alipay.application.service.rule.job.context.TenantWhitedConfigContextV2;
+import com.alipay.application.service.rule.job.context.WhitedRegoPolicyRegistry;
 import com.alipay.application.service.system.domain.User;
 import com.alipay.application.service.system.domain.repo.TenantRepository;
 import com.alipay.application.service.system.domain.repo.UserRepository;
@@ -64,7 +66,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
-import java.util.concurrent.*;
 import java.util.stream.Stream;
 
 /**
@@ -105,15 +106,12 @@ public class WhitedRuleServiceImpl implements WhitedRuleService {
     @Resource
     private TenantWhitedConfigContextV2 tenantWhitedConfigContextV2;
 
-    private static final ExecutorService executorService = new ThreadPoolExecutor(
-            8,
-            8,
-            1L,
-            TimeUnit.MINUTES,
-            new LinkedBlockingQueue<>(1000),
-            Executors.defaultThreadFactory(),
-            new ThreadPoolExecutor.CallerRunsPolicy()
-    );
+    @Resource
+    private WhitedRegoPolicyRegistry whitedRegoPolicyRegistry;
+
+    @Resource
+    private ScanScheduler scanScheduler;
+
     @Autowired
     private TenantMapper tenantMapper;
 
@@ -149,31 +147,44 @@ public class WhitedRuleServiceImpl implements WhitedRuleService {
                     throw new RuntimeException("The current whitelist has been locked by other users, please grab the lock and try again!");
                 }
 
-                tenantWhitedConfigContextV2.clearAllCache();
                 //更新数据
                 buildWhitedRuleConfigPO(whitedRuleConfigPO, dto, currentUser, ruleConfigJson);
                 whitedRuleConfigPO.setGmtModified(new Date());
                 whitedRuleConfigMapper.updateByPrimaryKeySelective(whitedRuleConfigPO);
+                // 写入后再清理缓存，避免并发扫描重新加载到旧的配置
+                tenantWhitedConfigContextV2.clearAllCache();
+                refreshRegoPolicy(whitedRuleConfigPO);
                 return whitedRuleConfigPO.getId();
             } else {
                 throw new RuntimeException("whitedRuleConfigPO id: " + dto.getId() + "Does not exist");
             }
         }
 
-        tenantWhitedConfigContextV2.clearAllCache();
         buildWhitedRuleConfigPO(whitedRuleConfigPO, dto, currentUser, ruleConfigJson);
         whitedRuleConfigPO.setEnable(1);
         int insertResult = whitedRuleConfigMapper.insertSelective(whitedRuleConfigPO);
+        tenantWhitedConfigContextV2.clearAllCache();
+        refreshRegoPolicy(whitedRuleConfigPO);
         if (insertResult > 0 && dto.getEnable() == 1 && WhitedRuleTypeEnum.RULE_ENGINE.name().equals(dto.getRuleType()) && !StringUtils.isEmpty(dto.getRiskRuleCode())) {
             //触发风险扫描
             RulePO rulePO = ruleMapper.findOne(dto.getRiskRuleCode());
-            executorService.execute(() -> {
-                scanService.scanByRule(rulePO.getId());
-            });
+            scanScheduler.submit(ScanScheduler.Priority.INTERACTIVE, currentUser.getTenantId(),
+                    ScanScheduler.ruleKey(rulePO.getId()), () -> scanService.scanByRule(rulePO.getId()));
         }
         return whitedRuleConfigPO.getId();
     }
 
+    /**
+     * Load the REGO policy of an enabled whitelist into the policy engine, delete it otherwise
+     */
+    private void refreshRegoPolicy(WhitedRuleConfigPO whitedRuleConfigPO) {
+        if (Objects.equals(whitedRuleConfigPO.getEnable(), 1) && WhitedRegoPolicyRegistry.isRego(whitedRuleConfigPO)) {
+            whitedRegoPolicyRegistry.load(whitedRuleConfigPO);
+        } else if (whitedRuleConfigPO.getId() != null) {
+            whitedRegoPolicyRegistry.evict(whitedRuleConfigPO.getId());
+        }
+    }
+
     @Override
     public ListVO<WhitedRuleConfigVO> getList(QueryWhitedRuleDTO dto) {
         ListVO<WhitedRuleConfigVO> listVO = new ListVO<>();
@@ -261,8 +272,10 @@ public class WhitedRuleServiceImpl implements WhitedRuleService {
             log.error("deleteById whitedRuleConfig error, lockHolder and current user different， whitedRuleid: {} , lockHolder:{}， currentUser:{} ", whitedRuleConfigPO.getId(), whitedRuleConfigPO.getLockHolder(), currentUser.getUserId());
             throw new RuntimeException("The current whitelist has been locked by other users, please grab the lock and try again!");
         }
+        int deleted = whitedRuleConfigMapper.deleteByPrimaryKey(id);
         tenantWhitedConfigContextV2.clearAllCache();
-        return whitedRuleConfigMapper.deleteByPrimaryKey(id);
+        whitedRegoPolicyRegistry.evict(id);
+        return deleted;
     }
 
     @Override
@@ -277,8 +290,9 @@ public class WhitedRuleServiceImpl implements WhitedRuleService {
             }
             whitedRuleConfigPO.setEnable(enable);
             whitedRuleConfigPO.setGmtModified(new Date());
-            tenantWhitedConfigContextV2.clearAllCache();
             whitedRuleConfigMapper.updateByPrimaryKeySelective(whitedRuleConfigPO);
+            tenantWhitedConfigContextV2.clearAllCache();
+            refreshRegoPolicy(whitedRuleConfigPO);
         } else {
             throw new RuntimeException("whitedRuleConfigPO id: " + id + "Does not exist");
         }
@@ -28,7 +28,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /*
@@ -50,12 +54,35 @@ public class AccountScanJob {
     private RuleRepository ruleRepository;
     @Resource
     private TenantRepository tenantRepository;
+    @Resource
+    private ScanModeProperties scanModeProperties;
+    @Resource
+    private ScanScheduler scanScheduler;
+    @Resource
+    private ScanSchedulerProperties scanSchedulerProperties;
 
     private final Cache<String, List<RuleAgg>> ruleCache = CacheBuilder.newBuilder()
             .maximumSize(10)
             .expireAfterWrite(1, TimeUnit.HOURS)
             .build();
 
+    /**
+     * Queue the scan of a cloud account after its collection, accounts created recently are scanned before the
+     * periodic scans
+     */
+    public CompletableFuture<Void> submitScanByCloudAccountId(String cloudAccountId) {
+        CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(cloudAccountId);
+        if (cloudAccountPO == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        boolean onboarding = cloudAccountPO.getGmtCreate() != null && System.currentTimeMillis()
+                - cloudAccountPO.getGmtCreate().getTime() < scanSchedulerProperties.getOnboardingWindowMs();
+        return scanScheduler.submit(onboarding ? ScanScheduler.Priority.ONBOARDING : ScanScheduler.Priority.PERIODIC,
+                cloudAccountPO.getTenantId(), ScanScheduler.accountKey(cloudAccountId),
+                () -> scanByCloudAccountId(cloudAccountId));
+    }
+
     public void scanByCloudAccountId(String cloudAccountId) {
         CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(cloudAccountId);
         if (cloudAccountPO == null) {
@@ -78,18 +105,42 @@ public class AccountScanJob {
         try {
             long startTime = System.currentTimeMillis();
             log.info("scanByCloudAccountId start, cloudAccountId:{}, platform:{} start", cloudAccountId, cloudAccountPO.getPlatform());
-            for (RuleAgg ruleAgg : ruleAggList) {
-                if (ruleAgg.getIsRunning() == 1) {
-                    log.info("scanByCloudAccountId skip, cloudAccountId:{}, platform:{}, ruleCode:{}", cloudAccountId, cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
-                    continue;
+            if (scanModeProperties.getMode() == ScanModeProperties.Mode.RESOURCE_TYPE) {
+                scanByResourceType(cloudAccountPO, ruleAggList);
+            } else {
+                for (RuleAgg ruleAgg : ruleAggList) {
+                    if (ruleAgg.getIsRunning() == 1) {
+                        log.info("scanByCloudAccountId skip, cloudAccountId:{}, platform:{}, ruleCode:{}", cloudAccountId, cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
+                        continue;
+                    }
+                    log.info("scanByCloudAccountId start, cloudAccountId:{}, platform:{}, ruleCode:{}", cloudAccountId, cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
+                    scanService.scanByRule(ruleAgg, cloudAccountPO, tenantRepository.isDefaultRule(ruleAgg.getRuleCode()));
+                    log.info("scanByCloudAccountId end, cloudAccountId:{}, platform:{}, ruleCode:{} end", cloudAccountId, cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
                 }
-                log.info("scanByCloudAccountId start, cloudAccountId:{}, platform:{}, ruleCode:{}", cloudAccountId, cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
-                scanService.scanByRule(ruleAgg, cloudAccountPO, tenantRepository.isDefaultRule(ruleAgg.getRuleCode()));
-                log.info("scanByCloudAccountId end, cloudAccountId:{}, platform:{}, ruleCode:{} end", cloudAccountId, cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
             }
             log.info("scanByCloudAccountId end, cloudAccountId:{}, platform:{} end, spend time:{}", cloudAccountId, cloudAccountPO.getPlatform(), System.currentTimeMillis() - startTime);
         } catch (Exception e) {
             log.error("scanByCloudAccountId error, cloudAccountId:{}", cloudAccountId, e);
         }
     }
+
+    /**
+     * Scan the rules of the account by resource type, the rules of a type share one pass over the resources
+     */
+    private void scanByResourceType(CloudAccountPO cloudAccountPO, List<RuleAgg> ruleAggList) {
+        Map<String, List<RuleAgg>> rulesByType = new LinkedHashMap<>();
+        for (RuleAgg ruleAgg : ruleAggList) {
+            if (ruleAgg.getIsRunning() == 1) {
+                log.info("scanByCloudAccountId skip, cloudAccountId:{}, platform:{}, ruleCode:{}", cloudAccountPO.getCloudAccountId(), cloudAccountPO.getPlatform(), ruleAgg.getRuleCode());
+                continue;
+            }
+            rulesByType.computeIfAbsent(ruleAgg.getResourceType(), k -> new ArrayList<>()).add(ruleAgg);
+        }
+
+        for (Map.Entry<String, List<RuleAgg>> entry : rulesByType.entrySet()) {
+            log.info("scanByCloudAccountId start, cloudAccountId:{}, platform:{}, resourceType:{}, rules:{}", cloudAccountPO.getCloudAccountId(), cloudAccountPO.getPlatform(), entry.getKey(), entry.getValue().size());
+            scanService.scanByResourceType(entry.getValue(), cloudAccountPO, ruleAgg -> tenantRepository.isDefaultRule(ruleAgg.getRuleCode()));
+            log.info("scanByCloudAccountId end, cloudAccountId:{}, platform:{}, resourceType:{} end", cloudAccountPO.getCloudAccountId(), cloudAccountPO.getPlatform(), entry.getKey());
+        }
+    }
 }
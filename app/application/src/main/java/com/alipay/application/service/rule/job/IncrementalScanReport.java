@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.share.vo.rule.IncrementalScanReportVO;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ *@title IncrementalScanReport
+ *@description Evaluations run and skipped by one scan run, updated by the scanning threads and read by the query API
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/29 10:40
+ */
+public class IncrementalScanReport {
+
+    @Getter
+    private final boolean forceFull;
+
+    private final Date startTime = new Date();
+
+    private volatile Date endTime;
+
+    private final Map<Long, RuleCounter> rules = new ConcurrentHashMap<>();
+
+    public IncrementalScanReport(boolean forceFull) {
+        this.forceFull = forceFull;
+    }
+
+    public void record(RuleAgg ruleAgg, long evaluated, long skipped) {
+        RuleCounter counter = rules.computeIfAbsent(ruleAgg.getId(), k -> new RuleCounter(ruleAgg.getRuleCode()));
+        counter.evaluated.add(evaluated);
+        counter.skipped.add(skipped);
+    }
+
+    /**
+     * Count the evaluations answered by the policy result cache
+     */
+    public void recordMemo(RuleAgg ruleAgg, long hits, long misses, long savedNanos) {
+        RuleCounter counter = rules.computeIfAbsent(ruleAgg.getId(), k -> new RuleCounter(ruleAgg.getRuleCode()));
+        counter.memoHits.add(hits);
+        counter.memoMisses.add(misses);
+        counter.memoSavedNanos.add(savedNanos);
+    }
+
+    /**
+     * Count the resources the pre-filter of the rule rejected without evaluation
+     */
+    public void recordPreFiltered(RuleAgg ruleAgg, long preFiltered) {
+        RuleCounter counter = rules.computeIfAbsent(ruleAgg.getId(), k -> new RuleCounter(ruleAgg.getRuleCode()));
+        counter.preFiltered.add(preFiltered);
+    }
+
+    public void finish() {
+        this.endTime = new Date();
+    }
+
+    public boolean isRunning() {
+        return endTime == null;
+    }
+
+    public IncrementalScanReportVO toVO() {
+        IncrementalScanReportVO vo = new IncrementalScanReportVO();
+        vo.setRunning(isRunning());
+        vo.setForceFull(forceFull);
+        vo.setStartTime(startTime);
+        vo.setEndTime(endTime);
+
+        long evaluated = 0;
+        long skipped = 0;
+        long memoHits = 0;
+        long memoMisses = 0;
+        long memoSavedNanos = 0;
+        long preFiltered = 0;
+        List<IncrementalScanReportVO.RuleVO> list = new ArrayList<>(rules.size());
+        for (Map.Entry<Long, RuleCounter> entry : rules.entrySet()) {
+            IncrementalScanReportVO.RuleVO ruleVO = new IncrementalScanReportVO.RuleVO();
+            ruleVO.setRuleId(entry.getKey());
+            ruleVO.setRuleCode(entry.getValue().ruleCode);
+            ruleVO.setEvaluated(entry.getValue().evaluated.sum());
+            ruleVO.setSkipped(entry.getValue().skipped.sum());
+            ruleVO.setMemoHits(entry.getValue().memoHits.sum());
+            ruleVO.setMemoSavedMs(TimeUnit.NANOSECONDS.toMillis(entry.getValue().memoSavedNanos.sum()));
+            ruleVO.setPreFiltered(entry.getValue().preFiltered.sum());
+            evaluated += ruleVO.getEvaluated();
+            skipped += ruleVO.getSkipped();
+            memoHits += ruleVO.getMemoHits();
+            memoMisses += entry.getValue().memoMisses.sum();
+            memoSavedNanos += entry.getValue().memoSavedNanos.sum();
+            preFiltered += ruleVO.getPreFiltered();
+            list.add(ruleVO);
+        }
+        list.sort(Comparator.comparing(IncrementalScanReportVO.RuleVO::getEvaluated).reversed());
+        vo.setRules(list);
+        vo.setEvaluated(evaluated);
+        vo.setSkipped(skipped);
+        vo.setSkipRatio(evaluated + skipped == 0 ? 0D : (double) skipped / (evaluated + skipped));
+        vo.setMemoHits(memoHits);
+        vo.setMemoMisses(memoMisses);
+        vo.setMemoHitRatio(memoHits + memoMisses == 0 ? 0D : (double) memoHits / (memoHits + memoMisses));
+        vo.setMemoSavedMs(TimeUnit.NANOSECONDS.toMillis(memoSavedNanos));
+        vo.setPreFiltered(preFiltered);
+        return vo;
+    }
+
+    private static class RuleCounter {
+
+        private final String ruleCode;
+
+        private final LongAdder evaluated = new LongAdder();
+
+        private final LongAdder skipped = new LongAdder();
+
+        private final LongAdder memoHits = new LongAdder();
+
+        private final LongAdder memoMisses = new LongAdder();
+
+        private final LongAdder memoSavedNanos = new LongAdder();
+
+        private final LongAdder preFiltered = new LongAdder();
+
+        private RuleCounter(String ruleCode) {
+            this.ruleCode = ruleCode;
+        }
+    }
+}
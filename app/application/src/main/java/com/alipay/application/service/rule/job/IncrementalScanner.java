@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.rule.domain.GlobalVariable;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.share.vo.rule.IncrementalScanReportVO;
+import com.alipay.common.constant.OpaFlagConstants;
+import com.alipay.dao.mapper.RuleScanFingerprintMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.RuleScanFingerprintPO;
+import com.alipay.dao.po.RuleScanResultPO;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/*
+ *@title IncrementalScanner
+ *@description Decides which resources of a scan page must be evaluated. A resource is skipped when the
+ * hash of its content and the revision of the rule are the same as at its last successful evaluation,
+ * a skipped risk keeps its last result so that it is carried over to the new scan version. Rules calling a builtin
+ * whose answer changes without the input, e.g. time.now_ns(), are evaluated every time
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/29 10:40
+ */
+@Slf4j
+@Component
+public class IncrementalScanner {
+
+    /**
+     * builtins whose answer depends on the time or on something outside the input and the data documents
+     */
+    private static final Pattern NONDETERMINISTIC_BUILTIN = Pattern.compile(
+            "\\b(time\\.now_ns|http\\.send|rand\\.\\w+|uuid\\.\\w+|opa\\.runtime|net\\.lookup_ip_addr"
+                    + "|crypto\\.x509\\.parse_and_verify_certificates\\w*)\\s*\\(");
+
+    @Resource
+    private RuleScanFingerprintMapper ruleScanFingerprintMapper;
+
+    @Resource
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Resource
+    private ScanIncrementalProperties scanIncrementalProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean fullScanRequested = new AtomicBoolean();
+
+    /**
+     * Report of the current or last scan run on this node
+     */
+    private volatile IncrementalScanReport report;
+
+    /**
+     * Start a scan run, nested calls join the running one
+     *
+     * @return true if the caller owns the run and must finish it
+     */
+    public synchronized boolean beginRun() {
+        if (report != null && report.isRunning()) {
+            return false;
+        }
+        boolean forceFull = fullScanRequested.getAndSet(false) || isFullByConfig();
+        report = new IncrementalScanReport(forceFull);
+        return true;
+    }
+
+    public void finishRun() {
+        IncrementalScanReport current = report;
+        if (current == null) {
+            return;
+        }
+        current.finish();
+        IncrementalScanReportVO vo = current.toVO();
+        log.info("Scan run finished, forceFull:{}, evaluated:{}, skipped:{}, skipRatio:{}, memoHitRatio:{}, memoSavedMs:{}, "
+                        + "preFiltered:{}", vo.getForceFull(), vo.getEvaluated(), vo.getSkipped(),
+                String.format("%.4f", vo.getSkipRatio()), String.format("%.4f", vo.getMemoHitRatio()),
+                vo.getMemoSavedMs(), vo.getPreFiltered());
+    }
+
+    /**
+     * Evaluate every resource in the next scan run
+     */
+    public void requestFullScan() {
+        fullScanRequested.set(true);
+    }
+
+    public IncrementalScanReportVO getReport() {
+        IncrementalScanReport current = report;
+        return current == null ? null : current.toVO();
+    }
+
+    /**
+     * Open a session for a rule on a cloud account
+     *
+     * @return session, not thread safe
+     */
+    public Session open(RuleAgg ruleAgg, String cloudAccountId) {
+        return open(ruleAgg, cloudAccountId, false);
+    }
+
+    /**
+     * Open a session for a rule on a cloud account
+     *
+     * @param resumed the session continues an interrupted scan, a full scan keeps the fingerprints the interrupted
+     *                scan already wrote
+     * @return session, not thread safe
+     */
+    public Session open(RuleAgg ruleAgg, String cloudAccountId, boolean resumed) {
+        IncrementalScanReport current = report;
+        IncrementalScanReport runReport = current != null && current.isRunning() ? current : null;
+        boolean full = isFullByConfig() || (runReport != null && runReport.isForceFull());
+        Session session = new Session(ruleAgg, cloudAccountId, full, runReport);
+        session.cleared = resumed;
+        return session;
+    }
+
+    /**
+     * Forget the fingerprints of a rule on a cloud account, e.g. when the account has no resource any more
+     */
+    public void clear(Long ruleId, String cloudAccountId) {
+        ruleScanFingerprintMapper.deleteByRuleIdAndCloudAccountId(ruleId, cloudAccountId);
+    }
+
+    private boolean isFullByConfig() {
+        return !scanIncrementalProperties.isEnabled() || scanIncrementalProperties.isForceFull();
+    }
+
+    /**
+     * Revision of everything the evaluation depends on besides the resource itself
+     */
+    public static String ruleRevision(RuleAgg ruleAgg) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, ruleAgg.getRegoPath());
+        putString(hasher, ruleAgg.getRegoPolicy());
+        putString(hasher, ruleAgg.getLinkedDataList());
+        if (ruleAgg.getPreFilter() != null) {
+            putString(hasher, ruleAgg.getPreFilter());
+        }
+        if (ruleAgg.getGlobalVariables() != null) {
+            List<GlobalVariable> globalVariables = new ArrayList<>(ruleAgg.getGlobalVariables());
+            globalVariables.sort(Comparator.comparing(GlobalVariable::getPath,
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+            for (GlobalVariable globalVariable : globalVariables) {
+                putString(hasher, globalVariable.getPath());
+                putString(hasher, globalVariable.getData());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Whether the policy of the rule calls a builtin whose answer changes without the input, e.g. a rule flagging a
+     * user not logged in for 365 days. Its results can not be reused for the same input and rule revision
+     */
+    public static boolean isNondeterministic(RuleAgg ruleAgg) {
+        return ruleAgg.getRegoPolicy() != null && NONDETERMINISTIC_BUILTIN.matcher(ruleAgg.getRegoPolicy()).find();
+    }
+
+    public static String contentHash(String instance) {
+        return Hashing.sha256().hashString(StringUtils.defaultString(instance), StandardCharsets.UTF_8).toString();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        // length prefix keeps ("ab", "c") and ("a", "bc") apart
+        String s = StringUtils.defaultString(value);
+        hasher.putInt(s.length()).putString(s, StandardCharsets.UTF_8);
+    }
+
+    public class Session {
+
+        private final RuleAgg ruleAgg;
+
+        private final String cloudAccountId;
+
+        @Getter
+        private final String ruleRevision;
+
+        @Getter
+        private final boolean full;
+
+        /**
+         * {@link #isNondeterministic(RuleAgg)}, every resource is evaluated and no fingerprint is written
+         */
+        private final boolean nondeterministic;
+
+        private final IncrementalScanReport runReport;
+
+        private final Map<String, String> contentHashes = new HashMap<>();
+
+        private final List<RuleScanFingerprintPO> pending = new ArrayList<>();
+
+        private boolean cleared;
+
+        @Getter
+        private long evaluated;
+
+        @Getter
+        private long skipped;
+
+        private long memoHits;
+
+        private long memoMisses;
+
+        private long memoSavedNanos;
+
+        private long preFiltered;
+
+        private Session(RuleAgg ruleAgg, String cloudAccountId, boolean full, IncrementalScanReport runReport) {
+            this.ruleAgg = ruleAgg;
+            this.cloudAccountId = cloudAccountId;
+            this.ruleRevision = ruleRevision(ruleAgg);
+            this.full = full;
+            this.nondeterministic = isNondeterministic(ruleAgg);
+            this.runReport = runReport;
+        }
+
+        /**
+         * Split a page of resources into the ones to evaluate and the unchanged risks to carry over,
+         * unchanged resources without risk are dropped
+         */
+        public Selection select(List<CloudResourceInstancePO> resourceInstances) {
+            contentHashes.clear();
+            for (CloudResourceInstancePO resourceInstance : resourceInstances) {
+                contentHashes.put(resourceInstance.getResourceId(), contentHash(resourceInstance.getInstance()));
+            }
+
+            if (resourceInstances.isEmpty()) {
+                return new Selection(resourceInstances, List.of());
+            }
+            if (full) {
+                // fingerprints of resources that are gone are dropped by a full scan
+                if (!cleared) {
+                    clear(ruleAgg.getId(), cloudAccountId);
+                    cleared = true;
+                }
+                evaluated += resourceInstances.size();
+                return new Selection(resourceInstances, List.of());
+            }
+            if (nondeterministic) {
+                evaluated += resourceInstances.size();
+                return new Selection(resourceInstances, List.of());
+            }
+
+            Map<String, RuleScanFingerprintPO> fingerprints = new HashMap<>(resourceInstances.size() * 2);
+            for (RuleScanFingerprintPO po : ruleScanFingerprintMapper.findByResourceIdList(ruleAgg.getId(),
+                    cloudAccountId, new ArrayList<>(contentHashes.keySet()))) {
+                fingerprints.put(po.getResourceId(), po);
+            }
+
+            List<CloudResourceInstancePO> toEvaluate = new ArrayList<>();
+            List<CloudResourceInstancePO> unchangedRisks = new ArrayList<>();
+            for (CloudResourceInstancePO resourceInstance : resourceInstances) {
+                RuleScanFingerprintPO fingerprint = fingerprints.get(resourceInstance.getResourceId());
+                if (fingerprint == null
+                        || !ruleRevision.equals(fingerprint.getRuleRevision())
+                        || !contentHashes.get(resourceInstance.getResourceId()).equals(fingerprint.getContentHash())) {
+                    toEvaluate.add(resourceInstance);
+                } else if (Integer.valueOf(1).equals(fingerprint.getRisk())) {
+                    unchangedRisks.add(resourceInstance);
+                } else {
+                    skipped++;
+                }
+            }
+
+            List<Carried> carried = new ArrayList<>(unchangedRisks.size());
+            if (!unchangedRisks.isEmpty()) {
+                Map<String, RuleScanResultPO> lastResults = new HashMap<>(unchangedRisks.size() * 2);
+                for (RuleScanResultPO po : ruleScanResultMapper.findResultByResourceIdList(ruleAgg.getId(),
+                        cloudAccountId, unchangedRisks.stream().map(CloudResourceInstancePO::getResourceId).toList())) {
+                    lastResults.put(po.getResourceId(), po);
+                }
+                for (CloudResourceInstancePO resourceInstance : unchangedRisks) {
+                    RuleScanResultPO lastResult = lastResults.get(resourceInstance.getResourceId());
+                    if (lastResult == null || StringUtils.isBlank(lastResult.getResult())) {
+                        // the risk was removed since, evaluate again
+                        toEvaluate.add(resourceInstance);
+                        continue;
+                    }
+                    carried.add(new Carried(resourceInstance, JSON.parseObject(lastResult.getResult())));
+                }
+            }
+
+            evaluated += toEvaluate.size();
+            skipped += carried.size();
+            return new Selection(toEvaluate, carried);
+        }
+
+        /**
+         * Remember a successful evaluation, failed evaluations are evaluated again by the next scan
+         */
+        public void record(CloudResourceInstancePO resourceInstance, Map<String, Object> result) {
+            if (nondeterministic || result == null || result.containsKey("error")) {
+                return;
+            }
+            String contentHash = contentHashes.get(resourceInstance.getResourceId());
+            if (contentHash == null) {
+                return;
+            }
+            RuleScanFingerprintPO po = new RuleScanFingerprintPO();
+            po.setRuleId(ruleAgg.getId());
+            po.setCloudAccountId(cloudAccountId);
+            po.setResourceId(resourceInstance.getResourceId());
+            po.setContentHash(contentHash);
+            po.setRuleRevision(ruleRevision);
+            po.setRisk(Boolean.TRUE.equals(result.get(OpaFlagConstants.RISK_MARKING)) ? 1 : 0);
+            pending.add(po);
+        }
+
+        /**
+         * Write the fingerprints recorded for the current page
+         */
+        public void commit() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<RuleScanFingerprintPO> rows = new ArrayList<>(pending);
+            pending.clear();
+            ruleScanFingerprintMapper.batchUpsert(rows);
+        }
+
+        /**
+         * Count the evaluations of a page answered by the policy result cache
+         */
+        public void recordMemo(PolicyResultCache.Lookup lookup) {
+            memoHits += lookup.getHits();
+            memoMisses += lookup.getMisses();
+            memoSavedNanos += lookup.getSavedNanos();
+        }
+
+        /**
+         * Count the resources of a page the pre-filter of the rule rejected
+         */
+        public void recordPreFiltered(long count) {
+            preFiltered += count;
+        }
+
+        public void close() {
+            meterRegistry.counter("cloudrec.scan.incremental.evaluations", "result", "evaluated").increment(evaluated);
+            meterRegistry.counter("cloudrec.scan.incremental.evaluations", "result", "skipped").increment(skipped);
+            if (runReport != null) {
+                runReport.record(ruleAgg, evaluated, skipped);
+                runReport.recordMemo(ruleAgg, memoHits, memoMisses, memoSavedNanos);
+                runReport.recordPreFiltered(ruleAgg, preFiltered);
+            }
+            meterRegistry.counter("cloudrec.scan.prefilter.rejected").increment(preFiltered);
+            log.info("Incremental scan ruleCode:{}, cloudAccountId:{}, full:{}, evaluated:{}, skipped:{}, memoHits:{}, "
+                    + "preFiltered:{}", ruleAgg.getRuleCode(), cloudAccountId, full, evaluated, skipped, memoHits,
+                    preFiltered);
+        }
+    }
+
+    @Getter
+    public static class Selection {
+
+        /**
+         * resources to send to the policy engine
+         */
+        private final List<CloudResourceInstancePO> toEvaluate;
+
+        /**
+         * unchanged risks with their last result
+         */
+        private final List<Carried> carried;
+
+        private Selection(List<CloudResourceInstancePO> toEvaluate, List<Carried> carried) {
+            this.toEvaluate = toEvaluate;
+            this.carried = carried;
+        }
+    }
+
+    @Getter
+    public static class Carried {
+
+        private final CloudResourceInstancePO resourceInstance;
+
+        private final Map<String, Object> result;
+
+        private Carried(CloudResourceInstancePO resourceInstance, Map<String, Object> result) {
+            this.resourceInstance = resourceInstance;
+            this.result = result;
+        }
+    }
+}
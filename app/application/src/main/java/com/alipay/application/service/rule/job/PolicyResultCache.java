@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ *@title PolicyResultCache
+ *@description Memoization of policy results by (rule revision, canonical input hash). Default security groups,
+ * default VPC settings and identical bucket configurations give the same input after merging, in every account
+ * and tenant, and are evaluated once per rule revision. The rule revision covers the policy and its global
+ * variables, the results of an older revision are dropped as soon as a scan sees the new one. Rules whose answer
+ * changes without the input, e.g. a user not logged in for 365 days, are never cached
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/29 10:15
+ */
+@Slf4j
+@Component
+public class PolicyResultCache {
+
+    @Resource
+    private PolicyResultCacheProperties policyResultCacheProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * rule revision + input hash -> result
+     */
+    private Cache<String, Entry> cache;
+
+    /**
+     * rule id -> revision of the cached results
+     */
+    private final Map<Long, String> revisions = new ConcurrentHashMap<>();
+
+    /**
+     * @param result    result json
+     * @param costNanos evaluation time of the input, averaged over its batch
+     */
+    private record Entry(String result, long costNanos) {
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1L, policyResultCacheProperties.getMaxBytes()))
+                .weigher((String key, Entry entry) -> 64 + 2 * (key.length() + entry.result().length()))
+                .build();
+        Gauge.builder("cloudrec.scan.memo.entries", this, c -> c.cache.estimatedSize())
+                .description("Policy results in the memoization cache")
+                .register(meterRegistry);
+        Gauge.builder("cloudrec.scan.memo.bytes", this,
+                        c -> c.cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .description("Approximate size of the memoization cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Look up the results of a page of resources. Resources with a cached result and repeats of an input within
+     * the page are not evaluated, the others are returned by {@link Lookup#getToEvaluate()}. Every resource of a
+     * rule calling a time or other nondeterministic builtin is evaluated, see
+     * {@link IncrementalScanner#isNondeterministic(RuleAgg)}
+     *
+     * @param ruleRevision {@link IncrementalScanner#ruleRevision(RuleAgg)}
+     */
+    public Lookup lookup(RuleAgg ruleAgg, String ruleRevision, List<CloudResourceInstancePO> resourceInstances) {
+        Lookup lookup = new Lookup();
+        if (!policyResultCacheProperties.isEnabled() || resourceInstances.isEmpty()
+                || IncrementalScanner.isNondeterministic(ruleAgg)) {
+            lookup.toEvaluate.addAll(resourceInstances);
+            return lookup;
+        }
+        invalidateOlderRevision(ruleAgg.getId(), ruleRevision);
+
+        for (CloudResourceInstancePO resourceInstance : resourceInstances) {
+            String key = ruleRevision + ":" + inputHash(resourceInstance.getInstance());
+            lookup.keys.put(resourceInstance.getResourceId(), key);
+            Entry entry = cache.getIfPresent(key);
+            if (entry != null) {
+                lookup.cached.put(resourceInstance.getResourceId(), entry);
+                continue;
+            }
+            if (lookup.evaluatedKeys.putIfAbsent(key, resourceInstance.getResourceId()) == null) {
+                lookup.toEvaluate.add(resourceInstance);
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * Store the results of the evaluated resources and return the results of all resources of the lookup, every
+     * result is a copy the caller may change
+     *
+     * @param results       results of {@link Lookup#getToEvaluate()} by resource id
+     * @param evaluateNanos time spent evaluating them
+     */
+    public Map<String, Map<String, Object>> complete(Lookup lookup, Map<String, Map<String, Object>> results,
+                                                     long evaluateNanos) {
+        if (lookup.keys.isEmpty()) {
+            lookup.misses = lookup.toEvaluate.size();
+            return results;
+        }
+
+        long costNanos = lookup.toEvaluate.isEmpty() ? 0L : evaluateNanos / lookup.toEvaluate.size();
+        Map<String, Entry> evaluated = new HashMap<>(lookup.evaluatedKeys.size() * 2);
+        for (Map.Entry<String, String> e : lookup.evaluatedKeys.entrySet()) {
+            Map<String, Object> result = results.get(e.getValue());
+            // failed evaluations are not remembered
+            if (result == null || result.containsKey("error")) {
+                continue;
+            }
+            Entry entry = new Entry(JSON.toJSONString(result, SerializerFeature.WriteMapNullValue), costNanos);
+            cache.put(e.getKey(), entry);
+            evaluated.put(e.getKey(), entry);
+        }
+
+        Map<String, Map<String, Object>> all = new HashMap<>(lookup.keys.size() * 2);
+        for (Map.Entry<String, String> e : lookup.keys.entrySet()) {
+            String resourceId = e.getKey();
+            String evaluatedFor = lookup.evaluatedKeys.get(e.getValue());
+            if (resourceId.equals(evaluatedFor)) {
+                lookup.misses++;
+                if (results.containsKey(resourceId)) {
+                    all.put(resourceId, results.get(resourceId));
+                }
+                continue;
+            }
+
+            Entry entry = lookup.cached.containsKey(resourceId) ? lookup.cached.get(resourceId)
+                    : evaluated.get(e.getValue());
+            if (entry != null) {
+                lookup.hits++;
+                lookup.savedNanos += entry.costNanos();
+                all.put(resourceId, new HashMap<>(JSON.parseObject(entry.result())));
+            } else if (results.get(evaluatedFor) != null) {
+                // a repeat of a failed input fails the same way
+                all.put(resourceId, new HashMap<>(results.get(evaluatedFor)));
+            }
+        }
+
+        meterRegistry.counter("cloudrec.scan.memo.lookups", "result", "hit").increment(lookup.hits);
+        meterRegistry.counter("cloudrec.scan.memo.lookups", "result", "miss").increment(lookup.misses);
+        meterRegistry.counter("cloudrec.scan.memo.saved.ms").increment(lookup.savedNanos / 1_000_000D);
+        return all;
+    }
+
+    /**
+     * Drop the results of a rule when its policy or global variables changed, they can not be hit any more
+     */
+    private void invalidateOlderRevision(Long ruleId, String ruleRevision) {
+        String previous = revisions.put(ruleId, ruleRevision);
+        if (previous != null && !previous.equals(ruleRevision)) {
+            String prefix = previous + ":";
+            cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+            log.info("Policy result cache invalidated, ruleId:{}, revision:{}", ruleId, ruleRevision);
+        }
+    }
+
+    /**
+     * Hash of the input with its object keys sorted, so the key order of the collected json does not matter
+     */
+    static String inputHash(String instance) {
+        String canonical;
+        try {
+            Object document = JSON.parse(StringUtils.defaultString(instance));
+            canonical = JSON.toJSONString(document, SerializerFeature.MapSortField, SerializerFeature.WriteMapNullValue);
+        } catch (Exception e) {
+            canonical = StringUtils.defaultString(instance);
+        }
+        return Hashing.sha256().hashString(canonical, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Lookup of a page, not thread safe
+     */
+    public static class Lookup {
+
+        /**
+         * resource id -> cache key
+         */
+        private final Map<String, String> keys = new LinkedHashMap<>();
+
+        private final Map<String, Entry> cached = new HashMap<>();
+
+        /**
+         * cache key -> resource evaluated for it
+         */
+        private final Map<String, String> evaluatedKeys = new HashMap<>();
+
+        /**
+         * resources to send to the policy engine
+         */
+        @Getter
+        private final List<CloudResourceInstancePO> toEvaluate = new ArrayList<>();
+
+        @Getter
+        private long hits;
+
+        @Getter
+        private long misses;
+
+        @Getter
+        private long savedNanos;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the memoization of policy results
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.memo")
+public class PolicyResultCacheProperties {
+
+    /**
+     * Reuse the result of a rule revision for identical inputs instead of evaluating them again
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Approximate size of the cached keys and results, in bytes, the least used results are evicted above it
+     * Default: 256MB
+     */
+    private long maxBytes = 256L * 1024 * 1024;
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONPath;
+import com.alipay.application.service.rule.domain.PreFilterPredicate;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ *@title PreFilter
+ *@description Compiled pre-filter of a rule, tested on the policy input before the policy call. A resource the
+ * pre-filter rejects cannot be flagged by the rule and is compliant without being evaluated
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/30 17:20
+ */
+public class PreFilter {
+
+    public static final PreFilter NONE = new PreFilter(List.of(), "none");
+
+    private static final Pattern COMMENT = Pattern.compile("#[^\\n]*");
+
+    private static final Pattern INPUT_KEY = Pattern.compile("\\binput\\.([A-Za-z_][A-Za-z0-9_]*)");
+
+    /**
+     * input used as a whole, by a dynamic key or replaced, the keys a policy reads are then unknown
+     */
+    private static final Pattern OPAQUE_INPUT = Pattern.compile("\\binput\\b(?!\\.[A-Za-z_])|\\bwith\\b");
+
+    private final List<Predicate<Object>> predicates;
+
+    /**
+     * declared, inferred or none
+     */
+    private final String source;
+
+    private PreFilter(List<Predicate<Object>> predicates, String source) {
+        this.predicates = predicates;
+        this.source = source;
+    }
+
+    /**
+     * Compile the predicates declared in metadata.json
+     *
+     * @throws IllegalArgumentException if a predicate is invalid
+     */
+    public static PreFilter declared(List<PreFilterPredicate> predicates) {
+        if (CollectionUtils.isEmpty(predicates)) {
+            return NONE;
+        }
+        List<Predicate<Object>> compiled = new ArrayList<>(predicates.size());
+        for (PreFilterPredicate predicate : predicates) {
+            compiled.add(compile(predicate));
+        }
+        return new PreFilter(compiled, "declared");
+    }
+
+    /**
+     * Pre-filter of a policy that reads the input only through the given top-level keys and does not flag an empty
+     * input: a resource without any of the keys reads the same as the empty input
+     */
+    public static PreFilter inferred(Set<String> inputKeys) {
+        if (inputKeys.isEmpty()) {
+            return NONE;
+        }
+        return new PreFilter(List.of(anyKey(new ArrayList<>(inputKeys))), "inferred");
+    }
+
+    /**
+     * Top-level input keys a policy reads, or null when the policy uses the input in a way that cannot be followed
+     */
+    public static Set<String> inputKeys(String regoPolicy) {
+        if (StringUtils.isBlank(regoPolicy)) {
+            return null;
+        }
+        String code = COMMENT.matcher(regoPolicy).replaceAll("");
+        if (OPAQUE_INPUT.matcher(code).find()) {
+            return null;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        Matcher matcher = INPUT_KEY.matcher(code);
+        while (matcher.find()) {
+            keys.add(matcher.group(1));
+        }
+        return keys;
+    }
+
+    public boolean isEmpty() {
+        return predicates.isEmpty();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @param instance policy input json
+     * @return false if the rule cannot flag the input, true if it has to be evaluated
+     */
+    public boolean mayMatch(String instance) {
+        if (predicates.isEmpty()) {
+            return true;
+        }
+        Object root;
+        try {
+            root = JSON.parse(instance);
+        } catch (RuntimeException e) {
+            // the policy call reports the broken input
+            return true;
+        }
+        for (Predicate<Object> predicate : predicates) {
+            if (!predicate.test(root)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Predicate<Object> compile(PreFilterPredicate predicate) {
+        if (CollectionUtils.isNotEmpty(predicate.getAny())) {
+            List<Predicate<Object>> any = new ArrayList<>(predicate.getAny().size());
+            for (PreFilterPredicate p : predicate.getAny()) {
+                any.add(compile(p));
+            }
+            return root -> any.stream().anyMatch(p -> p.test(root));
+        }
+
+        String op = StringUtils.defaultString(predicate.getOp());
+        Object value = predicate.getValue();
+        if ("anyKey".equals(op)) {
+            return anyKey(values(op, value).stream().map(String::valueOf).toList());
+        }
+
+        if (StringUtils.isBlank(predicate.getPath())) {
+            throw new IllegalArgumentException("pre-filter predicate " + op + " without path");
+        }
+        JSONPath path = JSONPath.compile(predicate.getPath());
+        switch (op) {
+            case "exists":
+                return root -> present(path.eval(root));
+            case "notExists":
+                return root -> !present(path.eval(root));
+            case "eq":
+                return root -> anyValue(path.eval(root), v -> equal(v, value));
+            case "ne":
+                return root -> {
+                    Object selected = path.eval(root);
+                    return present(selected) && !anyValue(selected, v -> equal(v, value));
+                };
+            case "in":
+                List<Object> values = values(op, value);
+                return root -> anyValue(path.eval(root), v -> values.stream().anyMatch(e -> equal(v, e)));
+            case "matches":
+                Pattern pattern = Pattern.compile(String.valueOf(value));
+                return root -> anyValue(path.eval(root), v -> v instanceof String s && pattern.matcher(s).find());
+            default:
+                throw new IllegalArgumentException("unknown pre-filter op: " + op);
+        }
+    }
+
+    private static Predicate<Object> anyKey(List<String> keys) {
+        return root -> root instanceof Map<?, ?> map && keys.stream().anyMatch(map::containsKey);
+    }
+
+    private static List<Object> values(String op, Object value) {
+        if (!(value instanceof Collection<?> collection)) {
+            throw new IllegalArgumentException("pre-filter op " + op + " needs a list value");
+        }
+        return new ArrayList<>(collection);
+    }
+
+    private static boolean present(Object selected) {
+        return selected != null && !(selected instanceof Collection<?> c && c.isEmpty());
+    }
+
+    /**
+     * A path with a wildcard or a filter selects a list, the predicate holds when one of its values holds
+     */
+    private static boolean anyValue(Object selected, Predicate<Object> test) {
+        if (selected instanceof Collection<?> collection) {
+            return collection.stream().anyMatch(test);
+        }
+        return selected != null && test.test(selected);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString())) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+}
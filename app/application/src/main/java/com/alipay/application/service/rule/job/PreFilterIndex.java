@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.rule.domain.PreFilterPredicate;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.common.constant.OpaFlagConstants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ *@title PreFilterIndex
+ *@description Pre-filters of the rules by rule revision. A rule declares its pre-filter in metadata.json, an empty
+ * list turns it off. Without one, a pre-filter is inferred when the policy reads the input only through
+ * input.<key> references: a resource without any of these keys reads the same as the empty input, so if the
+ * empty input is not flagged, neither is the resource. The empty input is evaluated once per rule revision, so no
+ * pre-filter is inferred for a rule whose answer changes without the input, e.g. one calling time.now_ns()
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/30 17:40
+ */
+@Slf4j
+@Component
+public class PreFilterIndex {
+
+    private static final String PROBE_ID = "pre-filter-probe";
+
+    @Resource
+    private PreFilterProperties preFilterProperties;
+
+    @Resource
+    private OpaRepository opaRepository;
+
+    /**
+     * rule revision -> pre-filter
+     */
+    private Cache<String, PreFilter> preFilters;
+
+    @PostConstruct
+    void init() {
+        preFilters = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1L, preFilterProperties.getExpireMs())))
+                .build();
+    }
+
+    /**
+     * @param ruleRevision {@link IncrementalScanner#ruleRevision(RuleAgg)}
+     */
+    public PreFilter get(RuleAgg ruleAgg, String ruleRevision) {
+        if (!preFilterProperties.isEnabled()) {
+            return PreFilter.NONE;
+        }
+        return preFilters.get(ruleRevision, k -> build(ruleAgg));
+    }
+
+    private PreFilter build(RuleAgg ruleAgg) {
+        if (ruleAgg.getPreFilter() != null) {
+            try {
+                return PreFilter.declared(JSON.parseArray(ruleAgg.getPreFilter(), PreFilterPredicate.class));
+            } catch (RuntimeException e) {
+                log.warn("Invalid pre-filter of rule {}, every resource is evaluated: {}", ruleAgg.getRuleCode(),
+                        e.getMessage());
+                return PreFilter.NONE;
+            }
+        }
+        if (!preFilterProperties.isInfer()) {
+            return PreFilter.NONE;
+        }
+
+        if (IncrementalScanner.isNondeterministic(ruleAgg)) {
+            // the probe answered now may not hold at the next scan
+            return PreFilter.NONE;
+        }
+        Set<String> inputKeys = PreFilter.inputKeys(ruleAgg.getRegoPolicy());
+        if (inputKeys == null || inputKeys.isEmpty()) {
+            return PreFilter.NONE;
+        }
+        Map<String, Object> probe;
+        try {
+            probe = opaRepository.batchCallOpa(ruleAgg.getRegoPath(), ruleAgg.getRegoPolicy(), Map.of(PROBE_ID, "{}"))
+                    .get(PROBE_ID);
+        } catch (RuntimeException e) {
+            probe = null;
+        }
+        if (probe == null || probe.containsKey("error") || !Boolean.FALSE.equals(probe.get(OpaFlagConstants.RISK_MARKING))) {
+            // the empty input may be flagged, or it is unknown
+            return PreFilter.NONE;
+        }
+        log.info("Inferred pre-filter of rule {}: one of the input keys {}", ruleAgg.getRuleCode(), inputKeys);
+        return PreFilter.inferred(inputKeys);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the pre-filters of the rules
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.pre-filter")
+public class PreFilterProperties {
+
+    /**
+     * Test the pre-filter of a rule before the policy call, rejected resources are compliant without evaluation
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Infer a pre-filter for rules that declare none, from the input keys their policy reads
+     * Default: true
+     */
+    private boolean infer = true;
+
+    /**
+     * Compiled pre-filters are rebuilt after this time, e.g. after the probe of an inferred one failed
+     * Default: 10 minutes
+     */
+    private long expireMs = 10 * 60 * 1000L;
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.service.resource.task.LinkedResourceJoiner;
+import com.alipay.application.service.resource.task.ResourceJoinProperties;
+import com.alipay.application.service.risk.RiskStatusManager;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.application.service.rule.domain.repo.RuleRepository;
+import com.alipay.application.service.rule.job.context.RuleScanContext;
+import com.alipay.application.service.system.domain.repo.TenantRepository;
+import com.alipay.application.share.request.rule.EvaluateResourceRequest;
+import com.alipay.application.share.request.rule.LinkDataParam;
+import com.alipay.application.share.vo.rule.ResourceEvaluationVO;
+import com.alipay.common.constant.OpaFlagConstants;
+import com.alipay.common.exception.BizException;
+import com.alipay.dao.mapper.CloudAccountMapper;
+import com.alipay.dao.mapper.CloudResourceInstanceMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudAccountPO;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.RuleScanResultPO;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title ResourceEvaluator
+ *@description Evaluates every applicable rule for one resource right away and updates its findings in place, so a
+ * fixed resource shows as repaired without waiting for the next scan of the rules. The linked resources are merged
+ * and the findings are written with the whitelist checks of a scan, in the version of the last scan
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/28 14:30
+ */
+@Slf4j
+@Component
+public class ResourceEvaluator {
+
+    @Resource
+    private CloudAccountMapper cloudAccountMapper;
+
+    @Resource
+    private CloudResourceInstanceMapper cloudResourceInstanceMapper;
+
+    @Resource
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Resource
+    private RuleRepository ruleRepository;
+
+    @Resource
+    private TenantRepository tenantRepository;
+
+    @Resource
+    private OpaRepository opaRepository;
+
+    @Resource
+    private IQueryResource iQueryResource;
+
+    @Resource
+    private ResourceJoinProperties resourceJoinProperties;
+
+    @Resource
+    private RuleScanResultWriter ruleScanResultWriter;
+
+    @Resource
+    private RiskStatusManager riskStatusManager;
+
+    @Resource
+    private ResourceEvaluationProperties resourceEvaluationProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Applicable rules by platform, resource type and tenant, looking them up is a few queries per rule
+     */
+    private Cache<String, List<RuleAgg>> ruleCache;
+
+    @PostConstruct
+    void init() {
+        ruleCache = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Math.max(1L, resourceEvaluationProperties.getRuleCacheMs()), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Evaluate the applicable rules of a resource and update its findings
+     *
+     * @param request  the resource, with the freshly collected instance or without it to use the stored one
+     * @param tenantId tenant the cloud account must belong to, null for no restriction
+     * @return result of every applicable rule
+     */
+    public ResourceEvaluationVO evaluate(EvaluateResourceRequest request, Long tenantId) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            ResourceEvaluationVO vo = doEvaluate(request, tenantId);
+            vo.setCostMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            outcome = "success";
+            log.info("Evaluate resource platform:{}, resourceType:{}, cloudAccountId:{}, resourceId:{}, rules:{}, cost:{}ms",
+                    vo.getPlatform(), vo.getResourceType(), vo.getCloudAccountId(), vo.getResourceId(),
+                    vo.getRules().size(), vo.getCostMs());
+            return vo;
+        } finally {
+            Timer.builder("cloudrec.resource.evaluate")
+                    .description("Latency of the on-demand evaluation of a single resource")
+                    .tag("source", request.getInstance() == null ? "stored" : "pushed")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .serviceLevelObjectives(Duration.ofMillis(100), Duration.ofMillis(200), Duration.ofMillis(500))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ResourceEvaluationVO doEvaluate(EvaluateResourceRequest request, Long tenantId) {
+        CloudAccountPO cloudAccountPO = cloudAccountMapper.findByCloudAccountId(request.getCloudAccountId());
+        if (cloudAccountPO == null || !Objects.equals(cloudAccountPO.getPlatform(), request.getPlatform())) {
+            throw new BizException("The cloud account does not exist");
+        }
+        if (tenantId != null && !tenantId.equals(cloudAccountPO.getTenantId())) {
+            throw new BizException("The cloud account does not belong to the current tenant");
+        }
+
+        CloudResourceInstancePO stored = cloudResourceInstanceMapper.findOne(request.getPlatform(),
+                request.getResourceType(), request.getCloudAccountId(), request.getResourceId());
+        CloudResourceInstancePO resourceInstance = request.getInstance() == null ? stored
+                : pushedInstance(request, cloudAccountPO, stored);
+        if (resourceInstance == null) {
+            throw new BizException("The resource does not exist");
+        }
+
+        ResourceEvaluationVO vo = new ResourceEvaluationVO();
+        vo.setPlatform(request.getPlatform());
+        vo.setResourceType(request.getResourceType());
+        vo.setCloudAccountId(request.getCloudAccountId());
+        vo.setResourceId(request.getResourceId());
+        List<RuleAgg> rules = applicableRules(request.getPlatform(), request.getResourceType(),
+                cloudAccountPO.getTenantId());
+        if (rules.isEmpty()) {
+            return vo;
+        }
+
+        Map<Long, RuleScanResultPO> findings = findings(request.getCloudAccountId(), request.getResourceId());
+
+        // Rules with the same linked data evaluate the same merged instance, key "" is the rules without linked data
+        Map<String, List<RuleAgg>> rulesByLink = new LinkedHashMap<>();
+        for (RuleAgg ruleAgg : rules) {
+            List<LinkDataParam> linkedDataList = LinkDataParam.deserializeList(ruleAgg.getLinkedDataList());
+            String link = CollectionUtils.isEmpty(linkedDataList) ? "" : ruleAgg.getLinkedDataList().trim();
+            rulesByLink.computeIfAbsent(link, k -> new ArrayList<>()).add(ruleAgg);
+        }
+        for (Map.Entry<String, List<RuleAgg>> entry : rulesByLink.entrySet()) {
+            CloudResourceInstancePO merged = merge(entry.getKey(), entry.getValue().get(0), resourceInstance);
+            for (RuleAgg ruleAgg : entry.getValue()) {
+                vo.getRules().add(evaluate(ruleAgg, cloudAccountPO, merged, findings.get(ruleAgg.getId())));
+            }
+        }
+
+        // Report the status after the writes, a finding may have been whited by the whitelist checks
+        Map<Long, RuleScanResultPO> updated = findings(request.getCloudAccountId(), request.getResourceId());
+        for (ResourceEvaluationVO.RuleResultVO ruleResult : vo.getRules()) {
+            RuleScanResultPO finding = updated.get(ruleResult.getRuleId());
+            ruleResult.setStatus(finding == null ? null : finding.getStatus());
+        }
+        return vo;
+    }
+
+    private ResourceEvaluationVO.RuleResultVO evaluate(RuleAgg ruleAgg, CloudAccountPO cloudAccountPO,
+                                                       CloudResourceInstancePO resourceInstance,
+                                                       RuleScanResultPO previous) {
+        ResourceEvaluationVO.RuleResultVO ruleResult = new ResourceEvaluationVO.RuleResultVO();
+        ruleResult.setRuleId(ruleAgg.getId());
+        ruleResult.setRuleCode(ruleAgg.getRuleCode());
+        ruleResult.setRuleName(ruleAgg.getRuleName());
+        ruleResult.setRisk(false);
+
+        Map<String, Object> result;
+        RuleScanContext.setCurrentRule(ruleAgg);
+        try {
+            result = opaRepository.batchCallOpa(ruleAgg.getRegoPath(), ruleAgg.getRegoPolicy(),
+                    Map.of(resourceInstance.getResourceId(), resourceInstance.getInstance()))
+                    .get(resourceInstance.getResourceId());
+        } catch (Exception e) {
+            log.error("Evaluate resource:{} with rule:{} failed", resourceInstance.getResourceId(),
+                    ruleAgg.getRuleCode(), e);
+            ruleResult.setError(e.getMessage());
+            return ruleResult;
+        } finally {
+            RuleScanContext.clear();
+        }
+        // A failed evaluation keeps the finding as it is
+        if (result == null || result.get("error") != null) {
+            ruleResult.setError(result == null ? "Execute rule failed" : String.valueOf(result.get("error")));
+            return ruleResult;
+        }
+
+        if (Boolean.TRUE.equals(result.get(OpaFlagConstants.RISK_MARKING))) {
+            ruleResult.setRisk(true);
+            Long version = ruleScanResultMapper.findMaxVersion(ruleAgg.getId(), cloudAccountPO.getCloudAccountId());
+            RuleScanResultWriter.Buffer resultBuffer = ruleScanResultWriter.open(ruleAgg, cloudAccountPO,
+                    version == null ? 1L : version);
+            ScanServiceImpl.addRisk(resultBuffer, resourceInstance, new HashMap<>(result));
+            resultBuffer.flush();
+        } else if (previous != null && RiskStatusManager.RiskStatus.UNREPAIRED.name().equals(previous.getStatus())) {
+            riskStatusManager.unrepairedToRepaired(previous.getId());
+        }
+        return ruleResult;
+    }
+
+    /**
+     * Mount the linked resources on a copy of the instance, the linked resources are read like in a scan
+     */
+    private CloudResourceInstancePO merge(String link, RuleAgg ruleAgg, CloudResourceInstancePO resourceInstance) {
+        CloudResourceInstancePO copy = new CloudResourceInstancePO();
+        BeanUtils.copyProperties(resourceInstance, copy);
+        if (link.isEmpty()) {
+            return copy;
+        }
+        try (LinkedResourceJoiner joiner = new LinkedResourceJoiner(
+                LinkDataParam.deserializeList(ruleAgg.getLinkedDataList()), resourceInstance.getCloudAccountId(),
+                iQueryResource, resourceJoinProperties)) {
+            return joiner.merge(new ArrayList<>(List.of(copy))).get(0);
+        }
+    }
+
+    /**
+     * The valid rules of the resource type that are default rules or selected by the tenant of the cloud account
+     */
+    private List<RuleAgg> applicableRules(String platform, String resourceType, Long tenantId) {
+        try {
+            return ruleCache.get(platform + "/" + resourceType + "/" + tenantId, () -> ruleRepository.findAll(platform)
+                    .stream()
+                    .filter(r -> Objects.equals(r.getResourceType(), resourceType))
+                    .filter(r -> tenantRepository.isDefaultRule(r.getRuleCode())
+                            || tenantRepository.isSelected(tenantId, r.getRuleCode()))
+                    .toList());
+        } catch (ExecutionException e) {
+            throw new BizException("Load the rules of the resource type failed", e.getCause());
+        }
+    }
+
+    private Map<Long, RuleScanResultPO> findings(String cloudAccountId, String resourceId) {
+        Map<Long, RuleScanResultPO> findings = new HashMap<>();
+        for (RuleScanResultPO po : ruleScanResultMapper.findByResourceId(cloudAccountId, resourceId)) {
+            findings.put(po.getRuleId(), po);
+        }
+        return findings;
+    }
+
+    /**
+     * The instance pushed by a collector, it is evaluated as is and stored by the next collection
+     */
+    private static CloudResourceInstancePO pushedInstance(EvaluateResourceRequest request, CloudAccountPO cloudAccountPO,
+                                                          CloudResourceInstancePO stored) {
+        CloudResourceInstancePO resourceInstance = new CloudResourceInstancePO();
+        if (stored != null) {
+            BeanUtils.copyProperties(stored, resourceInstance);
+        }
+        resourceInstance.setPlatform(request.getPlatform());
+        resourceInstance.setResourceType(request.getResourceType());
+        resourceInstance.setCloudAccountId(request.getCloudAccountId());
+        resourceInstance.setResourceId(request.getResourceId());
+        if (request.getResourceName() != null) {
+            resourceInstance.setResourceName(request.getResourceName());
+        }
+        if (request.getAddress() != null) {
+            resourceInstance.setAddress(request.getAddress());
+        }
+        resourceInstance.setTenantId(cloudAccountPO.getTenantId());
+        resourceInstance.setInstance(JSON.toJSONString(request.getInstance(), SerializerFeature.WriteMapNullValue));
+        resourceInstance.setGmtModified(new Date());
+        return resourceInstance;
+    }
+}
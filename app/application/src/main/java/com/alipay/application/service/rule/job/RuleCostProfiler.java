@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.share.vo.rule.RuleCostVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title RuleCostProfiler
+ *@description Evaluation, merge and write cost per rule and cloud account over a rolling window
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/25 10:30
+ */
+@Component
+public class RuleCostProfiler {
+
+    /**
+     * Cloud accounts listed per rule in the report
+     */
+    private static final int TOP_ACCOUNTS = 5;
+
+    @Resource
+    private RuleCostProfilerProperties ruleCostProfilerProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, RuleWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Record the cost of one page of a rule scan
+     *
+     * @param evaluations   resources evaluated by the policy engine
+     * @param evaluateNanos time spent in the policy engine
+     * @param mergeNanos    time spent merging the linked resources
+     * @param writeNanos    time spent writing the findings
+     */
+    public void record(RuleAgg ruleAgg, String cloudAccountId, int evaluations, long evaluateNanos, long mergeNanos,
+                       long writeNanos) {
+        if (!ruleCostProfilerProperties.isEnabled()
+                || (evaluations == 0 && evaluateNanos == 0 && mergeNanos == 0 && writeNanos == 0)) {
+            return;
+        }
+
+        String ruleCode = String.valueOf(ruleAgg.getRuleCode());
+        if (evaluations > 0) {
+            meterRegistry.counter("cloudrec.rule.evaluations", "rule", ruleCode).increment(evaluations);
+            Timer.builder("cloudrec.rule.evaluation")
+                    .description("Latency of one evaluation, averaged over its batch")
+                    .tag("rule", ruleCode)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(evaluateNanos / evaluations, TimeUnit.NANOSECONDS);
+        }
+        if (mergeNanos > 0) {
+            meterRegistry.timer("cloudrec.rule.merge", "rule", ruleCode).record(mergeNanos, TimeUnit.NANOSECONDS);
+        }
+        if (writeNanos > 0) {
+            meterRegistry.timer("cloudrec.rule.write", "rule", ruleCode).record(writeNanos, TimeUnit.NANOSECONDS);
+        }
+
+        windows.computeIfAbsent(ruleAgg.getId(), k -> new RuleWindow())
+                .add(ruleAgg, new Sample(System.currentTimeMillis(), cloudAccountId, evaluations, evaluateNanos,
+                        mergeNanos, writeNanos));
+    }
+
+    /**
+     * Rules ranked by their total cost in the rolling window, most expensive first
+     */
+    public List<RuleCostVO> getSlowestRules(int limit) {
+        long since = System.currentTimeMillis() - ruleCostProfilerProperties.getWindowMs();
+        List<RuleCostVO> list = new ArrayList<>();
+        for (Map.Entry<Long, RuleWindow> entry : windows.entrySet()) {
+            RuleCostVO vo = entry.getValue().toVO(entry.getKey(), since);
+            if (vo != null) {
+                list.add(vo);
+            }
+        }
+        list.sort(Comparator.comparing(RuleCostVO::getTotalMs).reversed());
+        return list.subList(0, Math.min(Math.max(0, limit), list.size()));
+    }
+
+    private record Sample(long time, String cloudAccountId, int evaluations, long evaluateNanos, long mergeNanos,
+                          long writeNanos) {
+
+        long totalNanos() {
+            return evaluateNanos + mergeNanos + writeNanos;
+        }
+    }
+
+    private class RuleWindow {
+
+        private final Deque<Sample> samples = new ArrayDeque<>();
+
+        private String ruleCode;
+
+        private String ruleName;
+
+        private synchronized void add(RuleAgg ruleAgg, Sample sample) {
+            ruleCode = ruleAgg.getRuleCode();
+            ruleName = ruleAgg.getRuleName();
+            samples.addLast(sample);
+            evict(sample.time() - ruleCostProfilerProperties.getWindowMs());
+            while (samples.size() > ruleCostProfilerProperties.getMaxSamplesPerRule()) {
+                samples.removeFirst();
+            }
+        }
+
+        private void evict(long since) {
+            while (!samples.isEmpty() && samples.peekFirst().time() < since) {
+                samples.removeFirst();
+            }
+        }
+
+        private synchronized RuleCostVO toVO(Long ruleId, long since) {
+            evict(since);
+            if (samples.isEmpty()) {
+                return null;
+            }
+
+            long evaluations = 0;
+            long evaluateNanos = 0;
+            long mergeNanos = 0;
+            long writeNanos = 0;
+            List<Double> latencies = new ArrayList<>();
+            Map<String, long[]> accounts = new HashMap<>();
+            for (Sample sample : samples) {
+                evaluations += sample.evaluations();
+                evaluateNanos += sample.evaluateNanos();
+                mergeNanos += sample.mergeNanos();
+                writeNanos += sample.writeNanos();
+                if (sample.evaluations() > 0) {
+                    latencies.add((double) sample.evaluateNanos() / sample.evaluations());
+                }
+                long[] account = accounts.computeIfAbsent(sample.cloudAccountId(), k -> new long[2]);
+                account[0] += sample.evaluations();
+                account[1] += sample.totalNanos();
+            }
+            latencies.sort(null);
+
+            RuleCostVO vo = new RuleCostVO();
+            vo.setRuleId(ruleId);
+            vo.setRuleCode(ruleCode);
+            vo.setRuleName(ruleName);
+            vo.setEvaluations(evaluations);
+            vo.setTotalMs(TimeUnit.NANOSECONDS.toMillis(evaluateNanos + mergeNanos + writeNanos));
+            vo.setEvaluateMs(TimeUnit.NANOSECONDS.toMillis(evaluateNanos));
+            vo.setP50Ms(percentileMs(latencies, 0.5));
+            vo.setP95Ms(percentileMs(latencies, 0.95));
+            vo.setP99Ms(percentileMs(latencies, 0.99));
+            vo.setMergeMs(TimeUnit.NANOSECONDS.toMillis(mergeNanos));
+            vo.setWriteMs(TimeUnit.NANOSECONDS.toMillis(writeNanos));
+            vo.setAccounts(accounts.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed())
+                    .limit(TOP_ACCOUNTS)
+                    .map(e -> {
+                        RuleCostVO.AccountVO accountVO = new RuleCostVO.AccountVO();
+                        accountVO.setCloudAccountId(e.getKey());
+                        accountVO.setEvaluations(e.getValue()[0]);
+                        accountVO.setTotalMs(TimeUnit.NANOSECONDS.toMillis(e.getValue()[1]));
+                        return accountVO;
+                    })
+                    .toList());
+            return vo;
+        }
+    }
+
+    /**
+     * Nearest rank percentile of sorted latencies in nanoseconds
+     */
+    private static Double percentileMs(List<Double> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return null;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.size());
+        return sorted.get(Math.max(0, rank - 1)) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.risk.RiskStatusManager;
+import com.alipay.application.service.rule.WhitedRegoMatcher;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.job.context.TenantWhitedConfigContextV2;
+import com.alipay.common.enums.Action;
+import com.alipay.common.enums.LogType;
+import com.alipay.common.enums.ResourceStatus;
+import com.alipay.common.enums.WhitedRuleTypeEnum;
+import com.alipay.common.utils.DateUtil;
+import com.alipay.dao.mapper.OperationLogMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudAccountPO;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.OperationLogPO;
+import com.alipay.dao.po.RuleScanResultPO;
+import com.alipay.dao.po.WhitedRuleConfigPO;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title RuleScanResultWriter
+ *@description Buffers the findings of a scan and writes them with multi-row upserts instead of
+ * a select, insert or update and whitelist update per finding
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/25 16:20
+ */
+@Slf4j
+@Component
+public class RuleScanResultWriter {
+
+    @Resource
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Resource
+    private OperationLogMapper operationLogMapper;
+
+    @Resource
+    private TenantWhitedConfigContextV2 whitedConfigContext;
+
+    @Resource
+    private WhitedRegoMatcher whitedRegoMatcher;
+
+    @Resource
+    private ScanResultWriterProperties scanResultWriterProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Open a buffer for the findings of a rule on a cloud account
+     *
+     * @param ruleAgg        rule
+     * @param cloudAccountPO cloud account
+     * @param version        version of this scan
+     * @return buffer, not thread safe
+     */
+    public Buffer open(RuleAgg ruleAgg, CloudAccountPO cloudAccountPO, long version) {
+        return new Buffer(ruleAgg, cloudAccountPO, version);
+    }
+
+    public class Buffer {
+
+        private final RuleAgg ruleAgg;
+
+        private final CloudAccountPO cloudAccountPO;
+
+        private final long version;
+
+        private final List<Finding> findings = new ArrayList<>();
+
+        private long lastFlushTime = System.currentTimeMillis();
+
+        @Getter
+        private int flushCount;
+
+        @Getter
+        private int writtenRows;
+
+        @Getter
+        private int writtenLogs;
+
+        /**
+         * time spent writing, in nanoseconds
+         */
+        @Getter
+        private long flushNanos;
+
+        private Buffer(RuleAgg ruleAgg, CloudAccountPO cloudAccountPO, long version) {
+            this.ruleAgg = ruleAgg;
+            this.cloudAccountPO = cloudAccountPO;
+            this.version = version;
+        }
+
+        /**
+         * Add a finding, the buffer is flushed when it is full or the flush interval has passed
+         *
+         * @param resourceInstance resource
+         * @param result           rego result
+         */
+        public void add(CloudResourceInstancePO resourceInstance, Map<String, Object> result) {
+            findings.add(new Finding(resourceInstance, result));
+            if (findings.size() >= scanResultWriterProperties.getFlushSize()
+                    || System.currentTimeMillis() - lastFlushTime >= scanResultWriterProperties.getFlushIntervalMs()) {
+                flush();
+            }
+        }
+
+        /**
+         * Write the buffered findings and their operation logs
+         */
+        public void flush() {
+            lastFlushTime = System.currentTimeMillis();
+            if (findings.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<Finding> pending = new ArrayList<>(findings);
+            findings.clear();
+
+            Map<String, RuleScanResultPO> existing = findExisting(pending.stream()
+                    .map(f -> f.resourceInstance.getResourceId()).toList());
+
+            List<RuleScanResultPO> rows = new ArrayList<>(pending.size());
+            List<OperationLogPO> logs = new ArrayList<>();
+            // logs of new risks get their correlation id after the upsert
+            Map<String, List<OperationLogPO>> newRiskLogs = new HashMap<>();
+            for (Finding finding : pending) {
+                RuleScanResultPO previous = existing.get(finding.resourceInstance.getResourceId());
+                List<OperationLogPO> rowLogs = new ArrayList<>();
+                rows.add(buildRow(finding, previous, rowLogs));
+                if (previous != null) {
+                    rowLogs.forEach(l -> l.setCorrelationId(previous.getId()));
+                    logs.addAll(rowLogs);
+                } else if (!rowLogs.isEmpty()) {
+                    newRiskLogs.put(finding.resourceInstance.getResourceId(), rowLogs);
+                }
+            }
+
+            ruleScanResultMapper.batchUpsert(rows);
+            if (!newRiskLogs.isEmpty()) {
+                findExisting(new ArrayList<>(newRiskLogs.keySet())).forEach((resourceId, po) -> {
+                    List<OperationLogPO> rowLogs = newRiskLogs.get(resourceId);
+                    rowLogs.forEach(l -> l.setCorrelationId(po.getId()));
+                    logs.addAll(rowLogs);
+                });
+            }
+            if (!logs.isEmpty()) {
+                operationLogMapper.insertBatch(logs);
+            }
+
+            long cost = System.nanoTime() - start;
+            flushCount++;
+            writtenRows += rows.size();
+            writtenLogs += logs.size();
+            flushNanos += cost;
+            meterRegistry.counter("cloudrec.scan.result.rows", "kind", "result").increment(rows.size());
+            meterRegistry.counter("cloudrec.scan.result.rows", "kind", "operation_log").increment(logs.size());
+            meterRegistry.summary("cloudrec.scan.result.flush.rows").record(rows.size());
+            meterRegistry.timer("cloudrec.scan.result.flush").record(cost, TimeUnit.NANOSECONDS);
+            log.info("Flush scan results ruleCode:{}, cloudAccountId:{}, rows:{}, operationLogs:{}, cost:{}ms",
+                    ruleAgg.getRuleCode(), cloudAccountPO.getCloudAccountId(), rows.size(), logs.size(),
+                    TimeUnit.NANOSECONDS.toMillis(cost));
+        }
+
+        private Map<String, RuleScanResultPO> findExisting(List<String> resourceIdList) {
+            Map<String, RuleScanResultPO> map = new HashMap<>(resourceIdList.size() * 2);
+            for (RuleScanResultPO po : ruleScanResultMapper.findByResourceIdList(ruleAgg.getId(),
+                    cloudAccountPO.getCloudAccountId(), resourceIdList)) {
+                map.put(po.getResourceId(), po);
+            }
+            return map;
+        }
+
+        /**
+         * Row of a finding, with the same status transitions as a single risk update
+         */
+        private RuleScanResultPO buildRow(Finding finding, RuleScanResultPO previous, List<OperationLogPO> logs) {
+            CloudResourceInstancePO resourceInstance = finding.resourceInstance;
+            RuleScanResultPO row = new RuleScanResultPO();
+            row.setRuleSnapshoot(ruleAgg.getRegoPolicy());
+            row.setResourceStatus(ResourceStatus.exist.name());
+            row.setTenantId(cloudAccountPO.getTenantId());
+            row.setResourceSnapshoot(resourceInstance.getInstance());
+            row.setUpdateTime(DateUtil.dateToString(resourceInstance.getGmtModified()));
+            row.setVersion(version);
+            row.setRuleId(ruleAgg.getId());
+            row.setCloudAccountId(resourceInstance.getCloudAccountId());
+            row.setPlatform(resourceInstance.getPlatform());
+            row.setResourceType(resourceInstance.getResourceType());
+            row.setResourceId(resourceInstance.getResourceId());
+            row.setResourceName(resourceInstance.getResourceName());
+            row.setResult(JSON.toJSONString(finding.result));
+            row.setCloudResourceInstanceId(resourceInstance.getId());
+            row.setIsNew(previous == null ? 1 : 0);
+            row.setWhitedId(previous == null ? null : previous.getWhitedId());
+
+            String status = previous == null ? null : previous.getStatus();
+            // Resolved status changes to unresolved
+            if (RiskStatusManager.RiskStatus.REPAIRED.name().equals(status)) {
+                logs.add(operationLog(Action.RiskAction.REPAIRED, "SYSTEM", "风险从已修复状态变更为未修复状态"));
+            }
+            // The state has been ignored or whited and does not change the state
+            if (!RiskStatusManager.RiskStatus.IGNORED.name().equals(status)
+                    && !RiskStatusManager.RiskStatus.WHITED.name().equals(status)) {
+                status = RiskStatusManager.RiskStatus.UNREPAIRED.name();
+            }
+            row.setStatus(status);
+
+            WhitedRuleConfigPO hit = matchWhitedRuleConfig(row, resourceInstance);
+            log.info("Update ruleScanResult status:{},hitWhitedRuleName:{},resourceId:{}", hit != null,
+                    hit == null ? null : hit.getRuleName(), row.getResourceId());
+            if (hit != null) {
+                row.setWhitedId(hit.getId());
+            }
+            if (hit != null && RiskStatusManager.RiskStatus.UNREPAIRED.name().equals(status)) {
+                row.setStatus(RiskStatusManager.RiskStatus.WHITED.name());
+                logs.add(operationLog(Action.RiskAction.WHITED, "system",
+                        String.format("命中白名单规则:%s, 风险从未修复状态变更为已加白状态", hit.getRuleName())));
+            } else if (hit == null && RiskStatusManager.RiskStatus.WHITED.name().equals(status)) {
+                row.setStatus(RiskStatusManager.RiskStatus.UNREPAIRED.name());
+                row.setWhitedId(null);
+                logs.add(operationLog(Action.RiskAction.CANCEL_WHITED, "system",
+                        "未命中白名单规则, 风险从已加白状态变更为未修复状态"));
+            }
+            return row;
+        }
+
+        private WhitedRuleConfigPO matchWhitedRuleConfig(RuleScanResultPO row, CloudResourceInstancePO resourceInstance) {
+            // Get whited rule configurations by tenant to ensure tenant isolation
+            String ruleCode = ruleAgg.getRuleCode();
+            for (WhitedRuleConfigPO whitedRuleConfigPO : whitedConfigContext.getByTenant(cloudAccountPO.getTenantId())) {
+                if (!StringUtils.isEmpty(whitedRuleConfigPO.getRiskRuleCode())) {
+                    if (StringUtils.isEmpty(ruleCode) || !ruleCode.equals(whitedRuleConfigPO.getRiskRuleCode())) {
+                        continue;
+                    }
+                }
+
+                boolean isWhited = false;
+                if (whitedRuleConfigPO.getRuleType().equals(WhitedRuleTypeEnum.RULE_ENGINE.name())) {
+                    isWhited = whitedConfigContext.getCompiledRule(whitedRuleConfigPO).matches(row);
+                } else if (whitedRuleConfigPO.getRuleType().equals(WhitedRuleTypeEnum.REGO.name())) {
+                    isWhited = whitedRegoMatcher.executeRegoMatch(whitedRuleConfigPO.getRegoContent(),
+                            whitedRuleConfigPO.getId().toString(), row, cloudAccountPO, resourceInstance);
+                }
+                if (isWhited) {
+                    return whitedRuleConfigPO;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static OperationLogPO operationLog(Action.RiskAction action, String userId, String notes) {
+        OperationLogPO operationLogPO = new OperationLogPO();
+        operationLogPO.setAction(action.getName());
+        operationLogPO.setUserId(userId);
+        operationLogPO.setNotes(notes);
+        operationLogPO.setType(LogType.RISK.name());
+        return operationLogPO;
+    }
+
+    private static class Finding {
+
+        private final CloudResourceInstancePO resourceInstance;
+
+        private final Map<String, Object> result;
+
+        private Finding(CloudResourceInstancePO resourceInstance, Map<String, Object> result) {
+            this.resourceInstance = resourceInstance;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.mapper.RuleScanCheckpointMapper;
+import com.alipay.dao.po.RuleScanCheckpointPO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title ScanCheckpointManager
+ *@description Checkpoints of (rule, cloud account) scans, an interrupted scan resumes with its version and scroll id
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/24 10:15
+ */
+@Slf4j
+@Component
+public class ScanCheckpointManager {
+
+    static final String RUNNING = "RUNNING";
+
+    static final String FINISHED = "FINISHED";
+
+    @Resource
+    private RuleScanCheckpointMapper ruleScanCheckpointMapper;
+
+    @Resource
+    private ScanCheckpointProperties scanCheckpointProperties;
+
+    /**
+     * Where a scan starts
+     *
+     * @param version  version the findings are written with
+     * @param scrollId resources up to this id are already scanned
+     * @param resumed  whether the scan continues an interrupted one
+     */
+    public record Checkpoint(long version, long scrollId, boolean resumed) {
+    }
+
+    /**
+     * Begin the scan of a rule on a cloud account. A running checkpoint is resumed with its version, so the
+     * findings written before the interruption are not taken as repaired when the scan finishes.
+     *
+     * @param maxVersion highest version of the findings of the rule on the cloud account, null if there are none
+     * @return where to start, null if the scan already finished in the current run of the rule
+     */
+    public Checkpoint begin(RuleAgg ruleAgg, String cloudAccountId, Long maxVersion) {
+        long nextVersion = maxVersion == null ? 1 : maxVersion + 1;
+        if (!scanCheckpointProperties.isEnabled()) {
+            return new Checkpoint(nextVersion, 0L, false);
+        }
+
+        RuleScanCheckpointPO po = ruleScanCheckpointMapper.findOne(ruleAgg.getId(), cloudAccountId);
+        if (po != null) {
+            if (FINISHED.equals(po.getStatus()) && sameRun(po.getRunStartTime(), ruleAgg.getLastScanTimeStart())) {
+                log.info("Scan ruleCode:{}, cloudAccountId:{} finished in this run, skip", ruleAgg.getRuleCode(),
+                        cloudAccountId);
+                return null;
+            }
+            if (RUNNING.equals(po.getStatus()) && isResumable(po, maxVersion)) {
+                log.info("Resume scan ruleCode:{}, cloudAccountId:{}, version:{}, scrollId:{}", ruleAgg.getRuleCode(),
+                        cloudAccountId, po.getVersion(), po.getScrollId());
+                save(ruleAgg, cloudAccountId, po.getVersion(), po.getScrollId(), RUNNING);
+                return new Checkpoint(po.getVersion(), po.getScrollId(), true);
+            }
+        }
+
+        save(ruleAgg, cloudAccountId, nextVersion, 0L, RUNNING);
+        return new Checkpoint(nextVersion, 0L, false);
+    }
+
+    /**
+     * Record that the findings of the resources up to the scroll id are written
+     */
+    public void save(RuleAgg ruleAgg, String cloudAccountId, Checkpoint checkpoint, long scrollId) {
+        if (scanCheckpointProperties.isEnabled()) {
+            save(ruleAgg, cloudAccountId, checkpoint.version(), scrollId, RUNNING);
+        }
+    }
+
+    /**
+     * Record that the scan finished and the findings of older versions are resolved
+     */
+    public void finish(RuleAgg ruleAgg, String cloudAccountId, Checkpoint checkpoint) {
+        if (scanCheckpointProperties.isEnabled()) {
+            save(ruleAgg, cloudAccountId, checkpoint.version(), checkpoint.scrollId(), FINISHED);
+        }
+    }
+
+    /**
+     * Forget the checkpoint of a rule on a cloud account, e.g. when the account has no resource any more
+     */
+    public void remove(Long ruleId, String cloudAccountId) {
+        if (scanCheckpointProperties.isEnabled()) {
+            ruleScanCheckpointMapper.deleteOne(ruleId, cloudAccountId);
+        }
+    }
+
+    /**
+     * Forget the finished scans of a rule when its run ends, the running ones are resumed by the next run
+     */
+    public void finishRun(Long ruleId) {
+        if (scanCheckpointProperties.isEnabled()) {
+            ruleScanCheckpointMapper.deleteByRuleIdAndStatus(ruleId, FINISHED);
+        }
+    }
+
+    /**
+     * Whether a scan of the rule was interrupted: it has a running checkpoint without recent progress
+     */
+    public boolean isInterrupted(Long ruleId) {
+        if (!scanCheckpointProperties.isEnabled()) {
+            return false;
+        }
+        Date staleBefore = new Date(System.currentTimeMillis() - scanCheckpointProperties.getStaleMs());
+        return ruleScanCheckpointMapper.findByRuleId(ruleId).stream()
+                .anyMatch(po -> RUNNING.equals(po.getStatus()) && po.getGmtModified().before(staleBefore));
+    }
+
+    /**
+     * Rules with an interrupted scan
+     */
+    public List<Long> findInterruptedRuleIds() {
+        if (!scanCheckpointProperties.isEnabled()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        return ruleScanCheckpointMapper.findRunningBefore(new Date(now - scanCheckpointProperties.getStaleMs()))
+                .stream()
+                .filter(po -> po.getGmtModified().getTime() > now - scanCheckpointProperties.getMaxAgeMs())
+                .map(RuleScanCheckpointPO::getRuleId)
+                .distinct()
+                .toList();
+    }
+
+    private boolean isResumable(RuleScanCheckpointPO po, Long maxVersion) {
+        // A scan with a newer version finished since, its findings must not be overwritten with an older version
+        if (maxVersion != null && maxVersion > po.getVersion()) {
+            return false;
+        }
+        return po.getGmtModified() != null
+                && po.getGmtModified().getTime() > System.currentTimeMillis() - scanCheckpointProperties.getMaxAgeMs();
+    }
+
+    private void save(RuleAgg ruleAgg, String cloudAccountId, long version, long scrollId, String status) {
+        RuleScanCheckpointPO po = new RuleScanCheckpointPO();
+        po.setRuleId(ruleAgg.getId());
+        po.setCloudAccountId(cloudAccountId);
+        po.setVersion(version);
+        po.setScrollId(scrollId);
+        po.setStatus(status);
+        po.setRunStartTime(ruleAgg.getLastScanTimeStart());
+        ruleScanCheckpointMapper.upsert(po);
+    }
+
+    /**
+     * The database keeps the run start time in whole seconds
+     */
+    private static boolean sameRun(Date a, Date b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        return Math.abs(a.getTime() - b.getTime()) < TimeUnit.SECONDS.toMillis(1);
+    }
+}
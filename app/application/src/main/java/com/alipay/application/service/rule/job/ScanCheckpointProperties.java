@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the checkpoints of rule scans
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.checkpoint")
+public class ScanCheckpointProperties {
+
+    /**
+     * Whether scans write checkpoints and resume from them
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * A running checkpoint without progress for this long belongs to an interrupted scan, in milliseconds
+     * Default: 10 minutes
+     */
+    private long staleMs = 10 * 60 * 1000L;
+
+    /**
+     * Checkpoints older than this are not resumed, the scan starts over, in milliseconds
+     * Default: 24 hours
+     */
+    private long maxAgeMs = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Whether interrupted scans are resumed when the application starts
+     * Default: true
+     */
+    private boolean resumeOnStartup = true;
+}
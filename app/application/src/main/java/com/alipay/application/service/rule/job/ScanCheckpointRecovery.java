@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.common.utils.DBDistributedLockUtil;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ *@title ScanCheckpointRecovery
+ *@description Resume the rule scans interrupted by a restart
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/24 15:40
+ */
+@Slf4j
+@Component
+public class ScanCheckpointRecovery {
+
+    @Resource
+    private ScanCheckpointManager scanCheckpointManager;
+
+    @Resource
+    private ScanCheckpointProperties scanCheckpointProperties;
+
+    @Resource
+    private ScanShardingProperties scanShardingProperties;
+
+    @Resource
+    private DBDistributedLockUtil dbDistributedLockUtil;
+
+    @Resource
+    private ScanService scanService;
+
+    @Resource
+    private ScanScheduler scanScheduler;
+
+    /**
+     * The locks of the interrupted rules are released instead of waiting for them to expire: the locks of this host,
+     * and the locks of any host that were not renewed for longer than a progressing scan renews them. The rules are
+     * queued to be scanned again, resuming every interrupted (rule, cloud account) from its checkpoint.
+     * Sharded scans are resumed by the next sharded run.
+     */
+    @EventListener
+    private void resume(ApplicationReadyEvent event) {
+        if (!scanCheckpointProperties.isResumeOnStartup() || scanShardingProperties.isEnabled()) {
+            return;
+        }
+
+        List<Long> ruleIdList;
+        try {
+            ruleIdList = scanCheckpointManager.findInterruptedRuleIds();
+        } catch (Exception e) {
+            log.error("Find interrupted scans failed", e);
+            return;
+        }
+        if (ruleIdList.isEmpty()) {
+            return;
+        }
+
+        String host = DBDistributedLockUtil.getHostName();
+        // A progressing scan renews the lock at its checkpoints, at most every third of the expiry
+        long heartbeatMs = ScanServiceImpl.RULE_LOCK_EXPIRE_MS / 3 + scanCheckpointProperties.getStaleMs();
+        for (Long ruleId : ruleIdList) {
+            String lockName = ScanServiceImpl.localLockPrefix + ruleId;
+            if (dbDistributedLockUtil.releaseLock(lockName, host)
+                    || dbDistributedLockUtil.releaseStaleLock(lockName, heartbeatMs)) {
+                log.info("Released the lock of the interrupted scan of rule:{}", ruleId);
+            }
+        }
+
+        log.info("Resume the interrupted scans of rules:{}", ruleIdList);
+        for (Long ruleId : ruleIdList) {
+            scanScheduler.submit(ScanScheduler.Priority.PERIODIC, null, ScanScheduler.ruleKey(ruleId),
+                    () -> scanService.scanByRule(ruleId));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the incremental scan
+ * A resource is only evaluated again when its content or the rule changed since its last successful evaluation
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.incremental")
+public class ScanIncrementalProperties {
+
+    /**
+     * Skip the evaluation of unchanged resources
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Evaluate every resource on every scan, the fingerprints are still refreshed
+     * Default: false
+     */
+    private boolean forceFull = false;
+}
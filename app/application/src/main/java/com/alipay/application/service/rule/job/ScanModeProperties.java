@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the scan mode of scanAll and the cloud account scan
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan")
+public class ScanModeProperties {
+
+    public enum Mode {
+        /**
+         * every rule pages the resources of its type on its own
+         */
+        RULE,
+        /**
+         * the resources of a type are paged once per cloud account and evaluated by all rules of the type
+         */
+        RESOURCE_TYPE
+    }
+
+    /**
+     * Scan mode, rule or resource-type
+     * Default: rule
+     */
+    private Mode mode = Mode.RULE;
+}
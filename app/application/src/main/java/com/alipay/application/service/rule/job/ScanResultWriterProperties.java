@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the buffered scan result writer
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.result.writer")
+public class ScanResultWriterProperties {
+
+    /**
+     * Number of findings written per flush
+     * Default: 500
+     */
+    private Integer flushSize = 500;
+
+    /**
+     * Maximum time findings stay buffered before they are flushed, in milliseconds
+     * Default: 10 seconds
+     */
+    private Long flushIntervalMs = 10 * 1000L;
+}
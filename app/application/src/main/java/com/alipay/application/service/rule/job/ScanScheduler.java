@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.share.vo.rule.ScanSchedulerStatusVO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ *@title ScanScheduler
+ *@description Runs scan requests by priority, with round robin between the tenants of a priority
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/27 10:30
+ */
+@Slf4j
+@Component
+public class ScanScheduler {
+
+    public enum Priority {
+        /**
+         * requested by a user, e.g. scan now
+         */
+        INTERACTIVE,
+        /**
+         * cloud accounts collected for the first time
+         */
+        ONBOARDING,
+        /**
+         * scheduled full scans and the scans after a regular collection
+         */
+        PERIODIC
+    }
+
+    /**
+     * Queue key of the global tenant, whose tenant id is null
+     */
+    private static final long GLOBAL_TENANT = -1L;
+
+    @Resource
+    private ScanSchedulerProperties scanSchedulerProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Map<Priority, Level> levels = new EnumMap<>(Priority.class);
+
+    /**
+     * queued units by key, guarded by the lock
+     */
+    private final Map<String, Unit> queued = new HashMap<>();
+
+    private final Set<Unit> running = ConcurrentHashMap.newKeySet();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean stopped;
+
+    public static String ruleKey(Long ruleId) {
+        return "rule:" + ruleId;
+    }
+
+    public static String groupKey(Long groupId) {
+        return "group:" + groupId;
+    }
+
+    public static String accountKey(String cloudAccountId) {
+        return "account:" + cloudAccountId;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (Priority priority : Priority.values()) {
+            levels.put(priority, new Level());
+            Gauge.builder("cloudrec.scan.scheduler.queue", this, s -> s.queueSize(priority))
+                    .description("scans waiting to run")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("cloudrec.scan.scheduler.running", running, Set::size)
+                .description("scans running")
+                .register(meterRegistry);
+
+        for (int i = 0; i < scanSchedulerProperties.getWorkers(); i++) {
+            startWorker("scan-scheduler-" + i, false);
+        }
+        for (int i = 0; i < scanSchedulerProperties.getInteractiveWorkers(); i++) {
+            startWorker("scan-scheduler-interactive-" + i, true);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queue a scan. A scan with the same key that is still queued is not queued again, it is moved up to the
+     * higher of both priorities and its future is returned.
+     *
+     * @param tenantId tenant the scan is fairly shared with, null for the global tenant
+     * @param key      identity of the scan, e.g. rule:1
+     * @return completes when the scan ran
+     */
+    public CompletableFuture<Void> submit(Priority priority, Long tenantId, String key, Runnable task) {
+        lock.lock();
+        try {
+            Unit existing = queued.get(key);
+            if (existing != null) {
+                levels.get(priority).deduplicated++;
+                if (priority.ordinal() < existing.priority.ordinal()) {
+                    levels.get(existing.priority).remove(existing);
+                    existing.priority = priority;
+                    levels.get(priority).add(existing);
+                    notEmpty.signalAll();
+                }
+                meterRegistry.counter("cloudrec.scan.scheduler.deduplicated", "priority", priority.name()).increment();
+                return existing.future;
+            }
+
+            Unit unit = new Unit(key, priority, tenantId, task);
+            queued.put(key, unit);
+            levels.get(priority).add(unit);
+            notEmpty.signalAll();
+            log.info("Scan queued, key:{}, priority:{}, tenantId:{}", key, priority, tenantId);
+            return unit.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ScanSchedulerStatusVO getStatus() {
+        ScanSchedulerStatusVO vo = new ScanSchedulerStatusVO();
+        vo.setWorkers(scanSchedulerProperties.getWorkers());
+        vo.setInteractiveWorkers(scanSchedulerProperties.getInteractiveWorkers());
+        List<ScanSchedulerStatusVO.PriorityVO> priorities = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Priority priority : Priority.values()) {
+                Level level = levels.get(priority);
+                ScanSchedulerStatusVO.PriorityVO priorityVO = new ScanSchedulerStatusVO.PriorityVO();
+                priorityVO.setPriority(priority.name());
+                priorityVO.setQueued(level.size);
+                priorityVO.setTenants(level.queues.size());
+                priorityVO.setDeduplicated(level.deduplicated);
+                priorityVO.setStarted(level.started);
+                priorityVO.setAvgWaitMs(level.started == 0 ? 0 : level.totalWaitMs / level.started);
+                priorityVO.setMaxWaitMs(level.maxWaitMs);
+                priorities.add(priorityVO);
+            }
+        } finally {
+            lock.unlock();
+        }
+        vo.setPriorities(priorities);
+        vo.setRunning(running.stream()
+                .sorted(Comparator.comparing(u -> u.startTime))
+                .map(Unit::toVO)
+                .toList());
+        return vo;
+    }
+
+    private int queueSize(Priority priority) {
+        lock.lock();
+        try {
+            return levels.get(priority).size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startWorker(String name, boolean interactiveOnly) {
+        Thread thread = new Thread(() -> work(interactiveOnly), name);
+        thread.setDaemon(true);
+        workers.add(thread);
+        thread.start();
+    }
+
+    private void work(boolean interactiveOnly) {
+        while (!stopped) {
+            Unit unit;
+            try {
+                unit = take(interactiveOnly);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            run(unit);
+        }
+    }
+
+    /**
+     * The highest priority first, the tenants of a priority take turns
+     */
+    Unit take(boolean interactiveOnly) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                for (Priority priority : Priority.values()) {
+                    if (interactiveOnly && priority != Priority.INTERACTIVE) {
+                        break;
+                    }
+                    Level level = levels.get(priority);
+                    Unit unit = level.poll();
+                    if (unit != null) {
+                        queued.remove(unit.key);
+                        unit.startTime = new Date();
+                        long waitMs = unit.startTime.getTime() - unit.submitTime.getTime();
+                        level.started++;
+                        level.totalWaitMs += waitMs;
+                        level.maxWaitMs = Math.max(level.maxWaitMs, waitMs);
+                        meterRegistry.timer("cloudrec.scan.scheduler.wait", "priority", priority.name())
+                                .record(waitMs, TimeUnit.MILLISECONDS);
+                        return unit;
+                    }
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void run(Unit unit) {
+        running.add(unit);
+        log.info("Scan start, key:{}, priority:{}, tenantId:{}", unit.key, unit.priority, unit.tenantId);
+        try {
+            unit.task.run();
+            unit.future.complete(null);
+        } catch (Throwable e) {
+            log.error("Scan failed, key:{}", unit.key, e);
+            unit.future.completeExceptionally(e);
+        } finally {
+            running.remove(unit);
+        }
+    }
+
+    static class Unit {
+
+        private final String key;
+
+        private Priority priority;
+
+        private final Long tenantId;
+
+        private final Runnable task;
+
+        private final Date submitTime = new Date();
+
+        private Date startTime;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Unit(String key, Priority priority, Long tenantId, Runnable task) {
+            this.key = key;
+            this.priority = priority;
+            this.tenantId = tenantId;
+            this.task = task;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        private long tenantKey() {
+            return tenantId == null ? GLOBAL_TENANT : tenantId;
+        }
+
+        private ScanSchedulerStatusVO.UnitVO toVO() {
+            ScanSchedulerStatusVO.UnitVO vo = new ScanSchedulerStatusVO.UnitVO();
+            vo.setKey(key);
+            vo.setPriority(priority.name());
+            vo.setTenantId(tenantId);
+            vo.setSubmitTime(submitTime);
+            vo.setStartTime(startTime);
+            return vo;
+        }
+    }
+
+    /**
+     * Queued units of one priority, a queue per tenant, guarded by the lock of the scheduler
+     */
+    private static class Level {
+
+        private final Map<Long, Deque<Unit>> queues = new LinkedHashMap<>();
+
+        /**
+         * tenants in the order they get their next turn
+         */
+        private final Deque<Long> turns = new ArrayDeque<>();
+
+        private int size;
+
+        private long deduplicated;
+
+        private long started;
+
+        private long totalWaitMs;
+
+        private long maxWaitMs;
+
+        private void add(Unit unit) {
+            queues.computeIfAbsent(unit.tenantKey(), k -> {
+                turns.addLast(k);
+                return new ArrayDeque<>();
+            }).addLast(unit);
+            size++;
+        }
+
+        private Unit poll() {
+            Long tenant = turns.pollFirst();
+            if (tenant == null) {
+                return null;
+            }
+            Deque<Unit> queue = queues.get(tenant);
+            Unit unit = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(tenant);
+            } else {
+                turns.addLast(tenant);
+            }
+            size--;
+            return unit;
+        }
+
+        private void remove(Unit unit) {
+            Deque<Unit> queue = queues.get(unit.tenantKey());
+            if (queue == null || !queue.remove(unit)) {
+                return;
+            }
+            if (queue.isEmpty()) {
+                queues.remove(unit.tenantKey());
+                turns.remove(unit.tenantKey());
+            }
+            size--;
+        }
+    }
+}
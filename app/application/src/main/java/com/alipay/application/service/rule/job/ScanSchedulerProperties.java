@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the scan scheduler
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.scheduler")
+public class ScanSchedulerProperties {
+
+    /**
+     * Workers that run scans of any priority
+     * Default: 2
+     */
+    private int workers = 2;
+
+    /**
+     * Workers reserved for interactive scans, so that they do not wait for a long periodic scan
+     * Default: 1
+     */
+    private int interactiveWorkers = 1;
+
+    /**
+     * Cloud accounts created within this period are scanned with the onboarding priority, in milliseconds
+     * Default: 24 hours
+     */
+    private long onboardingWindowMs = 24 * 60 * 60 * 1000L;
+}
@@ -18,6 +18,9 @@ package com.alipay.application.service.rule.job;
 
 import com.alipay.application.service.rule.domain.RuleAgg;
 import com.alipay.application.share.vo.ApiResponse;
+import com.alipay.application.share.vo.rule.IncrementalScanReportVO;
+import com.alipay.application.share.vo.rule.RuleCostVO;
+import com.alipay.application.share.vo.rule.ShardingScanProgressVO;
 import com.alipay.dao.po.CloudAccountPO;
 
 import java.util.List;
@@ -40,8 +43,38 @@ public interface ScanService {
     void scanByGroup(Long groupId);
 
 
+    /**
+     * 分片并行扫描全部，本节点只扫描分配给自己的(规则, 云账号)单元
+     */
     void shardingScanAll();
 
+    /**
+     * 查询本节点最近一次分片扫描的进度
+     *
+     * @return 进度，未执行过返回null
+     */
+    ShardingScanProgressVO getShardingScanProgress();
+
+    /**
+     * 查询本节点当前或最近一次扫描的增量统计，包括评估和跳过的资源数
+     *
+     * @return 统计，未执行过返回null
+     */
+    IncrementalScanReportVO getIncrementalScanReport();
+
+    /**
+     * 评估耗时最高的规则，统计窗口内按总耗时倒序
+     *
+     * @param limit 返回的规则数
+     * @return 规则耗时
+     */
+    List<RuleCostVO> getSlowestRules(int limit);
+
+    /**
+     * 下一次扫描评估全部资源，不跳过未变化的资源
+     */
+    void requestFullScan();
+
     /**
      * 扫描全部
      */
@@ -72,6 +105,22 @@ public interface ScanService {
      */
     ApiResponse<String> scanByRule(Long ruleId);
 
+    /**
+     * 检查规则当前能否扫描：规则存在、有效且未在扫描中，用于排队扫描前
+     *
+     * @param ruleId ruleId
+     * @return 能扫描返回成功，否则返回失败原因
+     */
+    ApiResponse<String> checkScanRule(Long ruleId);
+
+    /**
+     * 检查风险组当前能否扫描：风险组存在且有有效规则，用于排队扫描前
+     *
+     * @param groupId groupId
+     * @return 能扫描返回成功，否则返回失败原因
+     */
+    ApiResponse<String> checkScanGroup(Long groupId);
+
     /**
      * 扫描指定规则列表的数据
      * @param ruleIdList 规则列表
@@ -16,17 +16,15 @@
  */
 package com.alipay.application.service.rule.job;
 
-import com.alibaba.fastjson.JSON;
 import com.alipay.application.service.common.RealTimeNotify;
 import com.alipay.application.service.common.utils.DBDistributedLockUtil;
 import com.alipay.application.service.common.utils.DbCacheUtil;
-import com.alipay.application.service.common.utils.SpringUtils;
+import com.alipay.application.service.common.utils.ScanThrottle;
 import com.alipay.application.service.resource.IQueryResource;
-import com.alipay.application.service.resource.task.ResourceMergerTask;
+import com.alipay.application.service.resource.task.LinkedResourceJoiner;
+import com.alipay.application.service.resource.task.ResourceJoinProperties;
 import com.alipay.application.service.risk.RiskStatusManager;
 import com.alipay.application.service.rule.RuleServiceImpl;
-import com.alipay.application.service.rule.WhitedRegoMatcher;
-import com.alipay.application.service.rule.WhitedRuleEngineMatcher;
 import com.alipay.application.service.rule.domain.RuleAgg;
 import com.alipay.application.service.rule.domain.RuleGroup;
 import com.alipay.application.service.rule.domain.repo.OpaRepository;
@@ -34,12 +32,13 @@ import com.alipay.application.service.rule.domain.repo.RuleGroupRepository;
 import com.alipay.application.service.rule.domain.repo.RuleRepository;
 import com.alipay.application.service.rule.enums.Field;
 import com.alipay.application.service.rule.job.context.RuleScanContext;
-import com.alipay.application.service.rule.job.context.TenantWhitedConfigContextV2;
 import com.alipay.application.service.statistics.job.StatisticsJob;
 import com.alipay.application.service.system.domain.repo.TenantRepository;
 import com.alipay.application.share.request.rule.LinkDataParam;
-import com.alipay.application.share.request.rule.WhitedRuleConfigDTO;
 import com.alipay.application.share.vo.ApiResponse;
+import com.alipay.application.share.vo.rule.IncrementalScanReportVO;
+import com.alipay.application.share.vo.rule.RuleCostVO;
+import com.alipay.application.share.vo.rule.ShardingScanProgressVO;
 import com.alipay.common.constant.OpaFlagConstants;
 import com.alipay.common.constant.RuleGroupConstants;
 import com.alipay.common.enums.*;
@@ -53,11 +52,14 @@ import jakarta.annotation.Resource;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /*
  *@title ScanServiceImpl
@@ -107,36 +109,67 @@ public class ScanServiceImpl implements ScanService {
     private DbCacheUtil dbCacheUtil;
 
     @Resource
-    private WhitedRuleEngineMatcher whitedRuleEngineMatcher;
+    private StatisticsJob statisticsJob;
 
     @Resource
-    private WhitedRegoMatcher whitedRegoMatcher;
+    private DBDistributedLockUtil dbDistributedLockUtil;
 
     @Resource
-    private OperationLogMapper operationLogMapper;
+    private TenantRepository tenantRepository;
 
     @Resource
-    private StatisticsJob statisticsJob;
+    private ScanShardingProperties scanShardingProperties;
 
     @Resource
-    private DBDistributedLockUtil dbDistributedLockUtil;
+    private RuleScanResultWriter ruleScanResultWriter;
 
     @Resource
-    private TenantWhitedConfigContextV2 whitedConfigContext;
+    private IncrementalScanner incrementalScanner;
 
     @Resource
-    private TenantRepository tenantRepository;
+    private ResourceJoinProperties resourceJoinProperties;
+
+    @Resource
+    private ScanModeProperties scanModeProperties;
+
+    @Resource
+    private ScanThrottle scanThrottle;
+
+    @Resource
+    private ScanCheckpointManager scanCheckpointManager;
+
+    @Resource
+    private RuleCostProfiler ruleCostProfiler;
+
+    @Resource
+    private PolicyResultCache policyResultCache;
+
+    @Resource
+    private PreFilterIndex preFilterIndex;
+
+    @Resource
+    private ShardingScanRunCoordinator shardingScanRunCoordinator;
+
+    /**
+     * Progress of the last sharded scan on this node
+     */
+    private volatile ShardingScanProgress shardingScanProgress;
 
     /**
      * localLockPrefix
      */
-    private static final String localLockPrefix = "rule::scan::running::";
+    static final String localLockPrefix = "rule::scan::running::";
 
     /**
      * 最大等待时间
      */
     private static final int MAX_WAIT_HOURS = 6;
 
+    /**
+     * Expiry of the rule lock, renewed by the checkpoints of a progressing scan
+     */
+    static final long RULE_LOCK_EXPIRE_MS = 1000 * 60 * 60;
+
     @Override
     public void scanByGroup(Long groupId) {
         RuleGroup ruleGroup = ruleGroupRepository.findOne(groupId);
@@ -152,7 +185,14 @@ public class ScanServiceImpl implements ScanService {
         }
 
         Date startTime = new Date();
-        list.forEach(ruleAgg -> scanByRule(ruleAgg.getId()));
+        boolean runOwner = incrementalScanner.beginRun();
+        try {
+            list.forEach(ruleAgg -> scanByRule(ruleAgg.getId()));
+        } finally {
+            if (runOwner) {
+                incrementalScanner.finishRun();
+            }
+        }
         ruleGroup.setLastScanStartTime(startTime);
         ruleGroup.setLastScanEndTime(new Date());
         ruleGroupRepository.save(ruleGroup);
@@ -160,22 +200,275 @@ public class ScanServiceImpl implements ScanService {
 
     @Override
     public void scanAll() {
+        if (scanShardingProperties.isEnabled()) {
+            shardingScanAll();
+            return;
+        }
+
         RuleGroupPO ruleGroupPO = ruleGroupMapper.findOne(RuleGroupConstants.DEFAULT_GROUP);
         if (ruleGroupPO == null) {
             throw new BizException("The default rule group does not exist");
         }
 
+        if (scanModeProperties.getMode() == ScanModeProperties.Mode.RESOURCE_TYPE) {
+            scanGroupByResourceType(ruleGroupPO.getId());
+            return;
+        }
         scanByGroup(ruleGroupPO.getId());
     }
 
     /**
-     * 任务分片，递归抢占其他执行器未执行的任务
+     * Scan a rule group by (cloud account, resource type) with {@link #scanByResourceType}, the rules of a type
+     * share one pass over the resources of each cloud account
+     */
+    private void scanGroupByResourceType(Long groupId) {
+        RuleGroup ruleGroup = ruleGroupRepository.findOne(groupId);
+        List<RuleAgg> list = ruleRepository.findByGroupId(groupId, Status.valid.name());
+        if (ruleGroup == null || CollectionUtils.isEmpty(list)) {
+            log.warn("No rule for groupId:{}", groupId);
+            return;
+        }
+
+        Date startTime = new Date();
+        List<RuleAgg> startedRules = new ArrayList<>();
+        boolean runOwner = incrementalScanner.beginRun();
+        try {
+            Map<String, List<RuleAgg>> rulesByType = new LinkedHashMap<>();
+            Map<Long, Boolean> defaultRules = new HashMap<>();
+            for (RuleAgg ruleAgg : list) {
+                String error = startRule(ruleAgg);
+                if (error != null) {
+                    log.warn("Skip rule:{}, {}", ruleAgg.getRuleCode(), error);
+                    continue;
+                }
+                startedRules.add(ruleAgg);
+                ruleScanContext.loadByRuleId(ruleAgg.getId());
+                defaultRules.put(ruleAgg.getId(), tenantRepository.isDefaultRule(ruleAgg.getRuleCode()));
+                rulesByType.computeIfAbsent(ruleAgg.getPlatform() + "/" + ruleAgg.getResourceType(),
+                        k -> new ArrayList<>()).add(ruleAgg);
+            }
+
+            Map<String, List<CloudAccountPO>> accountsByPlatform = new HashMap<>();
+            for (List<RuleAgg> rules : rulesByType.values()) {
+                String platform = rules.get(0).getPlatform();
+                String resourceType = rules.get(0).getResourceType();
+                // Query the account account with this asset to optimize the speed
+                List<String> cloudAccountIdList = cloudResourceInstanceMapper.findAccountList(platform, resourceType);
+                List<CloudAccountPO> cloudAccountPOS = accountsByPlatform.computeIfAbsent(platform,
+                        k -> cloudAccountMapper.findList(CloudAccountDTO.builder()
+                                .platformList(List.of(platform))
+                                .accountStatus(Status.valid.name())
+                                .build()));
+
+                for (CloudAccountPO cloudAccountPO : cloudAccountPOS) {
+                    if (!cloudAccountIdList.contains(cloudAccountPO.getCloudAccountId())) {
+                        // 云账号对应的资产已经不存在，将风险状态更新为已解决
+                        rules.forEach(ruleAgg -> handleAccountScanResultFinish(ruleAgg, cloudAccountPO.getCloudAccountId()));
+                        continue;
+                    }
+
+                    try {
+                        scanByResourceType(rules, cloudAccountPO, ruleAgg -> defaultRules.get(ruleAgg.getId()));
+                    } catch (Exception e) {
+                        log.error("cloudAccountId:{} run resource type:{} fail:{}", cloudAccountPO.getCloudAccountId(),
+                                resourceType, e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            for (RuleAgg ruleAgg : startedRules) {
+                // 改状态、释放锁
+                handleScanResultFinish(ruleAgg);
+                dbDistributedLockUtil.releaseLock(localLockPrefix + ruleAgg.getId());
+            }
+            if (runOwner) {
+                incrementalScanner.finishRun();
+            }
+        }
+
+        dbCacheUtil.clear(RuleServiceImpl.tenantSelectRuleCacheKey);
+        ruleGroup.setLastScanStartTime(startTime);
+        ruleGroup.setLastScanEndTime(new Date());
+        ruleGroupRepository.save(ruleGroup);
+    }
+
+    /**
+     * 任务分片，按(规则, 云账号)拆分扫描单元，根据节点序号和节点数确定本节点负责的单元，在有界线程池中并行扫描
      * <p>
-     * 24h内同一个规则只会执行一次扫描任务
+     * 分片结果只取决于规则id和云账号id，多个节点之间不会重复扫描
      */
     @Override
     public void shardingScanAll() {
+        RuleGroupPO ruleGroupPO = ruleGroupMapper.findOne(RuleGroupConstants.DEFAULT_GROUP);
+        if (ruleGroupPO == null) {
+            throw new BizException("The default rule group does not exist");
+        }
+        RuleGroup ruleGroup = ruleGroupRepository.findOne(ruleGroupPO.getId());
+
+        int nodeCount = Math.max(1, scanShardingProperties.getNodeCount());
+        int nodeIndex = scanShardingProperties.getNodeIndex();
+        if (nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new BizException(String.format("Invalid node index %s for %s nodes", nodeIndex, nodeCount));
+        }
+        if (nodeCount > ShardingScanRunCoordinator.MAX_NODES) {
+            throw new BizException(String.format("At most %s nodes can share the scan", ShardingScanRunCoordinator.MAX_NODES));
+        }
+
+        synchronized (this) {
+            if (shardingScanProgress != null && shardingScanProgress.isRunning()) {
+                log.warn("Sharding scan is running on this node, skip");
+                return;
+            }
+            shardingScanProgress = new ShardingScanProgress(nodeIndex, nodeCount);
+        }
+        ShardingScanProgress progress = shardingScanProgress;
+
+        Date startTime = new Date();
+        boolean runOwner = incrementalScanner.beginRun();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, scanShardingProperties.getWorkerThreads()));
+        try {
+            List<RuleAgg> ruleList = ruleRepository.findByGroupId(ruleGroupPO.getId(), Status.valid.name());
+            // Every node takes part in the run of every rule, also when none of its units is on this node, so the
+            // run is started and finished once for all nodes
+            Map<RuleAgg, ShardingScanRunCoordinator.Run> runs = new LinkedHashMap<>();
+            for (RuleAgg ruleAgg : ruleList) {
+                ShardingScanRunCoordinator.Run run = shardingScanRunCoordinator.join(ruleAgg,
+                        localLockPrefix + ruleAgg.getId(), nodeIndex, nodeCount, this::startRule);
+                if (run != null) {
+                    runs.put(ruleAgg, run);
+                }
+            }
+            Map<RuleAgg, List<ShardingScanUnit>> unitsByRule = new LinkedHashMap<>();
+            for (RuleAgg ruleAgg : runs.keySet()) {
+                unitsByRule.put(ruleAgg, buildShardingUnits(ruleAgg, nodeIndex, nodeCount));
+            }
+            int totalUnits = unitsByRule.values().stream().mapToInt(List::size).sum();
+            progress.setTotalUnits(totalUnits);
+            log.info("Sharding scan start, nodeIndex:{}, nodeCount:{}, rules:{}, units:{}", nodeIndex, nodeCount,
+                    unitsByRule.size(), totalUnits);
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (Map.Entry<RuleAgg, List<ShardingScanUnit>> entry : unitsByRule.entrySet()) {
+                RuleAgg ruleAgg = entry.getKey();
+                List<ShardingScanUnit> units = entry.getValue();
+                ShardingScanRunCoordinator.Run run = runs.get(ruleAgg);
+                if (units.isEmpty()) {
+                    finishShardingRule(ruleAgg, run, nodeIndex, nodeCount);
+                    continue;
+                }
+                ruleScanContext.loadByRuleId(ruleAgg.getId());
+
+                // The shard of the rule is done on this node when its last unit is done
+                AtomicInteger remaining = new AtomicInteger(units.size());
+                for (ShardingScanUnit unit : units) {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            scanShardingUnit(unit, progress);
+                        } finally {
+                            if (remaining.decrementAndGet() == 0) {
+                                finishShardingRule(ruleAgg, run, nodeIndex, nodeCount);
+                            }
+                        }
+                    }, workers));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            workers.shutdown();
+            progress.finish();
+            if (runOwner) {
+                incrementalScanner.finishRun();
+            }
+        }
+
+        if (ruleGroup != null) {
+            ruleGroup.setLastScanStartTime(startTime);
+            ruleGroup.setLastScanEndTime(new Date());
+            ruleGroupRepository.save(ruleGroup);
+        }
+        dbCacheUtil.clear(RuleServiceImpl.tenantSelectRuleCacheKey);
+
+        ShardingScanProgressVO vo = progress.toVO();
+        log.info("Sharding scan finished, nodeIndex:{}, units:{}, failed:{}, cost:{}ms", nodeIndex,
+                vo.getFinishedUnits(), vo.getFailedUnits(), vo.getEndTime().getTime() - vo.getStartTime().getTime());
+    }
+
+    @Override
+    public ShardingScanProgressVO getShardingScanProgress() {
+        ShardingScanProgress progress = shardingScanProgress;
+        return progress == null ? null : progress.toVO();
+    }
+
+    @Override
+    public IncrementalScanReportVO getIncrementalScanReport() {
+        return incrementalScanner.getReport();
+    }
+
+    @Override
+    public List<RuleCostVO> getSlowestRules(int limit) {
+        return ruleCostProfiler.getSlowestRules(limit);
+    }
+
+    @Override
+    public void requestFullScan() {
+        incrementalScanner.requestFullScan();
+    }
 
+    /**
+     * Units of a rule owned by this node
+     */
+    private List<ShardingScanUnit> buildShardingUnits(RuleAgg ruleAgg, int nodeIndex, int nodeCount) {
+        List<String> cloudAccountIdList = cloudResourceInstanceMapper.findAccountList(ruleAgg.getPlatform(),
+                ruleAgg.getResourceType());
+        CloudAccountDTO cloudAccountDTO = CloudAccountDTO.builder()
+                .platformList(List.of(ruleAgg.getPlatform()))
+                .accountStatus(Status.valid.name())
+                .build();
+        List<CloudAccountPO> cloudAccountPOS = cloudAccountMapper.findList(cloudAccountDTO);
+        boolean selectedByGlobalTenant = tenantRepository.isDefaultRule(ruleAgg.getRuleCode());
+
+        List<ShardingScanUnit> units = new ArrayList<>();
+        for (CloudAccountPO cloudAccountPO : cloudAccountPOS) {
+            if (ShardingScanUnit.shardOf(ruleAgg.getId(), cloudAccountPO.getCloudAccountId(), nodeCount) != nodeIndex) {
+                continue;
+            }
+            boolean hasResource = cloudAccountIdList.contains(cloudAccountPO.getCloudAccountId());
+            units.add(new ShardingScanUnit(ruleAgg, cloudAccountPO, hasResource, selectedByGlobalTenant));
+        }
+        return units;
+    }
+
+    /**
+     * Record that the shard of the rule is done on this node, the last node of the run finishes the rule
+     */
+    private void finishShardingRule(RuleAgg ruleAgg, ShardingScanRunCoordinator.Run run, int nodeIndex, int nodeCount) {
+        String lockName = localLockPrefix + ruleAgg.getId();
+        try {
+            if (shardingScanRunCoordinator.finishNode(run, lockName, nodeIndex, nodeCount)) {
+                handleScanResultFinish(ruleAgg);
+                dbDistributedLockUtil.releaseLock(lockName);
+            }
+        } catch (Exception e) {
+            log.error("Sharding scan finish rule:{} fail:{}", ruleAgg.getRuleCode(), e.getMessage());
+        }
+    }
+
+    private void scanShardingUnit(ShardingScanUnit unit, ShardingScanProgress progress) {
+        long start = System.currentTimeMillis();
+        Exception error = null;
+        try {
+            if (unit.isHasResource()) {
+                scanByRule(unit.getRuleAgg(), unit.getCloudAccountPO(), unit.isSelectedByGlobalTenant());
+            } else {
+                // 云账号对应的资产已经不存在，将风险状态更新为已解决
+                handleAccountScanResultFinish(unit.getRuleAgg(), unit.getCloudAccountPO().getCloudAccountId());
+            }
+        } catch (Exception e) {
+            error = e;
+            log.error("Sharding scan unit:{} fail:{}", unit.getKey(), e.getMessage());
+        } finally {
+            progress.record(unit, System.currentTimeMillis() - start, error);
+        }
     }
 
     private static final int MAX_BATCH_SIZE = 1000;
@@ -189,9 +482,14 @@ public class ScanServiceImpl implements ScanService {
             Executors.defaultThreadFactory(),
             new ThreadPoolExecutor.CallerRunsPolicy());
 
-    private long getNextVersion(Long ruleId, String cloudAccountId) {
-        Long version = ruleScanResultMapper.findMaxVersion(ruleId, cloudAccountId);
-        return version == null ? 1 : version + 1;
+    /**
+     * Begin the scan of a rule on a cloud account, resuming an interrupted scan from its checkpoint
+     *
+     * @return null if the scan already finished in the current run of the rule
+     */
+    private ScanCheckpointManager.Checkpoint beginScan(RuleAgg ruleAgg, String cloudAccountId) {
+        return scanCheckpointManager.begin(ruleAgg, cloudAccountId,
+                ruleScanResultMapper.findMaxVersion(ruleAgg.getId(), cloudAccountId));
     }
 
     public void scanByRule(RuleAgg ruleAgg, @NotNull CloudAccountPO cloudAccountPO, Boolean isDefaultRule) {
@@ -206,32 +504,262 @@ public class ScanServiceImpl implements ScanService {
 
         String cloudAccountId = cloudAccountPO.getCloudAccountId();
         log.info("Scan by rule name:{} cloudAccountId:{}", ruleAgg.getRuleName(), cloudAccountId);
-        long nextVersion = getNextVersion(ruleAgg.getId(), cloudAccountId);
+        ScanCheckpointManager.Checkpoint checkpoint = beginScan(ruleAgg, cloudAccountId);
+        if (checkpoint == null) {
+            return;
+        }
 
         List<CloudResourceInstancePO> resourceInstances = iQueryResource.queryByCond(ruleAgg.getPlatform(),
                 ruleAgg.getResourceType(), cloudAccountId, 0L, 1);
         if (CollectionUtils.isEmpty(resourceInstances)) {
-            handleAccountScanResultFinish(ruleAgg, cloudAccountId, nextVersion);
+            finishWithoutResource(ruleAgg, cloudAccountId, checkpoint);
             return;
         }
 
-        // Determine whether there is a risk mark on the account and reduce unnecessary
-        // SQL queries
-        boolean accountExistRiskFlag = false;
+        // An interrupted scan continues after the last resource whose findings were written
+        long scrollId = checkpoint.scrollId();
+        RuleScan scan = new RuleScan(ruleAgg, cloudAccountPO, checkpoint);
+        // The linked resources are indexed once for all pages of the account
+        LinkedResourceJoiner joiner = new LinkedResourceJoiner(LinkDataParam.deserializeList(ruleAgg.getLinkedDataList()),
+                cloudAccountId, iQueryResource, resourceJoinProperties);
+        try {
+            while (true) {
+                resourceInstances = iQueryResource.queryByCond(ruleAgg.getPlatform(), ruleAgg.getResourceType(),
+                        cloudAccountId, scrollId, MAX_BATCH_SIZE);
+                long mergeStart = System.nanoTime();
+                resourceInstances = joiner.merge(resourceInstances);
+                scan.evaluate(resourceInstances, System.nanoTime() - mergeStart);
+
+                if (resourceInstances.size() < MAX_BATCH_SIZE) {
+                    break;
+                }
 
-        long scrollId = 0L;
-        while (true) {
-            resourceInstances = iQueryResource.queryByCond(ruleAgg.getPlatform(), ruleAgg.getResourceType(),
-                    cloudAccountId, scrollId, MAX_BATCH_SIZE);
-            resourceInstances = ResourceMergerTask.mergeJson(LinkDataParam.deserializeList(ruleAgg.getLinkedDataList()),
-                    resourceInstances, cloudAccountId);
-            for (CloudResourceInstancePO resourceInstance : resourceInstances) {
-                Map<String, Object> result = opaRepository.callOpa(ruleAgg.getRegoPath(), ruleAgg.getRegoPolicy(),
-                        resourceInstance.getInstance());
+                scrollId = resourceInstances.get(resourceInstances.size() - 1).getId();
+                scan.checkpoint(scrollId);
+
+                // help gc
+                resourceInstances.clear();
+            }
+        } finally {
+            scan.close();
+            joiner.close();
+        }
+        scan.finish();
+
+        scanThrottle.acquire();
+    }
+
+    /**
+     * Scan all rules of one resource type on a cloud account in one pass. Every page of resources is read once,
+     * merged once for each distinct linked data configuration and evaluated by all the rules before the next page
+     * is read. The results are the same as scanning the rules one by one with {@link #scanByRule(RuleAgg, CloudAccountPO, Boolean)}.
+     *
+     * @param ruleAggList   rules of the same platform and resource type
+     * @param isDefaultRule whether a rule is selected by the global tenant
+     */
+    public void scanByResourceType(List<RuleAgg> ruleAggList, @NotNull CloudAccountPO cloudAccountPO,
+                                   Predicate<RuleAgg> isDefaultRule) {
+        String cloudAccountId = cloudAccountPO.getCloudAccountId();
+        List<RuleAgg> selectedRules = new ArrayList<>();
+        for (RuleAgg ruleAgg : ruleAggList) {
+            // Only the "default rules" or the optional rules of the tenant to which the account belongs
+            if (!isDefaultRule.test(ruleAgg)
+                    && !tenantRepository.isSelected(cloudAccountPO.getTenantId(), ruleAgg.getRuleCode())) {
+                log.info("cloudAccountId:{},ruleCode:{} is not selected", cloudAccountId, ruleAgg.getRuleCode());
+                continue;
+            }
+            selectedRules.add(ruleAgg);
+        }
+        if (selectedRules.isEmpty()) {
+            return;
+        }
+
+        Map<RuleAgg, ScanCheckpointManager.Checkpoint> checkpoints = new LinkedHashMap<>();
+        for (RuleAgg ruleAgg : selectedRules) {
+            ScanCheckpointManager.Checkpoint checkpoint = beginScan(ruleAgg, cloudAccountId);
+            if (checkpoint != null) {
+                checkpoints.put(ruleAgg, checkpoint);
+            }
+        }
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+
+        String platform = selectedRules.get(0).getPlatform();
+        String resourceType = selectedRules.get(0).getResourceType();
+        log.info("Scan by resource type:{} cloudAccountId:{} rules:{}", resourceType, cloudAccountId, checkpoints.size());
+        List<CloudResourceInstancePO> resourceInstances = iQueryResource.queryByCond(platform, resourceType,
+                cloudAccountId, 0L, 1);
+        if (CollectionUtils.isEmpty(resourceInstances)) {
+            checkpoints.forEach((ruleAgg, checkpoint) -> finishWithoutResource(ruleAgg, cloudAccountId, checkpoint));
+            return;
+        }
+
+        // Rules with the same linked data evaluate the same merged resources, key "" is the rules without linked data
+        Map<String, List<RuleScan>> scansByLink = new LinkedHashMap<>();
+        Map<String, LinkedResourceJoiner> joiners = new HashMap<>();
+        List<RuleScan> finished = new ArrayList<>();
+        try {
+            for (Map.Entry<RuleAgg, ScanCheckpointManager.Checkpoint> checkpoint : checkpoints.entrySet()) {
+                RuleAgg ruleAgg = checkpoint.getKey();
+                List<LinkDataParam> linkedDataList = LinkDataParam.deserializeList(ruleAgg.getLinkedDataList());
+                String link = CollectionUtils.isEmpty(linkedDataList) ? "" : ruleAgg.getLinkedDataList().trim();
+                if (!link.isEmpty() && !joiners.containsKey(link)) {
+                    joiners.put(link, new LinkedResourceJoiner(linkedDataList, cloudAccountId, iQueryResource,
+                            resourceJoinProperties));
+                }
+                scansByLink.computeIfAbsent(link, k -> new ArrayList<>())
+                        .add(new RuleScan(ruleAgg, cloudAccountPO, checkpoint.getValue()));
+            }
+
+            // Every scan skips the resources up to its own checkpoint
+            long scrollId = checkpoints.values().stream().mapToLong(ScanCheckpointManager.Checkpoint::scrollId)
+                    .min().orElse(0L);
+            while (!scansByLink.isEmpty()) {
+                resourceInstances = iQueryResource.queryByCond(platform, resourceType, cloudAccountId, scrollId,
+                        MAX_BATCH_SIZE);
+                for (Map.Entry<String, List<RuleScan>> entry : scansByLink.entrySet()) {
+                    // The merge rewrites the instance json, every linked data configuration merges its own copy
+                    long mergeStart = System.nanoTime();
+                    List<CloudResourceInstancePO> merged = entry.getKey().isEmpty() ? resourceInstances
+                            : joiners.get(entry.getKey()).merge(copyOf(resourceInstances));
+                    long mergeNanos = System.nanoTime() - mergeStart;
+                    Iterator<RuleScan> it = entry.getValue().iterator();
+                    while (it.hasNext()) {
+                        RuleScan scan = it.next();
+                        try {
+                            scan.evaluate(merged, mergeNanos);
+                        } catch (Exception e) {
+                            log.error("cloudAccountId:{} run rule:{} fail:{}", cloudAccountId,
+                                    scan.ruleAgg.getRuleCode(), e.getMessage());
+                            it.remove();
+                            scan.close();
+                        }
+                    }
+                }
+                scansByLink.values().removeIf(List::isEmpty);
+
+                if (resourceInstances.size() < MAX_BATCH_SIZE) {
+                    break;
+                }
+                scrollId = resourceInstances.get(resourceInstances.size() - 1).getId();
+                for (List<RuleScan> scans : scansByLink.values()) {
+                    for (RuleScan scan : scans) {
+                        scan.checkpoint(scrollId);
+                    }
+                }
+            }
+            scansByLink.values().forEach(finished::addAll);
+        } finally {
+            scansByLink.values().forEach(scans -> scans.forEach(RuleScan::close));
+            joiners.values().forEach(LinkedResourceJoiner::close);
+        }
+        finished.forEach(RuleScan::finish);
+
+        scanThrottle.acquire();
+    }
+
+    private static List<CloudResourceInstancePO> copyOf(List<CloudResourceInstancePO> resourceInstances) {
+        List<CloudResourceInstancePO> copies = new ArrayList<>(resourceInstances.size());
+        for (CloudResourceInstancePO resourceInstance : resourceInstances) {
+            CloudResourceInstancePO copy = new CloudResourceInstancePO();
+            BeanUtils.copyProperties(resourceInstance, copy);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Scan of a rule on a cloud account: the findings buffer, the incremental session and the risk flag
+     */
+    private class RuleScan {
+
+        private final RuleAgg ruleAgg;
+
+        private final String cloudAccountId;
+
+        private final long nextVersion;
+
+        private final ScanCheckpointManager.Checkpoint checkpoint;
+
+        private final RuleScanResultWriter.Buffer resultBuffer;
+
+        private final IncrementalScanner.Session incremental;
+
+        private final PreFilter preFilter;
+
+        /**
+         * Determine whether there is a risk mark on the account and reduce unnecessary SQL queries
+         */
+        private boolean accountExistRiskFlag = false;
+
+        /**
+         * write time of the result buffer already reported to the profiler
+         */
+        private long profiledFlushNanos;
+
+        private RuleScan(RuleAgg ruleAgg, CloudAccountPO cloudAccountPO, ScanCheckpointManager.Checkpoint checkpoint) {
+            this.ruleAgg = ruleAgg;
+            this.cloudAccountId = cloudAccountPO.getCloudAccountId();
+            this.nextVersion = checkpoint.version();
+            this.checkpoint = checkpoint;
+            this.resultBuffer = ruleScanResultWriter.open(ruleAgg, cloudAccountPO, nextVersion);
+            this.incremental = incrementalScanner.open(ruleAgg, cloudAccountId, checkpoint.resumed());
+            this.preFilter = preFilterIndex.get(ruleAgg, incremental.getRuleRevision());
+        }
+
+        /**
+         * Evaluate a page of resources, the linked resources are already merged
+         *
+         * @param mergeNanos time spent merging the linked resources of the page
+         */
+        private void evaluate(List<CloudResourceInstancePO> resourceInstances, long mergeNanos) {
+            if (checkpoint.scrollId() > 0) {
+                // Already evaluated before the scan was interrupted
+                resourceInstances = resourceInstances.stream().filter(r -> r.getId() > checkpoint.scrollId()).toList();
+            }
+
+            // Unchanged resources are not evaluated again, their risks are carried over to this version
+            IncrementalScanner.Selection selection = incremental.select(resourceInstances);
+            for (IncrementalScanner.Carried carried : selection.getCarried()) {
+                accountExistRiskFlag = true;
+                addRisk(resultBuffer, carried.getResourceInstance(), carried.getResult());
+            }
+
+            // Resources the pre-filter rejects cannot be flagged and are compliant without evaluation
+            List<CloudResourceInstancePO> toEvaluate = new ArrayList<>(selection.getToEvaluate().size());
+            for (CloudResourceInstancePO resourceInstance : selection.getToEvaluate()) {
+                if (preFilter.mayMatch(resourceInstance.getInstance())) {
+                    toEvaluate.add(resourceInstance);
+                } else {
+                    incremental.record(resourceInstance, Map.of(OpaFlagConstants.RISK_MARKING, false));
+                }
+            }
+            incremental.recordPreFiltered(selection.getToEvaluate().size() - toEvaluate.size());
+
+            // Inputs identical to an input evaluated before by this rule revision reuse its result
+            PolicyResultCache.Lookup lookup = policyResultCache.lookup(ruleAgg, incremental.getRuleRevision(), toEvaluate);
+            Map<String, String> inputs = policyInputs(lookup.getToEvaluate());
+            long evaluateStart = System.nanoTime();
+            Map<String, Map<String, Object>> results = Collections.emptyMap();
+            if (!inputs.isEmpty()) {
+                RuleScanContext.setCurrentRule(ruleAgg);
+                try {
+                    results = opaRepository.batchCallOpa(ruleAgg.getRegoPath(), ruleAgg.getRegoPolicy(), inputs);
+                } finally {
+                    RuleScanContext.clear();
+                }
+            }
+            long evaluateNanos = System.nanoTime() - evaluateStart;
+            results = policyResultCache.complete(lookup, results, evaluateNanos);
+            incremental.recordMemo(lookup);
+            for (CloudResourceInstancePO resourceInstance : toEvaluate) {
+                Map<String, Object> result = results.get(resourceInstance.getResourceId());
                 if (result == null) {
                     log.warn("Execute rule failed");
                     continue;
                 }
+                incremental.record(resourceInstance, result);
 
                 // Analyze the execution results if there are risks
                 Object o = result.get(OpaFlagConstants.RISK_MARKING);
@@ -241,46 +769,88 @@ public class ScanServiceImpl implements ScanService {
 
                 if (o instanceof Boolean && (Boolean) o) {
                     accountExistRiskFlag = true;
-                    result.put(Field.ResourceId.getFieldName(), resourceInstance.getResourceId());
-                    result.put(Field.ResourceName.getFieldName(), resourceInstance.getResourceName());
-                    if (StringUtils.isNotBlank(resourceInstance.getAddress())) {
-                        result.put(Field.PublicIp.getFieldName(), resourceInstance.getAddress());
-                    }
-                    if (StringUtils.isNotBlank(resourceInstance.getRegion())) {
-                        result.put(Field.Region.getFieldName(), resourceInstance.getRegion());
-                    }
-
-                    saveOrUpdate(resourceInstance, result, nextVersion, ruleAgg, cloudAccountPO);
+                    addRisk(resultBuffer, resourceInstance, result);
                 }
             }
+            incremental.commit();
+            profile(inputs.size(), evaluateNanos, mergeNanos);
+        }
+
+        private void profile(int evaluations, long evaluateNanos, long mergeNanos) {
+            long flushNanos = resultBuffer.getFlushNanos();
+            ruleCostProfiler.record(ruleAgg, cloudAccountId, evaluations, evaluateNanos, mergeNanos,
+                    flushNanos - profiledFlushNanos);
+            profiledFlushNanos = flushNanos;
+        }
 
-            if (resourceInstances.size() < MAX_BATCH_SIZE) {
-                break;
+        /**
+         * Write the findings so far and remember the position, the rule lock is kept while the scan makes progress
+         */
+        private void checkpoint(long scrollId) {
+            if (scrollId <= checkpoint.scrollId()) {
+                return;
             }
+            resultBuffer.flush();
+            scanCheckpointManager.save(ruleAgg, cloudAccountId, checkpoint, scrollId);
+            dbDistributedLockUtil.renewLock(localLockPrefix + ruleAgg.getId(), DBDistributedLockUtil.getHostName(),
+                    RULE_LOCK_EXPIRE_MS);
+        }
 
-            scrollId = resourceInstances.get(resourceInstances.size() - 1).getId();
+        private void close() {
+            resultBuffer.flush();
+            incremental.close();
+            profile(0, 0L, 0L);
+        }
 
-            // help gc
-            resourceInstances.clear();
+        /**
+         * Mark the scan finished, then notify the risks and resolve the risks of the previous version in the
+         * background. The checkpoint is finished first so the end of the run can not miss it.
+         */
+        private void finish() {
+            scanCheckpointManager.finish(ruleAgg, cloudAccountId, checkpoint);
+            boolean needNotify = accountExistRiskFlag;
+            executorService.execute(() -> {
+                if (needNotify) {
+                    // Execute subscription alarm: risk real-time alarm
+                    realTimeNotify.execute(ruleAgg.getId(), cloudAccountId, nextVersion);
+                }
+                // Update risk status: Modify the risk status of the previous version to
+                // resolved
+                handleAccountScanResultFinish(ruleAgg, cloudAccountId, nextVersion);
+            });
         }
+    }
 
-        boolean needNotify = accountExistRiskFlag;
-        executorService.execute(() -> {
-            if (needNotify) {
-                // Execute subscription alarm: risk real-time alarm
-                realTimeNotify.execute(ruleAgg.getId(), cloudAccountId, nextVersion);
-            }
-            // Update risk status: Modify the risk status of the previous version to
-            // resolved
-            handleAccountScanResultFinish(ruleAgg, cloudAccountId, nextVersion);
-        });
+    private void finishWithoutResource(RuleAgg ruleAgg, String cloudAccountId,
+                                       ScanCheckpointManager.Checkpoint checkpoint) {
+        incrementalScanner.clear(ruleAgg.getId(), cloudAccountId);
+        handleAccountScanResultFinish(ruleAgg, cloudAccountId, checkpoint.version());
+        scanCheckpointManager.finish(ruleAgg, cloudAccountId, checkpoint);
+    }
 
-        try {
-            Thread.sleep(200);
-            // System.gc();
-        } catch (InterruptedException e) {
-            log.error("Thread sleep error", e);
+    /**
+     * Policy input of a page, resource id -> instance json in the order of the page
+     */
+    public static Map<String, String> policyInputs(List<CloudResourceInstancePO> resourceInstances) {
+        Map<String, String> inputs = new LinkedHashMap<>(resourceInstances.size() * 2);
+        for (CloudResourceInstancePO resourceInstance : resourceInstances) {
+            inputs.put(resourceInstance.getResourceId(), resourceInstance.getInstance());
+        }
+        return inputs;
+    }
+
+    static void addRisk(RuleScanResultWriter.Buffer resultBuffer, CloudResourceInstancePO resourceInstance,
+                         Map<String, Object> result) {
+        result.put(Field.ResourceId.getFieldName(), resourceInstance.getResourceId());
+        result.put(Field.ResourceName.getFieldName(), resourceInstance.getResourceName());
+        if (StringUtils.isNotBlank(resourceInstance.getAddress())) {
+            result.put(Field.PublicIp.getFieldName(), resourceInstance.getAddress());
+        }
+        if (StringUtils.isNotBlank(resourceInstance.getRegion())) {
+            result.put(Field.Region.getFieldName(), resourceInstance.getRegion());
         }
+
+        resultBuffer.add(resourceInstance, result);
     }
 
     /**
@@ -313,6 +883,8 @@ public class ScanServiceImpl implements ScanService {
      * @param cloudAccountId
      */
     protected void handleAccountScanResultFinish(RuleAgg ruleAgg, String cloudAccountId) {
+        incrementalScanner.clear(ruleAgg.getId(), cloudAccountId);
+        scanCheckpointManager.remove(ruleAgg.getId(), cloudAccountId);
         RuleScanResultDTO resultDTO = RuleScanResultDTO.builder()
                 .cloudAccountIdList(Collections.singletonList(cloudAccountId)).ruleId(ruleAgg.getId())
                 .statusList(List.of(RiskStatusManager.RiskStatus.UNREPAIRED.name())).build();
@@ -325,6 +897,7 @@ public class ScanServiceImpl implements ScanService {
     }
 
     private void handleScanResultFinish(RuleAgg ruleAgg) {
+        scanCheckpointManager.finishRun(ruleAgg.getId());
         ruleAgg.setRunningEndStatus();
         ruleRepository.save(ruleAgg);
         statisticsJob.ruleScanResultCountStatistics(ruleAgg.getId());
@@ -342,20 +915,13 @@ public class ScanServiceImpl implements ScanService {
             return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule does not exist");
         }
 
-        // 1 h 分布式锁，防止段时间多次点击
-        if (!dbDistributedLockUtil.tryLock(localLockPrefix + ruleId, 1000 * 60 * 60)) {
-            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule is running");
+        String error = startRule(ruleAgg);
+        if (error != null) {
+            log.warn("Skip rule:{}, {}", ruleAgg.getRuleCode(), error);
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, error);
         }
 
-        // 上次扫描时间是否在12小时内
-        if (ruleAgg.getIsRunning() == 1 && DateUtil.getDiffHours(new Date(), ruleAgg.getLastScanTimeStart()) < MAX_WAIT_HOURS) {
-            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule is running, please try again after 6 hours");
-        }
-
-        // 修改状态
-        ruleAgg.setRunningStartStatus();
-        ruleRepository.save(ruleAgg);
-
+        boolean runOwner = incrementalScanner.beginRun();
         try {
             // Loading rules to opa
             ruleScanContext.loadByRuleId(ruleId);
@@ -394,6 +960,9 @@ public class ScanServiceImpl implements ScanService {
             // 改状态、释放锁
             handleScanResultFinish(ruleAgg);
             dbDistributedLockUtil.releaseLock(localLockPrefix + ruleId);
+            if (runOwner) {
+                incrementalScanner.finishRun();
+            }
         }
 
         dbCacheUtil.clear(RuleServiceImpl.tenantSelectRuleCacheKey);
@@ -401,151 +970,76 @@ public class ScanServiceImpl implements ScanService {
         return ApiResponse.SUCCESS;
     }
 
-    /**
-     * 扫描指定规则列表的数据
-     *
-     * @param ruleIdList 规则列表
-     * @return ApiResponse<String>
-     */
     @Override
-    public ApiResponse<String> scanRuleList(List<Long> ruleIdList) {
-        for (Long ruleId : ruleIdList) {
-            scanByRule(ruleId);
+    public ApiResponse<String> checkScanRule(Long ruleId) {
+        RuleAgg ruleAgg = ruleRepository.findByRuleId(ruleId);
+        if (ruleAgg == null) {
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule does not exist");
+        }
+        if (!Status.valid.name().equals(ruleAgg.getStatus())) {
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule is not valid");
+        }
+        // Same conditions as startRule, without taking the lock
+        if (dbDistributedLockUtil.isLocked(localLockPrefix + ruleId, RULE_LOCK_EXPIRE_MS)) {
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule is running");
+        }
+        if (ruleAgg.getIsRunning() == 1 && !scanCheckpointManager.isInterrupted(ruleId)
+                && DateUtil.getDiffHours(new Date(), ruleAgg.getLastScanTimeStart()) < MAX_WAIT_HOURS) {
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule is running, please try again after 6 hours");
         }
         return ApiResponse.SUCCESS;
     }
 
-    protected void saveOrUpdate(CloudResourceInstancePO resourceInstance, Map<String, Object> result,
-                                Long version, RuleAgg ruleAgg, CloudAccountPO cloudAccountPO) {
-        RuleScanResultPO ruleScanResultPO = ruleScanResultMapper.fineOne(resourceInstance.getResourceId(),
-                resourceInstance.getCloudAccountId(), ruleAgg.getId());
-
-        if (ruleScanResultPO == null) {
-            ruleScanResultPO = new RuleScanResultPO();
-            finishData(ruleScanResultPO, resourceInstance, ruleAgg.getId(), ruleAgg.getRegoPolicy(),
-                    cloudAccountPO.getTenantId(), result, version);
-            ruleScanResultPO.setIsNew(1);
-            ruleScanResultMapper.insertSelective(ruleScanResultPO);
-            // 获取风险id && 更新加白状态
-            scanWhitedRuleConfig(ruleScanResultPO, ruleAgg.getRuleCode(), cloudAccountPO, resourceInstance);
-            ruleScanResultMapper.updateByPrimaryKeySelective(ruleScanResultPO);
-        } else {
-            finishData(ruleScanResultPO, resourceInstance, ruleAgg.getId(), ruleAgg.getRegoPolicy(),
-                    cloudAccountPO.getTenantId(), result, version);
-            ruleScanResultPO.setIsNew(0);
-            scanWhitedRuleConfig(ruleScanResultPO, ruleAgg.getRuleCode(), cloudAccountPO, resourceInstance);
-            ruleScanResultMapper.updateByPrimaryKeySelective(ruleScanResultPO);
+    @Override
+    public ApiResponse<String> checkScanGroup(Long groupId) {
+        if (ruleGroupRepository.findOne(groupId) == null) {
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule group does not exist");
         }
+        if (CollectionUtils.isEmpty(ruleRepository.findByGroupId(groupId, Status.valid.name()))) {
+            return new ApiResponse<>(ApiResponse.FAIL_CODE, "The current rule group has no valid rule");
+        }
+        return ApiResponse.SUCCESS;
     }
 
-    private void scanWhitedRuleConfig(RuleScanResultPO ruleScanResultPO, String ruleCode, CloudAccountPO cloudAccountPO,
-                                      CloudResourceInstancePO resourceInstance) {
-        // Get whited rule configurations by tenant to ensure tenant isolation
-        List<WhitedRuleConfigPO> whitedRuleConfigPOList = whitedConfigContext.getByTenant(cloudAccountPO.getTenantId());
-        String hitWhitedRuleName = null;
-        Long hitWhitedRuleConfigId = null;
-        boolean isWhited = false;
-        for (WhitedRuleConfigPO whitedRuleConfigPO : whitedRuleConfigPOList) {
-            if (!StringUtils.isEmpty(whitedRuleConfigPO.getRiskRuleCode())) {
-                if (StringUtils.isEmpty(ruleCode) || !ruleCode.equals(whitedRuleConfigPO.getRiskRuleCode())) {
-                    continue;
-                }
-            }
-
-            if (whitedRuleConfigPO.getRuleType().equals(WhitedRuleTypeEnum.RULE_ENGINE.name())) {
-                List<WhitedRuleConfigDTO> whitedRuleConfigDTOS = JSON.parseArray(whitedRuleConfigPO.getRuleConfig(),
-                        WhitedRuleConfigDTO.class);
-                isWhited = whitedRuleEngineMatcher.matchWhitelistRule(whitedRuleConfigDTOS,
-                        whitedRuleConfigPO.getCondition(), ruleScanResultPO);
-            } else if (whitedRuleConfigPO.getRuleType().equals(WhitedRuleTypeEnum.REGO.name())) {
-                isWhited = whitedRegoMatcher.executeRegoMatch(whitedRuleConfigPO.getRegoContent(),
-                        whitedRuleConfigPO.getId().toString(), ruleScanResultPO, cloudAccountPO, resourceInstance);
-            }
-            if (isWhited) {
-                hitWhitedRuleName = whitedRuleConfigPO.getRuleName();
-                hitWhitedRuleConfigId = whitedRuleConfigPO.getId();
-                break;
-            }
+    /**
+     * Lock a rule and mark it as running
+     *
+     * @return the reason why the rule can not run now, null if it was started
+     */
+    private String startRule(RuleAgg ruleAgg) {
+        // 1 h 分布式锁，防止段时间多次点击
+        if (!dbDistributedLockUtil.tryLock(localLockPrefix + ruleAgg.getId(), RULE_LOCK_EXPIRE_MS)) {
+            return "The current rule is running";
         }
-        log.info("Update ruleScanResult status:{},hitWhitedRuleName:{},ruleScanResult_id:{}", isWhited,
-                hitWhitedRuleName, ruleScanResultPO.getId());
-        if (isWhited) {
-            ruleScanResultPO.setWhitedId(hitWhitedRuleConfigId);
-        }
-        if (isWhited && ruleScanResultPO.getStatus().equals(RiskStatusManager.RiskStatus.UNREPAIRED.name())) {
-            ruleScanResultPO.setGmtModified(new Date());
-            ruleScanResultPO.setStatus(RiskStatusManager.RiskStatus.WHITED.name());
-            saveOperationLog(ruleScanResultPO.getId(), Action.RiskAction.WHITED, "system",
-                    String.format("命中白名单规则:%s, 风险从未修复状态变更为已加白状态", hitWhitedRuleName));
-        } else if (!isWhited && ruleScanResultPO.getStatus().equals(RiskStatusManager.RiskStatus.WHITED.name())) {
-            ruleScanResultPO.setStatus(RiskStatusManager.RiskStatus.UNREPAIRED.name());
-            ruleScanResultPO.setGmtModified(new Date());
-            ruleScanResultPO.setWhitedId(null);
-            saveOperationLog(ruleScanResultPO.getId(), Action.RiskAction.CANCEL_WHITED, "system",
-                    "未命中白名单规则, 风险从已加白状态变更为未修复状态");
+
+        // The run was interrupted, keep its start time so that the scans it finished are skipped
+        if (ruleAgg.getIsRunning() == 1 && scanCheckpointManager.isInterrupted(ruleAgg.getId())) {
+            log.info("Resume the interrupted scan of rule:{}", ruleAgg.getRuleCode());
+            return null;
         }
-    }
 
-    private void saveOperationLog(Long id, Action.RiskAction action, String userId, String notes) {
-        OperationLogPO operationLogPO = new OperationLogPO();
-        operationLogPO.setAction(action.getName());
-        operationLogPO.setUserId(userId);
-        operationLogPO.setNotes(notes);
-        operationLogPO.setType(LogType.RISK.name());
-        operationLogPO.setCorrelationId(id);
-        operationLogMapper.insertSelective(operationLogPO);
-        if (Objects.isNull(id)) {
-            log.info("saveOperationLog not CorrelationId， OperationLogPO id:{}", operationLogPO.getId());
+        // 上次扫描时间是否在12小时内
+        if (ruleAgg.getIsRunning() == 1 && DateUtil.getDiffHours(new Date(), ruleAgg.getLastScanTimeStart()) < MAX_WAIT_HOURS) {
+            return "The current rule is running, please try again after 6 hours";
         }
+
+        // 修改状态
+        ruleAgg.setRunningStartStatus();
+        ruleRepository.save(ruleAgg);
+        return null;
     }
 
     /**
-     * @param ruleScanResultPO 风险扫描对象
-     * @param resourceInstance 资源实例
-     * @param ruleId           规则id
-     * @param regoPolicy       规则策略
-     * @param tenantId         租户id
-     * @param result           rego扫描结果
-     * @param version          数据版本
+     * 扫描指定规则列表的数据
+     *
+     * @param ruleIdList 规则列表
+     * @return ApiResponse<String>
      */
-    private void finishData(RuleScanResultPO ruleScanResultPO,
-                            CloudResourceInstancePO resourceInstance,
-                            Long ruleId,
-                            String regoPolicy,
-                            Long tenantId,
-                            Map<String, Object> result,
-                            Long version) {
-
-        ruleScanResultPO.setRuleSnapshoot(regoPolicy);
-        ruleScanResultPO.setResourceStatus(ResourceStatus.exist.name());
-        ruleScanResultPO.setTenantId(tenantId);
-        ruleScanResultPO.setResourceSnapshoot(resourceInstance.getInstance());
-        ruleScanResultPO.setUpdateTime(DateUtil.dateToString(resourceInstance.getGmtModified()));
-        ruleScanResultPO.setVersion(version);
-        ruleScanResultPO.setRuleId(ruleId);
-        ruleScanResultPO.setCloudAccountId(resourceInstance.getCloudAccountId());
-        ruleScanResultPO.setPlatform(resourceInstance.getPlatform());
-        ruleScanResultPO.setResourceType(resourceInstance.getResourceType());
-        ruleScanResultPO.setResourceId(resourceInstance.getResourceId());
-        ruleScanResultPO.setResourceName(resourceInstance.getResourceName());
-        ruleScanResultPO.setResult(JSON.toJSONString(result));
-        ruleScanResultPO.setCloudResourceInstanceId(resourceInstance.getId());
-
-        // Resolved status changes to unresolved
-        if (RiskStatusManager.RiskStatus.REPAIRED.name().equals(ruleScanResultPO.getStatus())) {
-            RiskStatusManager riskStatusManager = SpringUtils.getApplicationContext().getBean(RiskStatusManager.class);
-            riskStatusManager.repairedToUnrepaired(ruleScanResultPO.getId());
-        }
-
-        // Change the risk state
-        // The state has been ignored and does not change the state
-        if (!RiskStatusManager.RiskStatus.IGNORED.name().equals(ruleScanResultPO.getStatus())
-                && !RiskStatusManager.RiskStatus.WHITED.name().equals(ruleScanResultPO.getStatus())) {
-            ruleScanResultPO.setStatus(RiskStatusManager.RiskStatus.UNREPAIRED.name());
-        }
-
-        if (RiskStatusManager.RiskStatus.UNREPAIRED.name().equals(ruleScanResultPO.getStatus())) {
-            ruleScanResultPO.setGmtModified(new Date());
+    @Override
+    public ApiResponse<String> scanRuleList(List<Long> ruleIdList) {
+        for (Long ruleId : ruleIdList) {
+            scanByRule(ruleId);
         }
+        return ApiResponse.SUCCESS;
     }
 }
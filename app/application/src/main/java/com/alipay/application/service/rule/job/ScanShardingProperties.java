@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the sharded full scan
+ * Every node scans the (rule, cloud account) units whose shard equals its node index
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scan.sharding")
+public class ScanShardingProperties {
+
+    /**
+     * Run scanAll as a sharded, parallel scan
+     * Default: false
+     */
+    private boolean enabled = false;
+
+    /**
+     * Index of this node, from 0 to nodeCount - 1
+     * Default: 0
+     */
+    private Integer nodeIndex = 0;
+
+    /**
+     * Number of nodes sharing the scan
+     * Default: 1
+     */
+    private Integer nodeCount = 1;
+
+    /**
+     * Number of units scanned in parallel on this node
+     * Default: 8
+     */
+    private Integer workerThreads = 8;
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.share.vo.rule.ShardingScanProgressVO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ *@title ShardingScanProgress
+ *@description Progress of one sharded scan run, updated by the workers and read by the query API
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/22 11:05
+ */
+public class ShardingScanProgress {
+
+    private final int nodeIndex;
+
+    private final int nodeCount;
+
+    private final Date startTime = new Date();
+
+    private volatile Date endTime;
+
+    private volatile int totalUnits;
+
+    private final AtomicInteger finishedUnits = new AtomicInteger();
+
+    private final AtomicInteger failedUnits = new AtomicInteger();
+
+    private final Queue<ShardingScanProgressVO.ShardVO> shards = new ConcurrentLinkedQueue<>();
+
+    public ShardingScanProgress(int nodeIndex, int nodeCount) {
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+    }
+
+    public void setTotalUnits(int totalUnits) {
+        this.totalUnits = totalUnits;
+    }
+
+    public boolean isRunning() {
+        return endTime == null;
+    }
+
+    public void finish() {
+        this.endTime = new Date();
+    }
+
+    /**
+     * Record a finished unit
+     *
+     * @param unit       unit
+     * @param durationMs duration in milliseconds
+     * @param error      failure, null if the unit succeeded
+     */
+    public void record(ShardingScanUnit unit, long durationMs, Exception error) {
+        ShardingScanProgressVO.ShardVO shard = new ShardingScanProgressVO.ShardVO();
+        shard.setRuleId(unit.getRuleAgg().getId());
+        shard.setRuleCode(unit.getRuleAgg().getRuleCode());
+        shard.setCloudAccountId(unit.getCloudAccountPO().getCloudAccountId());
+        shard.setDurationMs(durationMs);
+        shard.setSuccess(error == null);
+        if (error != null) {
+            shard.setErrorMsg(error.getMessage());
+            failedUnits.incrementAndGet();
+        }
+        shards.add(shard);
+        finishedUnits.incrementAndGet();
+    }
+
+    public ShardingScanProgressVO toVO() {
+        ShardingScanProgressVO vo = new ShardingScanProgressVO();
+        vo.setNodeIndex(nodeIndex);
+        vo.setNodeCount(nodeCount);
+        vo.setRunning(isRunning());
+        vo.setStartTime(startTime);
+        vo.setEndTime(endTime);
+        vo.setTotalUnits(totalUnits);
+        vo.setFinishedUnits(finishedUnits.get());
+        vo.setFailedUnits(failedUnits.get());
+        List<ShardingScanProgressVO.ShardVO> list = new ArrayList<>(shards);
+        list.sort(Comparator.comparing(ShardingScanProgressVO.ShardVO::getDurationMs).reversed());
+        vo.setShards(list);
+        return vo;
+    }
+}
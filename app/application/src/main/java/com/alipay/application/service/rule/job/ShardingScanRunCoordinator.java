@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.common.utils.DBDistributedLockUtil;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.mapper.RuleScanShardRunMapper;
+import com.alipay.dao.po.RuleScanShardRunPO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.Function;
+
+/*
+ *@title ShardingScanRunCoordinator
+ *@description Run of a rule shared by the nodes of a sharded scan. The first node takes the rule lock and starts the
+ * run, the others join it and share the lock, so a manual scan of the rule can not run at the same time. Every node
+ * records when its shard is done and the last one finishes the run once for all of them
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 11:05
+ */
+@Slf4j
+@Component
+public class ShardingScanRunCoordinator {
+
+    static final String RUNNING = "RUNNING";
+
+    /**
+     * one bit of the finished nodes per node
+     */
+    static final int MAX_NODES = 63;
+
+    /**
+     * attempts to join or start a run, another node may hold the rule lock and not have written the run yet
+     */
+    private static final int JOIN_ATTEMPTS = 5;
+
+    @Resource
+    private RuleScanShardRunMapper ruleScanShardRunMapper;
+
+    @Resource
+    private DBDistributedLockUtil dbDistributedLockUtil;
+
+    long joinRetryMs = 1000L;
+
+    /**
+     * @param started whether this node started the run
+     */
+    public record Run(Long ruleId, String runId, Date runStartTime, boolean started) {
+    }
+
+    /**
+     * Join the running run of a rule or start a new one
+     *
+     * @param lockName  name of the rule lock
+     * @param startRule takes the rule lock and marks the rule running, returns why it can not run or null
+     * @return the run, null if the rule can not run now, e.g. it is scanned manually
+     */
+    public Run join(RuleAgg ruleAgg, String lockName, int nodeIndex, int nodeCount, Function<RuleAgg, String> startRule) {
+        for (int attempt = 1; ; attempt++) {
+            RuleScanShardRunPO po = ruleScanShardRunMapper.findOne(ruleAgg.getId());
+            if (isJoinable(po, nodeIndex, nodeCount) && dbDistributedLockUtil.joinLock(lockName)) {
+                // The checkpoints of all nodes belong to the run started by the first node
+                ruleAgg.setLastScanTimeStart(po.getRunStartTime());
+                log.info("Join sharded run:{} of rule:{}, nodeIndex:{}", po.getRunId(), ruleAgg.getRuleCode(), nodeIndex);
+                return new Run(ruleAgg.getId(), po.getRunId(), po.getRunStartTime(), false);
+            }
+
+            String error = startRule.apply(ruleAgg);
+            if (error == null) {
+                po = new RuleScanShardRunPO();
+                po.setRuleId(ruleAgg.getId());
+                po.setRunId(UUID.randomUUID().toString());
+                po.setRunStartTime(ruleAgg.getLastScanTimeStart());
+                po.setNodeCount(nodeCount);
+                ruleScanShardRunMapper.start(po);
+                log.info("Start sharded run:{} of rule:{}, nodeIndex:{}", po.getRunId(), ruleAgg.getRuleCode(), nodeIndex);
+                return new Run(ruleAgg.getId(), po.getRunId(), po.getRunStartTime(), true);
+            }
+            if (attempt >= JOIN_ATTEMPTS) {
+                log.warn("Skip rule:{} on nodeIndex:{}, {}", ruleAgg.getRuleCode(), nodeIndex, error);
+                return null;
+            }
+            try {
+                Thread.sleep(joinRetryMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Record that this node finished its shard of the run
+     *
+     * @return whether it was the last node, it then finishes the rule and releases the rule lock
+     */
+    public boolean finishNode(Run run, String lockName, int nodeIndex, int nodeCount) {
+        ruleScanShardRunMapper.finishNode(run.ruleId(), run.runId(), 1L << nodeIndex);
+        if (ruleScanShardRunMapper.finishRun(run.ruleId(), run.runId(), (1L << nodeCount) - 1) > 0) {
+            return true;
+        }
+        dbDistributedLockUtil.leaveLock(lockName);
+        return false;
+    }
+
+    /**
+     * A running run of the same node count this node has not finished its shard of
+     */
+    private static boolean isJoinable(RuleScanShardRunPO po, int nodeIndex, int nodeCount) {
+        return po != null
+                && RUNNING.equals(po.getStatus())
+                && po.getNodeCount() != null && po.getNodeCount() == nodeCount
+                && (po.getFinishedNodes() & (1L << nodeIndex)) == 0;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.po.CloudAccountPO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ *@title ShardingScanUnit
+ *@description One unit of the sharded scan: a rule on a cloud account
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/22 11:05
+ */
+@Getter
+@AllArgsConstructor
+public class ShardingScanUnit {
+
+    private final RuleAgg ruleAgg;
+
+    private final CloudAccountPO cloudAccountPO;
+
+    /**
+     * false when the account has no resource of the rule type anymore, its risks only need to be closed
+     */
+    private final boolean hasResource;
+
+    private final boolean selectedByGlobalTenant;
+
+    public String getKey() {
+        return key(ruleAgg.getId(), cloudAccountPO.getCloudAccountId());
+    }
+
+    public static String key(Long ruleId, String cloudAccountId) {
+        return ruleId + "::" + cloudAccountId;
+    }
+
+    /**
+     * Shard of a unit, stable across nodes and restarts
+     *
+     * @param ruleId         rule id
+     * @param cloudAccountId cloud account id
+     * @param nodeCount      number of nodes
+     * @return node index owning the unit
+     */
+    public static int shardOf(Long ruleId, String cloudAccountId, int nodeCount) {
+        return Math.floorMod(key(ruleId, cloudAccountId).hashCode(), nodeCount);
+    }
+}
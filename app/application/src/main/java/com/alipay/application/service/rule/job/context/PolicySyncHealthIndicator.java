@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job.context;
+
+import jakarta.annotation.Resource;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/*
+ *@title PolicySyncHealthIndicator
+ *@description Readiness of the policy engine: out of service until the startup policy sync is done
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/20 10:26
+ */
+@Component
+public class PolicySyncHealthIndicator implements HealthIndicator {
+
+    @Resource
+    private PolicySyncManager policySyncManager;
+
+    @Override
+    public Health health() {
+        PolicySyncManager.State state = policySyncManager.getState();
+        Health.Builder builder = switch (state) {
+            case READY -> Health.up();
+            case FAILED -> Health.down();
+            default -> Health.outOfService();
+        };
+        builder.withDetail("state", state);
+        PolicySyncManager.SyncReport report = policySyncManager.getStartupReport();
+        if (report != null) {
+            builder.withDetail("documents", report.documents())
+                    .withDetail("pushed", report.pushed())
+                    .withDetail("skipped", report.skipped())
+                    .withDetail("failed", report.failed())
+                    .withDetail("costMs", report.costMs());
+        }
+        return builder.build();
+    }
+}
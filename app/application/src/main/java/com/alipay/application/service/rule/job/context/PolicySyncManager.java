@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job.context;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.rule.domain.GlobalVariable;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ *@title PolicySyncManager
+ *@description Keeps the rule policies and global variables of the policy engine in sync. Every document is hashed,
+ * the hashes the engine already holds are read from a manifest document stored next to the data, and only the
+ * documents whose hash differs are pushed, over a bounded pool. The skipped documents are remembered by the engine,
+ * so a server behind it that restarts gets them back with the pushed ones.
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/20 10:26
+ */
+@Slf4j
+@Component
+public class PolicySyncManager {
+
+    /**
+     * Data document with the hashes of the policies and data documents pushed to the engine
+     */
+    static final String MANIFEST_PATH = "cloudrec_sync/manifest";
+
+    private static final String POLICY = "policy:";
+
+    private static final String DATA = "data:";
+
+    public enum State {
+        /**
+         * the startup sync has not started yet
+         */
+        PENDING,
+        SYNCING,
+        READY,
+        /**
+         * the startup sync could not run, scans load their policies one by one
+         */
+        FAILED
+    }
+
+    /**
+     * Result of one sync
+     *
+     * @param documents policies and data documents of the synced rules
+     * @param pushed    documents pushed to the engine
+     * @param skipped   documents the engine already held with the same content
+     * @param failed    documents whose push failed, they are pushed again by the next sync
+     * @param costMs    duration of the sync
+     */
+    public record SyncReport(int documents, int pushed, int skipped, int failed, long costMs) {
+    }
+
+    private record Document(String key, String path, String content, boolean policy) {
+
+        String hash() {
+            return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+        }
+    }
+
+    @Resource
+    private PolicyEngine policyEngine;
+
+    @Resource
+    private PolicySyncProperties policySyncProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * document key -> hash of the content the engine holds
+     */
+    private final Map<String, String> synced = new ConcurrentHashMap<>();
+
+    private final CountDownLatch startupSync = new CountDownLatch(1);
+
+    @Getter
+    private volatile State state = State.PENDING;
+
+    /**
+     * Report of the startup sync, null until it finished
+     */
+    @Getter
+    private volatile SyncReport startupReport;
+
+    /**
+     * Sync all rules at startup, scans waiting in {@link #awaitReady()} are released when it is done
+     */
+    public SyncReport syncAll(Supplier<? extends Collection<RuleAgg>> rules) {
+        Gauge.builder("cloudrec.policy.sync.ready", this, m -> m.state == State.READY ? 1 : 0)
+                .description("Whether the startup policy sync has finished")
+                .register(meterRegistry);
+        state = State.SYNCING;
+        try {
+            Map<String, String> manifest = readManifest();
+            synced.putAll(manifest);
+            if (!manifest.isEmpty()) {
+                policyEngine.rememberData(MANIFEST_PATH, manifest);
+            }
+            SyncReport report = sync(rules.get());
+            meterRegistry.timer("cloudrec.policy.sync.startup").record(report.costMs(), TimeUnit.MILLISECONDS);
+            log.info("Policy sync finished, documents:{}, pushed:{}, skipped:{}, failed:{}, cost:{}ms",
+                    report.documents(), report.pushed(), report.skipped(), report.failed(), report.costMs());
+            startupReport = report;
+            state = State.READY;
+            return report;
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            throw e;
+        } finally {
+            startupSync.countDown();
+        }
+    }
+
+    /**
+     * Push the policies and global variables of the rules that the engine does not hold yet
+     */
+    public SyncReport sync(Collection<RuleAgg> rules) {
+        long start = System.nanoTime();
+        Map<String, Document> documents = documents(rules);
+        List<Document> changed = new ArrayList<>();
+        for (Document document : documents.values()) {
+            if (!document.hash().equals(synced.get(document.key()))) {
+                changed.add(document);
+            } else {
+                remember(document);
+            }
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        int parallelism = Math.min(Math.max(1, policySyncProperties.getParallelism()), changed.size());
+        if (parallelism <= 1) {
+            changed.forEach(document -> push(document, failed));
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+            try {
+                CompletableFuture.allOf(changed.stream()
+                        .map(document -> CompletableFuture.runAsync(() -> push(document, failed), pool))
+                        .toArray(CompletableFuture[]::new)).join();
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int pushed = changed.size() - failed.get();
+        if (pushed > 0) {
+            writeManifest();
+        }
+        int skipped = documents.size() - changed.size();
+        meterRegistry.counter("cloudrec.policy.sync.documents", "result", "pushed").increment(pushed);
+        meterRegistry.counter("cloudrec.policy.sync.documents", "result", "skipped").increment(skipped);
+        meterRegistry.counter("cloudrec.policy.sync.documents", "result", "failed").increment(failed.get());
+        return new SyncReport(documents.size(), pushed, skipped, failed.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Forget a document pushed to the engine outside of the sync, e.g. a policy under test, so the next sync of its
+     * rule pushes it again
+     *
+     * @param path policy or data path
+     */
+    public void forget(String path) {
+        boolean policy = synced.remove(POLICY + path) != null;
+        boolean data = synced.remove(DATA + path) != null;
+        if (policy || data) {
+            writeManifest();
+        }
+    }
+
+    /**
+     * Wait until the startup sync is done, so a scan does not evaluate policies the engine is still receiving
+     *
+     * @return false if the sync did not finish in time
+     */
+    public boolean awaitReady() {
+        try {
+            return startupSync.await(policySyncProperties.getAwaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Policies and global variables of the rules, global variables shared by several rules are pushed once
+     */
+    private Map<String, Document> documents(Collection<RuleAgg> rules) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        for (RuleAgg ruleAgg : rules) {
+            if (StringUtils.isEmpty(ruleAgg.getRegoPath()) || StringUtils.isEmpty(ruleAgg.getRegoPolicy())) {
+                log.warn("The Rego policy is empty,ruleId:{}, ruleCode:{},ruleName:{}", ruleAgg.getId(), ruleAgg.getRuleCode(), ruleAgg.getRuleName());
+                continue;
+            }
+            String key = POLICY + ruleAgg.getRegoPath();
+            documents.put(key, new Document(key, ruleAgg.getRegoPath(), ruleAgg.getRegoPolicy(), true));
+            if (CollectionUtils.isNotEmpty(ruleAgg.getGlobalVariables())) {
+                for (GlobalVariable globalVariable : ruleAgg.getGlobalVariables()) {
+                    key = DATA + globalVariable.getPath();
+                    documents.put(key, new Document(key, globalVariable.getPath(),
+                            StringUtils.defaultString(globalVariable.getData()), false));
+                }
+            }
+        }
+        return documents;
+    }
+
+    private void push(Document document, AtomicInteger failed) {
+        try {
+            if (document.policy()) {
+                policyEngine.createOrUpdatePolicy(document.path(), document.content());
+            } else {
+                policyEngine.upsertData(document.path(), JSON.parse(document.content()));
+            }
+            synced.put(document.key(), document.hash());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            synced.remove(document.key());
+            log.error("Policy sync push error, path:{}", document.path(), e);
+        }
+    }
+
+    /**
+     * A document the engine held before this application started was never written by it, the engine is told about
+     * it so that it can restore it
+     */
+    private void remember(Document document) {
+        try {
+            if (document.policy()) {
+                policyEngine.rememberPolicy(document.path(), document.content());
+            } else {
+                policyEngine.rememberData(document.path(), JSON.parse(document.content()));
+            }
+        } catch (Exception e) {
+            log.warn("Policy sync could not remember {}: {}", document.path(), e.getMessage());
+        }
+    }
+
+    private Map<String, String> readManifest() {
+        Map<String, String> manifest = new HashMap<>();
+        try {
+            if (policyEngine.getData(MANIFEST_PATH) instanceof Map<?, ?> map) {
+                map.forEach((k, v) -> manifest.put(String.valueOf(k), String.valueOf(v)));
+            }
+        } catch (Exception e) {
+            log.warn("Policy sync manifest could not be read, all documents are pushed: {}", e.getMessage());
+        }
+        return manifest;
+    }
+
+    private void writeManifest() {
+        try {
+            policyEngine.upsertData(MANIFEST_PATH, new HashMap<>(synced));
+        } catch (Exception e) {
+            log.warn("Policy sync manifest could not be written: {}", e.getMessage());
+        }
+    }
+}
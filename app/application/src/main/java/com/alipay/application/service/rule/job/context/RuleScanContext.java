@@ -17,19 +17,14 @@
 package com.alipay.application.service.rule.job.context;
 
 
-import com.alipay.application.service.rule.domain.GlobalVariable;
 import com.alipay.application.service.rule.domain.RuleAgg;
-import com.alipay.application.service.rule.domain.repo.OpaRepository;
 import com.alipay.application.service.rule.domain.repo.RuleRepository;
 import com.alipay.application.service.system.domain.enums.Status;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import com.alibaba.fastjson.JSON;
 
 import java.util.List;
 
@@ -48,16 +43,16 @@ public class RuleScanContext {
     private RuleRepository ruleRepository;
 
     @Resource
-    private OpaRepository opaRepository;
+    private PolicySyncManager policySyncManager;
 
     /**
-     * Initialize the rego policy and global variables of the rule to avoid frequent performance-consuming creation
+     * Initialize the rego policy and global variables of the rule to avoid frequent performance-consuming creation,
+     * only the documents the engine does not hold yet are pushed
      */
     @EventListener
     private void init(ApplicationReadyEvent event) {
         try {
-            List<RuleAgg> list = ruleRepository.findAll();
-            list.forEach(this::load);
+            policySyncManager.syncAll(ruleRepository::findAll);
             log.info("Rules loaded after application started.");
         } catch (Exception e) {
             log.error("Rules loaded after application started failed.", e);
@@ -66,25 +61,18 @@ public class RuleScanContext {
 
     public void loadByRuleId(Long ruleId) {
         RuleAgg ruleAgg = ruleRepository.findByRuleId(ruleId);
-        load(ruleAgg);
+        load(List.of(ruleAgg));
     }
 
     public void loadByGroupId(Long groupId) {
-        List<RuleAgg> list = ruleRepository.findByGroupId(groupId, Status.valid.name());
-        list.forEach(this::load);
+        load(ruleRepository.findByGroupId(groupId, Status.valid.name()));
     }
 
-    private void load(RuleAgg ruleAgg) {
-        if (StringUtils.isEmpty(ruleAgg.getRegoPath()) || StringUtils.isEmpty(ruleAgg.getRegoPolicy())) {
-            log.warn("The Rego policy is empty,ruleId:{}, ruleCode:{},ruleName:{}", ruleAgg.getId(), ruleAgg.getRuleCode(), ruleAgg.getRuleName());
-            return;
-        }
-        opaRepository.createOrUpdatePolicy(ruleAgg.getRegoPath(), ruleAgg.getRegoPolicy());
-        if (CollectionUtils.isNotEmpty(ruleAgg.getGlobalVariables())) {
-            for (GlobalVariable globalVariable : ruleAgg.getGlobalVariables()) {
-                opaRepository.upsertData(globalVariable.getPath(), JSON.parse(globalVariable.getData()));
-            }
+    private void load(List<RuleAgg> list) {
+        if (!policySyncManager.awaitReady()) {
+            log.warn("The policy sync has not finished, load the rules anyway");
         }
+        policySyncManager.sync(list);
     }
 
     private static final ThreadLocal<RuleAgg> CURRENT_RULE = new ThreadLocal<>();
@@ -16,9 +16,8 @@
  */
 package com.alipay.application.service.rule.job.context;
 
-import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.application.service.rule.CompiledWhitedRule;
 import com.alipay.application.service.system.domain.repo.TenantRepository;
-import com.alipay.common.enums.WhitedRuleTypeEnum;
 import com.alipay.dao.dto.QueryWhitedRuleDTO;
 import com.alipay.dao.mapper.WhitedRuleConfigMapper;
 import com.alipay.dao.po.WhitedRuleConfigPO;
@@ -33,6 +32,7 @@ import org.springframework.util.CollectionUtils;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,7 +59,7 @@ public class TenantWhitedConfigContextV2 {
     private TenantWhitedConfigProperties configProperties;
 
     @Resource
-    private OpaRepository opaRepository;
+    private WhitedRegoPolicyRegistry whitedRegoPolicyRegistry;
 
     /**
      * Caffeine cache for storing tenant-specific whitelisted rule configurations
@@ -68,6 +68,13 @@ public class TenantWhitedConfigContextV2 {
      */
     private Cache<Long, List<WhitedRuleConfigPO>> tenantConfigCache;
 
+    /**
+     * Compiled rule engine whitelists
+     * Key: whitelist id and modification time, so a whitelist changed on another node is compiled again
+     * when the tenant cache reloads it
+     */
+    private Cache<String, CompiledWhitedRule> compiledRuleCache;
+
     /**
      * Initialize Caffeine cache with configuration from properties
      * This method is called after dependency injection is complete
@@ -79,6 +86,10 @@ public class TenantWhitedConfigContextV2 {
                 .expireAfterWrite(Duration.ofMillis(configProperties.getCacheExpirationTimeMs()))
                 .recordStats() // Enable statistics for monitoring
                 .build();
+        this.compiledRuleCache = Caffeine.newBuilder()
+                .maximumSize(configProperties.getMaxCompiledRuleCacheSize())
+                .recordStats()
+                .build();
 
         log.info("Initialized Caffeine cache with maxSize: {}, expiration: {}ms",
                 configProperties.getMaxCacheSize(), configProperties.getCacheExpirationTimeMs());
@@ -118,16 +129,8 @@ public class TenantWhitedConfigContextV2 {
 
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                List<WhitedRuleConfigPO> configs = tenantConfigCache.get(tenantId, this::queryTenantConfigs);
+                List<WhitedRuleConfigPO> configs = tenantConfigCache.get(tenantId, this::loadTenantConfigs);
                 if (configs != null && !configs.isEmpty()) {
-                    for (WhitedRuleConfigPO whitedRuleConfigPO : configs) {
-                        if (WhitedRuleTypeEnum.REGO.name().equals(whitedRuleConfigPO.getRuleType())) {
-                            String regoContent = whitedRuleConfigPO.getRegoContent();
-                            String regoPath = opaRepository.findWhitedConfigPackage(regoContent, whitedRuleConfigPO.getId().toString());
-                            String newRegoPolicy = regoContent.replaceFirst("(?<=package )\\S+", regoPath);
-                            opaRepository.createOrUpdatePolicy(regoPath, newRegoPolicy);
-                        }
-                    }
                     return configs;
                 }
 
@@ -172,27 +175,70 @@ public class TenantWhitedConfigContextV2 {
 
 
     /**
-     * Query whited configurations from database for a specific tenant
+     * Get the compiled predicate tree of a rule engine whitelist, compiled once per whitelist version
+     * A whitelist that cannot be compiled matches nothing
      *
-     * @param tenantId the tenant ID to query configurations for
-     * @return List of WhitedRuleConfigPO objects from database
+     * @param whitedRuleConfigPO rule engine whitelist
+     * @return compiled whitelist, never null
      */
-    private List<WhitedRuleConfigPO> queryTenantConfigs(Long tenantId) {
-        List<WhitedRuleConfigPO> allConfigs = new ArrayList<>();
+    public CompiledWhitedRule getCompiledRule(WhitedRuleConfigPO whitedRuleConfigPO) {
+        return compiledRuleCache.get(compiledRuleKey(whitedRuleConfigPO), key -> {
+            try {
+                return CompiledWhitedRule.compile(whitedRuleConfigPO);
+            } catch (Exception e) {
+                log.error("Failed to compile whited config: {}, ruleName: {}, it matches nothing", whitedRuleConfigPO.getId(),
+                        whitedRuleConfigPO.getRuleName(), e);
+                return CompiledWhitedRule.NEVER;
+            }
+        });
+    }
 
-        // Only query enabled configurations
-        QueryWhitedRuleDTO queryDto = QueryWhitedRuleDTO.builder()
-                .enable(1)
-                .build();
+    private static String compiledRuleKey(WhitedRuleConfigPO whitedRuleConfigPO) {
+        Date gmtModified = whitedRuleConfigPO.getGmtModified();
+        return whitedRuleConfigPO.getId() + ":" + (gmtModified == null ? 0 : gmtModified.getTime());
+    }
+
+    /**
+     * Load the whited configurations of a tenant into the cache, the REGO whitelists are brought in line with
+     * the policy engine here, so a cache hit does not push anything
+     *
+     * @param tenantId the tenant ID to load configurations for
+     * @return List of WhitedRuleConfigPO objects from database
+     */
+    private List<WhitedRuleConfigPO> loadTenantConfigs(Long tenantId) {
+        List<Long> tenantIdList = tenantIdList(tenantId);
+        List<WhitedRuleConfigPO> configs = queryTenantConfigs(tenantId, tenantIdList);
+        if (configs.stream().anyMatch(WhitedRegoPolicyRegistry::isRego)) {
+            whitedRegoPolicyRegistry.sync(tenantIdList, configs);
+        }
+        return configs;
+    }
 
-        // Set tenant ID list using reflection method call (temporary workaround for Lombok issue)
+    private List<Long> tenantIdList(Long tenantId) {
         try {
             Long globalTenantId = tenantRepository.findGlobalTenant().getId();
-            queryDto.setTenantIdList(Stream.of(globalTenantId, tenantId).distinct().toList());
+            return Stream.of(globalTenantId, tenantId).distinct().toList();
         } catch (Exception e) {
             log.error("Failed to retrieve global tenant or set tenant ID list for tenant: {}", tenantId, e);
             throw new IllegalStateException("Unable to configure tenant isolation for query. Tenant ID: " + tenantId, e);
         }
+    }
+
+    /**
+     * Query whited configurations from database for a specific tenant
+     *
+     * @param tenantId     the tenant ID to query configurations for
+     * @param tenantIdList the tenant and the global tenant
+     * @return List of WhitedRuleConfigPO objects from database
+     */
+    private List<WhitedRuleConfigPO> queryTenantConfigs(Long tenantId, List<Long> tenantIdList) {
+        List<WhitedRuleConfigPO> allConfigs = new ArrayList<>();
+
+        // Only query enabled configurations
+        QueryWhitedRuleDTO queryDto = QueryWhitedRuleDTO.builder()
+                .enable(1)
+                .build();
+        queryDto.setTenantIdList(tenantIdList);
 
         // Use pagination to handle large datasets
         queryDto.setSize(configProperties.getQueryPageSize());
@@ -242,6 +288,7 @@ public class TenantWhitedConfigContextV2 {
      */
     public void clearAllCache() {
         tenantConfigCache.invalidateAll();
+        compiledRuleCache.invalidateAll();
         log.info("Cleared all whited config cache");
     }
 
@@ -263,6 +310,9 @@ public class TenantWhitedConfigContextV2 {
         result.put("evictionCount", stats.evictionCount());
         result.put("loadCount", stats.loadCount());
         result.put("averageLoadPenalty", stats.averageLoadPenalty());
+        result.put("compiledRuleCacheSize", compiledRuleCache.estimatedSize());
+        result.put("compiledRuleHitRate", compiledRuleCache.stats().hitRate());
+        result.putAll(whitedRegoPolicyRegistry.getStats());
 
         return result;
     }
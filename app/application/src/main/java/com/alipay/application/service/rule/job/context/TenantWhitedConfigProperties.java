@@ -44,6 +44,12 @@ public class TenantWhitedConfigProperties {
      */
     private Integer maxCacheSize = 10000;
 
+    /**
+     * Maximum number of compiled rule engine whitelists in cache
+     * Default: 10000 entries
+     */
+    private Integer maxCompiledRuleCacheSize = 10000;
+
     /**
      * Page size for database queries
      * Default: 100 records per page
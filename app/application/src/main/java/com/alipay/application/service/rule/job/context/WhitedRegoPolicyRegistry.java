@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job.context;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.alipay.common.enums.WhitedRuleTypeEnum;
+import com.alipay.dao.po.WhitedRuleConfigPO;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *@title WhitedRegoPolicyRegistry
+ *@description Tracks the revision of every REGO whitelist policy loaded in the policy engine, so a whitelist is
+ * pushed when it is created or changed instead of on every lookup, and deleted from the engine when its config is
+ * removed. The revisions are kept in a data document of the engine as well: they are shared by all nodes, and a
+ * missing document means the engine restarted and lost the policies.
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/21 14:08
+ */
+@Slf4j
+@Component
+public class WhitedRegoPolicyRegistry {
+
+    /**
+     * Data document, whitelist id -> loaded policy
+     */
+    static final String REVISIONS_PATH = "cloudrec_whited/revisions";
+
+    @Resource
+    private PolicyEngine policyEngine;
+
+    @Resource
+    private OpaRepository opaRepository;
+
+    /**
+     * whitelist id -> policy loaded in the engine
+     */
+    private final Map<String, LoadedPolicy> loaded = new HashMap<>();
+
+    private final AtomicLong pushCount = new AtomicLong();
+
+    private final AtomicLong skipCount = new AtomicLong();
+
+    private final AtomicLong evictCount = new AtomicLong();
+
+    private final AtomicLong engineRestartCount = new AtomicLong();
+
+    /**
+     * Policy of a whitelist as loaded in the engine, serialized into the revisions document
+     */
+    @Data
+    public static class LoadedPolicy {
+
+        private Long tenantId;
+
+        private String path;
+
+        /**
+         * sha-256 of the policy content
+         */
+        private String revision;
+    }
+
+    public static boolean isRego(WhitedRuleConfigPO whitedRuleConfigPO) {
+        return WhitedRuleTypeEnum.REGO.name().equals(whitedRuleConfigPO.getRuleType())
+                && StringUtils.isNotEmpty(whitedRuleConfigPO.getRegoContent());
+    }
+
+    /**
+     * Bring the whitelists of the tenants in line with their enabled configs: new and changed policies are pushed,
+     * policies of configs that are gone are deleted
+     *
+     * @param tenantIdList tenants whose configs were loaded
+     * @param configs      enabled configs of the tenants
+     */
+    public synchronized void sync(Collection<Long> tenantIdList, List<WhitedRuleConfigPO> configs) {
+        boolean changed = refresh();
+        Set<String> current = new HashSet<>();
+        for (WhitedRuleConfigPO config : configs) {
+            if (isRego(config)) {
+                current.add(config.getId().toString());
+                changed |= push(config);
+            }
+        }
+
+        Iterator<Map.Entry<String, LoadedPolicy>> it = loaded.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, LoadedPolicy> e = it.next();
+            if (tenantIdList.contains(e.getValue().getTenantId()) && !current.contains(e.getKey())
+                    && delete(e.getKey(), e.getValue())) {
+                it.remove();
+                changed = true;
+            }
+        }
+        if (changed) {
+            writeRevisions();
+        }
+    }
+
+    /**
+     * Push the policy of a created, changed or re-enabled whitelist
+     */
+    public synchronized void load(WhitedRuleConfigPO config) {
+        if (config.getId() == null || !isRego(config)) {
+            return;
+        }
+        boolean changed = refresh();
+        if (push(config) || changed) {
+            writeRevisions();
+        }
+    }
+
+    /**
+     * Delete the policy of a removed or disabled whitelist from the engine
+     */
+    public synchronized void evict(Long whitedRuleConfigId) {
+        boolean changed = refresh();
+        String id = whitedRuleConfigId.toString();
+        LoadedPolicy policy = loaded.get(id);
+        if (policy != null && delete(id, policy)) {
+            loaded.remove(id);
+            changed = true;
+        }
+        if (changed) {
+            writeRevisions();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            stats.put("regoPolicyCount", loaded.size());
+        }
+        stats.put("regoPushCount", pushCount.get());
+        stats.put("regoSkipCount", skipCount.get());
+        stats.put("regoEvictCount", evictCount.get());
+        stats.put("regoEngineRestartCount", engineRestartCount.get());
+        return stats;
+    }
+
+    /**
+     * Read the revisions the engine holds, they may have been written by another node
+     *
+     * @return true if the engine restarted and the policies have to be pushed again
+     */
+    private boolean refresh() {
+        Object document;
+        try {
+            document = policyEngine.getData(REVISIONS_PATH);
+        } catch (Exception e) {
+            log.warn("Whited policy revisions could not be read, use the local ones: {}", e.getMessage());
+            return false;
+        }
+
+        if (document == null) {
+            if (loaded.isEmpty()) {
+                return false;
+            }
+            log.warn("Whited policy revisions are missing, the policy engine restarted, {} policies are pushed again",
+                    loaded.size());
+            engineRestartCount.incrementAndGet();
+            loaded.clear();
+            return true;
+        }
+
+        if (!(JSON.toJSON(document) instanceof JSONObject revisions)) {
+            log.warn("Whited policy revisions are not a document: {}", document);
+            return false;
+        }
+        loaded.clear();
+        for (String id : revisions.keySet()) {
+            loaded.put(id, revisions.getObject(id, LoadedPolicy.class));
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the policy was pushed
+     */
+    private boolean push(WhitedRuleConfigPO config) {
+        String id = config.getId().toString();
+        String regoContent = config.getRegoContent();
+        String regoPath = opaRepository.findWhitedConfigPackage(regoContent, id);
+        String policy = regoContent.replaceFirst("(?<=package )\\S+", regoPath);
+        String revision = Hashing.sha256().hashString(policy, StandardCharsets.UTF_8).toString();
+
+        LoadedPolicy current = loaded.get(id);
+        if (current != null && revision.equals(current.getRevision())) {
+            skipCount.incrementAndGet();
+            return false;
+        }
+        try {
+            policyEngine.createOrUpdatePolicy(regoPath, policy);
+        } catch (Exception e) {
+            log.error("Push whited policy error, whitedRuleConfigId:{}, path:{}", id, regoPath, e);
+            return false;
+        }
+        if (current != null && !regoPath.equals(current.getPath())) {
+            // the package of the whitelist changed, the old policy would stay behind
+            delete(id, current);
+        }
+
+        LoadedPolicy policyLoaded = new LoadedPolicy();
+        policyLoaded.setTenantId(config.getTenantId());
+        policyLoaded.setPath(regoPath);
+        policyLoaded.setRevision(revision);
+        loaded.put(id, policyLoaded);
+        pushCount.incrementAndGet();
+        return true;
+    }
+
+    private boolean delete(String id, LoadedPolicy policy) {
+        try {
+            policyEngine.deletePolicy(policy.getPath());
+            evictCount.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            log.error("Delete whited policy error, whitedRuleConfigId:{}, path:{}", id, policy.getPath(), e);
+            return false;
+        }
+    }
+
+    private void writeRevisions() {
+        try {
+            policyEngine.upsertData(REVISIONS_PATH, new HashMap<>(loaded));
+        } catch (Exception e) {
+            log.warn("Whited policy revisions could not be written: {}", e.getMessage());
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.alipay.application.config.annotate.ConditionalOnLocalScheduler;
 import com.alipay.application.service.collector.AgentService;
 import com.alipay.application.service.resource.job.ClearJob;
 import com.alipay.application.service.risk.job.SubscriptionJobService;
+import com.alipay.application.service.rule.job.ScanScheduler;
 import com.alipay.application.service.rule.job.ScanService;
 import com.alipay.application.service.statistics.job.ParseCloudResourceDataJob;
 import com.alipay.application.service.statistics.job.StatisticsJob;
@@ -48,6 +49,9 @@ public class LocalRunTask {
     @Resource
     private ClearJob clearJob;
 
+    @Resource
+    private ScanScheduler scanScheduler;
+
     @Resource
     private ParseCloudResourceDataJob parseCloudResourceDataJob;
 
@@ -221,7 +225,7 @@ public class LocalRunTask {
             log.info("syncScanAll_local start");
             localTaskLocksService.lockTask("scanAllHandler");
             clearJob.clearObsoleteData();
-            scanService.scanAll();
+            scanScheduler.submit(ScanScheduler.Priority.PERIODIC, null, "scanAll", scanService::scanAll).join();
         } catch (Exception e) {
             log.error("syncScanAll_local error", e);
             runStatus = Boolean.FALSE;
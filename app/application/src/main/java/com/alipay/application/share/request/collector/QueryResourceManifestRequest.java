@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.request.collector;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ *@title QueryResourceManifestRequest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 10:20
+ */
+@Getter
+@Setter
+public class QueryResourceManifestRequest {
+
+    @NotEmpty(message = "cloudAccountId cannot be empty")
+    private String cloudAccountId;
+
+    @NotEmpty(message = "resourceType cannot be empty")
+    private String resourceType;
+}
@@ -62,5 +62,15 @@ public class DataPushRequest {
 
         @NotNull(message = "resourceInstancesAll cannot be null")
         List<ResourceInstance> resourceInstancesAll;
+
+        /**
+         * Delta push: resources of the manifest whose fingerprint still matches, only their version is refreshed
+         */
+        private List<String> unchangedResourceIds;
+
+        /**
+         * Delta push: resources of the manifest the collector no longer found, they are deleted
+         */
+        private List<String> deletedResourceIds;
     }
 }
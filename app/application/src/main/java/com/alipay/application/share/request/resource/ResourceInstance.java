@@ -97,4 +97,10 @@ public class ResourceInstance {
      * 实例对象
      */
     private Map<String, Object> instance;
+
+    /**
+     * Fingerprint of the content computed by a collector with delta support, it is returned in the manifest of the
+     * next collection
+     */
+    private String fingerprint;
 }
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.request.rule;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.Map;
+
+/*
+ *@title EvaluateResourceRequest
+ *@description Evaluate the applicable rules of one resource now
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/28 14:20
+ */
+@Data
+public class EvaluateResourceRequest {
+
+    @NotEmpty(message = "platform cannot be empty")
+    private String platform;
+
+    @NotEmpty(message = "resourceType cannot be empty")
+    private String resourceType;
+
+    @NotEmpty(message = "cloudAccountId cannot be empty")
+    private String cloudAccountId;
+
+    @NotEmpty(message = "resourceId cannot be empty")
+    private String resourceId;
+
+    /**
+     * 资源名称，只在传入实例对象时使用
+     */
+    private String resourceName;
+
+    /**
+     * 地址，只在传入实例对象时使用
+     */
+    private String address;
+
+    /**
+     * 采集器刚采集到的实例对象，为空时使用已入库的资源
+     */
+    private Map<String, Object> instance;
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.collector;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/*
+ *@title ResourceManifestVO
+ *@description Stored resources of a resource type of an account, a collector with delta support pushes only the
+ * resources whose fingerprint differs, the ids of the unchanged ones and the ids it no longer finds
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 10:20
+ */
+@Getter
+@Setter
+public class ResourceManifestVO {
+
+    /**
+     * false when the server wants full pushes
+     */
+    private Boolean enabled;
+
+    private String cloudAccountId;
+
+    private String platform;
+
+    private String resourceType;
+
+    /**
+     * fingerprint by resource id, empty for a resource stored without one so it is pushed in full. A resource of the
+     * manifest the collector does not find is reported deleted
+     */
+    private Map<String, String> fingerprints;
+}
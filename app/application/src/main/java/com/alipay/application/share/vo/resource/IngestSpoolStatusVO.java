@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.resource;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ *@title IngestSpoolStatusVO
+ *@description Collector pushes in the write-ahead spool of this node
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/31 16:40
+ */
+@Getter
+@Setter
+public class IngestSpoolStatusVO {
+
+    private Boolean enabled;
+
+    /**
+     * pushes not written to the database yet
+     */
+    private Integer pendingEntries;
+
+    /**
+     * pending pushes being written by a queue worker or the replayer
+     */
+    private Integer inFlightEntries;
+
+    private Long pendingBytes;
+
+    /**
+     * bytes of the segment files, including the done pushes of segments not deleted yet
+     */
+    private Long totalBytes;
+
+    private Long maxBytes;
+
+    private Integer segments;
+
+    /**
+     * time since the oldest pending push was spooled, 0 when nothing is pending
+     */
+    private Long oldestEntryAgeMs;
+
+    /**
+     * bytes of the pushes moved to the dead-letter file after failing the maximum replays
+     */
+    private Long deadLetterBytes;
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.resource;
+
+import com.alipay.dao.dto.ResourceInstanceStorageDTO;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/*
+ *@title InstanceStorageReportVO
+ *@description Bytes of the stored instance documents per resource type and the bytes saved by compressing them
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 10:20
+ */
+@Getter
+@Setter
+public class InstanceStorageReportVO {
+
+    /**
+     * whether new and changed documents are written compressed
+     */
+    private Boolean compressEnabled;
+
+    /**
+     * rows compressed by the migration run of this request, null for a plain report
+     */
+    private Long migratedRows;
+
+    private Long plainRows;
+
+    private Long savedBytes;
+
+    private List<ResourceTypeStorage> resourceTypes;
+
+    @Getter
+    @Setter
+    public static class ResourceTypeStorage {
+
+        private String resourceType;
+
+        private Long rows;
+
+        private Long compressedRows;
+
+        /**
+         * bytes of the documents stored as plain json
+         */
+        private Long plainBytes;
+
+        /**
+         * plain json bytes of the compressed documents
+         */
+        private Long originalBytes;
+
+        private Long compressedBytes;
+
+        private Long savedBytes;
+
+        public static ResourceTypeStorage build(ResourceInstanceStorageDTO dto) {
+            ResourceTypeStorage storage = new ResourceTypeStorage();
+            storage.setResourceType(dto.getResourceType());
+            storage.setRows(dto.getRowCount());
+            storage.setCompressedRows(dto.getCompressedRowCount());
+            storage.setPlainBytes(dto.getPlainBytes());
+            storage.setOriginalBytes(dto.getOriginalBytes());
+            storage.setCompressedBytes(dto.getCompressedBytes());
+            storage.setSavedBytes(dto.getOriginalBytes() - dto.getCompressedBytes());
+            return storage;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.resource;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ *@title ResourceIngestResultVO
+ *@description Rows written for one resource push of the collector
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/10 11:20
+ */
+@Getter
+@Setter
+public class ResourceIngestResultVO {
+
+    /**
+     * The push was queued and is written in the background, the counts are not known yet
+     */
+    private boolean queued;
+
+    /**
+     * Resources seen for the first time
+     */
+    private int inserted;
+
+    /**
+     * Resources whose content changed
+     */
+    private int updated;
+
+    /**
+     * Resources whose content is unchanged, only their version and modified time are refreshed
+     */
+    private int unchanged;
+
+    /**
+     * Resources deleted by a delta push
+     */
+    private int deleted;
+}
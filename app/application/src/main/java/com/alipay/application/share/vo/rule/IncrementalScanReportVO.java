@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.rule;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.List;
+
+/*
+ *@title IncrementalScanReportVO
+ *@description Evaluations run and skipped by the last scan run on this node
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/29 10:40
+ */
+@Getter
+@Setter
+public class IncrementalScanReportVO {
+
+    private Boolean running;
+
+    /**
+     * every resource was evaluated
+     */
+    private Boolean forceFull;
+
+    private Date startTime;
+
+    private Date endTime;
+
+    private Long evaluated;
+
+    /**
+     * unchanged resources whose last result was kept
+     */
+    private Long skipped;
+
+    /**
+     * skipped / (evaluated + skipped)
+     */
+    private Double skipRatio;
+
+    /**
+     * evaluated resources whose result was found in the policy result cache
+     */
+    private Long memoHits;
+
+    private Long memoMisses;
+
+    /**
+     * memoHits / (memoHits + memoMisses)
+     */
+    private Double memoHitRatio;
+
+    /**
+     * evaluation time the cached results saved
+     */
+    private Long memoSavedMs;
+
+    /**
+     * evaluated resources the pre-filters rejected, compliant without a policy call
+     */
+    private Long preFiltered;
+
+    /**
+     * per rule, most evaluations first
+     */
+    private List<RuleVO> rules;
+
+    @Getter
+    @Setter
+    public static class RuleVO {
+
+        private Long ruleId;
+
+        private String ruleCode;
+
+        private Long evaluated;
+
+        private Long skipped;
+
+        private Long memoHits;
+
+        private Long memoSavedMs;
+
+        private Long preFiltered;
+    }
+}
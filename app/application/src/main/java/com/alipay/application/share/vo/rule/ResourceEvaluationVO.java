@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.rule;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ *@title ResourceEvaluationVO
+ *@description Findings of the applicable rules of one resource after an on-demand evaluation
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/28 14:25
+ */
+@Getter
+@Setter
+public class ResourceEvaluationVO {
+
+    private String platform;
+
+    private String resourceType;
+
+    private String cloudAccountId;
+
+    private String resourceId;
+
+    private Long costMs;
+
+    private List<RuleResultVO> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class RuleResultVO {
+
+        private Long ruleId;
+
+        private String ruleCode;
+
+        private String ruleName;
+
+        private Boolean risk;
+
+        /**
+         * status of the finding after the evaluation, null if the resource never had a finding of the rule
+         */
+        private String status;
+
+        private String error;
+    }
+}
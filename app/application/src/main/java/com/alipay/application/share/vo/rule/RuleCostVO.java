@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.rule;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/*
+ *@title RuleCostVO
+ *@description Evaluation cost of a rule in the rolling window of the profiler
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/25 11:05
+ */
+@Getter
+@Setter
+public class RuleCostVO {
+
+    private Long ruleId;
+
+    private String ruleCode;
+
+    private String ruleName;
+
+    private Long evaluations;
+
+    /**
+     * evaluate + merge + write
+     */
+    private Long totalMs;
+
+    private Long evaluateMs;
+
+    /**
+     * latency of one evaluation, averaged over the batch it was evaluated in
+     */
+    private Double p50Ms;
+
+    private Double p95Ms;
+
+    private Double p99Ms;
+
+    /**
+     * merging the linked resources
+     */
+    private Long mergeMs;
+
+    /**
+     * writing the findings
+     */
+    private Long writeMs;
+
+    /**
+     * most expensive cloud accounts first
+     */
+    private List<AccountVO> accounts;
+
+    @Getter
+    @Setter
+    public static class AccountVO {
+
+        private String cloudAccountId;
+
+        private Long evaluations;
+
+        private Long totalMs;
+    }
+}
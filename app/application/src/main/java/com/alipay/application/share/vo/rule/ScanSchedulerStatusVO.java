@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.rule;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.List;
+
+/*
+ *@title ScanSchedulerStatusVO
+ *@description Queued and running scans of the scan scheduler on this node
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/27 10:10
+ */
+@Getter
+@Setter
+public class ScanSchedulerStatusVO {
+
+    private Integer workers;
+
+    private Integer interactiveWorkers;
+
+    /**
+     * highest priority first
+     */
+    private List<PriorityVO> priorities;
+
+    private List<UnitVO> running;
+
+    @Getter
+    @Setter
+    public static class PriorityVO {
+
+        private String priority;
+
+        private Integer queued;
+
+        /**
+         * tenants with queued scans
+         */
+        private Integer tenants;
+
+        /**
+         * identical scans merged into a queued one
+         */
+        private Long deduplicated;
+
+        /**
+         * scans started since the application started
+         */
+        private Long started;
+
+        private Long avgWaitMs;
+
+        private Long maxWaitMs;
+    }
+
+    @Getter
+    @Setter
+    public static class UnitVO {
+
+        private String key;
+
+        private String priority;
+
+        private Long tenantId;
+
+        private Date submitTime;
+
+        private Date startTime;
+    }
+}
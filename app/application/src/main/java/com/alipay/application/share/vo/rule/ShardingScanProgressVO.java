@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.share.vo.rule;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.List;
+
+/*
+ *@title ShardingScanProgressVO
+ *@description Progress of the sharded scan on this node
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/22 11:05
+ */
+@Getter
+@Setter
+public class ShardingScanProgressVO {
+
+    private Integer nodeIndex;
+
+    private Integer nodeCount;
+
+    private Boolean running;
+
+    private Date startTime;
+
+    private Date endTime;
+
+    /**
+     * units owned by this node
+     */
+    private Integer totalUnits;
+
+    private Integer finishedUnits;
+
+    private Integer failedUnits;
+
+    /**
+     * finished units, slowest first
+     */
+    private List<ShardVO> shards;
+
+    @Getter
+    @Setter
+    public static class ShardVO {
+
+        private Long ruleId;
+
+        private String ruleCode;
+
+        private String cloudAccountId;
+
+        private Boolean success;
+
+        private String errorMsg;
+
+        private Long durationMs;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.common.utils;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ScanThrottleTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/23 14:05
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanThrottleTest {
+
+    @Mock
+    private DruidDataSource dataSource;
+
+    @Spy
+    private ScanThrottleProperties scanThrottleProperties = new ScanThrottleProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ScanThrottle scanThrottle;
+
+    @BeforeEach
+    void setUp() {
+        scanThrottleProperties.setInitialRate(10.0);
+        scanThrottleProperties.setMaxRate(12.0);
+        lenient().when(dataSource.getMaxActive()).thenReturn(20);
+        scanThrottle.init();
+    }
+
+    @Test
+    void adjust_raisesRateUpToCeilingWhileHealthy() {
+        when(dataSource.getActiveCount()).thenReturn(4);
+
+        scanThrottle.adjust();
+        assertEquals(11.0, scanThrottle.getRate());
+        scanThrottle.adjust();
+        scanThrottle.adjust();
+        assertEquals(12.0, scanThrottle.getRate());
+        assertEquals(12.0, meterRegistry.get("cloudrec.scan.throttle.rate").gauge().value());
+    }
+
+    @Test
+    void adjust_halvesRateDownToFloorWhenOverloaded() {
+        // busy pool
+        when(dataSource.getActiveCount()).thenReturn(19);
+        scanThrottle.adjust();
+        assertEquals(5.0, scanThrottle.getRate());
+
+        // slow connection borrows since the last sample
+        when(dataSource.getActiveCount()).thenReturn(4);
+        when(dataSource.getNotEmptyWaitCount()).thenReturn(10L);
+        when(dataSource.getNotEmptyWaitNanos()).thenReturn(TimeUnit.SECONDS.toNanos(2));
+        scanThrottle.adjust();
+        assertEquals(2.5, scanThrottle.getRate());
+
+        // slow result flushes since the last sample
+        meterRegistry.timer(ScanThrottle.WRITE_TIMER).record(5, TimeUnit.SECONDS);
+        scanThrottle.adjust();
+        assertEquals(1.25, scanThrottle.getRate());
+        meterRegistry.timer(ScanThrottle.WRITE_TIMER).record(5, TimeUnit.SECONDS);
+        scanThrottle.adjust();
+        assertEquals(1.0, scanThrottle.getRate());
+    }
+
+    @Test
+    void acquire_spacesUnitsByRate() {
+        scanThrottleProperties.setAdjustIntervalMs(TimeUnit.HOURS.toMillis(1));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            scanThrottle.acquire();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // the first unit passes at once, the next three wait 100 ms each
+        assertTrue(elapsedMs >= 290, "elapsed " + elapsedMs);
+        assertEquals(3, meterRegistry.get("cloudrec.scan.throttle.wait").timer().count());
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.common.exception.IngestQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title ResourceIngestQueueTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/31 14:20
+ */
+@ExtendWith(MockitoExtension.class)
+class ResourceIngestQueueTest {
+
+    @Spy
+    private ResourceIngestQueueProperties resourceIngestQueueProperties = new ResourceIngestQueueProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ResourceIngestQueue resourceIngestQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        resourceIngestQueue.shutdown();
+    }
+
+    @Test
+    void fullPlatformQueueRejectsWithRetryAfter() throws InterruptedException {
+        resourceIngestQueueProperties.setCapacityPerPlatform(2);
+        resourceIngestQueueProperties.setWorkers(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        resourceIngestQueue.start(data -> {
+            writing.countDown();
+            await(release);
+        });
+
+        // one push is being written, two wait
+        resourceIngestQueue.offer(push("ALI_CLOUD", "a1"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        resourceIngestQueue.offer(push("ALI_CLOUD", "a2"));
+        resourceIngestQueue.offer(push("ALI_CLOUD", "a3"));
+        IngestQueueFullException e = assertThrows(IngestQueueFullException.class,
+                () -> resourceIngestQueue.offer(push("ALI_CLOUD", "a4")));
+        assertTrue(e.getRetryAfterSeconds() >= 1 && e.getRetryAfterSeconds() <= 60);
+        // the queue of another platform is not affected
+        resourceIngestQueue.offer(push("AWS", "b1"));
+
+        assertEquals(3, resourceIngestQueue.depth());
+        assertEquals(2, meterRegistry.get("cloudrec.ingest.queue.depth").tag("platform", "ALI_CLOUD").gauge().value());
+        assertEquals(1, meterRegistry.get("cloudrec.ingest.queue.rejected").tag("platform", "ALI_CLOUD").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void platformsTakeTurns() throws InterruptedException {
+        resourceIngestQueueProperties.setWorkers(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(7);
+        resourceIngestQueue.start(data -> {
+            await(release);
+            written.add(data.getCloudAccountId());
+            done.countDown();
+        });
+
+        resourceIngestQueue.offer(push("ALI_CLOUD", "first"));
+        for (int i = 1; i <= 4; i++) {
+            resourceIngestQueue.offer(push("ALI_CLOUD", "a" + i));
+        }
+        resourceIngestQueue.offer(push("AWS", "b1"));
+        resourceIngestQueue.offer(push("GCP", "c1"));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // the big platform does not hold back the others
+        assertTrue(written.indexOf("b1") <= 3 && written.indexOf("c1") <= 3, written.toString());
+        assertTrue(meterRegistry.get("cloudrec.ingest.queue.latency").timers().stream().mapToLong(t -> t.count()).sum() >= 6);
+    }
+
+    @Test
+    void pushesOfAnAccountAndResourceTypeAreWrittenInOrder() throws InterruptedException {
+        resourceIngestQueueProperties.setWorkers(4);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        resourceIngestQueue.start(data -> {
+            await(release);
+            if (writing.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            sleep(5);
+            written.add(data.getVersion());
+            writing.decrementAndGet();
+            done.countDown();
+        });
+
+        for (int i = 0; i < 20; i++) {
+            DataPushRequest.Data data = push("ALI_CLOUD", "1001");
+            data.setVersion(String.valueOf(i));
+            resourceIngestQueue.offer(data);
+        }
+        assertEquals(20, resourceIngestQueue.pending("1001"));
+        assertEquals(0, resourceIngestQueue.pending("2002"));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(String.valueOf(i), written.get(i));
+        }
+        waitUntil(() -> resourceIngestQueue.pending("1001") == 0);
+    }
+
+    @Test
+    void pushWrittenOutsideOfTheQueueTakesItsTurnInTheLane() throws InterruptedException {
+        resourceIngestQueueProperties.setWorkers(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        resourceIngestQueue.start(data -> {
+            await(release);
+            written.add(data.getVersion());
+        });
+
+        DataPushRequest.Data queued = push("ALI_CLOUD", "1001");
+        queued.setVersion("queued");
+        resourceIngestQueue.offer(queued);
+        CountDownLatch streamed = new CountDownLatch(1);
+        Thread stream = new Thread(() -> {
+            try (ResourceIngestQueue.Turn ignored = resourceIngestQueue.awaitTurn("1001", "ECS")) {
+                written.add("streamed");
+            }
+            streamed.countDown();
+        });
+        stream.start();
+        waitUntil(() -> resourceIngestQueue.pending("1001") == 2);
+
+        // the stream waits for the push queued before it, the one queued after it waits for the stream
+        DataPushRequest.Data later = push("ALI_CLOUD", "1001");
+        later.setVersion("later");
+        resourceIngestQueue.offer(later);
+        sleep(50);
+        assertTrue(written.isEmpty());
+        release.countDown();
+
+        assertTrue(streamed.await(5, TimeUnit.SECONDS));
+        waitUntil(() -> resourceIngestQueue.pending("1001") == 0);
+        assertEquals(List.of("queued", "streamed", "later"), written);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DataPushRequest.Data push(String platform, String cloudAccountId) {
+        DataPushRequest.Data data = new DataPushRequest.Data();
+        data.setPlatform(platform);
+        data.setCloudAccountId(cloudAccountId);
+        data.setResourceType("ECS");
+        return data;
+    }
+}
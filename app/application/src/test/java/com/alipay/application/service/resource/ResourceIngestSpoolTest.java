@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alipay.application.share.vo.resource.IngestSpoolStatusVO;
+import com.alipay.common.exception.IngestQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title ResourceIngestSpoolTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/31 17:30
+ */
+class ResourceIngestSpoolTest {
+
+    private static final String ACCOUNT = "1001";
+
+    @TempDir
+    Path dir;
+
+    private final List<ResourceIngestSpool> spools = new ArrayList<>();
+
+    private final List<String> written = new ArrayList<>();
+
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        written.clear();
+        databaseDown.set(false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ResourceIngestSpool spool : spools) {
+            spool.shutdown();
+        }
+    }
+
+    @Test
+    void pendingPushesSurviveACrashAndAreReplayedInOrder() throws IOException {
+        ResourceIngestSpool spool = newSpool(50);
+        long p1 = spool.append(ACCOUNT, "p1");
+        long p2 = spool.append(ACCOUNT, "p2");
+        spool.append(ACCOUNT, "p3");
+        spool.append(ACCOUNT, "p4");
+        spool.append(ACCOUNT, "p5");
+        // p1 is written, p2 is being written when the process dies, p3 to p5 are still queued
+        spool.complete(p1);
+        spool.release(p2);
+        assertTrue(segments().size() > 1);
+
+        // the last append is torn by the crash
+        Path last = segments().get(segments().size() - 1);
+        Files.write(last, new byte[]{0, 0, 0, 9, 0, 1, 2}, StandardOpenOption.APPEND);
+
+        ResourceIngestSpool restarted = newSpool(50);
+        IngestSpoolStatusVO status = restarted.status();
+        assertEquals(4, status.getPendingEntries());
+        assertEquals(0, status.getInFlightEntries());
+
+        assertEquals(4, restarted.replay());
+        assertEquals(List.of("p2", "p3", "p4", "p5"), written);
+        assertEquals(0, restarted.status().getPendingEntries());
+        assertEquals(0L, restarted.status().getPendingBytes());
+        // every segment is applied and compacted away
+        assertEquals(List.of(), segments());
+
+        // nothing is written twice after another restart
+        written.clear();
+        assertEquals(0, newSpool(50).replay());
+        assertEquals(List.of(), written);
+    }
+
+    @Test
+    void replayWaitsForTheDatabaseAndTheCapRejectsPushes() throws IOException {
+        ResourceIngestSpool spool = newSpool(1024);
+        for (String payload : List.of("a", "b", "c")) {
+            spool.release(spool.append(ACCOUNT, payload));
+        }
+
+        databaseDown.set(true);
+        assertEquals(0, spool.replay());
+        assertEquals(3, spool.status().getPendingEntries());
+        assertTrue(spool.status().getPendingBytes() > 0);
+
+        databaseDown.set(false);
+        assertEquals(3, spool.replay());
+        assertEquals(List.of("a", "b", "c"), written);
+        assertEquals(0L, spool.status().getOldestEntryAgeMs());
+
+        ReflectionTestUtils.setField(spool, "resourceIngestSpoolProperties", properties(1024, 64));
+        IngestQueueFullException e = assertThrows(IngestQueueFullException.class, () -> spool.append(ACCOUNT, "x".repeat(100)));
+        assertTrue(e.getRetryAfterSeconds() > 0);
+    }
+
+    @Test
+    void failingPushDoesNotHoldBackTheOthersAndIsDeadLettered() throws IOException {
+        ResourceIngestSpool spool = newSpool(1024);
+        ReflectionTestUtils.setField(spool, "resourceIngestSpoolProperties", properties(1024, 1024 * 1024, 2));
+        for (String payload : List.of("a", "poison", "b")) {
+            spool.release(spool.append(ACCOUNT, payload));
+        }
+
+        assertEquals(2, spool.replay());
+        assertEquals(List.of("a", "b"), written);
+        assertEquals(1, spool.status().getPendingEntries());
+        assertEquals(0L, spool.status().getDeadLetterBytes());
+
+        // the second failure is the last attempt
+        assertEquals(0, spool.replay());
+        assertEquals(0, spool.status().getPendingEntries());
+        assertEquals(0, spool.pending(ACCOUNT));
+        assertTrue(spool.status().getDeadLetterBytes() > "poison".length());
+        assertTrue(new String(Files.readAllBytes(dir.resolve(ResourceIngestSpool.DEAD_LETTER_FILE))).endsWith("poison"));
+
+        // nothing is replayed again after a restart
+        written.clear();
+        assertEquals(0, newSpool(1024).replay());
+        assertEquals(List.of(), written);
+    }
+
+    @Test
+    void pendingPushesAreCountedByKeyAlsoAfterARestart() throws IOException {
+        ResourceIngestSpool spool = newSpool(1024);
+        long a = spool.append(ACCOUNT, "a");
+        spool.release(spool.append(ACCOUNT, "b"));
+        spool.release(spool.append("2002", "other"));
+        spool.complete(a);
+        assertEquals(1, spool.pending(ACCOUNT));
+        assertEquals(1, spool.pending("2002"));
+
+        ResourceIngestSpool restarted = newSpool(1024);
+        assertEquals(1, restarted.pending(ACCOUNT));
+        assertEquals(1, restarted.pending("2002"));
+        restarted.replay();
+        assertEquals(0, restarted.pending(ACCOUNT));
+        assertEquals(0, restarted.pending("2002"));
+    }
+
+    private ResourceIngestSpool newSpool(long segmentBytes) {
+        ResourceIngestSpool spool = new ResourceIngestSpool();
+        ReflectionTestUtils.setField(spool, "resourceIngestSpoolProperties", properties(segmentBytes, 1024 * 1024));
+        ReflectionTestUtils.setField(spool, "meterRegistry", new SimpleMeterRegistry());
+        spool.start((payload, sequence) -> {
+            if (databaseDown.get() || "poison".equals(payload)) {
+                throw new IllegalStateException("database unreachable");
+            }
+            written.add(payload);
+        }, payload -> payload.startsWith("other") ? "2002" : ACCOUNT);
+        spools.add(spool);
+        return spool;
+    }
+
+    private ResourceIngestSpoolProperties properties(long segmentBytes, long maxBytes) {
+        return properties(segmentBytes, maxBytes, 10);
+    }
+
+    private ResourceIngestSpoolProperties properties(long segmentBytes, long maxBytes, int maxReplayAttempts) {
+        ResourceIngestSpoolProperties properties = new ResourceIngestSpoolProperties();
+        properties.setMaxReplayAttempts(maxReplayAttempts);
+        properties.setDir(dir.toString());
+        properties.setSegmentBytes(segmentBytes);
+        properties.setMaxBytes(maxBytes);
+        properties.setReplayIntervalMs(60 * 1000L);
+        return properties;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted(Comparator.comparing(Path::toString)).toList();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alipay.application.share.vo.resource.InstanceStorageReportVO;
+import com.alipay.dao.converter.InstanceDocumentCodec;
+import com.alipay.dao.dto.ResourceInstanceStorageDTO;
+import com.alipay.dao.mapper.CloudResourceInstanceMapper;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ResourceInstanceCompressorTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 11:00
+ */
+@ExtendWith(MockitoExtension.class)
+class ResourceInstanceCompressorTest {
+
+    private static final String INSTANCE = "{\"InstanceId\":\"i-1\",\"Tags\":[" + "{\"Key\":\"env\",\"Value\":\"prod\"},".repeat(50)
+            + "{\"Key\":\"名称\",\"Value\":\"生产\"}]}";
+
+    @Mock
+    private CloudResourceInstanceMapper cloudResourceInstanceMapper;
+
+    @Spy
+    private ResourceInstanceStorageProperties resourceInstanceStorageProperties = new ResourceInstanceStorageProperties();
+
+    @InjectMocks
+    private ResourceInstanceCompressor resourceInstanceCompressor;
+
+    @Test
+    void compressedInstanceIsReadBackAsThePlainDocument() {
+        CloudResourceInstancePO written = new CloudResourceInstancePO();
+        written.setInstance(INSTANCE);
+        written.compressInstance(3);
+
+        assertNull(written.getInstance());
+        assertEquals(INSTANCE.getBytes(StandardCharsets.UTF_8).length, written.getInstanceSize());
+        assertEquals(InstanceDocumentCodec.CODEC_ZSTD, written.getInstanceCompressed()[0]);
+        assertTrue(written.getInstanceCompressed().length < written.getInstanceSize());
+
+        // as MyBatis maps the row
+        CloudResourceInstancePO read = new CloudResourceInstancePO();
+        read.setInstanceCompressed(written.getInstanceCompressed());
+        assertEquals(INSTANCE, read.getInstance());
+    }
+
+    @Test
+    void migrateCompressesThePlainRowsInBatchesAndReportsTheBytesSaved() {
+        resourceInstanceStorageProperties.setMigrationBatchSize(2);
+        when(cloudResourceInstanceMapper.findPlainInstanceWithScrollId(0L, 2)).thenReturn(List.of(plainRow(1L), plainRow(3L)));
+        when(cloudResourceInstanceMapper.findPlainInstanceWithScrollId(3L, 2)).thenReturn(List.of(plainRow(4L)));
+        when(cloudResourceInstanceMapper.compressInstance(any(), anyString(), any(), anyInt())).thenReturn(1);
+        // rewritten by a push since it was read
+        when(cloudResourceInstanceMapper.compressInstance(eq(3L), anyString(), any(), anyInt())).thenReturn(0);
+
+        assertEquals(2, resourceInstanceCompressor.migrate(null));
+
+        ArgumentCaptor<byte[]> compressed = ArgumentCaptor.forClass(byte[].class);
+        verify(cloudResourceInstanceMapper).compressInstance(eq(4L), eq(INSTANCE), compressed.capture(),
+                eq(INSTANCE.getBytes(StandardCharsets.UTF_8).length));
+        assertEquals(INSTANCE, InstanceDocumentCodec.decode(compressed.getValue()));
+
+        // a bounded run stops after maxRows
+        assertEquals(1, resourceInstanceCompressor.migrate(1L));
+        verify(cloudResourceInstanceMapper, never()).findPlainInstanceWithScrollId(eq(1L), anyInt());
+
+        ResourceInstanceStorageDTO ecs = new ResourceInstanceStorageDTO();
+        ecs.setResourceType("ECS");
+        ecs.setRowCount(10L);
+        ecs.setCompressedRowCount(8L);
+        ecs.setPlainBytes(2000L);
+        ecs.setOriginalBytes(8000L);
+        ecs.setCompressedBytes(1000L);
+        ResourceInstanceStorageDTO oss = new ResourceInstanceStorageDTO();
+        oss.setResourceType("OSS");
+        oss.setRowCount(3L);
+        oss.setCompressedRowCount(0L);
+        oss.setPlainBytes(900L);
+        oss.setOriginalBytes(0L);
+        oss.setCompressedBytes(0L);
+        when(cloudResourceInstanceMapper.findInstanceStorageStat(null)).thenReturn(List.of(ecs, oss));
+
+        InstanceStorageReportVO report = resourceInstanceCompressor.report(null);
+        assertEquals(7000L, report.getResourceTypes().get(0).getSavedBytes());
+        assertEquals(0L, report.getResourceTypes().get(1).getSavedBytes());
+        assertEquals(7000L, report.getSavedBytes());
+        assertEquals(5L, report.getPlainRows());
+    }
+
+    private static CloudResourceInstancePO plainRow(Long id) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setId(id);
+        po.setResourceType("ECS");
+        po.setInstance(INSTANCE);
+        return po;
+    }
+}
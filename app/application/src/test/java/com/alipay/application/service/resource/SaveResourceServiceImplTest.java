@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.resource.job.ClearJob;
+import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.application.share.request.resource.ResourceInstance;
+import com.alipay.application.share.vo.collector.ResourceManifestVO;
+import com.alipay.application.share.vo.resource.ResourceIngestResultVO;
+import com.alipay.dao.mapper.CloudAccountMapper;
+import com.alipay.dao.mapper.CloudResourceInstanceMapper;
+import com.alipay.dao.mapper.ResourceDetailConfigMapper;
+import com.alipay.dao.po.CloudAccountPO;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.ResourceDetailConfigPO;
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title SaveResourceServiceImplTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/10 14:05
+ */
+@ExtendWith(MockitoExtension.class)
+class SaveResourceServiceImplTest {
+
+    @Mock
+    private CloudAccountMapper cloudAccountMapper;
+
+    @Mock
+    private ResourceDetailConfigMapper resourceDetailConfigMapper;
+
+    @Mock
+    private CloudResourceInstanceMapper cloudResourceInstanceMapper;
+
+    @Mock
+    private AsyncTaskMonitorService asyncTaskMonitorService;
+
+    @Mock
+    private ResourceIngestQueue resourceIngestQueue;
+
+    @Mock
+    private ResourceIngestSpool resourceIngestSpool;
+
+    @Mock
+    private ClearJob clearJob;
+
+    @Spy
+    private ResourceIngestProperties resourceIngestProperties = new ResourceIngestProperties();
+
+    @Spy
+    private ResourceInstanceStorageProperties resourceInstanceStorageProperties = new ResourceInstanceStorageProperties();
+
+    @InjectMocks
+    private SaveResourceServiceImpl saveResourceService;
+
+    @BeforeEach
+    void setUp() {
+        CloudAccountPO cloudAccountPO = new CloudAccountPO();
+        cloudAccountPO.setCloudAccountId("1001");
+        cloudAccountPO.setAlias("prod");
+        cloudAccountPO.setTenantId(7L);
+        cloudAccountPO.setPlatform("ALI_CLOUD");
+        lenient().when(cloudAccountMapper.findByCloudAccountId("1001")).thenReturn(cloudAccountPO);
+
+        ResourceDetailConfigPO detailConfig = new ResourceDetailConfigPO();
+        detailConfig.setPath("$.Zone");
+        lenient().when(resourceDetailConfigMapper.findList(eq("ALI_CLOUD"), eq("ECS"), isNull(), anyString()))
+                .thenReturn(List.of(detailConfig));
+    }
+
+    @Test
+    void saveOrUpdateData_splitsPushIntoInsertedUpdatedAndUnchanged() {
+        when(cloudResourceInstanceMapper.findByResourceIdList(eq("ALI_CLOUD"), eq("ECS"), eq("1001"), anyList()))
+                .thenReturn(List.of(stored(1L, "i-1", Map.of("Zone", "a")), stored(2L, "i-2", Map.of("Zone", "a"))));
+
+        DataPushRequest.Data push = push(
+                instance("i-1", Map.of("Zone", "a")),
+                instance("i-2", Map.of("Zone", "b")),
+                instance("i-3", Map.of("Zone", "c")),
+                // pushed twice, the last content wins
+                instance("i-3", Map.of("Zone", "d")));
+
+        ResourceIngestResultVO result = saveResourceService.saveOrUpdateData(push);
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+
+        // one keyed lookup, one detail config lookup and one multi-row write for the whole push
+        verify(cloudResourceInstanceMapper, times(1)).findByResourceIdList(anyString(), anyString(), anyString(),
+                eq(List.of("i-1", "i-2", "i-3")));
+        verify(resourceDetailConfigMapper, times(1)).findList(any(), any(), any(), any());
+        ArgumentCaptor<List<CloudResourceInstancePO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(cloudResourceInstanceMapper, times(1)).batchUpsert(rows.capture());
+        assertEquals(List.of("i-2", "i-3"), rows.getValue().stream().map(CloudResourceInstancePO::getResourceId).toList());
+        assertEquals("\"d\"", rows.getValue().get(1).getCustomFieldValue());
+        assertEquals("prod", rows.getValue().get(1).getAlias());
+        verify(cloudResourceInstanceMapper, times(1)).refreshByIdList(eq(List.of(1L)), eq("v2"), eq(7L), any());
+        verify(cloudResourceInstanceMapper, never()).findOne(any(), any(), any(), any());
+    }
+
+    @Test
+    void saveOrUpdateData_writesInBatches() {
+        resourceIngestProperties.setBatchSize(2);
+        when(cloudResourceInstanceMapper.findByResourceIdList(anyString(), anyString(), anyString(), anyList()))
+                .thenReturn(List.of());
+
+        List<ResourceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            instances.add(instance("i-" + i, Map.of("Zone", "a")));
+        }
+        ResourceIngestResultVO result = saveResourceService.saveOrUpdateData(push(instances.toArray(new ResourceInstance[0])));
+
+        assertEquals(5, result.getInserted());
+        verify(cloudResourceInstanceMapper, times(3)).findByResourceIdList(anyString(), anyString(), anyString(), anyList());
+        verify(cloudResourceInstanceMapper, times(3)).batchUpsert(anyList());
+        verify(cloudResourceInstanceMapper, never()).refreshByIdList(anyList(), any(), any(), any());
+    }
+
+    @Test
+    void saveOrUpdateData_unknownAccount() {
+        DataPushRequest.Data push = push(instance("i-1", Map.of()));
+        push.setCloudAccountId("unknown");
+
+        assertNull(saveResourceService.saveOrUpdateData(push));
+        verify(cloudResourceInstanceMapper, never()).batchUpsert(anyList());
+    }
+
+    @Test
+    void saveOrUpdateData_appliesDeltaPush() {
+        CloudResourceInstancePO sameContentOtherFingerprint = stored(1L, "i-1", Map.of("Zone", "a"));
+        sameContentOtherFingerprint.setContentFingerprint("old");
+        when(cloudResourceInstanceMapper.findByResourceIdList(anyString(), anyString(), anyString(), anyList()))
+                .thenReturn(List.of(sameContentOtherFingerprint));
+        when(cloudResourceInstanceMapper.refreshByResourceIdList(eq("ALI_CLOUD"), eq("ECS"), eq("1001"),
+                eq(List.of("i-7", "i-8")), eq("v2"), eq(7L), any())).thenReturn(2);
+        when(cloudResourceInstanceMapper.findIdListByResourceIdList("ALI_CLOUD", "ECS", "1001", List.of("i-9")))
+                .thenReturn(List.of(9L));
+
+        ResourceInstance changed = instance("i-1", Map.of("Zone", "a"));
+        changed.setFingerprint("new");
+        DataPushRequest.Data push = push(changed);
+        push.setUnchangedResourceIds(List.of("i-7", "i-8", "i-7"));
+        push.setDeletedResourceIds(List.of("i-9"));
+
+        ResourceIngestResultVO result = saveResourceService.saveOrUpdateData(push);
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getUnchanged());
+        assertEquals(1, result.getDeleted());
+        ArgumentCaptor<List<CloudResourceInstancePO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(cloudResourceInstanceMapper).batchUpsert(rows.capture());
+        assertEquals("new", rows.getValue().get(0).getContentFingerprint());
+        verify(clearJob).deleteResources(List.of(9L));
+    }
+
+    @Test
+    void queryResourceManifest_listsFingerprintsOfTheStoredResources() {
+        CloudResourceInstancePO withFingerprint = stored(1L, "i-1", Map.of());
+        withFingerprint.setContentFingerprint("fp-1");
+        when(cloudResourceInstanceMapper.findManifest("ALI_CLOUD", "ECS", "1001"))
+                .thenReturn(List.of(withFingerprint, stored(2L, "i-2", Map.of())));
+
+        ResourceManifestVO manifest = saveResourceService.queryResourceManifest("1001", "ECS");
+        assertTrue(manifest.getEnabled());
+        assertEquals(Map.of("i-1", "fp-1", "i-2", ""), manifest.getFingerprints());
+
+        resourceIngestProperties.setDeltaEnabled(false);
+        assertFalse(saveResourceService.queryResourceManifest("1001", "ECS").getEnabled());
+    }
+
+    @Test
+    void acceptResourceStream_writesChunksOfGzipAndZstdPushes() throws IOException {
+        resourceIngestProperties.setBatchSize(2);
+        saveResourceService.init();
+        when(cloudResourceInstanceMapper.findByResourceIdList(anyString(), anyString(), anyString(), anyList()))
+                .thenReturn(List.of());
+
+        StringBuilder ndjson = new StringBuilder("{\"version\":\"v2\",\"cloudAccountId\":\"1001\",\"platform\":\"ALI_CLOUD\",\"resourceType\":\"ECS\"}\n");
+        for (int i = 0; i < 5; i++) {
+            ndjson.append(JSON.toJSONString(instance("i-" + i, Map.of("Zone", "a")))).append('\n');
+        }
+        byte[] raw = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(raw);
+        }
+        ResourceIngestResultVO result = saveResourceService.acceptResourceStream(new ByteArrayInputStream(gzip.toByteArray()), "gzip");
+        assertEquals(5, result.getInserted());
+        verify(cloudResourceInstanceMapper, times(3)).batchUpsert(anyList());
+
+        result = saveResourceService.acceptResourceStream(new ByteArrayInputStream(Zstd.compress(raw)), "zstd");
+        assertEquals(5, result.getInserted());
+        verify(cloudResourceInstanceMapper, times(6)).batchUpsert(anyList());
+        verify(resourceIngestQueue).start(any(ObjLongConsumer.class));
+
+        assertThrows(IllegalArgumentException.class, () -> saveResourceService.acceptResourceStream(
+                new ByteArrayInputStream("{\"version\":\"v2\"}\n".getBytes(StandardCharsets.UTF_8)), null));
+    }
+
+    @Test
+    void acceptResourceData_writesBeforeAcknowledgingWhenThePushIsNotSpooled() {
+        when(resourceIngestQueue.isEnabled()).thenReturn(true);
+        DataPushRequest request = new DataPushRequest();
+        request.setData(JSON.toJSONString(push(instance("i-1", Map.of("Zone", "a")))));
+
+        ResourceIngestResultVO result = saveResourceService.acceptResourceData(request);
+
+        // only a spooled push is acknowledged once queued
+        assertFalse(result.isQueued());
+        assertEquals(1, result.getInserted());
+        verify(resourceIngestQueue, never()).offer(any(), anyLong());
+    }
+
+    @Test
+    void acceptResourceData_queuesASpooledPush() {
+        when(resourceIngestQueue.isEnabled()).thenReturn(true);
+        when(resourceIngestSpool.isEnabled()).thenReturn(true);
+        when(resourceIngestSpool.append(eq("1001"), anyString())).thenReturn(5L);
+        DataPushRequest request = new DataPushRequest();
+        request.setData(JSON.toJSONString(push(instance("i-1", Map.of("Zone", "a")))));
+
+        assertTrue(saveResourceService.acceptResourceData(request).isQueued());
+        verify(resourceIngestQueue).offer(any(), eq(5L));
+        verify(cloudResourceInstanceMapper, never()).batchUpsert(anyList());
+    }
+
+    @Test
+    void replayOfAnOlderCollectionIsDroppedOnceANewerPushIsWritten() {
+        DataPushRequest.Data newer = push(instance("i-1", Map.of("Zone", "b")));
+        ReflectionTestUtils.invokeMethod(saveResourceService, "ingest", newer, 5L);
+        verify(cloudResourceInstanceMapper, times(1)).batchUpsert(anyList());
+
+        DataPushRequest.Data older = push(instance("i-1", Map.of("Zone", "a")));
+        older.setVersion("v1");
+        ReflectionTestUtils.invokeMethod(saveResourceService, "replay", JSON.toJSONString(older), 3L);
+        verify(cloudResourceInstanceMapper, times(1)).batchUpsert(anyList());
+
+        // another push of the same collection is still written
+        DataPushRequest.Data sameCollection = push(instance("i-2", Map.of("Zone", "a")));
+        ReflectionTestUtils.invokeMethod(saveResourceService, "replay", JSON.toJSONString(sameCollection), 4L);
+        verify(cloudResourceInstanceMapper, times(2)).batchUpsert(anyList());
+    }
+
+    @Test
+    void streamedPushTakesItsTurnAndOvertakesOlderSpooledPushes() throws IOException {
+        saveResourceService.init();
+        ResourceIngestQueue.Turn turn = mock(ResourceIngestQueue.Turn.class);
+        when(resourceIngestQueue.awaitTurn("1001", "ECS")).thenReturn(turn);
+        when(resourceIngestSpool.nextSequence()).thenReturn(6L);
+        when(cloudResourceInstanceMapper.findByResourceIdList(anyString(), anyString(), anyString(), anyList()))
+                .thenReturn(List.of());
+
+        String ndjson = "{\"version\":\"v3\",\"cloudAccountId\":\"1001\",\"platform\":\"ALI_CLOUD\",\"resourceType\":\"ECS\"}\n"
+                + JSON.toJSONString(instance("i-1", Map.of("Zone", "b"))) + "\n";
+        saveResourceService.acceptResourceStream(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), null);
+        verify(turn).close();
+        verify(cloudResourceInstanceMapper, times(1)).batchUpsert(anyList());
+
+        // spooled before the stream started, its replay would write an older collection over it
+        DataPushRequest.Data older = push(instance("i-1", Map.of("Zone", "a")));
+        ReflectionTestUtils.invokeMethod(saveResourceService, "replay", JSON.toJSONString(older), 5L);
+        verify(cloudResourceInstanceMapper, times(1)).batchUpsert(anyList());
+
+        // spooled after it started
+        ReflectionTestUtils.invokeMethod(saveResourceService, "replay", JSON.toJSONString(older), 6L);
+        verify(cloudResourceInstanceMapper, times(2)).batchUpsert(anyList());
+    }
+
+    private static DataPushRequest.Data push(ResourceInstance... instances) {
+        DataPushRequest.Data push = new DataPushRequest.Data();
+        push.setVersion("v2");
+        push.setCloudAccountId("1001");
+        push.setPlatform("ALI_CLOUD");
+        push.setResourceType("ECS");
+        push.setResourceInstancesAll(List.of(instances));
+        return push;
+    }
+
+    private static ResourceInstance instance(String resourceId, Map<String, Object> instance) {
+        ResourceInstance resourceInstance = new ResourceInstance();
+        resourceInstance.setResourceId(resourceId);
+        resourceInstance.setResourceName(resourceId + "-name");
+        resourceInstance.setInstance(instance);
+        return resourceInstance;
+    }
+
+    private static CloudResourceInstancePO stored(Long id, String resourceId, Map<String, Object> instance) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setId(id);
+        po.setResourceId(resourceId);
+        po.setResourceName(resourceId + "-name");
+        po.setInstance(JSON.toJSONString(instance));
+        po.setCustomFieldValue(JSON.toJSONString(instance.get("Zone")));
+        return po;
+    }
+}
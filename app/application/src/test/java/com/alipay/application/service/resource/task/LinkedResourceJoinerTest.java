@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.resource.task;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.share.request.rule.LinkDataParam;
+import com.alipay.common.enums.AssociativeMode;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title LinkedResourceJoinerTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/9 17:10
+ */
+class LinkedResourceJoinerTest {
+
+    private static final String PLATFORM = "ALI_CLOUD";
+
+    private static final String ACCOUNT = "1001";
+
+    private final Map<String, List<CloudResourceInstancePO>> linkedResources = new HashMap<>();
+
+    private IQueryResource iQueryResource;
+
+    @TempDir
+    private Path spillDir;
+
+    @BeforeEach
+    void setUp() {
+        linkedResources.put("VPC", List.of(
+                resource(1L, "{\"VpcId\":\"vpc-1\",\"CidrBlock\":\"10.0.0.0/8\"}"),
+                resource(2L, "{\"VpcId\":\"vpc-2\",\"CidrBlock\":\"172.16.0.0/12\"}"),
+                resource(3L, "{\"VpcId\":\"vpc-1\",\"CidrBlock\":\"duplicate\"}")));
+        linkedResources.put("SecurityGroup", List.of(
+                resource(4L, "{\"GroupId\":\"sg-3\"}"),
+                resource(5L, "{\"GroupId\":\"sg-1\"}"),
+                resource(6L, "{\"Name\":\"no group id\"}"),
+                resource(7L, "{\"GroupId\":\"sg-2\"}"),
+                resource(8L, "{\"GroupId\":\"sg-1\",\"Copy\":true}")));
+        linkedResources.put("Account", List.of(
+                resource(9L, "{\"AccountId\":\"1001\"}"),
+                resource(10L, "{\"AccountId\":\"other\"}")));
+
+        // scroll through the linked resources by id, like the resource table
+        iQueryResource = mock(IQueryResource.class);
+        when(iQueryResource.queryByCond(eq(PLATFORM), anyString(), eq(ACCOUNT), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long scrollId = invocation.getArgument(3);
+            int size = invocation.getArgument(4);
+            return linkedResources.getOrDefault(invocation.<String>getArgument(1), List.of()).stream()
+                    .filter(r -> r.getId() > scrollId).limit(size).toList();
+        });
+    }
+
+    @Test
+    void merge_mountsLinkedResourcesLikeTheNestedLoop() {
+        List<CloudResourceInstancePO> merged = merge(Long.MAX_VALUE);
+
+        JSONObject ecs1 = JSON.parseObject(merged.get(0).getInstance());
+        // the first linked resource with the key wins
+        assertEquals("10.0.0.0/8", ecs1.getJSONObject("vpc").getString("CidrBlock"));
+        // list keys: matches in linked order, at most as many as keys
+        assertEquals(List.of("sg-1", "sg-2"), groupIds(ecs1));
+        assertEquals("1001", ecs1.getJSONObject("account").getString("AccountId"));
+
+        JSONObject ecs2 = JSON.parseObject(merged.get(1).getInstance());
+        assertTrue(ecs2.containsKey("vpc"));
+        assertNull(ecs2.get("vpc"));
+        assertEquals(List.of("sg-3", "sg-1"), groupIds(ecs2));
+
+        JSONObject ecs3 = JSON.parseObject(merged.get(2).getInstance());
+        assertNull(ecs3.get("securityGroups"));
+        assertEquals("172.16.0.0/12", ecs3.getJSONObject("vpc").getString("CidrBlock"));
+    }
+
+    @Test
+    void merge_spilledIndexGivesSameResult() throws Exception {
+        List<String> inMemory = merge(Long.MAX_VALUE).stream().map(CloudResourceInstancePO::getInstance).toList();
+        List<String> spilled = merge(1L).stream().map(CloudResourceInstancePO::getInstance).toList();
+
+        assertEquals(inMemory, spilled);
+        // spill files are removed on close
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void merge_reusesIndexAcrossPages() {
+        ResourceJoinProperties properties = properties(Long.MAX_VALUE);
+        try (LinkedResourceJoiner joiner = new LinkedResourceJoiner(linkedData(), ACCOUNT, iQueryResource, properties)) {
+            joiner.merge(primaries());
+            joiner.merge(primaries());
+        }
+        // the linked types are scrolled once in pages of two, MANY_TO_ONE only needs the first page
+        verify(iQueryResource, times(2)).queryByCond(eq(PLATFORM), eq("VPC"), eq(ACCOUNT), anyLong(), anyInt());
+        verify(iQueryResource, times(3)).queryByCond(eq(PLATFORM), eq("SecurityGroup"), eq(ACCOUNT), anyLong(), anyInt());
+        verify(iQueryResource, times(1)).queryByCond(eq(PLATFORM), eq("Account"), eq(ACCOUNT), anyLong(), anyInt());
+    }
+
+    private List<CloudResourceInstancePO> merge(long spillThresholdBytes) {
+        List<CloudResourceInstancePO> primaries = primaries();
+        try (LinkedResourceJoiner joiner = new LinkedResourceJoiner(linkedData(), ACCOUNT, iQueryResource,
+                properties(spillThresholdBytes))) {
+            return joiner.merge(primaries);
+        }
+    }
+
+    private ResourceJoinProperties properties(long spillThresholdBytes) {
+        ResourceJoinProperties properties = new ResourceJoinProperties();
+        properties.setSpillThresholdBytes(spillThresholdBytes);
+        properties.setSpillDir(spillDir.toString());
+        properties.setPageSize(2);
+        return properties;
+    }
+
+    private static List<String> groupIds(JSONObject instance) {
+        List<String> groupIds = new ArrayList<>();
+        for (Object group : instance.getJSONArray("securityGroups")) {
+            groupIds.add(((JSONObject) group).getString("GroupId"));
+        }
+        return groupIds;
+    }
+
+    private static List<CloudResourceInstancePO> primaries() {
+        return new ArrayList<>(List.of(
+                resource(100L, "{\"InstanceId\":\"i-1\",\"VpcId\":\"vpc-1\",\"SecurityGroupIds\":[\"sg-2\",\"sg-1\"]}"),
+                resource(101L, "{\"InstanceId\":\"i-2\",\"VpcId\":\"vpc-9\",\"SecurityGroupIds\":[\"sg-1\",\"sg-3\"]}"),
+                resource(102L, "{\"InstanceId\":\"i-3\",\"VpcId\":\"vpc-2\",\"SecurityGroupIds\":[]}")));
+    }
+
+    private static List<LinkDataParam> linkedData() {
+        return List.of(
+                link("VPC", "$.VpcId", "$.VpcId", "vpc", AssociativeMode.ONE_TO_ONE.getName()),
+                link("SecurityGroup", "$.SecurityGroupIds", "$.GroupId", "securityGroups", null),
+                link("Account", null, null, "account", AssociativeMode.MANY_TO_ONE.getName()));
+    }
+
+    private static LinkDataParam link(String resourceType, String linkedKey1, String linkedKey2, String newKeyName,
+                                      String associativeMode) {
+        LinkDataParam param = new LinkDataParam();
+        param.setResourceType(List.of(PLATFORM, resourceType));
+        param.setLinkedKey1(linkedKey1);
+        param.setLinkedKey2(linkedKey2);
+        param.setNewKeyName(newKeyName);
+        param.setAssociativeMode(associativeMode);
+        return param;
+    }
+
+    private static CloudResourceInstancePO resource(Long id, String instance) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setId(id);
+        po.setPlatform(PLATFORM);
+        po.setCloudAccountId(ACCOUNT);
+        po.setResourceId("r-" + id);
+        po.setInstance(instance);
+        return po;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule;
+
+import com.alipay.application.share.request.rule.WhitedRuleConfigDTO;
+import com.alipay.common.enums.WhitedRuleOperatorEnum;
+import com.alipay.dao.po.RuleScanResultPO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title CompiledWhitedRuleTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/30 14:10
+ */
+class CompiledWhitedRuleTest {
+
+    private static final String[] KEYS = {"resourceId", "resourceName", "region", "platform", "cloudAccountId",
+            "status", "tenantId", "gmtCreate", "ignoreReason", "unknownKey"};
+
+    private static final String[] VALUES = {"i-1", "i-2", " i-1 ", "cn-hangzhou", "ALI_CLOUD", "i-1,i-2", "web",
+            "1", "1700000000000", "", "null", ","};
+
+    private static final String[] CONDITIONS = {"1", "1 AND 2", "1 OR 2", "(1 OR 2) AND 3", "1 AND (2 OR 3)",
+            "1 OR 2 AND 3", "3 OR (1 AND 2)", "4", "((1))", "12"};
+
+    private final WhitedRuleEngineMatcher matcher = new WhitedRuleEngineMatcher();
+
+    @Test
+    void compiledRuleMatchesLikeTheInterpretedMatcher() {
+        Random random = new Random(20250930L);
+        List<RuleScanResultPO> findings = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            findings.add(finding(random));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            List<WhitedRuleConfigDTO> items = new ArrayList<>();
+            int size = 1 + random.nextInt(3);
+            for (int id = 1; id <= size; id++) {
+                WhitedRuleOperatorEnum operator = WhitedRuleOperatorEnum.values()[random.nextInt(WhitedRuleOperatorEnum.values().length)];
+                Object value = random.nextInt(10) == 0 ? null : VALUES[random.nextInt(VALUES.length)];
+                items.add(new WhitedRuleConfigDTO(id, KEYS[random.nextInt(KEYS.length)], null, operator, value));
+            }
+            String condition = CONDITIONS[random.nextInt(CONDITIONS.length)];
+
+            CompiledWhitedRule compiled = CompiledWhitedRule.compile(items, condition);
+            for (RuleScanResultPO finding : findings) {
+                assertEquals(matcher.matchWhitelistRule(items, condition, finding), compiled.matches(finding),
+                        () -> "items: " + items + ", condition: " + condition + ", finding: " + finding);
+            }
+        }
+    }
+
+    @Test
+    void emptyOrMissingItems() {
+        RuleScanResultPO finding = new RuleScanResultPO();
+        assertTrue(CompiledWhitedRule.compile(List.of(), null).matches(finding));
+        assertFalse(CompiledWhitedRule.compile(null, "1").matches(finding));
+    }
+
+    @Test
+    void invalidConditionIsRejected() {
+        List<WhitedRuleConfigDTO> items = List.of(new WhitedRuleConfigDTO(1, "region", null,
+                WhitedRuleOperatorEnum.EQ, "cn-hangzhou"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledWhitedRule.compile(items, "1 XOR 2"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledWhitedRule.compile(items, " "));
+    }
+
+    private static RuleScanResultPO finding(Random random) {
+        RuleScanResultPO po = new RuleScanResultPO();
+        po.setResourceId(pick(random, "i-1", "i-2", " i-1 ", null));
+        po.setResourceName(pick(random, "web", "web-server", "db", null));
+        po.setRegion(pick(random, "cn-hangzhou", "cn-beijing", null));
+        po.setPlatform(pick(random, "ALI_CLOUD", "AWS"));
+        po.setCloudAccountId(pick(random, "1", "2", "null"));
+        po.setStatus(pick(random, "UNREPAIRED", "WHITED"));
+        po.setTenantId(random.nextBoolean() ? 1L : null);
+        po.setGmtCreate(random.nextBoolean() ? new Date(1700000000000L) : null);
+        po.setIgnoreReason(pick(random, "", "  ", "i-1,i-2"));
+        return po;
+    }
+
+    @SafeVarargs
+    private static <T> T pick(Random random, T... values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -16,9 +16,30 @@
  */
 package com.alipay.application.service.rule.domain.repo;
 
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngineProperties;
+import com.alipay.application.service.rule.job.context.PolicySyncManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /*
  *@title OpaRepositoryImplTest
@@ -27,10 +48,85 @@ import static org.junit.jupiter.api.Assertions.*;
  *@version 1.0
  *@create 2025/3/5 10:10
  */
+@ExtendWith(MockitoExtension.class)
 class OpaRepositoryImplTest {
 
+    private static final String PATH = "cloudrec_test";
+
+    private static final String POLICY = "package cloudrec_test\nrisk := true\n";
+
+    @Mock
+    private PolicyEngine policyEngine;
+
+    @Mock
+    private PolicySyncManager policySyncManager;
+
+    @Spy
+    private PolicyEngineProperties policyEngineProperties = new PolicyEngineProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OpaRepositoryImpl opaRepository;
+
     @Test
     void callOpa() {
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void batchCallOpa_evaluatesTheInputsInBatchesOfTheConfiguredSize() throws Exception {
+        policyEngineProperties.setBatchSize(2);
+        when(policyEngine.name()).thenReturn("remote");
+        when(policyEngine.evaluateBatch(eq(PATH), eq(POLICY), anyMap())).thenAnswer(invocation -> risks(invocation.getArgument(2)));
+
+        Map<String, Map<String, Object>> resp = opaRepository.batchCallOpa(PATH, POLICY, inputs("a", "b", "c", "d"));
+
+        assertEquals(4, resp.size());
+        verify(policyEngine, times(2)).evaluateBatch(eq(PATH), eq(POLICY), anyMap());
+        verify(policyEngine).evaluateBatch(PATH, POLICY, inputs("a", "b"));
+        verify(policyEngine).evaluateBatch(PATH, POLICY, inputs("c", "d"));
+        verify(policyEngine, never()).evaluate(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void batchCallOpa_failedBatchOnlyFailsTheResourcesThatCanNotBeEvaluated() throws Exception {
+        when(policyEngine.name()).thenReturn("embedded");
+        // the document of c breaks every batch it is in, e.g. a timeout or an evaluation error
+        when(policyEngine.evaluateBatch(eq(PATH), eq(POLICY), anyMap())).thenAnswer(invocation -> {
+            Map<String, String> batch = invocation.getArgument(2);
+            if (batch.containsKey("c")) {
+                throw new IllegalStateException("evaluation failed");
+            }
+            return risks(batch);
+        });
+        when(policyEngine.evaluate(PATH, POLICY, "{\"id\":\"c\"}")).thenThrow(new IllegalStateException("bad document"));
+        when(policyEngine.evaluate(PATH, POLICY, "{\"id\":\"d\"}")).thenReturn(Map.of("risk", true));
+
+        Map<String, Map<String, Object>> resp = opaRepository.batchCallOpa(PATH, POLICY, inputs("a", "b", "c", "d"));
+
+        assertEquals(Map.of("risk", true), resp.get("a"));
+        assertEquals(Map.of("risk", true), resp.get("b"));
+        assertEquals(Map.of("risk", true), resp.get("d"));
+        assertEquals(false, resp.get("c").get("risk"));
+        assertEquals("bad document", resp.get("c").get("error"));
+        // a,b,c,d -> a,b + c,d -> c + d
+        verify(policyEngine, times(3)).evaluateBatch(eq(PATH), eq(POLICY), anyMap());
+        verify(policyEngine, times(2)).evaluate(eq(PATH), eq(POLICY), any());
+    }
+
+    private static Map<String, String> inputs(String... ids) {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        for (String id : ids) {
+            inputs.put(id, "{\"id\":\"" + id + "\"}");
+        }
+        return inputs;
+    }
+
+    private static Map<String, Map<String, Object>> risks(Map<String, String> batch) {
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        batch.keySet().forEach(id -> results.put(id, Map.of("risk", true)));
+        return results;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title BatchPolicyTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/18 14:30
+ */
+class BatchPolicyTest {
+
+    @Test
+    void wrapperEvaluatesTheWrappedPackageForEveryDocumentOfTheBatch() {
+        assertEquals("cloudrec.ecs_batch", BatchPolicy.path("cloudrec.ecs"));
+
+        String policy = BatchPolicy.policy("cloudrec.ecs");
+        assertTrue(policy.startsWith("package cloudrec.ecs_batch\n"), policy);
+        assertTrue(policy.contains("results[id] := doc if {"), policy);
+        assertTrue(policy.contains("some id, resource in input.batch"), policy);
+        assertTrue(policy.contains("doc := data.cloudrec.ecs with input as resource"), policy);
+
+        Map<String, String> inputs = new LinkedHashMap<>();
+        inputs.put("i-1", "{\"a\":1}");
+        inputs.put("quote\"id", "[1,2]");
+        inputs.put("blank", " ");
+        inputs.put("missing", null);
+        String input = BatchPolicy.input(inputs);
+        assertEquals("{\"batch\":{\"i-1\":{\"a\":1},\"quote\\\"id\":[1,2],\"blank\":null,\"missing\":null}}", input);
+
+        JSONObject batch = JSON.parseObject(input).getJSONObject("batch");
+        assertEquals(1, batch.getJSONObject("i-1").getIntValue("a"));
+        assertEquals(2, batch.getJSONArray("quote\"id").size());
+        assertNull(batch.get("blank"));
+    }
+}
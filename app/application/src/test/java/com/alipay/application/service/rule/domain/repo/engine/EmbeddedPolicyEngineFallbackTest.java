@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title EmbeddedPolicyEngineFallbackTest
+ *@description Policies that can not be compiled are evaluated by the fallback engine, without the opa binary
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+class EmbeddedPolicyEngineFallbackTest {
+
+    private static final String PATH = "cloudrec.test";
+
+    private static final String POLICY = "package cloudrec.test\nrisk := true\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void policyIsEvaluatedByTheFallbackWhenItCanNotBeCompiled() throws Exception {
+        PolicyEngine fallback = mock(PolicyEngine.class);
+        when(fallback.name()).thenReturn(RemotePolicyEngine.NAME);
+        when(fallback.evaluate(PATH, POLICY, "{}")).thenReturn(Map.of("risk", true));
+        when(fallback.evaluateBatch(PATH, POLICY, Map.of("1", "{}"))).thenReturn(Map.of("1", Map.of("risk", true)));
+        PolicyCompiler compiler = new PolicyCompiler(dir.resolve("no-such-opa").toString(), dir.toString(), 10_000L);
+        EmbeddedPolicyEngine engine = new EmbeddedPolicyEngine(compiler, fallback, 1);
+
+        assertEquals(Map.of("risk", true), engine.evaluate(PATH, POLICY, "{}"));
+        assertEquals(Map.of("1", Map.of("risk", true)), engine.evaluateBatch(PATH, POLICY, Map.of("1", "{}")));
+
+        // the failed compile is remembered, the policy is handed to the fallback once
+        verify(fallback, times(1)).createOrUpdatePolicy(PATH, POLICY);
+    }
+
+    @Test
+    void largeBuildOutputFailsTheCompileInsteadOfBlockingUntilTheTimeout() throws IOException {
+        Assumptions.assumeTrue(Files.isExecutable(Path.of("/bin/sh")), "no POSIX shell");
+        // far more than a pipe buffer of compile errors on stderr
+        Path opa = dir.resolve("opa");
+        Files.writeString(opa, "#!/bin/sh\nhead -c 1048576 /dev/zero | tr '\\0' 'e' >&2\nexit 1\n");
+        assertTrue(opa.toFile().setExecutable(true));
+        PolicyCompiler compiler = new PolicyCompiler(opa.toString(), dir.resolve("work").toString(), 60_000L);
+
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(IOException.class, () -> compiler.compile(PATH, POLICY)));
+        assertTrue(e.getMessage().startsWith("opa build failed: eee"), e.getMessage());
+    }
+}
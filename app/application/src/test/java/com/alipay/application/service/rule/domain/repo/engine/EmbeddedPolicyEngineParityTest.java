@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ *@title EmbeddedPolicyEngineParityTest
+ *@description Evaluates every rule under /rules with its input.json on the embedded engine and compares
+ * the risk verdict with opa eval. Skipped when the opa binary is not on PATH.
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/15 10:12
+ */
+@Slf4j
+class EmbeddedPolicyEngineParityTest {
+
+    private static final Path RULES = Path.of("../../rules");
+
+    private static final Pattern PACKAGE = Pattern.compile("package\\s+([\\w.]+)");
+
+    private static EmbeddedPolicyEngine engine;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        Assumptions.assumeTrue(Files.isDirectory(RULES), "rules directory not found");
+        Assumptions.assumeTrue(opaAvailable(), "opa binary not found");
+
+        String workDir = Files.createTempDirectory("cloudrec-opa").toString();
+        engine = new EmbeddedPolicyEngine(new PolicyCompiler("opa", workDir, 60_000L), null, 1);
+        try (Stream<Path> files = Files.list(RULES.resolve("data"))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).toList()) {
+                JSONObject data = JSON.parseObject(Files.readString(file));
+                for (Map.Entry<String, Object> e : data.entrySet()) {
+                    engine.upsertData(e.getKey(), e.getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    void riskVerdictMatchesOpaEval() throws Exception {
+        List<Path> ruleDirs;
+        try (Stream<Path> inputs = Files.walk(RULES)) {
+            ruleDirs = inputs.filter(p -> p.getFileName().toString().equals("input.json"))
+                    .map(Path::getParent)
+                    .filter(dir -> Files.exists(dir.resolve("policy.rego")))
+                    .sorted()
+                    .toList();
+        }
+
+        List<String> unsupported = new ArrayList<>();
+        for (Path dir : ruleDirs) {
+            String policy = Files.readString(dir.resolve("policy.rego"));
+            String input = Files.readString(dir.resolve("input.json"));
+            Matcher m = PACKAGE.matcher(policy);
+            if (!m.find()) {
+                continue;
+            }
+            String path = m.group(1);
+
+            Map<String, Object> embedded;
+            try {
+                embedded = engine.evaluate(path, policy, input);
+            } catch (UnsupportedPolicyException e) {
+                unsupported.add(dir.getFileName() + ": " + e.getMessage());
+                continue;
+            }
+            Object expected = opaEval(dir, path).get("risk");
+            assertEquals(expected, embedded.get("risk"), dir.toString());
+        }
+
+        log.info("Evaluated {} rules in-process, {} use builtins that fall back to remote",
+                ruleDirs.size() - unsupported.size(), unsupported.size());
+        unsupported.forEach(rule -> log.info("Fall back to remote: {}", rule));
+    }
+
+    private static Map<String, Object> opaEval(Path dir, String path) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("opa", "eval", "-f", "json",
+                "-d", dir.resolve("policy.rego").toString(),
+                "-d", RULES.resolve("data").toString(),
+                "-i", dir.resolve("input.json").toString(),
+                "data." + path)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        String out = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        process.waitFor(60, TimeUnit.SECONDS);
+        return JSON.parseObject(out)
+                .getJSONArray("result").getJSONObject(0)
+                .getJSONArray("expressions").getJSONObject(0)
+                .getJSONObject("value");
+    }
+
+    private static boolean opaAvailable() {
+        try {
+            Process process = new ProcessBuilder("opa", "version").redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.domain.repo.engine;
+
+import com.alipay.application.service.rule.domain.GlobalVariable;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.job.context.PolicySyncManager;
+import com.alipay.application.service.rule.job.context.PolicySyncProperties;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.core5.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title OpaTransportTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/30 15:40
+ */
+class OpaTransportTest {
+
+    private final List<StubOpa> stubs = new ArrayList<>();
+
+    private final List<OpaTransport> transports = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (OpaTransport transport : transports) {
+            transport.close();
+        }
+        stubs.forEach(s -> s.server.stop(0));
+    }
+
+    @Test
+    void queriesSpreadOverEndpoints() throws Exception {
+        long one = timeQueries(transport(1));
+        long three = timeQueries(transport(3));
+
+        // every stub answers one query at a time, three of them should take about a third of the time
+        assertTrue(three < one * 0.6, "one endpoint " + one + "ms, three endpoints " + three + "ms");
+    }
+
+    @Test
+    void failedEndpointIsEjectedAndGetsWritesReplayed() throws Exception {
+        OpaTransport transport = transport(2);
+        StubOpa healthy = stubs.get(0);
+        StubOpa failing = stubs.get(1);
+        transport.write("PUT", "/v1/policies/a", "package a", ContentType.TEXT_PLAIN);
+        assertEquals(Map.of("/v1/policies/a", "package a"), failing.documents);
+
+        failing.down = true;
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, transport.query("POST", "/v1/data/a", "{}").status());
+        }
+        assertEquals(1, transport.availableEndpoints());
+
+        // written while the endpoint is ejected, then the endpoint restarts empty
+        transport.write("PUT", "/v1/policies/b", "package b", ContentType.TEXT_PLAIN);
+        failing.documents.clear();
+        failing.down = false;
+        transport.checkHealth();
+
+        assertEquals(2, transport.availableEndpoints());
+        assertEquals(healthy.documents, failing.documents);
+        // two policies and the marker
+        assertEquals(3, failing.documents.size());
+        assertTrue(failing.documents.containsKey(OpaTransport.MARKER_PATH));
+    }
+
+    @Test
+    void restartBetweenHealthChecksIsReplayedByTheHealthCheck() throws Exception {
+        OpaTransport transport = transport(1);
+        StubOpa opa = stubs.get(0);
+        transport.write("PUT", "/v1/policies/a", "package a", ContentType.TEXT_PLAIN);
+        transport.checkHealth();
+
+        opa.documents.clear();
+        transport.checkHealth();
+
+        assertEquals("package a", opa.documents.get("/v1/policies/a"));
+        assertEquals(1, transport.availableEndpoints());
+    }
+
+    @Test
+    void undefinedResultAfterRestartIsQueriedAgainAfterTheReplay() throws Exception {
+        OpaTransport transport = transport(1);
+        StubOpa opa = stubs.get(0);
+        opa.requirePolicies = true;
+        transport.write("PUT", "/v1/policies/a", "package a", ContentType.TEXT_PLAIN);
+        transport.checkHealth();
+        assertEquals("{\"result\":{\"risk\":false}}", transport.query("POST", "/v1/data/a", "{}").body());
+
+        // restarted before the next health check
+        opa.documents.clear();
+
+        assertEquals("{\"result\":{\"risk\":false}}", transport.query("POST", "/v1/data/a", "{}").body());
+        assertEquals("package a", opa.documents.get("/v1/policies/a"));
+    }
+
+    @Test
+    void documentsSkippedByTheSyncAreReplayedAfterRestart() throws Exception {
+        OpaTransport transport = transport(1);
+        StubOpa opa = stubs.get(0);
+        opa.requirePolicies = true;
+        // pushed by the application before it restarted
+        String policy = "package cloudrec.ecs_001\nrisk if { input.Port in data.cloudrec.ports }";
+        opa.documents.put("/v1/policies/cloudrec.ecs_001", policy);
+        opa.documents.put("/v1/data/cloudrec/ports", "[22,3389]");
+        opa.documents.put("/v1/data/cloudrec_sync/manifest", "{\"policy:cloudrec.ecs_001\":\"" + hash(policy)
+                + "\",\"data:cloudrec/ports\":\"" + hash("[22,3389]") + "\"}");
+
+        PolicySyncManager policySyncManager = new PolicySyncManager();
+        ReflectionTestUtils.setField(policySyncManager, "policyEngine", new RemotePolicyEngine(transport));
+        ReflectionTestUtils.setField(policySyncManager, "policySyncProperties", new PolicySyncProperties());
+        ReflectionTestUtils.setField(policySyncManager, "meterRegistry", new SimpleMeterRegistry());
+        GlobalVariable ports = new GlobalVariable();
+        ports.setPath("cloudrec/ports");
+        ports.setData("[22,3389]");
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setRegoPath("cloudrec.ecs_001");
+        ruleAgg.setRegoPolicy(policy);
+        ruleAgg.setGlobalVariables(List.of(ports));
+        assertEquals(2, policySyncManager.syncAll(() -> List.of(ruleAgg)).skipped());
+
+        // the sidecar restarts empty
+        opa.documents.clear();
+
+        assertEquals("{\"result\":{\"risk\":false}}", transport.query("POST", "/v1/data/cloudrec/ecs_001", "{}").body());
+        assertEquals(policy, opa.documents.get("/v1/policies/cloudrec.ecs_001"));
+        assertEquals("[22,3389]", opa.documents.get("/v1/data/cloudrec/ports"));
+        assertTrue(opa.documents.containsKey("/v1/data/cloudrec_sync/manifest"));
+    }
+
+    private static String hash(String content) {
+        return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+
+    private long timeQueries(OpaTransport transport) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        try {
+            long start = System.nanoTime();
+            List<Future<OpaTransport.Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 36; i++) {
+                futures.add(pool.submit(() -> transport.query("POST", "/v1/data/a", "{\"input\":{}}")));
+            }
+            for (Future<OpaTransport.Response> future : futures) {
+                assertEquals(200, future.get().status());
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private OpaTransport transport(int endpoints) throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < endpoints; i++) {
+            StubOpa stub = new StubOpa();
+            stubs.add(stub);
+            urls.add("http://localhost:" + stub.server.getAddress().getPort() + "/");
+        }
+        OpaTransportProperties properties = new OpaTransportProperties();
+        properties.setHealthCheckIntervalMs(0);
+        OpaTransport transport = new OpaTransport(urls, properties, new SimpleMeterRegistry());
+        transports.add(transport);
+        return transport;
+    }
+
+    /**
+     * OPA server answering one request at a time, queries take 20ms
+     */
+    private static class StubOpa {
+
+        private final HttpServer server;
+
+        private final Map<String, String> documents = new ConcurrentHashMap<>();
+
+        private volatile boolean down;
+
+        /**
+         * queries are undefined while no policy is loaded
+         */
+        private volatile boolean requirePolicies;
+
+        private StubOpa() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newSingleThreadExecutor());
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String path = exchange.getRequestURI().getPath();
+            String response = "{}";
+            int status = 200;
+            if (down) {
+                status = 503;
+            } else if ("PUT".equals(exchange.getRequestMethod())) {
+                documents.put(path, body);
+            } else if ("GET".equals(exchange.getRequestMethod()) && documents.containsKey(path)) {
+                response = "{\"result\":" + documents.get(path) + "}";
+            } else if ("POST".equals(exchange.getRequestMethod())
+                    && requirePolicies && documents.keySet().stream().noneMatch(p -> p.startsWith("/v1/policies/"))) {
+                response = "{}";
+            } else if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response = "{\"result\":{\"risk\":false}}";
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+    }
+}
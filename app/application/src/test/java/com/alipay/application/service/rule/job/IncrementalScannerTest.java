@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.mapper.RuleScanFingerprintMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.RuleScanFingerprintPO;
+import com.alipay.dao.po.RuleScanResultPO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title IncrementalScannerTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/29 10:40
+ */
+@ExtendWith(MockitoExtension.class)
+class IncrementalScannerTest {
+
+    @Mock
+    private RuleScanFingerprintMapper ruleScanFingerprintMapper;
+
+    @Mock
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Spy
+    private ScanIncrementalProperties scanIncrementalProperties = new ScanIncrementalProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private IncrementalScanner incrementalScanner;
+
+    private RuleAgg ruleAgg;
+
+    @BeforeEach
+    void setUp() {
+        ruleAgg = new RuleAgg();
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("ALI_CLOUD_ECS_001");
+        ruleAgg.setRegoPath("cloudrec/ecs_001");
+        ruleAgg.setRegoPolicy("package cloudrec.ecs_001\nrisk if { input.public }");
+    }
+
+    @Test
+    void selectSkipsUnchangedResourcesAndCarriesOverRisks() {
+        CloudResourceInstancePO changed = resource(1L, "i-changed", "{\"public\":true}");
+        CloudResourceInstancePO unchanged = resource(2L, "i-unchanged", "{\"public\":false}");
+        CloudResourceInstancePO unchangedRisk = resource(3L, "i-risk", "{\"public\":true}");
+        CloudResourceInstancePO newOne = resource(4L, "i-new", "{\"public\":false}");
+        String revision = IncrementalScanner.ruleRevision(ruleAgg);
+        when(ruleScanFingerprintMapper.findByResourceIdList(anyLong(), anyString(), anyList())).thenReturn(List.of(
+                fingerprint("i-changed", "{\"public\":false}", revision, 0),
+                fingerprint("i-unchanged", "{\"public\":false}", revision, 0),
+                fingerprint("i-risk", "{\"public\":true}", revision, 1)));
+        RuleScanResultPO lastResult = new RuleScanResultPO();
+        lastResult.setResourceId("i-risk");
+        lastResult.setResult("{\"risk\":true}");
+        when(ruleScanResultMapper.findResultByResourceIdList(anyLong(), anyString(), anyList()))
+                .thenReturn(List.of(lastResult));
+
+        IncrementalScanner.Session session = incrementalScanner.open(ruleAgg, "account");
+        IncrementalScanner.Selection selection = session.select(List.of(changed, unchanged, unchangedRisk, newOne));
+
+        assertEquals(List.of(changed, newOne), selection.getToEvaluate());
+        assertEquals(1, selection.getCarried().size());
+        assertEquals(unchangedRisk, selection.getCarried().get(0).getResourceInstance());
+        assertEquals(Boolean.TRUE, selection.getCarried().get(0).getResult().get("risk"));
+        assertEquals(2, session.getEvaluated());
+        assertEquals(2, session.getSkipped());
+
+        // only successful evaluations are remembered
+        session.record(changed, Map.of("risk", true));
+        session.record(newOne, Map.of("error", "timeout", "risk", false));
+        session.commit();
+        ArgumentCaptor<List<RuleScanFingerprintPO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ruleScanFingerprintMapper).batchUpsert(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals("i-changed", captor.getValue().get(0).getResourceId());
+        assertEquals(1, captor.getValue().get(0).getRisk());
+    }
+
+    @Test
+    void selectEvaluatesEverythingWhenRuleChangedOrFullScanRequested() {
+        CloudResourceInstancePO resource = resource(1L, "i-1", "{\"public\":false}");
+        String oldRevision = IncrementalScanner.ruleRevision(ruleAgg);
+        ruleAgg.setRegoPolicy("package cloudrec.ecs_001\nrisk if { not input.public }");
+        assertNotEquals(oldRevision, IncrementalScanner.ruleRevision(ruleAgg));
+        when(ruleScanFingerprintMapper.findByResourceIdList(anyLong(), anyString(), anyList()))
+                .thenReturn(List.of(fingerprint("i-1", "{\"public\":false}", oldRevision, 0)));
+
+        IncrementalScanner.Selection selection = incrementalScanner.open(ruleAgg, "account").select(List.of(resource));
+        assertEquals(List.of(resource), selection.getToEvaluate());
+
+        incrementalScanner.requestFullScan();
+        incrementalScanner.beginRun();
+        IncrementalScanner.Session session = incrementalScanner.open(ruleAgg, "account");
+        assertEquals(List.of(resource), session.select(List.of(resource)).getToEvaluate());
+        session.close();
+        incrementalScanner.finishRun();
+
+        verify(ruleScanFingerprintMapper).deleteByRuleIdAndCloudAccountId(1L, "account");
+        verify(ruleScanResultMapper, never()).findResultByResourceIdList(anyLong(), anyString(), anyList());
+        assertEquals(Boolean.TRUE, incrementalScanner.getReport().getForceFull());
+        assertEquals(1L, incrementalScanner.getReport().getEvaluated());
+    }
+
+    @Test
+    void selectEvaluatesTimeDependentRulesEveryScan() {
+        ruleAgg.setRegoPolicy("""
+                package cloudrec.ram_user_unused
+                import rego.v1
+
+                default risk := false
+                risk if {
+                    last_login := time.parse_ns("2006-01-02T15:04:05Z", input.User.LastLoginDate)
+                    time.now_ns() - last_login > 365 * 24 * 3600 * 1000000000
+                }
+                """);
+        assertTrue(IncrementalScanner.isNondeterministic(ruleAgg));
+        CloudResourceInstancePO resource = resource(1L, "u-1", "{\"User\":{\"LastLoginDate\":\"2025-01-01T00:00:00Z\"}}");
+
+        IncrementalScanner.Session session = incrementalScanner.open(ruleAgg, "account");
+        // the same user crosses the 365 days line without any change of its content
+        assertEquals(List.of(resource), session.select(List.of(resource)).getToEvaluate());
+        session.record(resource, Map.of("risk", false));
+        session.commit();
+        assertEquals(List.of(resource), session.select(List.of(resource)).getToEvaluate());
+
+        assertEquals(2, session.getEvaluated());
+        assertEquals(0, session.getSkipped());
+        verify(ruleScanFingerprintMapper, never()).findByResourceIdList(anyLong(), anyString(), anyList());
+        verify(ruleScanFingerprintMapper, never()).batchUpsert(anyList());
+
+        // a key of the input named like a builtin is not a call
+        ruleAgg.setRegoPolicy("package cloudrec.ecs_001\nrisk if { input.time_now_ns > 0 }");
+        assertFalse(IncrementalScanner.isNondeterministic(ruleAgg));
+    }
+
+    private static CloudResourceInstancePO resource(Long id, String resourceId, String instance) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setId(id);
+        po.setResourceId(resourceId);
+        po.setInstance(instance);
+        return po;
+    }
+
+    private static RuleScanFingerprintPO fingerprint(String resourceId, String instance, String revision, int risk) {
+        RuleScanFingerprintPO po = new RuleScanFingerprintPO();
+        po.setResourceId(resourceId);
+        po.setContentHash(IncrementalScanner.contentHash(instance));
+        po.setRuleRevision(revision);
+        po.setRisk(risk);
+        return po;
+    }
+}
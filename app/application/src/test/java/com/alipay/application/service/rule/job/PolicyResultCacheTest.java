@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title PolicyResultCacheTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/29 15:10
+ */
+@ExtendWith(MockitoExtension.class)
+class PolicyResultCacheTest {
+
+    @Spy
+    private PolicyResultCacheProperties policyResultCacheProperties = new PolicyResultCacheProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PolicyResultCache policyResultCache;
+
+    private final RuleAgg ruleAgg = new RuleAgg();
+
+    @BeforeEach
+    void setUp() {
+        policyResultCache.init();
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("DEFAULT_SG_OPEN");
+    }
+
+    @Test
+    void identicalInputsAreEvaluatedOnce() {
+        // the same default security group in two accounts, collected with a different key order
+        List<CloudResourceInstancePO> page = List.of(
+                resource("sg-1", "{\"GroupName\":\"default\",\"Rules\":[{\"Port\":22,\"Cidr\":\"0.0.0.0/0\"}]}"),
+                resource("sg-2", "{\"Rules\":[{\"Cidr\":\"0.0.0.0/0\",\"Port\":22}],\"GroupName\":\"default\"}"),
+                resource("sg-3", "{\"GroupName\":\"web\",\"Rules\":[]}"));
+
+        PolicyResultCache.Lookup first = policyResultCache.lookup(ruleAgg, "rev-1", page);
+        assertEquals(List.of("sg-1", "sg-3"), first.getToEvaluate().stream().map(CloudResourceInstancePO::getResourceId).toList());
+        Map<String, Map<String, Object>> results = policyResultCache.complete(first,
+                Map.of("sg-1", result(true), "sg-3", result(false)), 2_000_000L);
+        assertEquals(3, results.size());
+        assertEquals(true, results.get("sg-2").get("risk"));
+        assertEquals(1, first.getHits());
+        assertEquals(2, first.getMisses());
+        assertEquals(1_000_000L, first.getSavedNanos());
+
+        // the next page, or the next account, hits the cache, every caller gets its own copy
+        PolicyResultCache.Lookup second = policyResultCache.lookup(ruleAgg, "rev-1", page);
+        assertTrue(second.getToEvaluate().isEmpty());
+        results = policyResultCache.complete(second, Map.of(), 0L);
+        results.get("sg-1").put("ResourceId", "sg-1");
+        assertFalse(results.get("sg-2").containsKey("ResourceId"));
+        assertEquals(3, second.getHits());
+        assertEquals(3.0, meterRegistry.counter("cloudrec.scan.memo.lookups", "result", "hit").count() - 1);
+    }
+
+    @Test
+    void newRevisionAndFailedEvaluationsAreNotServedFromTheCache() {
+        List<CloudResourceInstancePO> page = List.of(resource("sg-1", "{\"GroupName\":\"default\"}"),
+                resource("sg-2", "{\"GroupName\":\"default\"}"));
+        policyResultCache.complete(policyResultCache.lookup(ruleAgg, "rev-1", page), Map.of("sg-1", result(true)), 0L);
+
+        // the policy or a global variable changed
+        PolicyResultCache.Lookup lookup = policyResultCache.lookup(ruleAgg, "rev-2", page);
+        assertEquals(1, lookup.getToEvaluate().size());
+        Map<String, Object> error = new HashMap<>(result(false));
+        error.put("error", "undefined function");
+        Map<String, Map<String, Object>> results = policyResultCache.complete(lookup, Map.of("sg-1", error), 0L);
+        assertEquals("undefined function", results.get("sg-2").get("error"));
+
+        lookup = policyResultCache.lookup(ruleAgg, "rev-2", page);
+        assertEquals(1, lookup.getToEvaluate().size());
+    }
+
+    @Test
+    void timeDependentRulesAreNotCached() {
+        RuleAgg ramUserUnused = new RuleAgg();
+        ramUserUnused.setId(2L);
+        ramUserUnused.setRuleCode("ALI_CLOUD_RAMUser_202502051725_1037615");
+        ramUserUnused.setRegoPolicy("""
+                package ram_user_unused
+                import rego.v1
+
+                default risk := false
+                risk if {
+                    time.now_ns() - time.parse_ns("2006-01-02T15:04:05Z", input.LastLoginDate) > 365 * 86400 * 1000000000
+                }
+                """);
+        // the same user in two accounts
+        List<CloudResourceInstancePO> page = List.of(resource("u-1", "{\"LastLoginDate\":\"2025-01-01T00:00:00Z\"}"),
+                resource("u-2", "{\"LastLoginDate\":\"2025-01-01T00:00:00Z\"}"));
+
+        PolicyResultCache.Lookup lookup = policyResultCache.lookup(ramUserUnused, "rev-1", page);
+        assertEquals(2, lookup.getToEvaluate().size());
+        Map<String, Map<String, Object>> results = Map.of("u-1", result(false), "u-2", result(false));
+        assertEquals(results, policyResultCache.complete(lookup, results, 0L));
+
+        // a later scan, the user may have crossed the 365 days line since
+        lookup = policyResultCache.lookup(ramUserUnused, "rev-1", page);
+        assertEquals(2, lookup.getToEvaluate().size());
+        policyResultCache.complete(lookup, Map.of("u-1", result(true), "u-2", result(true)), 0L);
+        assertEquals(0, lookup.getHits());
+        assertEquals(0.0, meterRegistry.counter("cloudrec.scan.memo.lookups", "result", "hit").count());
+    }
+
+    private static Map<String, Object> result(boolean risk) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("risk", risk);
+        return result;
+    }
+
+    private static CloudResourceInstancePO resource(String resourceId, String instance) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setResourceId(resourceId);
+        po.setInstance(instance);
+        return po;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title PreFilterIndexTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/30 18:10
+ */
+@ExtendWith(MockitoExtension.class)
+class PreFilterIndexTest {
+
+    private static final String POLICY = """
+            package clickhouse_open_to_pub
+            import rego.v1
+
+            default risk := false
+            risk if {
+                has_public_address
+                acl_misconfig
+            }
+
+            # the address of input.Comment is not read
+            has_public_address if {
+                some net_info in input.NetInfoItem
+                net_info.NetType == "Public"
+            }
+
+            acl_misconfig if {
+                some ip_list in input.IPArray
+                ip_list.SecurityIPList == "0.0.0.0/0"
+            }
+            """;
+
+    @Spy
+    private PreFilterProperties preFilterProperties = new PreFilterProperties();
+
+    @Mock
+    private OpaRepository opaRepository;
+
+    @InjectMocks
+    private PreFilterIndex preFilterIndex;
+
+    @BeforeEach
+    void setUp() {
+        preFilterIndex.init();
+    }
+
+    @Test
+    void declaredPredicates() {
+        RuleAgg ruleAgg = rule(POLICY);
+        ruleAgg.setPreFilter("""
+                [{"path": "$.Region", "op": "in", "value": ["cn-hangzhou", "cn-shanghai"]},
+                 {"any": [{"path": "$.Acl.Grants[*].Permission", "op": "eq", "value": "WRITE"},
+                          {"path": "$.Policy", "op": "matches", "value": "\\\\*"}]},
+                 {"path": "$.Size", "op": "ne", "value": 0}]
+                """);
+
+        PreFilter preFilter = preFilterIndex.get(ruleAgg, "r1");
+
+        assertEquals("declared", preFilter.getSource());
+        assertTrue(preFilter.mayMatch("{\"Region\":\"cn-hangzhou\",\"Acl\":{\"Grants\":[{\"Permission\":\"READ\"},{\"Permission\":\"WRITE\"}]},\"Size\":1}"));
+        assertTrue(preFilter.mayMatch("{\"Region\":\"cn-shanghai\",\"Policy\":\"arn:*\",\"Size\":2.5}"));
+        assertFalse(preFilter.mayMatch("{\"Region\":\"us-east-1\",\"Policy\":\"*\",\"Size\":1}"));
+        assertFalse(preFilter.mayMatch("{\"Region\":\"cn-hangzhou\",\"Acl\":{\"Grants\":[{\"Permission\":\"READ\"}]},\"Size\":1}"));
+        assertFalse(preFilter.mayMatch("{\"Region\":\"cn-hangzhou\",\"Policy\":\"*\",\"Size\":0}"));
+        assertFalse(preFilter.mayMatch("{\"Region\":\"cn-hangzhou\",\"Policy\":\"*\"}"));
+        // invalid predicates turn the pre-filter off, an empty list declares none
+        ruleAgg.setPreFilter("[{\"path\": \"$.Region\", \"op\": \"like\"}]");
+        assertSame(PreFilter.NONE, preFilterIndex.get(ruleAgg, "r2"));
+        ruleAgg.setPreFilter("[]");
+        assertSame(PreFilter.NONE, preFilterIndex.get(ruleAgg, "r3"));
+        verify(opaRepository, never()).batchCallOpa(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void inferredFromTheInputKeysWhenTheEmptyInputIsCompliant() {
+        assertEquals(Set.of("NetInfoItem", "IPArray"), PreFilter.inputKeys(POLICY));
+        assertNull(PreFilter.inputKeys("package a\nrisk if { count(input) > 0 }"));
+        assertNull(PreFilter.inputKeys("package a\nrisk if { some k; input[k] == 1 }"));
+        assertNull(PreFilter.inputKeys("package a\nrisk if { b with input as {} }"));
+
+        when(opaRepository.batchCallOpa(anyString(), anyString(), anyMap()))
+                .thenReturn(Map.of("pre-filter-probe", Map.of("risk", false)));
+        PreFilter preFilter = preFilterIndex.get(rule(POLICY), "r1");
+        assertSame(preFilter, preFilterIndex.get(rule(POLICY), "r1"));
+        verify(opaRepository, times(1)).batchCallOpa(anyString(), anyString(), anyMap());
+
+        assertEquals("inferred", preFilter.getSource());
+        assertTrue(preFilter.mayMatch("{\"IPArray\":[]}"));
+        assertTrue(preFilter.mayMatch("{\"NetInfoItem\":null}"));
+        assertFalse(preFilter.mayMatch("{\"InstanceId\":\"cc-1\",\"Comment\":\"input.IPArray\"}"));
+        // broken JSON is left to the policy call
+        assertTrue(preFilter.mayMatch("not json"));
+
+        // a policy flagging the empty input gets no pre-filter
+        when(opaRepository.batchCallOpa(anyString(), anyString(), anyMap()))
+                .thenReturn(Map.of("pre-filter-probe", Map.of("risk", true)));
+        assertSame(PreFilter.NONE, preFilterIndex.get(rule(POLICY), "r2"));
+        preFilterProperties.setInfer(false);
+        assertSame(PreFilter.NONE, preFilterIndex.get(rule(POLICY), "r3"));
+    }
+
+    @Test
+    void noPreFilterInferredForTimeDependentRules() {
+        RuleAgg ruleAgg = rule("""
+                package cas_cert_expiring
+                import rego.v1
+
+                default risk := false
+                risk if {
+                    time.now_ns() > time.parse_ns("2006-01-02", input.Certificate.EndDate)
+                }
+                """);
+
+        assertSame(PreFilter.NONE, preFilterIndex.get(ruleAgg, "r1"));
+        verify(opaRepository, never()).batchCallOpa(anyString(), anyString(), anyMap());
+    }
+
+    private static RuleAgg rule(String policy) {
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("RULE");
+        ruleAgg.setRegoPath("clickhouse_open_to_pub");
+        ruleAgg.setRegoPolicy(policy);
+        return ruleAgg;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.service.resource.task.ResourceJoinProperties;
+import com.alipay.application.service.risk.RiskStatusManager;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.application.service.rule.domain.repo.RuleRepository;
+import com.alipay.application.service.system.domain.repo.TenantRepository;
+import com.alipay.application.share.request.rule.EvaluateResourceRequest;
+import com.alipay.application.share.vo.rule.ResourceEvaluationVO;
+import com.alipay.common.exception.BizException;
+import com.alipay.dao.mapper.CloudAccountMapper;
+import com.alipay.dao.mapper.CloudResourceInstanceMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudAccountPO;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.RuleScanResultPO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ResourceEvaluatorTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/28 16:40
+ */
+@ExtendWith(MockitoExtension.class)
+class ResourceEvaluatorTest {
+
+    private static final String PLATFORM = "ALI_CLOUD";
+
+    private static final String ACCOUNT = "1001";
+
+    private static final String RESOURCE_ID = "i-1";
+
+    @Mock
+    private CloudAccountMapper cloudAccountMapper;
+
+    @Mock
+    private CloudResourceInstanceMapper cloudResourceInstanceMapper;
+
+    @Mock
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Mock
+    private RuleRepository ruleRepository;
+
+    @Mock
+    private TenantRepository tenantRepository;
+
+    @Mock
+    private OpaRepository opaRepository;
+
+    @Mock
+    private IQueryResource iQueryResource;
+
+    @Spy
+    private ResourceJoinProperties resourceJoinProperties = new ResourceJoinProperties();
+
+    @Mock
+    private RuleScanResultWriter ruleScanResultWriter;
+
+    @Mock
+    private RiskStatusManager riskStatusManager;
+
+    @Spy
+    private ResourceEvaluationProperties resourceEvaluationProperties = new ResourceEvaluationProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ResourceEvaluator resourceEvaluator;
+
+    private final RuleScanResultWriter.Buffer resultBuffer = mock(RuleScanResultWriter.Buffer.class);
+
+    @BeforeEach
+    void setUp() {
+        resourceEvaluator.init();
+
+        CloudAccountPO cloudAccountPO = new CloudAccountPO();
+        cloudAccountPO.setCloudAccountId(ACCOUNT);
+        cloudAccountPO.setPlatform(PLATFORM);
+        cloudAccountPO.setTenantId(2L);
+        when(cloudAccountMapper.findByCloudAccountId(ACCOUNT)).thenReturn(cloudAccountPO);
+
+        CloudResourceInstancePO stored = new CloudResourceInstancePO();
+        stored.setId(100L);
+        stored.setPlatform(PLATFORM);
+        stored.setResourceType("ECS");
+        stored.setCloudAccountId(ACCOUNT);
+        stored.setResourceId(RESOURCE_ID);
+        stored.setInstance("{\"InstanceId\":\"i-1\",\"Public\":true}");
+        lenient().when(cloudResourceInstanceMapper.findOne(PLATFORM, "ECS", ACCOUNT, RESOURCE_ID)).thenReturn(stored);
+
+        lenient().when(ruleRepository.findAll(PLATFORM)).thenReturn(List.of(rule(1L, "PUBLIC", "ECS"),
+                rule(2L, "SG", "ECS"), rule(3L, "BROKEN", "ECS"), rule(4L, "SLB_PUBLIC", "SLB"),
+                rule(5L, "NOT_SELECTED", "ECS")));
+        lenient().when(tenantRepository.isDefaultRule(anyString()))
+                .thenAnswer(invocation -> !"NOT_SELECTED".equals(invocation.getArgument(0)));
+        lenient().when(ruleScanResultMapper.findByResourceId(ACCOUNT, RESOURCE_ID)).thenReturn(List.of(
+                finding(20L, 2L, RiskStatusManager.RiskStatus.UNREPAIRED.name()),
+                finding(30L, 3L, RiskStatusManager.RiskStatus.UNREPAIRED.name())));
+        lenient().when(opaRepository.batchCallOpa(anyString(), anyString(), anyMap())).thenAnswer(invocation -> {
+            Map<String, Object> result = new HashMap<>();
+            switch (invocation.<String>getArgument(0)) {
+                case "path.PUBLIC" -> result.put("risk", true);
+                case "path.SG" -> result.put("risk", false);
+                default -> {
+                    result.put("error", "undefined function");
+                    result.put("risk", false);
+                }
+            }
+            return Map.of(RESOURCE_ID, result);
+        });
+        lenient().when(ruleScanResultWriter.open(any(), any(), anyLong())).thenReturn(resultBuffer);
+    }
+
+    @Test
+    void evaluate_writesRisksAndRepairsFixedFindings() {
+        when(ruleScanResultMapper.findMaxVersion(1L, ACCOUNT)).thenReturn(5L);
+
+        ResourceEvaluationVO vo = resourceEvaluator.evaluate(request(), null);
+
+        // only the selected rules of the resource type are evaluated
+        assertEquals(List.of("PUBLIC", "SG", "BROKEN"),
+                vo.getRules().stream().map(ResourceEvaluationVO.RuleResultVO::getRuleCode).toList());
+        assertTrue(vo.getRules().get(0).getRisk());
+        verify(ruleScanResultWriter).open(any(), any(), eq(5L));
+        verify(resultBuffer).add(any(), any());
+        verify(resultBuffer).flush();
+        verify(riskStatusManager).unrepairedToRepaired(20L);
+        // a failed evaluation keeps the finding
+        assertEquals("undefined function", vo.getRules().get(2).getError());
+        verify(riskStatusManager, never()).unrepairedToRepaired(30L);
+        assertEquals(1L, meterRegistry.get("cloudrec.resource.evaluate").tag("source", "stored")
+                .tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void evaluate_usesThePushedInstanceAndChecksTheTenant() {
+        EvaluateResourceRequest request = request();
+        request.setInstance(Map.of("InstanceId", "i-1", "Public", false));
+
+        resourceEvaluator.evaluate(request, 2L);
+
+        ArgumentCaptor<Map<String, String>> inputs = ArgumentCaptor.forClass(Map.class);
+        verify(opaRepository).batchCallOpa(eq("path.SG"), anyString(),
+                inputs.capture());
+        assertTrue(inputs.getValue().get(RESOURCE_ID).contains("\"Public\":false"));
+
+        assertThrows(BizException.class, () -> resourceEvaluator.evaluate(request(), 3L));
+        assertNull(meterRegistry.find("cloudrec.resource.evaluate").tag("outcome", "success")
+                .tag("source", "stored").timer());
+    }
+
+    private static EvaluateResourceRequest request() {
+        EvaluateResourceRequest request = new EvaluateResourceRequest();
+        request.setPlatform(PLATFORM);
+        request.setResourceType("ECS");
+        request.setCloudAccountId(ACCOUNT);
+        request.setResourceId(RESOURCE_ID);
+        return request;
+    }
+
+    private static RuleAgg rule(Long id, String ruleCode, String resourceType) {
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setId(id);
+        ruleAgg.setRuleCode(ruleCode);
+        ruleAgg.setPlatform(PLATFORM);
+        ruleAgg.setResourceType(resourceType);
+        ruleAgg.setRegoPath("path." + ruleCode);
+        ruleAgg.setRegoPolicy("package " + ruleCode.toLowerCase());
+        return ruleAgg;
+    }
+
+    private static RuleScanResultPO finding(Long id, Long ruleId, String status) {
+        RuleScanResultPO po = new RuleScanResultPO();
+        po.setId(id);
+        po.setRuleId(ruleId);
+        po.setStatus(status);
+        return po;
+    }
+}
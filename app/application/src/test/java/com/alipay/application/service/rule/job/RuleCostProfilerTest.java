@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.share.vo.rule.RuleCostVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title RuleCostProfilerTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/25 14:50
+ */
+@ExtendWith(MockitoExtension.class)
+class RuleCostProfilerTest {
+
+    @Spy
+    private RuleCostProfilerProperties ruleCostProfilerProperties = new RuleCostProfilerProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private RuleCostProfiler ruleCostProfiler;
+
+    @Test
+    void getSlowestRules_ranksRulesByTotalCost() {
+        RuleAgg cheap = rule(1L, "CHEAP");
+        RuleAgg linked = rule(2L, "LINKED");
+        for (int i = 1; i <= 100; i++) {
+            // 1 ms per evaluation
+            ruleCostProfiler.record(cheap, "1001", 10, ms(10), 0, ms(1));
+            // i ms per evaluation, the linked resources take 50 ms per page to merge
+            ruleCostProfiler.record(linked, i % 2 == 0 ? "1001" : "1002", 10, ms(10L * i), ms(50), ms(5));
+        }
+
+        List<RuleCostVO> slowest = ruleCostProfiler.getSlowestRules(10);
+
+        assertEquals(List.of("LINKED", "CHEAP"), slowest.stream().map(RuleCostVO::getRuleCode).toList());
+        RuleCostVO vo = slowest.get(0);
+        assertEquals(1000L, vo.getEvaluations());
+        assertEquals(50.0, vo.getP50Ms(), 0.001);
+        assertEquals(95.0, vo.getP95Ms(), 0.001);
+        assertEquals(99.0, vo.getP99Ms(), 0.001);
+        assertEquals(5000L, vo.getMergeMs());
+        assertEquals(500L, vo.getWriteMs());
+        assertEquals(vo.getEvaluateMs() + vo.getMergeMs() + vo.getWriteMs(), vo.getTotalMs());
+        // the even pages, on 1001, are the more expensive ones
+        assertEquals(List.of("1001", "1002"), vo.getAccounts().stream().map(RuleCostVO.AccountVO::getCloudAccountId).toList());
+
+        assertEquals(1, ruleCostProfiler.getSlowestRules(1).size());
+        assertEquals(1000.0, meterRegistry.get("cloudrec.rule.evaluations").tag("rule", "LINKED").counter().count());
+        assertEquals(100, meterRegistry.get("cloudrec.rule.evaluation").tag("rule", "LINKED").timer().count());
+        assertEquals(100, meterRegistry.get("cloudrec.rule.merge").tag("rule", "LINKED").timer().count());
+    }
+
+    @Test
+    void getSlowestRules_keepsTheRollingWindow() {
+        ruleCostProfilerProperties.setMaxSamplesPerRule(10);
+        RuleAgg ruleAgg = rule(1L, "PUBLIC");
+        for (int i = 0; i < 30; i++) {
+            ruleCostProfiler.record(ruleAgg, "1001", 1, ms(1), 0, 0);
+        }
+        assertEquals(10L, ruleCostProfiler.getSlowestRules(10).get(0).getEvaluations());
+
+        ruleCostProfilerProperties.setWindowMs(-1);
+        assertTrue(ruleCostProfiler.getSlowestRules(10).isEmpty());
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static RuleAgg rule(Long id, String ruleCode) {
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setId(id);
+        ruleAgg.setRuleCode(ruleCode);
+        ruleAgg.setRuleName(ruleCode);
+        return ruleAgg;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.risk.RiskStatusManager;
+import com.alipay.application.service.rule.WhitedRegoMatcher;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.job.context.TenantWhitedConfigContextV2;
+import com.alipay.common.enums.Action;
+import com.alipay.dao.mapper.OperationLogMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudAccountPO;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.alipay.dao.po.OperationLogPO;
+import com.alipay.dao.po.RuleScanResultPO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title RuleScanResultWriterTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/25 16:20
+ */
+@ExtendWith(MockitoExtension.class)
+class RuleScanResultWriterTest {
+
+    @Mock
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Mock
+    private OperationLogMapper operationLogMapper;
+
+    @Mock
+    private TenantWhitedConfigContextV2 whitedConfigContext;
+
+    @Mock
+    private WhitedRegoMatcher whitedRegoMatcher;
+
+    @Spy
+    private ScanResultWriterProperties scanResultWriterProperties = new ScanResultWriterProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private RuleScanResultWriter writer;
+
+    private RuleAgg ruleAgg;
+
+    private CloudAccountPO cloudAccountPO;
+
+    @BeforeEach
+    void setUp() {
+        ruleAgg = new RuleAgg();
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("RULE_1");
+        ruleAgg.setRegoPolicy("package example");
+        cloudAccountPO = new CloudAccountPO();
+        cloudAccountPO.setCloudAccountId("account");
+        cloudAccountPO.setTenantId(1L);
+        when(whitedConfigContext.getByTenant(anyLong())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushUpsertsRowsAndBatchesOperationLogs() {
+        RuleScanResultPO repaired = existing(10L, "repaired", RiskStatusManager.RiskStatus.REPAIRED);
+        RuleScanResultPO whited = existing(11L, "whited", RiskStatusManager.RiskStatus.WHITED);
+        whited.setWhitedId(5L);
+        RuleScanResultPO ignored = existing(12L, "ignored", RiskStatusManager.RiskStatus.IGNORED);
+        when(ruleScanResultMapper.findByResourceIdList(anyLong(), anyString(), anyList()))
+                .thenReturn(List.of(repaired, whited, ignored));
+
+        RuleScanResultWriter.Buffer buffer = writer.open(ruleAgg, cloudAccountPO, 3L);
+        for (String resourceId : List.of("new", "repaired", "whited", "ignored")) {
+            buffer.add(resource(resourceId), new HashMap<>(Map.of("risk", true)));
+        }
+        verify(ruleScanResultMapper, never()).batchUpsert(anyList());
+        buffer.flush();
+
+        ArgumentCaptor<List<RuleScanResultPO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(ruleScanResultMapper, times(1)).batchUpsert(rows.capture());
+        Map<String, RuleScanResultPO> byResource = new HashMap<>();
+        rows.getValue().forEach(row -> byResource.put(row.getResourceId(), row));
+        assertEquals(4, byResource.size());
+        assertEquals(1, byResource.get("new").getIsNew());
+        assertEquals(RiskStatusManager.RiskStatus.UNREPAIRED.name(), byResource.get("new").getStatus());
+        assertEquals(RiskStatusManager.RiskStatus.UNREPAIRED.name(), byResource.get("repaired").getStatus());
+        assertEquals(RiskStatusManager.RiskStatus.UNREPAIRED.name(), byResource.get("whited").getStatus());
+        assertNull(byResource.get("whited").getWhitedId());
+        assertEquals(RiskStatusManager.RiskStatus.IGNORED.name(), byResource.get("ignored").getStatus());
+        assertEquals(3L, byResource.get("ignored").getVersion());
+
+        ArgumentCaptor<List<OperationLogPO>> logs = ArgumentCaptor.forClass(List.class);
+        verify(operationLogMapper, times(1)).insertBatch(logs.capture());
+        Map<Long, String> actions = new HashMap<>();
+        logs.getValue().forEach(l -> actions.put(l.getCorrelationId(), l.getAction()));
+        assertEquals(Map.of(10L, Action.RiskAction.REPAIRED.getName(), 11L, Action.RiskAction.CANCEL_WHITED.getName()),
+                actions);
+
+        assertEquals(1, buffer.getFlushCount());
+        assertEquals(4, buffer.getWrittenRows());
+        assertEquals(2, buffer.getWrittenLogs());
+    }
+
+    @Test
+    void flushWhenBufferIsFull() {
+        scanResultWriterProperties.setFlushSize(2);
+        when(ruleScanResultMapper.findByResourceIdList(anyLong(), anyString(), anyList())).thenReturn(new ArrayList<>());
+
+        RuleScanResultWriter.Buffer buffer = writer.open(ruleAgg, cloudAccountPO, 1L);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(resource("r" + i), new HashMap<>(Map.of("risk", true)));
+        }
+        verify(ruleScanResultMapper, times(2)).batchUpsert(anyList());
+        buffer.flush();
+        verify(ruleScanResultMapper, times(3)).batchUpsert(anyList());
+        verify(operationLogMapper, never()).insertBatch(any());
+        assertEquals(5, buffer.getWrittenRows());
+    }
+
+    private static RuleScanResultPO existing(Long id, String resourceId, RiskStatusManager.RiskStatus status) {
+        RuleScanResultPO po = new RuleScanResultPO();
+        po.setId(id);
+        po.setResourceId(resourceId);
+        po.setStatus(status.name());
+        return po;
+    }
+
+    private static CloudResourceInstancePO resource(String resourceId) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setResourceId(resourceId);
+        po.setCloudAccountId("account");
+        po.setGmtModified(new Date());
+        po.setInstance("{}");
+        return po;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.mapper.RuleScanCheckpointMapper;
+import com.alipay.dao.po.RuleScanCheckpointPO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ScanCheckpointManagerTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/24 17:20
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanCheckpointManagerTest {
+
+    private static final String ACCOUNT = "1001";
+
+    @Mock
+    private RuleScanCheckpointMapper ruleScanCheckpointMapper;
+
+    @Spy
+    private ScanCheckpointProperties scanCheckpointProperties = new ScanCheckpointProperties();
+
+    @InjectMocks
+    private ScanCheckpointManager scanCheckpointManager;
+
+    private final RuleAgg ruleAgg = new RuleAgg();
+
+    @BeforeEach
+    void setUp() {
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("PUBLIC");
+        ruleAgg.setLastScanTimeStart(new Date(System.currentTimeMillis() - 3_600_000L + 400));
+    }
+
+    @Test
+    void begin_resumesRunningCheckpointWithItsVersion() {
+        when(ruleScanCheckpointMapper.findOne(1L, ACCOUNT)).thenReturn(po(ScanCheckpointManager.RUNNING, 7L, 1200L,
+                new Date(System.currentTimeMillis() - 3_600_000L), new Date()));
+
+        // the interrupted scan already wrote findings of version 7
+        ScanCheckpointManager.Checkpoint checkpoint = scanCheckpointManager.begin(ruleAgg, ACCOUNT, 7L);
+
+        assertEquals(new ScanCheckpointManager.Checkpoint(7L, 1200L, true), checkpoint);
+    }
+
+    @Test
+    void begin_startsOverWhenANewerVersionFinished() {
+        when(ruleScanCheckpointMapper.findOne(1L, ACCOUNT)).thenReturn(po(ScanCheckpointManager.RUNNING, 7L, 1200L,
+                new Date(), new Date()));
+
+        ScanCheckpointManager.Checkpoint checkpoint = scanCheckpointManager.begin(ruleAgg, ACCOUNT, 8L);
+
+        assertEquals(new ScanCheckpointManager.Checkpoint(9L, 0L, false), checkpoint);
+        ArgumentCaptor<RuleScanCheckpointPO> saved = ArgumentCaptor.forClass(RuleScanCheckpointPO.class);
+        verify(ruleScanCheckpointMapper).upsert(saved.capture());
+        assertEquals(ScanCheckpointManager.RUNNING, saved.getValue().getStatus());
+        assertEquals(0L, saved.getValue().getScrollId());
+    }
+
+    @Test
+    void begin_skipsScansFinishedInTheSameRun() {
+        // the database keeps whole seconds
+        Date runStartTime = new Date(ruleAgg.getLastScanTimeStart().getTime() / 1000 * 1000);
+        when(ruleScanCheckpointMapper.findOne(1L, ACCOUNT)).thenReturn(po(ScanCheckpointManager.FINISHED, 7L, 0L,
+                runStartTime, new Date()));
+        assertNull(scanCheckpointManager.begin(ruleAgg, ACCOUNT, 7L));
+
+        // a finished scan of an earlier run is scanned again
+        when(ruleScanCheckpointMapper.findOne(1L, ACCOUNT)).thenReturn(po(ScanCheckpointManager.FINISHED, 7L, 0L,
+                new Date(runStartTime.getTime() - 86_400_000L), new Date()));
+        assertEquals(new ScanCheckpointManager.Checkpoint(8L, 0L, false),
+                scanCheckpointManager.begin(ruleAgg, ACCOUNT, 7L));
+    }
+
+    @Test
+    void isInterrupted_onlyWithoutRecentProgress() {
+        when(ruleScanCheckpointMapper.findByRuleId(1L)).thenReturn(List.of(
+                po(ScanCheckpointManager.RUNNING, 7L, 1200L, new Date(), new Date())));
+        assertFalse(scanCheckpointManager.isInterrupted(1L));
+
+        when(ruleScanCheckpointMapper.findByRuleId(1L)).thenReturn(List.of(
+                po(ScanCheckpointManager.RUNNING, 7L, 1200L, new Date(), new Date(System.currentTimeMillis() - 3_600_000L))));
+        assertTrue(scanCheckpointManager.isInterrupted(1L));
+    }
+
+    private static RuleScanCheckpointPO po(String status, Long version, Long scrollId, Date runStartTime,
+                                           Date gmtModified) {
+        RuleScanCheckpointPO po = new RuleScanCheckpointPO();
+        po.setRuleId(1L);
+        po.setCloudAccountId(ACCOUNT);
+        po.setStatus(status);
+        po.setVersion(version);
+        po.setScrollId(scrollId);
+        po.setRunStartTime(runStartTime);
+        po.setGmtModified(gmtModified);
+        return po;
+    }
+}
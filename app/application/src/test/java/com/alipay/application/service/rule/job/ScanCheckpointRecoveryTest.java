@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.common.utils.DBDistributedLockUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ScanCheckpointRecoveryTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/4 10:15
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanCheckpointRecoveryTest {
+
+    private static final String LOCK = ScanServiceImpl.localLockPrefix + 1L;
+
+    @Mock
+    private ScanCheckpointManager scanCheckpointManager;
+
+    @Spy
+    private ScanCheckpointProperties scanCheckpointProperties = new ScanCheckpointProperties();
+
+    @Spy
+    private ScanShardingProperties scanShardingProperties = new ScanShardingProperties();
+
+    @Mock
+    private DBDistributedLockUtil dbDistributedLockUtil;
+
+    @Mock
+    private ScanService scanService;
+
+    @Mock
+    private ScanScheduler scanScheduler;
+
+    @InjectMocks
+    private ScanCheckpointRecovery scanCheckpointRecovery;
+
+    @Test
+    void releasesStaleLockOfAnotherHost() {
+        when(scanCheckpointManager.findInterruptedRuleIds()).thenReturn(List.of(1L));
+        when(dbDistributedLockUtil.releaseLock(eq(LOCK), anyString())).thenReturn(false);
+
+        ReflectionTestUtils.invokeMethod(scanCheckpointRecovery, "resume", (Object) null);
+
+        long heartbeatMs = ScanServiceImpl.RULE_LOCK_EXPIRE_MS / 3 + scanCheckpointProperties.getStaleMs();
+        verify(dbDistributedLockUtil).releaseStaleLock(LOCK, heartbeatMs);
+        verify(scanScheduler).submit(eq(ScanScheduler.Priority.PERIODIC), any(), eq(ScanScheduler.ruleKey(1L)), any());
+    }
+
+    @Test
+    void releasesOwnLockWithoutCheckingItsAge() {
+        when(scanCheckpointManager.findInterruptedRuleIds()).thenReturn(List.of(1L));
+        when(dbDistributedLockUtil.releaseLock(LOCK, DBDistributedLockUtil.getHostName())).thenReturn(true);
+
+        ReflectionTestUtils.invokeMethod(scanCheckpointRecovery, "resume", (Object) null);
+
+        verify(dbDistributedLockUtil, never()).releaseStaleLock(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.share.vo.rule.ScanSchedulerStatusVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title ScanSchedulerTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/27 15:20
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanSchedulerTest {
+
+    @Spy
+    private ScanSchedulerProperties scanSchedulerProperties = new ScanSchedulerProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ScanScheduler scanScheduler;
+
+    @BeforeEach
+    void setUp() {
+        // no workers, the test takes the units itself
+        scanSchedulerProperties.setWorkers(0);
+        scanSchedulerProperties.setInteractiveWorkers(0);
+        scanScheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanScheduler.stop();
+    }
+
+    @Test
+    void take_ordersByPriorityAndSharesFairlyBetweenTenants() throws Exception {
+        // tenant 1 floods the periodic queue before tenant 2 and the global tenant
+        for (int i = 0; i < 3; i++) {
+            submit(ScanScheduler.Priority.PERIODIC, 1L, ScanScheduler.accountKey("a" + i));
+        }
+        submit(ScanScheduler.Priority.PERIODIC, 2L, ScanScheduler.accountKey("b0"));
+        submit(ScanScheduler.Priority.PERIODIC, null, "scanAll");
+        submit(ScanScheduler.Priority.ONBOARDING, 2L, ScanScheduler.accountKey("new"));
+        submit(ScanScheduler.Priority.INTERACTIVE, 1L, ScanScheduler.ruleKey(7L));
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            order.add(scanScheduler.take(false).getKey());
+        }
+
+        assertEquals(List.of("rule:7", "account:new", "account:a0", "account:b0", "scanAll", "account:a1",
+                "account:a2"), order);
+        ScanSchedulerStatusVO.PriorityVO periodic = scanScheduler.getStatus().getPriorities().get(2);
+        assertEquals("PERIODIC", periodic.getPriority());
+        assertEquals(5L, periodic.getStarted());
+        assertEquals(0, periodic.getQueued());
+        assertEquals(1L, meterRegistry.get("cloudrec.scan.scheduler.wait").tag("priority", "INTERACTIVE").timer().count());
+    }
+
+    @Test
+    void submit_deduplicatesQueuedUnitsAndPromotesThem() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Void> periodic = scanScheduler.submit(ScanScheduler.Priority.PERIODIC, 1L,
+                ScanScheduler.ruleKey(7L), runs::incrementAndGet);
+        submit(ScanScheduler.Priority.PERIODIC, 1L, ScanScheduler.accountKey("a0"));
+        // a user asks for the queued rule scan
+        CompletableFuture<Void> interactive = scanScheduler.submit(ScanScheduler.Priority.INTERACTIVE, 2L,
+                ScanScheduler.ruleKey(7L), runs::incrementAndGet);
+
+        assertSame(periodic, interactive);
+        ScanSchedulerStatusVO status = scanScheduler.getStatus();
+        assertEquals(1, status.getPriorities().get(0).getQueued());
+        assertEquals(1L, status.getPriorities().get(0).getDeduplicated());
+        assertEquals(1, status.getPriorities().get(2).getQueued());
+
+        // only an interactive worker can take it now
+        ScanScheduler.Unit unit = scanScheduler.take(true);
+        assertEquals("rule:7", unit.getKey());
+        scanScheduler.run(unit);
+        assertEquals(1, runs.get());
+        assertTrue(periodic.isDone());
+
+        // once started the key can be queued again
+        assertNotSame(periodic, scanScheduler.submit(ScanScheduler.Priority.PERIODIC, 1L, ScanScheduler.ruleKey(7L),
+                runs::incrementAndGet));
+    }
+
+    private void submit(ScanScheduler.Priority priority, Long tenantId, String key) {
+        scanScheduler.submit(priority, tenantId, key, () -> {
+        });
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.common.utils.DBDistributedLockUtil;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.RuleGroup;
+import com.alipay.application.service.rule.domain.repo.RuleGroupRepository;
+import com.alipay.application.service.rule.domain.repo.RuleRepository;
+import com.alipay.application.share.vo.ApiResponse;
+import com.alipay.common.enums.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ScanServiceCheckTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/4 16:30
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanServiceCheckTest {
+
+    private static final String LOCK = ScanServiceImpl.localLockPrefix + 1L;
+
+    @Mock
+    private RuleRepository ruleRepository;
+
+    @Mock
+    private RuleGroupRepository ruleGroupRepository;
+
+    @Mock
+    private DBDistributedLockUtil dbDistributedLockUtil;
+
+    @Mock
+    private ScanCheckpointManager scanCheckpointManager;
+
+    @InjectMocks
+    private ScanServiceImpl scanService;
+
+    @Test
+    void ruleThatDoesNotExistCanNotBeScanned() {
+        assertEquals("The current rule does not exist", scanService.checkScanRule(1L).getMsg());
+    }
+
+    @Test
+    void invalidRuleCanNotBeScanned() {
+        when(ruleRepository.findByRuleId(1L)).thenReturn(rule(Status.invalid.name(), 0));
+
+        assertEquals("The current rule is not valid", scanService.checkScanRule(1L).getMsg());
+    }
+
+    @Test
+    void lockedRuleCanNotBeScanned() {
+        when(ruleRepository.findByRuleId(1L)).thenReturn(rule(Status.valid.name(), 0));
+        when(dbDistributedLockUtil.isLocked(LOCK, ScanServiceImpl.RULE_LOCK_EXPIRE_MS)).thenReturn(true);
+
+        ApiResponse<String> response = scanService.checkScanRule(1L);
+
+        assertEquals(ApiResponse.FAIL_CODE, response.getCode());
+        assertEquals("The current rule is running", response.getMsg());
+    }
+
+    @Test
+    void recentlyStartedRuleCanNotBeScanned() {
+        when(ruleRepository.findByRuleId(1L)).thenReturn(rule(Status.valid.name(), 1));
+
+        assertEquals("The current rule is running, please try again after 6 hours",
+                scanService.checkScanRule(1L).getMsg());
+    }
+
+    @Test
+    void interruptedRuleCanBeScanned() {
+        when(ruleRepository.findByRuleId(1L)).thenReturn(rule(Status.valid.name(), 1));
+        when(scanCheckpointManager.isInterrupted(1L)).thenReturn(true);
+
+        assertEquals(ApiResponse.SUCCESS_CODE, scanService.checkScanRule(1L).getCode());
+    }
+
+    @Test
+    void groupWithoutValidRuleCanNotBeScanned() {
+        assertEquals("The current rule group does not exist", scanService.checkScanGroup(2L).getMsg());
+
+        when(ruleGroupRepository.findOne(2L)).thenReturn(new RuleGroup());
+        when(ruleRepository.findByGroupId(2L, Status.valid.name())).thenReturn(List.of());
+        assertEquals("The current rule group has no valid rule", scanService.checkScanGroup(2L).getMsg());
+
+        when(ruleRepository.findByGroupId(2L, Status.valid.name())).thenReturn(List.of(rule(Status.valid.name(), 0)));
+        assertEquals(ApiResponse.SUCCESS_CODE, scanService.checkScanGroup(2L).getCode());
+    }
+
+    private static RuleAgg rule(String status, int isRunning) {
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("PUBLIC");
+        ruleAgg.setStatus(status);
+        ruleAgg.setIsRunning(isRunning);
+        ruleAgg.setLastScanTimeStart(new Date());
+        return ruleAgg;
+    }
+}
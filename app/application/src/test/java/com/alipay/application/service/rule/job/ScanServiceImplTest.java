@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alipay.application.service.common.RealTimeNotify;
+import com.alipay.application.service.common.utils.DBDistributedLockUtil;
+import com.alipay.application.service.common.utils.ScanThrottle;
+import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.service.resource.task.ResourceJoinProperties;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.application.service.system.domain.repo.TenantRepository;
+import com.alipay.application.share.request.rule.LinkDataParam;
+import com.alipay.common.enums.AssociativeMode;
+import com.alipay.dao.mapper.RuleScanFingerprintMapper;
+import com.alipay.dao.mapper.RuleScanResultMapper;
+import com.alipay.dao.po.CloudAccountPO;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ScanServiceImplTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/22 15:30
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanServiceImplTest {
+
+    private static final String PLATFORM = "ALI_CLOUD";
+
+    private static final String ACCOUNT = "1001";
+
+    /**
+     * two pages and a half
+     */
+    private static final int ECS_COUNT = 2500;
+
+    @Mock
+    private IQueryResource iQueryResource;
+
+    @Mock
+    private OpaRepository opaRepository;
+
+    @Mock
+    private TenantRepository tenantRepository;
+
+    @Mock
+    private RuleScanResultMapper ruleScanResultMapper;
+
+    @Mock
+    private RuleScanResultWriter ruleScanResultWriter;
+
+    @Mock
+    private RealTimeNotify realTimeNotify;
+
+    @Mock
+    private ScanThrottle scanThrottle;
+
+    @Mock
+    private ScanCheckpointManager scanCheckpointManager;
+
+    @Mock
+    private RuleCostProfiler ruleCostProfiler;
+
+    @Mock
+    private DBDistributedLockUtil dbDistributedLockUtil;
+
+    @Mock
+    private PreFilterIndex preFilterIndex;
+
+    @Spy
+    private IncrementalScanner incrementalScanner = new IncrementalScanner();
+
+    @Spy
+    private ResourceJoinProperties resourceJoinProperties = new ResourceJoinProperties();
+
+    @Spy
+    private PolicyResultCache policyResultCache = new PolicyResultCache();
+
+    @InjectMocks
+    private ScanServiceImpl scanService;
+
+    private final List<String> findings = Collections.synchronizedList(new ArrayList<>());
+
+    private final CloudAccountPO cloudAccountPO = new CloudAccountPO();
+
+    @BeforeEach
+    void setUp() {
+        // full scans, every resource is evaluated
+        ScanIncrementalProperties scanIncrementalProperties = new ScanIncrementalProperties();
+        scanIncrementalProperties.setEnabled(false);
+        ReflectionTestUtils.setField(incrementalScanner, "ruleScanFingerprintMapper", mock(RuleScanFingerprintMapper.class));
+        ReflectionTestUtils.setField(incrementalScanner, "scanIncrementalProperties", scanIncrementalProperties);
+        ReflectionTestUtils.setField(incrementalScanner, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(policyResultCache, "policyResultCacheProperties", new PolicyResultCacheProperties());
+        ReflectionTestUtils.setField(policyResultCache, "meterRegistry", new SimpleMeterRegistry());
+        policyResultCache.init();
+
+        cloudAccountPO.setCloudAccountId(ACCOUNT);
+        cloudAccountPO.setTenantId(1L);
+        cloudAccountPO.setPlatform(PLATFORM);
+
+        Map<String, List<CloudResourceInstancePO>> resources = new HashMap<>();
+        List<CloudResourceInstancePO> ecs = new ArrayList<>();
+        for (int i = 1; i <= ECS_COUNT; i++) {
+            ecs.add(resource(i, "{\"InstanceId\":\"i-" + i + "\",\"Public\":" + (i % 3 == 0) + ",\"VpcId\":\"vpc-" + (i % 2) + "\"}"));
+        }
+        resources.put("ECS", ecs);
+        resources.put("VPC", List.of(
+                resource(10_001, "{\"VpcId\":\"vpc-0\",\"CidrBlock\":\"0.0.0.0/0\"}"),
+                resource(10_002, "{\"VpcId\":\"vpc-1\",\"CidrBlock\":\"10.0.0.0/8\"}")));
+        when(iQueryResource.queryByCond(eq(PLATFORM), anyString(), eq(ACCOUNT), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long scrollId = invocation.getArgument(3);
+            int size = invocation.getArgument(4);
+            return new ArrayList<>(resources.getOrDefault(invocation.<String>getArgument(1), List.of()).stream()
+                    .filter(r -> r.getId() > scrollId).limit(size).map(ScanServiceImplTest::copy).toList());
+        });
+
+        when(opaRepository.batchCallOpa(anyString(), anyString(), anyMap())).thenAnswer(invocation -> {
+            String path = invocation.getArgument(0);
+            Map<String, String> inputs = invocation.getArgument(2);
+            Map<String, Map<String, Object>> results = new HashMap<>();
+            inputs.forEach((id, input) -> results.put(id, new HashMap<>(Map.of("risk", evaluate(path, JSON.parseObject(input))))));
+            return results;
+        });
+
+        when(ruleScanResultWriter.open(any(), any(), anyLong())).thenAnswer(invocation -> {
+            RuleAgg ruleAgg = invocation.getArgument(0);
+            RuleScanResultWriter.Buffer buffer = mock(RuleScanResultWriter.Buffer.class);
+            doAnswer(add -> findings.add(ruleAgg.getRuleCode() + " " + JSON.toJSONString(add.getArgument(1))))
+                    .when(buffer).add(any(), any());
+            return buffer;
+        });
+        lenient().when(tenantRepository.isSelected(1L, "NOT_SELECTED")).thenReturn(false);
+        lenient().when(preFilterIndex.get(any(), anyString())).thenReturn(PreFilter.NONE);
+        // no interrupted scans
+        lenient().when(scanCheckpointManager.begin(any(), eq(ACCOUNT), any())).thenAnswer(invocation -> {
+            Long maxVersion = invocation.getArgument(2);
+            return new ScanCheckpointManager.Checkpoint(maxVersion == null ? 1 : maxVersion + 1, 0L, false);
+        });
+    }
+
+    @Test
+    void scanByResourceTypeFindsTheSameRisksAsScanByRule() {
+        List<RuleAgg> rules = List.of(
+                rule(1L, "PUBLIC", "cloudrec.public", null),
+                rule(2L, "OPEN_VPC", "cloudrec.open_vpc", vpcLink()),
+                rule(3L, "OPEN_VPC_PUBLIC", "cloudrec.open_vpc_public", vpcLink()),
+                rule(4L, "NOT_SELECTED", "cloudrec.public", null));
+
+        for (RuleAgg ruleAgg : rules) {
+            scanService.scanByRule(ruleAgg, cloudAccountPO, !"NOT_SELECTED".equals(ruleAgg.getRuleCode()));
+        }
+        List<String> byRule = new ArrayList<>(findings);
+        findings.clear();
+        verify(iQueryResource, times(3 * 4)).queryByCond(eq(PLATFORM), eq("ECS"), eq(ACCOUNT), anyLong(), anyInt());
+        clearInvocations(iQueryResource);
+
+        scanService.scanByResourceType(rules, cloudAccountPO, ruleAgg -> !"NOT_SELECTED".equals(ruleAgg.getRuleCode()));
+        List<String> byResourceType = new ArrayList<>(findings);
+
+        Collections.sort(byRule);
+        Collections.sort(byResourceType);
+        assertEquals(byRule, byResourceType);
+        assertTrue(byRule.stream().anyMatch(f -> f.startsWith("PUBLIC ")));
+        assertTrue(byRule.stream().anyMatch(f -> f.startsWith("OPEN_VPC ")));
+        assertTrue(byRule.stream().anyMatch(f -> f.startsWith("OPEN_VPC_PUBLIC ")));
+        // one probe and three pages for all rules
+        verify(iQueryResource, times(4)).queryByCond(eq(PLATFORM), eq("ECS"), eq(ACCOUNT), anyLong(), anyInt());
+    }
+
+    @Test
+    void interruptedScansResumeFromTheirCheckpoint() {
+        RuleAgg publicRule = rule(1L, "PUBLIC", "cloudrec.public", null);
+        RuleAgg openVpcRule = rule(2L, "OPEN_VPC", "cloudrec.open_vpc", vpcLink());
+        for (RuleAgg ruleAgg : List.of(publicRule, openVpcRule)) {
+            scanService.scanByRule(ruleAgg, cloudAccountPO, true);
+        }
+        List<String> full = new ArrayList<>(findings);
+        findings.clear();
+        clearInvocations(scanCheckpointManager, ruleScanResultWriter);
+
+        // PUBLIC was interrupted after resource 1200 of version 7, OPEN_VPC starts over
+        when(scanCheckpointManager.begin(eq(publicRule), eq(ACCOUNT), any()))
+                .thenReturn(new ScanCheckpointManager.Checkpoint(7L, 1200L, true));
+        scanService.scanByResourceType(List.of(publicRule, openVpcRule), cloudAccountPO, ruleAgg -> true);
+        List<String> resumed = new ArrayList<>(findings);
+
+        List<String> expected = new ArrayList<>(full.stream()
+                .filter(f -> f.startsWith("OPEN_VPC ") || resourceId(f) > 1200).toList());
+        Collections.sort(expected);
+        Collections.sort(resumed);
+        assertEquals(expected, resumed);
+        // the findings keep the version of the interrupted scan and the older versions are resolved against it
+        verify(ruleScanResultWriter).open(eq(publicRule), any(), eq(7L));
+        verify(scanCheckpointManager).save(eq(publicRule), eq(ACCOUNT), any(), eq(2000L));
+        verify(scanCheckpointManager, times(0)).save(eq(publicRule), eq(ACCOUNT), any(), eq(1000L));
+        verify(scanCheckpointManager).save(eq(openVpcRule), eq(ACCOUNT), any(), eq(1000L));
+    }
+
+    private static long resourceId(String finding) {
+        String resourceId = JSON.parseObject(finding.substring(finding.indexOf(' ') + 1)).getString("ResourceId");
+        return Long.parseLong(resourceId.substring("r-".length()));
+    }
+
+    private static boolean evaluate(String path, JSONObject input) {
+        boolean open = input.getJSONObject("vpc") != null
+                && "0.0.0.0/0".equals(input.getJSONObject("vpc").getString("CidrBlock"));
+        return switch (path) {
+            case "cloudrec.public" -> input.getBooleanValue("Public");
+            case "cloudrec.open_vpc" -> open;
+            case "cloudrec.open_vpc_public" -> open && input.getBooleanValue("Public");
+            default -> false;
+        };
+    }
+
+    private static RuleAgg rule(Long id, String ruleCode, String regoPath, String linkedDataList) {
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setId(id);
+        ruleAgg.setRuleCode(ruleCode);
+        ruleAgg.setRuleName(ruleCode);
+        ruleAgg.setPlatform(PLATFORM);
+        ruleAgg.setResourceType("ECS");
+        ruleAgg.setRegoPath(regoPath);
+        ruleAgg.setRegoPolicy("package " + regoPath);
+        ruleAgg.setLinkedDataList(linkedDataList);
+        return ruleAgg;
+    }
+
+    private static String vpcLink() {
+        LinkDataParam param = new LinkDataParam();
+        param.setResourceType(List.of(PLATFORM, "VPC"));
+        param.setLinkedKey1("$.VpcId");
+        param.setLinkedKey2("$.VpcId");
+        param.setNewKeyName("vpc");
+        param.setAssociativeMode(AssociativeMode.ONE_TO_ONE.getName());
+        return JSON.toJSONString(List.of(param));
+    }
+
+    private static CloudResourceInstancePO resource(long id, String instance) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setId(id);
+        po.setPlatform(PLATFORM);
+        po.setCloudAccountId(ACCOUNT);
+        po.setResourceId("r-" + id);
+        po.setResourceName("resource " + id);
+        po.setInstance(instance);
+        return po;
+    }
+
+    private static CloudResourceInstancePO copy(CloudResourceInstancePO po) {
+        return resource(po.getId(), po.getInstance());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import com.alipay.application.service.common.utils.DBDistributedLockUtil;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.dao.mapper.RuleScanShardRunMapper;
+import com.alipay.dao.po.RuleScanShardRunPO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title ShardingScanRunCoordinatorTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 14:40
+ */
+@ExtendWith(MockitoExtension.class)
+class ShardingScanRunCoordinatorTest {
+
+    private static final String LOCK = "rule::scan::running::1";
+
+    @Mock
+    private RuleScanShardRunMapper ruleScanShardRunMapper;
+
+    @Mock
+    private DBDistributedLockUtil dbDistributedLockUtil;
+
+    @InjectMocks
+    private ShardingScanRunCoordinator coordinator;
+
+    private final RuleAgg ruleAgg = new RuleAgg();
+
+    @BeforeEach
+    void setUp() {
+        coordinator.joinRetryMs = 0;
+        ruleAgg.setId(1L);
+        ruleAgg.setRuleCode("PUBLIC");
+    }
+
+    @Test
+    void startsRunWhenNoneIsRunning() {
+        Date start = new Date();
+        ShardingScanRunCoordinator.Run run = coordinator.join(ruleAgg, LOCK, 0, 3, r -> {
+            r.setLastScanTimeStart(start);
+            return null;
+        });
+
+        assertNotNull(run);
+        assertTrue(run.started());
+        ArgumentCaptor<RuleScanShardRunPO> captor = ArgumentCaptor.forClass(RuleScanShardRunPO.class);
+        verify(ruleScanShardRunMapper).start(captor.capture());
+        assertEquals(start, captor.getValue().getRunStartTime());
+        assertEquals(3, captor.getValue().getNodeCount());
+        assertEquals(run.runId(), captor.getValue().getRunId());
+    }
+
+    @Test
+    void joinsRunningRunAndTakesItsStartTime() {
+        Date start = new Date(System.currentTimeMillis() - 60_000L);
+        when(ruleScanShardRunMapper.findOne(1L)).thenReturn(running(start, 3, 0b001L));
+        when(dbDistributedLockUtil.joinLock(LOCK)).thenReturn(true);
+
+        ShardingScanRunCoordinator.Run run = coordinator.join(ruleAgg, LOCK, 1, 3, r -> {
+            throw new AssertionError("joining node must not start the rule");
+        });
+
+        assertNotNull(run);
+        assertFalse(run.started());
+        assertEquals("run-1", run.runId());
+        assertEquals(start, ruleAgg.getLastScanTimeStart());
+        verify(ruleScanShardRunMapper, never()).start(any());
+    }
+
+    @Test
+    void doesNotJoinRunItAlreadyFinishedItsShardOf() {
+        when(ruleScanShardRunMapper.findOne(1L)).thenReturn(running(new Date(), 3, 0b010L));
+
+        ShardingScanRunCoordinator.Run run = coordinator.join(ruleAgg, LOCK, 1, 3, r -> null);
+
+        assertTrue(run.started());
+        verify(dbDistributedLockUtil, never()).joinLock(LOCK);
+    }
+
+    @Test
+    void skipsRuleThatKeepsRunningElsewhere() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        ShardingScanRunCoordinator.Run run = coordinator.join(ruleAgg, LOCK, 0, 3, r -> {
+            attempts.incrementAndGet();
+            return "The current rule is running";
+        });
+
+        assertNull(run);
+        assertEquals(5, attempts.get());
+    }
+
+    @Test
+    void onlyLastNodeFinishesRun() {
+        ShardingScanRunCoordinator.Run run = new ShardingScanRunCoordinator.Run(1L, "run-1", new Date(), false);
+        when(ruleScanShardRunMapper.finishRun(1L, "run-1", 0b111L)).thenReturn(0, 1);
+
+        assertFalse(coordinator.finishNode(run, LOCK, 0, 3));
+        verify(dbDistributedLockUtil).leaveLock(LOCK);
+
+        assertTrue(coordinator.finishNode(run, LOCK, 2, 3));
+        verify(ruleScanShardRunMapper).finishNode(1L, "run-1", 0b001L);
+        verify(ruleScanShardRunMapper).finishNode(1L, "run-1", 0b100L);
+    }
+
+    private static RuleScanShardRunPO running(Date start, int nodeCount, long finishedNodes) {
+        RuleScanShardRunPO po = new RuleScanShardRunPO();
+        po.setRuleId(1L);
+        po.setRunId("run-1");
+        po.setRunStartTime(start);
+        po.setNodeCount(nodeCount);
+        po.setFinishedNodes(finishedNodes);
+        po.setStatus(ShardingScanRunCoordinator.RUNNING);
+        return po;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *@title ShardingScanUnitTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/9/22 11:05
+ */
+class ShardingScanUnitTest {
+
+    @Test
+    void shardOf() {
+        int nodeCount = 3;
+        int[] counts = new int[nodeCount];
+        Set<String> owned = new HashSet<>();
+        for (long ruleId = 1; ruleId <= 200; ruleId++) {
+            for (int account = 0; account < 30; account++) {
+                String cloudAccountId = "account-" + account;
+                int shard = ShardingScanUnit.shardOf(ruleId, cloudAccountId, nodeCount);
+                assertTrue(shard >= 0 && shard < nodeCount);
+                // the same unit always lands on the same node
+                assertEquals(shard, ShardingScanUnit.shardOf(ruleId, cloudAccountId, nodeCount));
+                assertTrue(owned.add(ShardingScanUnit.key(ruleId, cloudAccountId)));
+                counts[shard]++;
+            }
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 6000 / nodeCount / 2, "unbalanced shards");
+        }
+        assertEquals(0, ShardingScanUnit.shardOf(1L, "account-0", 1));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job.context;
+
+import com.alipay.application.service.rule.domain.GlobalVariable;
+import com.alipay.application.service.rule.domain.RuleAgg;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title PolicySyncManagerTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/20 10:26
+ */
+@ExtendWith(MockitoExtension.class)
+class PolicySyncManagerTest {
+
+    private static final String POLICY_1 = "package cloudrec.ecs_001\nrisk if { input.public }";
+
+    private static final String POLICY_2 = "package cloudrec.ecs_002\nrisk if { input.open }";
+
+    private static final String PORTS = "[22,3389]";
+
+    @Mock
+    private PolicyEngine policyEngine;
+
+    @Spy
+    private PolicySyncProperties policySyncProperties = new PolicySyncProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PolicySyncManager policySyncManager;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncAllPushesOnlyDocumentsTheEngineDoesNotHold() throws Exception {
+        when(policyEngine.getData(PolicySyncManager.MANIFEST_PATH)).thenReturn(Map.of(
+                "policy:cloudrec.ecs_001", hash(POLICY_1),
+                "data:cloudrec/ports", hash(PORTS)));
+
+        PolicySyncManager.SyncReport report = policySyncManager.syncAll(() -> List.of(
+                rule("cloudrec.ecs_001", POLICY_1), rule("cloudrec.ecs_002", POLICY_2)));
+
+        // the global variable shared by both rules is one document
+        assertEquals(3, report.documents());
+        assertEquals(1, report.pushed());
+        assertEquals(2, report.skipped());
+        assertEquals(PolicySyncManager.State.READY, policySyncManager.getState());
+        assertTrue(policySyncManager.awaitReady());
+        verify(policyEngine).createOrUpdatePolicy("cloudrec.ecs_002", POLICY_2);
+        verify(policyEngine, never()).createOrUpdatePolicy(eq("cloudrec.ecs_001"), anyString());
+        verify(policyEngine, never()).upsertData(eq("cloudrec/ports"), any());
+        // the skipped documents are restored to a server that restarts
+        verify(policyEngine).rememberPolicy("cloudrec.ecs_001", POLICY_1);
+        verify(policyEngine).rememberData(eq("cloudrec/ports"), eq(List.of(22, 3389)));
+
+        ArgumentCaptor<Object> manifest = ArgumentCaptor.forClass(Object.class);
+        verify(policyEngine).upsertData(eq(PolicySyncManager.MANIFEST_PATH), manifest.capture());
+        assertEquals(hash(POLICY_2), ((Map<String, String>) manifest.getValue()).get("policy:cloudrec.ecs_002"));
+        assertEquals(3, ((Map<String, String>) manifest.getValue()).size());
+    }
+
+    @Test
+    void failedPushIsRetriedByTheNextSync() throws Exception {
+        doThrow(new IllegalStateException("opa unavailable")).doNothing()
+                .when(policyEngine).createOrUpdatePolicy("cloudrec.ecs_001", POLICY_1);
+
+        PolicySyncManager.SyncReport report = policySyncManager.syncAll(() -> List.of(rule("cloudrec.ecs_001", POLICY_1)));
+        assertEquals(1, report.failed());
+        assertEquals(1, report.pushed());
+
+        report = policySyncManager.sync(List.of(rule("cloudrec.ecs_001", POLICY_1)));
+        assertEquals(1, report.pushed());
+        assertEquals(1, report.skipped());
+        verify(policyEngine, times(2)).createOrUpdatePolicy("cloudrec.ecs_001", POLICY_1);
+    }
+
+    @Test
+    void forgottenPolicyIsPushedAgain() throws Exception {
+        policySyncManager.syncAll(() -> List.of(rule("cloudrec.ecs_001", POLICY_1)));
+        assertEquals(0, policySyncManager.sync(List.of(rule("cloudrec.ecs_001", POLICY_1))).pushed());
+
+        // e.g. a policy under test was pushed to the same package
+        policySyncManager.forget("cloudrec.ecs_001");
+
+        assertEquals(1, policySyncManager.sync(List.of(rule("cloudrec.ecs_001", POLICY_1))).pushed());
+        verify(policyEngine, times(2)).createOrUpdatePolicy("cloudrec.ecs_001", POLICY_1);
+    }
+
+    private static RuleAgg rule(String regoPath, String regoPolicy) {
+        GlobalVariable ports = new GlobalVariable();
+        ports.setPath("cloudrec/ports");
+        ports.setData(PORTS);
+        RuleAgg ruleAgg = new RuleAgg();
+        ruleAgg.setRegoPath(regoPath);
+        ruleAgg.setRegoPolicy(regoPolicy);
+        ruleAgg.setGlobalVariables(List.of(ports));
+        return ruleAgg;
+    }
+
+    private static String hash(String content) {
+        return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+}
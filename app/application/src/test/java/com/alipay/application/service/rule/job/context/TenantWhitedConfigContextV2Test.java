@@ -40,6 +40,9 @@ class TenantWhitedConfigContextV2Test {
     @Mock
     private TenantRepository tenantRepository;
 
+    @Mock
+    private WhitedRegoPolicyRegistry whitedRegoPolicyRegistry;
+
     @InjectMocks
     private TenantWhitedConfigContextV2 tenantWhitedConfigContext;
 
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.application.service.rule.job.context;
+
+import com.alipay.application.service.rule.domain.repo.OpaRepository;
+import com.alipay.application.service.rule.domain.repo.engine.PolicyEngine;
+import com.alipay.common.enums.WhitedRuleTypeEnum;
+import com.alipay.dao.po.WhitedRuleConfigPO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ *@title WhitedRegoPolicyRegistryTest
+ *@description
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/21 14:08
+ */
+@ExtendWith(MockitoExtension.class)
+class WhitedRegoPolicyRegistryTest {
+
+    private static final Long TENANT_ID = 1001L;
+
+    @Mock
+    private PolicyEngine policyEngine;
+
+    @Mock
+    private OpaRepository opaRepository;
+
+    @InjectMocks
+    private WhitedRegoPolicyRegistry registry;
+
+    /**
+     * revisions document held by the engine
+     */
+    private final AtomicReference<Object> revisions = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(policyEngine.getData(WhitedRegoPolicyRegistry.REVISIONS_PATH)).thenAnswer(invocation -> revisions.get());
+        lenient().doAnswer(invocation -> {
+            revisions.set(invocation.getArgument(1));
+            return null;
+        }).when(policyEngine).upsertData(eq(WhitedRegoPolicyRegistry.REVISIONS_PATH), any());
+        lenient().when(opaRepository.findWhitedConfigPackage(anyString(), anyString()))
+                .thenAnswer(invocation -> "whited_" + invocation.getArgument(1));
+    }
+
+    @Test
+    void unchangedPolicyIsPushedOnce() throws Exception {
+        WhitedRuleConfigPO config = rego(1L, "package whited\nwhited if { input.public }");
+
+        registry.sync(List.of(TENANT_ID), List.of(config));
+        registry.sync(List.of(TENANT_ID), List.of(config));
+        verify(policyEngine, times(1)).createOrUpdatePolicy("whited_1", "package whited_1\nwhited if { input.public }");
+
+        config.setRegoContent("package whited\nwhited if { input.private }");
+        registry.sync(List.of(TENANT_ID), List.of(config));
+        verify(policyEngine).createOrUpdatePolicy("whited_1", "package whited_1\nwhited if { input.private }");
+        assertEquals(2L, registry.getStats().get("regoPushCount"));
+        assertEquals(1L, registry.getStats().get("regoSkipCount"));
+    }
+
+    @Test
+    void policiesArePushedAgainAfterEngineRestart() throws Exception {
+        WhitedRuleConfigPO config = rego(1L, "package whited\nwhited if { input.public }");
+        registry.sync(List.of(TENANT_ID), List.of(config));
+
+        // the engine lost its policies and data
+        revisions.set(null);
+        registry.sync(List.of(TENANT_ID), List.of(config));
+
+        verify(policyEngine, times(2)).createOrUpdatePolicy(eq("whited_1"), anyString());
+        assertEquals(1L, registry.getStats().get("regoEngineRestartCount"));
+    }
+
+    @Test
+    void removedConfigIsEvicted() throws Exception {
+        WhitedRuleConfigPO kept = rego(1L, "package whited\nwhited if { input.public }");
+        WhitedRuleConfigPO removed = rego(2L, "package whited\nwhited if { input.private }");
+        WhitedRuleConfigPO deleted = rego(3L, "package whited\nwhited if { input.open }");
+        registry.sync(List.of(TENANT_ID), List.of(kept, removed, deleted));
+
+        registry.evict(3L);
+        registry.sync(List.of(TENANT_ID), List.of(kept));
+
+        verify(policyEngine).deletePolicy("whited_2");
+        verify(policyEngine).deletePolicy("whited_3");
+        verify(policyEngine, never()).deletePolicy("whited_1");
+        assertEquals(1, registry.getStats().get("regoPolicyCount"));
+    }
+
+    private static WhitedRuleConfigPO rego(Long id, String regoContent) {
+        WhitedRuleConfigPO config = new WhitedRuleConfigPO();
+        config.setId(id);
+        config.setTenantId(TENANT_ID);
+        config.setRuleType(WhitedRuleTypeEnum.REGO.name());
+        config.setRegoContent(regoContent);
+        return config;
+    }
+}
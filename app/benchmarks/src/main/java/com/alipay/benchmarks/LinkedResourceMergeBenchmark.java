@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alipay.application.service.resource.IQueryResource;
+import com.alipay.application.service.resource.task.LinkedResourceJoiner;
+import com.alipay.application.service.resource.task.ResourceJoinProperties;
+import com.alipay.application.share.request.rule.LinkDataParam;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title LinkedResourceMergeBenchmark
+ *@description Linked resource merging of ResourceMergerTask.mergeJson for the corpus rules with a linkedDataList.
+ * The linked resources are the corpus inputs of the linked resource type, one of them carries the join key of the
+ * primary resource and the others are decoys with other keys. joinPage builds the index for every page like
+ * mergeJson, joinPageWithIndex reuses it like the pages of one scan
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 14:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkedResourceMergeBenchmark {
+
+    private static final String ACCOUNT = "benchmark";
+
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * Linked resources of each linked type in the account
+     */
+    @Param({"100", "1000"})
+    public int linkedCount;
+
+    private final List<RuleCase> cases = new ArrayList<>();
+
+    private final ResourceJoinProperties properties = new ResourceJoinProperties();
+
+    private final List<LinkedResourceJoiner> joiners = new ArrayList<>();
+
+    private record RuleCase(List<LinkDataParam> linkedDataList, List<CloudResourceInstancePO> page, String input,
+                            IQueryResource iQueryResource) {
+    }
+
+    @Setup
+    public void setUp() {
+        for (RuleCorpus.Rule rule : RuleCorpus.rules(r -> r.metadata().get("linkedDataList") != null)) {
+            List<LinkDataParam> linkedDataList = linkedDataList(rule.metadata().get("linkedDataList"));
+            if (linkedDataList == null || linkedDataList.isEmpty()) {
+                continue;
+            }
+
+            Map<String, List<CloudResourceInstancePO>> linkedByType = new HashMap<>();
+            for (LinkDataParam linkedData : linkedDataList) {
+                if (linkedData.getResourceType() == null || linkedData.getResourceType().size() < 2) {
+                    continue;
+                }
+                String linkedType = linkedData.getResourceType().get(1);
+                linkedByType.put(linkedType, linkedResources(rule, linkedData, linkedType));
+            }
+
+            List<CloudResourceInstancePO> page = new ArrayList<>(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                page.add(instance(i, rule.platform(), rule.input()));
+            }
+            IQueryResource iQueryResource = queryResource(linkedByType);
+            cases.add(new RuleCase(linkedDataList, page, rule.input(), iQueryResource));
+            joiners.add(new LinkedResourceJoiner(linkedDataList, ACCOUNT, iQueryResource, properties));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        joiners.forEach(LinkedResourceJoiner::close);
+    }
+
+    @Benchmark
+    public int joinPage() {
+        int merged = 0;
+        for (RuleCase ruleCase : cases) {
+            reset(ruleCase);
+            try (LinkedResourceJoiner joiner = new LinkedResourceJoiner(ruleCase.linkedDataList(), ACCOUNT,
+                    ruleCase.iQueryResource(), properties)) {
+                merged += joiner.merge(ruleCase.page()).size();
+            }
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public int joinPageWithIndex() {
+        int merged = 0;
+        for (int i = 0; i < cases.size(); i++) {
+            RuleCase ruleCase = cases.get(i);
+            reset(ruleCase);
+            merged += joiners.get(i).merge(ruleCase.page()).size();
+        }
+        return merged;
+    }
+
+    private static void reset(RuleCase ruleCase) {
+        for (CloudResourceInstancePO po : ruleCase.page()) {
+            po.setInstance(ruleCase.input());
+        }
+    }
+
+    private static List<LinkDataParam> linkedDataList(Object value) {
+        if (value instanceof JSONArray array) {
+            return array.toJavaList(LinkDataParam.class);
+        }
+        return LinkDataParam.deserializeList(String.valueOf(value));
+    }
+
+    /**
+     * Corpus inputs of the linked type, the first one joins with the primary resource
+     */
+    private List<CloudResourceInstancePO> linkedResources(RuleCorpus.Rule rule, LinkDataParam linkedData, String linkedType) {
+        List<RuleCorpus.Rule> samples = RuleCorpus.rules().stream()
+                .filter(r -> rule.platform().equals(r.platform()) && linkedType.equals(r.resourceType()))
+                .toList();
+        if (samples.isEmpty()) {
+            // no sample of the linked type, the primary document stands in for it
+            samples = List.of(rule);
+        }
+
+        Object joinKey = joinKey(rule.input(), linkedData.getLinkedKey1());
+        List<CloudResourceInstancePO> list = new ArrayList<>(linkedCount);
+        for (int i = 0; i < linkedCount; i++) {
+            String document = samples.get(i % samples.size()).input();
+            Object key = i == 0 && joinKey != null ? joinKey : "decoy-" + i;
+            if (linkedData.getLinkedKey2() != null) {
+                document = withKey(document, linkedData.getLinkedKey2(), key);
+            }
+            list.add(instance(i + 1, rule.platform(), document));
+        }
+        return list;
+    }
+
+    /**
+     * Set the join field of a linked document, the missing objects of the path are created
+     */
+    private static String withKey(String document, String linkedKey2, Object key) {
+        try {
+            return JsonPath.parse(document).set(linkedKey2, key).jsonString();
+        } catch (Exception e) {
+            JSONObject root = JSON.parseObject(document);
+            return RuleCorpus.putPath(root, linkedKey2, key) ? root.toJSONString() : document;
+        }
+    }
+
+    private static Object joinKey(String input, String linkedKey1) {
+        if (linkedKey1 == null) {
+            return null;
+        }
+        try {
+            Object value = JsonPath.read(input, linkedKey1);
+            if (value instanceof List<?> list) {
+                return list.isEmpty() ? null : list.get(0);
+            }
+            return value;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static CloudResourceInstancePO instance(long id, String platform, String instance) {
+        CloudResourceInstancePO po = new CloudResourceInstancePO();
+        po.setId(id);
+        po.setPlatform(platform);
+        po.setCloudAccountId(ACCOUNT);
+        po.setResourceId("r-" + id);
+        po.setInstance(instance);
+        return po;
+    }
+
+    /**
+     * In-memory resource table scrolled by id, only the query of the joiner is supported
+     */
+    private static IQueryResource queryResource(Map<String, List<CloudResourceInstancePO>> linkedByType) {
+        return (IQueryResource) Proxy.newProxyInstance(IQueryResource.class.getClassLoader(),
+                new Class<?>[]{IQueryResource.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("queryByCond") && args != null && args.length == 5) {
+                        long scrollId = (Long) args[3];
+                        int size = (Integer) args[4];
+                        return linkedByType.getOrDefault((String) args[1], List.of()).stream()
+                                .filter(po -> po.getId() > scrollId).limit(size).toList();
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(linkedByType, args);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
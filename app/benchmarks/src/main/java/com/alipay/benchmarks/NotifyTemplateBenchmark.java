@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSONObject;
+import com.alipay.application.service.common.Notify;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ *@title NotifyTemplateBenchmark
+ *@description Notify.parseTemplate with the context templates of the corpus rules. The result document of a rule is
+ * its input with the missing fields of the template added, so the placeholders resolve
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 15:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotifyTemplateBenchmark {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\s*([^{}]+)\\s*\\}");
+
+    private final List<String> templates = new ArrayList<>();
+
+    private final List<String> results = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (RuleCorpus.Rule rule : RuleCorpus.rules(r -> r.metadata().getString("context") != null
+                && !r.metadata().getString("context").isBlank())) {
+            String template = rule.metadata().getString("context");
+            JSONObject result = rule.inputObject();
+            Matcher matcher = PLACEHOLDER.matcher(template);
+            while (matcher.find()) {
+                String key = matcher.group(1);
+                if (!resolves(result, key)) {
+                    RuleCorpus.putPath(result, key, "value of " + rule.code());
+                }
+            }
+            templates.add(template);
+            results.add(result.toJSONString());
+        }
+    }
+
+    private static boolean resolves(JSONObject document, String key) {
+        try {
+            JsonPath.read(document.toJSONString(), key);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public void parseTemplate(Blackhole blackhole) {
+        for (int i = 0; i < templates.size(); i++) {
+            blackhole.consume(Notify.parseTemplate(templates.get(i), results.get(i)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.resource.SaveResourceServiceImpl;
+import com.alipay.application.share.request.resource.DataPushRequest;
+import com.alipay.application.share.request.resource.ResourceInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title ResourcePushParseBenchmark
+ *@description Request parsing of SaveResourceServiceImpl for a collector push made of the corpus inputs: the pushed
+ * data of the request and the instance json written for every resource. The request envelope is read by Spring
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 15:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourcePushParseBenchmark {
+
+    /**
+     * Resources in one push
+     */
+    @Param({"100", "1000"})
+    public int pushSize;
+
+    private String pushData;
+
+    private DataPushRequest.Data data;
+
+    @Setup
+    public void setUp() {
+        List<RuleCorpus.Rule> rules = RuleCorpus.rules();
+        List<ResourceInstance> instances = new ArrayList<>(pushSize);
+        for (int i = 0; i < pushSize; i++) {
+            RuleCorpus.Rule rule = rules.get(i % rules.size());
+            ResourceInstance instance = new ResourceInstance();
+            instance.setResourceId(rule.code() + "-" + i);
+            instance.setResourceName("resource-" + i);
+            instance.setRegionId("cn-hangzhou");
+            instance.setInstance(rule.inputObject());
+            instances.add(instance);
+        }
+
+        DataPushRequest.Data push = new DataPushRequest.Data();
+        push.setVersion("20251011154000");
+        push.setCloudAccountId("benchmark");
+        push.setPlatform(rules.get(0).platform());
+        push.setResourceType(rules.get(0).resourceType());
+        push.setResourceGroupType("COMPUTE");
+        push.setResourceInstancesAll(instances);
+
+        // the collector sends the push as a json string in the data field
+        pushData = JSON.toJSONString(push);
+        data = SaveResourceServiceImpl.parseData(pushData);
+    }
+
+    @Benchmark
+    public DataPushRequest.Data parseRequest() {
+        return SaveResourceServiceImpl.parseData(pushData);
+    }
+
+    @Benchmark
+    public void instanceJson(Blackhole blackhole) {
+        for (ResourceInstance resourceInstance : data.getResourceInstancesAll()) {
+            blackhole.consume(SaveResourceServiceImpl.instanceJson(resourceInstance));
+        }
+    }
+}
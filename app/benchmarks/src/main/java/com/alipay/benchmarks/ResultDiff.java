@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ *@title ResultDiff
+ *@description Compares two json result files of BenchmarkMain, e.g. of two commits, and prints the score change of
+ * every benchmark. Exits with 2 when a benchmark got slower by more than the threshold percent (default 10)
+ * and its error margins do not overlap
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 16:20
+ */
+public class ResultDiff {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private record Score(String mode, double score, double error, String unit) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: ResultDiff <base.json> <head.json> [thresholdPercent]");
+            System.exit(1);
+        }
+        Map<String, Score> base = read(args[0]);
+        Map<String, Score> head = read(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "base", "head", "change");
+        for (Map.Entry<String, Score> e : head.entrySet()) {
+            Score after = e.getValue();
+            Score before = base.get(e.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", e.getKey(), "-", after.score(), "new", after.unit());
+                continue;
+            }
+            double change = (after.score() - before.score()) / before.score() * 100;
+            // lower is better for time per operation, higher for throughput
+            boolean higherIsBetter = "thrpt".equals(after.mode());
+            double slowdown = higherIsBetter ? -change : change;
+            boolean overlapping = Math.abs(after.score() - before.score()) <= after.error() + before.error();
+            boolean regression = slowdown > threshold && !overlapping;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", e.getKey(), before.score(), after.score(), change,
+                    after.unit(), regression ? "  REGRESSION" : "");
+        }
+        for (String key : base.keySet()) {
+            if (!head.containsKey(key)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", key, base.get(key).score(), "-", "removed");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) slower by more than %.1f%%%n", regressions, threshold);
+            System.exit(2);
+        }
+    }
+
+    private static Map<String, Score> read(String file) throws IOException {
+        JSONArray results = JSON.parseArray(Files.readString(Paths.get(file), StandardCharsets.UTF_8));
+        Map<String, Score> scores = new TreeMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String benchmark = result.getString("benchmark").replace(ResultDiff.class.getPackageName() + ".", "");
+            Map<String, Object> params = new LinkedHashMap<>();
+            JSONObject paramsJson = result.getJSONObject("params");
+            if (paramsJson != null) {
+                params.putAll(new TreeMap<>(paramsJson));
+            }
+            String key = params.isEmpty() ? benchmark : benchmark + " " + params;
+            JSONObject metric = result.getJSONObject("primaryMetric");
+            double error = metric.getDoubleValue("scoreError");
+            scores.put(key, new Score(result.getString("mode"), metric.getDoubleValue("score"),
+                    Double.isNaN(error) ? 0 : error, metric.getString("scoreUnit")));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alipay.application.service.risk.engine.ConditionItem;
+import com.alipay.application.service.risk.engine.Fact;
+import com.alipay.application.service.risk.engine.JsonRuleEngine;
+import com.alipay.application.service.risk.engine.Operator;
+import com.alipay.application.service.risk.engine.handler.OperatorHandlerComplete;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title RiskOperatorBenchmark
+ *@description Operator handlers of risk/engine and the subscription filter of Notify.filterList (parse the rule
+ * config, then match), with one fact list per corpus rule. Scores are per pass over all fact lists
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 11:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskOperatorBenchmark {
+
+    @Param({"EQ", "NE", "LIKE", "NOT_LIKE", "IN", "NOT_IN"})
+    public Operator operator;
+
+    private List<List<Fact>> factLists;
+
+    private ConditionItem conditionItem;
+
+    private String ruleConfigJson;
+
+    @Setup
+    public void setUp() {
+        List<RuleCorpus.Rule> rules = RuleCorpus.rules();
+        factLists = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            RuleCorpus.Rule rule = rules.get(i);
+            // the facts of a subscription, see Notify.filterList
+            factLists.add(List.of(new Fact("cloudAccountId", "account-" + i % 50),
+                    new Fact("ruleId", (long) i),
+                    new Fact("tenantId", (long) i % 10),
+                    new Fact("ruleGroupId", List.of((long) i % 7, (long) i % 11)),
+                    new Fact("platform", rule.platform())));
+        }
+
+        Object value = switch (operator) {
+            case LIKE, NOT_LIKE -> "CLOUD";
+            case IN, NOT_IN -> String.join(",", rules.stream().map(RuleCorpus.Rule::platform).distinct().limit(3).toList());
+            default -> rules.get(0).platform();
+        };
+        conditionItem = new ConditionItem(1, "platform", operator, value);
+
+        JSONArray all = new JSONArray();
+        all.add(item(operator.name(), "platform", value));
+        all.add(item(Operator.NE.name(), "cloudAccountId", "account-0"));
+        JSONObject condition = new JSONObject();
+        condition.put("ALL", all);
+        JSONObject config = new JSONObject();
+        config.put("condition", condition);
+        ruleConfigJson = config.toJSONString();
+    }
+
+    private static JSONObject item(String operator, String key, Object value) {
+        JSONObject item = new JSONObject();
+        item.put("operator", operator);
+        item.put("key", key);
+        item.put("value", value);
+        return item;
+    }
+
+    @Benchmark
+    public int handle() {
+        int matched = 0;
+        for (List<Fact> facts : factLists) {
+            if (OperatorHandlerComplete.handle(conditionItem, facts)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int parseAndMatch() {
+        int matched = 0;
+        for (List<Fact> facts : factLists) {
+            if (JsonRuleEngine.parseOne(ruleConfigJson).match(facts)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
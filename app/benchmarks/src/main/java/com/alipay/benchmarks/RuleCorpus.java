@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+ *@title RuleCorpus
+ *@description The rules of the repository with their sample input.json, the data the benchmarks are driven by.
+ * The rules directory is taken from -Dcloudrec.rules.dir, or the first "rules" directory above the working directory
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 10:15
+ */
+public final class RuleCorpus {
+
+    public static final String RULES_DIR_PROPERTY = "cloudrec.rules.dir";
+
+    private static final Pattern PATH_SEGMENT = Pattern.compile("\\.(\\w+)|\\[(\\d+)]");
+
+    private static volatile List<Rule> rules;
+
+    private RuleCorpus() {
+    }
+
+    /**
+     * A rule directory: metadata.json and the sample resource of input.json
+     *
+     * @param code     rule code
+     * @param metadata content of metadata.json
+     * @param input    content of input.json
+     */
+    public record Rule(String code, JSONObject metadata, String input) {
+
+        public String platform() {
+            return metadata.getString("platform");
+        }
+
+        public String resourceType() {
+            return metadata.getString("resourceType");
+        }
+
+        public JSONObject inputObject() {
+            return JSON.parseObject(input);
+        }
+    }
+
+    /**
+     * All rules whose input.json is a json object, sorted by directory so every run sees the same order
+     */
+    public static List<Rule> rules() {
+        if (rules == null) {
+            synchronized (RuleCorpus.class) {
+                if (rules == null) {
+                    rules = load(rulesDir());
+                }
+            }
+        }
+        return rules;
+    }
+
+    public static List<Rule> rules(Predicate<Rule> filter) {
+        List<Rule> list = rules().stream().filter(filter).toList();
+        if (list.isEmpty()) {
+            throw new IllegalStateException("No rule of the corpus matches, rules dir: " + rulesDir());
+        }
+        return list;
+    }
+
+    /**
+     * Put a value at a json path made of .name and [index] segments, e.g. $.messages[0].Description, creating the
+     * missing objects and arrays on the way
+     *
+     * @return false if the path has other segments, the document is unchanged then
+     */
+    public static boolean putPath(JSONObject document, String path, Object value) {
+        Matcher matcher = PATH_SEGMENT.matcher(path);
+        List<Object> segments = new ArrayList<>();
+        int end = 1;
+        while (path.startsWith("$") && matcher.find(end) && matcher.start() == end) {
+            segments.add(matcher.group(1) != null ? matcher.group(1) : Integer.valueOf(matcher.group(2)));
+            end = matcher.end();
+        }
+        if (segments.isEmpty() || end != path.length() || !(segments.get(0) instanceof String)) {
+            return false;
+        }
+
+        Object parent = document;
+        for (int i = 0; i < segments.size(); i++) {
+            Object segment = segments.get(i);
+            Object child = i == segments.size() - 1 ? value
+                    : segments.get(i + 1) instanceof String ? new JSONObject() : new JSONArray();
+            if (parent instanceof JSONObject object && segment instanceof String name) {
+                Object existing = object.get(name);
+                if (existing == null || i == segments.size() - 1 || !isContainer(existing, segments.get(i + 1))) {
+                    object.put(name, child);
+                } else {
+                    child = existing;
+                }
+            } else if (parent instanceof JSONArray array && segment instanceof Integer index) {
+                while (array.size() <= index) {
+                    array.add(null);
+                }
+                Object existing = array.get(index);
+                if (existing == null || i == segments.size() - 1 || !isContainer(existing, segments.get(i + 1))) {
+                    array.set(index, child);
+                } else {
+                    child = existing;
+                }
+            } else {
+                return false;
+            }
+            parent = child;
+        }
+        return true;
+    }
+
+    private static boolean isContainer(Object value, Object nextSegment) {
+        return nextSegment instanceof String ? value instanceof JSONObject : value instanceof JSONArray;
+    }
+
+    static Path rulesDir() {
+        String dir = System.getProperty(RULES_DIR_PROPERTY);
+        if (dir != null && !dir.isBlank()) {
+            return Paths.get(dir);
+        }
+        for (Path path = Paths.get("").toAbsolutePath(); path != null; path = path.getParent()) {
+            Path candidate = path.resolve("rules");
+            if (Files.isDirectory(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("rules directory not found, set -D" + RULES_DIR_PROPERTY);
+    }
+
+    private static List<Rule> load(Path rulesDir) {
+        List<Rule> list = new ArrayList<>();
+        try (Stream<Path> dirs = Files.walk(rulesDir, 2)) {
+            for (Path dir : dirs.filter(Files::isDirectory).sorted(Comparator.comparing(Path::toString)).toList()) {
+                Path input = dir.resolve("input.json");
+                Path metadata = dir.resolve("metadata.json");
+                if (!Files.isRegularFile(input) || !Files.isRegularFile(metadata)) {
+                    continue;
+                }
+                String inputJson = Files.readString(input, StandardCharsets.UTF_8).trim();
+                if (!inputJson.startsWith("{")) {
+                    continue;
+                }
+                JSONObject metadataJson = JSON.parseObject(Files.readString(metadata, StandardCharsets.UTF_8));
+                list.add(new Rule(metadataJson.getString("code"), metadataJson, inputJson));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the rules of " + rulesDir, e);
+        }
+        if (list.isEmpty()) {
+            throw new IllegalStateException("No rule with an input.json under " + rulesDir);
+        }
+        return list;
+    }
+}
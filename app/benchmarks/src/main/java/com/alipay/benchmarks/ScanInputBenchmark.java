@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alipay.application.service.rule.domain.repo.engine.BatchPolicy;
+import com.alipay.application.service.rule.job.IncrementalScanner;
+import com.alipay.application.service.rule.job.ScanServiceImpl;
+import com.alipay.dao.po.CloudResourceInstancePO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title ScanInputBenchmark
+ *@description Policy input of one scan page in ScanServiceImpl.scanByRule: the resource id -> instance map, the
+ * batch input document sent to the policy engine and the content hashes of the incremental scan
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 10:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanInputBenchmark {
+
+    /**
+     * Resources of a page, 1000 is the page size of the scan
+     */
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private List<CloudResourceInstancePO> page;
+
+    private Map<String, String> inputs;
+
+    @Setup
+    public void setUp() {
+        List<RuleCorpus.Rule> rules = RuleCorpus.rules();
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            RuleCorpus.Rule rule = rules.get(i % rules.size());
+            CloudResourceInstancePO po = new CloudResourceInstancePO();
+            po.setId((long) i);
+            po.setResourceId(rule.code() + "-" + i);
+            po.setInstance(rule.input());
+            page.add(po);
+        }
+        inputs = ScanServiceImpl.policyInputs(page);
+    }
+
+    @Benchmark
+    public Map<String, String> inputMap() {
+        return ScanServiceImpl.policyInputs(page);
+    }
+
+    @Benchmark
+    public String batchInput() {
+        return BatchPolicy.input(inputs);
+    }
+
+    @Benchmark
+    public void contentHash(Blackhole blackhole) {
+        for (CloudResourceInstancePO po : page) {
+            blackhole.consume(IncrementalScanner.contentHash(po.getInstance()));
+        }
+    }
+}
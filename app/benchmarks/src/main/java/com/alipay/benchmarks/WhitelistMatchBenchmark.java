@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.benchmarks;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.application.service.rule.CompiledWhitedRule;
+import com.alipay.application.service.rule.WhitedRuleEngineMatcher;
+import com.alipay.application.share.request.rule.WhitedRuleConfigDTO;
+import com.alipay.common.enums.WhitedRuleOperatorEnum;
+import com.alipay.dao.po.RuleScanResultPO;
+import com.alipay.dao.po.WhitedRuleConfigPO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *@title WhitelistMatchBenchmark
+ *@description Rule engine whitelists against the findings of the corpus rules, interpreted by WhitedRuleEngineMatcher
+ * (parse the config and convert the finding to a map for every match) and compiled once by CompiledWhitedRule.
+ * Scores are per finding x whitelist match
+ *@author jietian
+ *@version 1.0
+ *@create 2025/10/11 11:05
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhitelistMatchBenchmark {
+
+    private static final int FINDINGS = 200;
+
+    private static final int WHITELISTS = 50;
+
+    private static final int MATCHES = FINDINGS * WHITELISTS;
+
+    private static final String[] CONDITIONS = {"1", "1 AND 2", "1 OR 2", "(1 OR 2) AND 3", "1 AND (2 OR 3)"};
+
+    private final WhitedRuleEngineMatcher matcher = new WhitedRuleEngineMatcher();
+
+    private List<RuleScanResultPO> findings;
+
+    private List<WhitedRuleConfigPO> whitelists;
+
+    private List<CompiledWhitedRule> compiled;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        findings = findings(random);
+        whitelists = whitelists(random, findings);
+        compiled = new ArrayList<>(whitelists.size());
+        for (WhitedRuleConfigPO whitelist : whitelists) {
+            compiled.add(CompiledWhitedRule.compile(whitelist));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public long interpreted() {
+        long hits = 0;
+        for (RuleScanResultPO finding : findings) {
+            for (WhitedRuleConfigPO whitelist : whitelists) {
+                List<WhitedRuleConfigDTO> items = JSON.parseArray(whitelist.getRuleConfig(), WhitedRuleConfigDTO.class);
+                if (matcher.matchWhitelistRule(items, whitelist.getCondition(), finding)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public long compiled() {
+        long hits = 0;
+        for (RuleScanResultPO finding : findings) {
+            for (CompiledWhitedRule rule : compiled) {
+                if (rule.matches(finding)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WHITELISTS)
+    public List<CompiledWhitedRule> compile() {
+        List<CompiledWhitedRule> list = new ArrayList<>(whitelists.size());
+        for (WhitedRuleConfigPO whitelist : whitelists) {
+            list.add(CompiledWhitedRule.compile(whitelist));
+        }
+        return list;
+    }
+
+    private static List<RuleScanResultPO> findings(Random random) {
+        List<RuleCorpus.Rule> rules = RuleCorpus.rules();
+        List<RuleScanResultPO> list = new ArrayList<>(FINDINGS);
+        for (int i = 0; i < FINDINGS; i++) {
+            RuleCorpus.Rule rule = rules.get(i % rules.size());
+            RuleScanResultPO po = new RuleScanResultPO();
+            po.setId((long) i);
+            po.setRuleId((long) (i % rules.size()));
+            po.setCloudAccountId("account-" + random.nextInt(50));
+            po.setResourceId(rule.code() + "-" + random.nextInt(FINDINGS));
+            po.setResourceName("server-" + random.nextInt(100));
+            po.setRegion("cn-region-" + random.nextInt(20));
+            po.setPlatform(rule.platform());
+            po.setResourceType(rule.resourceType());
+            po.setStatus("UNREPAIRED");
+            po.setTenantId((long) random.nextInt(10));
+            po.setVersion(1L);
+            po.setResult(rule.input());
+            list.add(po);
+        }
+        return list;
+    }
+
+    private static List<WhitedRuleConfigPO> whitelists(Random random, List<RuleScanResultPO> findings) {
+        WhitedRuleOperatorEnum[] operators = WhitedRuleOperatorEnum.values();
+        List<WhitedRuleConfigPO> list = new ArrayList<>(WHITELISTS);
+        for (int i = 0; i < WHITELISTS; i++) {
+            List<WhitedRuleConfigDTO> items = new ArrayList<>();
+            for (int id = 1; id <= 3; id++) {
+                WhitedRuleOperatorEnum operator = operators[random.nextInt(operators.length)];
+                RuleScanResultPO finding = findings.get(random.nextInt(findings.size()));
+                String key;
+                String value;
+                switch (random.nextInt(4)) {
+                    case 0 -> {
+                        key = "resourceId";
+                        value = finding.getResourceId() + "," + findings.get(random.nextInt(findings.size())).getResourceId();
+                    }
+                    case 1 -> {
+                        key = "resourceName";
+                        value = finding.getResourceName();
+                    }
+                    case 2 -> {
+                        key = "region";
+                        value = finding.getRegion();
+                    }
+                    default -> {
+                        key = "cloudAccountId";
+                        value = finding.getCloudAccountId();
+                    }
+                }
+                items.add(new WhitedRuleConfigDTO(id, key, key, operator, value));
+            }
+            WhitedRuleConfigPO po = new WhitedRuleConfigPO();
+            po.setId((long) i);
+            po.setRuleConfig(JSON.toJSONString(items));
+            po.setCondition(CONDITIONS[random.nextInt(CONDITIONS.length)]);
+            list.add(po);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.dao.converter;
+
+import com.github.luben.zstd.Zstd;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+ *@title InstanceDocumentCodec
+ *@description Encoding of the compressed instance document of a resource. The first byte names the codec so that a
+ * dictionary per resource type can be added later without rewriting the stored rows, the rest is a zstd frame of the
+ * UTF-8 json which records its own content size
+ *@author jietian
+ *@version 1.0
+ *@create 2025/11/3 10:20
+ */
+public final class InstanceDocumentCodec {
+
+    public static final byte CODEC_ZSTD = 1;
+
+    private InstanceDocumentCodec() {
+    }
+
+    public static byte[] encode(byte[] plain, int level) {
+        byte[] frame = Zstd.compress(plain, level);
+        byte[] encoded = new byte[frame.length + 1];
+        encoded[0] = CODEC_ZSTD;
+        System.arraycopy(frame, 0, encoded, 1, frame.length);
+        return encoded;
+    }
+
+    public static String decode(byte[] encoded) {
+        if (encoded.length == 0 || encoded[0] != CODEC_ZSTD) {
+            throw new IllegalArgumentException("unknown instance codec: " + (encoded.length == 0 ? "empty" : encoded[0]));
+        }
+        long size = Zstd.getFrameContentSize(encoded, 1, encoded.length - 1);
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid instance frame, content size: " + size);
+        }
+        byte[] plain = new byte[(int) size];
+        long written = Zstd.decompressByteArray(plain, 0, plain.length, encoded, 1, encoded.length - 1);
+        if (Zstd.isError(written)) {
+            throw new IllegalArgumentException("invalid instance frame: " + Zstd.getErrorName(written));
+        }
+        return new String(plain, 0, (int) written, StandardCharsets.UTF_8);
+    }
+}
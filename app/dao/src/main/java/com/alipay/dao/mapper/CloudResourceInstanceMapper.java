@@ -19,6 +19,7 @@ package com.alipay.dao.mapper;
 import com.alipay.dao.dto.IQueryResourceDTO;
 import com.alipay.dao.dto.ResourceAggByInstanceTypeDTO;
 import com.alipay.dao.dto.ResourceDTO;
+import com.alipay.dao.dto.ResourceInstanceStorageDTO;
 import com.alipay.dao.po.CloudResourceInstancePO;
 import org.apache.ibatis.annotations.Param;
 
@@ -50,6 +51,16 @@ public interface CloudResourceInstanceMapper {
 
     List<CloudResourceInstancePO> findByCond(IQueryResourceDTO request);
 
+    /**
+     * Like findByCondWithScrollId without the instance document, for the callers that only need ids or a few fields
+     */
+    List<CloudResourceInstancePO> findBaseByCondWithScrollId(IQueryResourceDTO request);
+
+    /**
+     * Like findByCond without the instance document
+     */
+    List<CloudResourceInstancePO> findBaseByCond(IQueryResourceDTO request);
+
     long findCountByCloudAccountId(String cloudAccountId);
 
     int deleteByCloudAccountId(String cloudAccountId);
@@ -127,4 +138,75 @@ public interface CloudResourceInstanceMapper {
     List<Long> findPreDeletedDataIdList(@Param("cloudAccountId") String cloudAccountId, @Param("delNum") int delNum);
 
     int refreshUpdateTime(@Param("gmtModified") Date gmtModified, @Param("cloudAccountId") String cloudAccountId);
-}
\ No newline at end of file
+
+    /**
+     * 批量查询一次推送中的资产
+     *
+     * @param resourceIdList 资产id list
+     * @return 资源list
+     */
+    List<CloudResourceInstancePO> findByResourceIdList(@Param("platform") String platform,
+                                                       @Param("resourceType") String resourceType,
+                                                       @Param("cloudAccountId") String cloudAccountId,
+                                                       @Param("resourceIdList") List<String> resourceIdList);
+
+    /**
+     * 批量写入新增或变更的资产，按唯一键更新已存在的资产
+     *
+     * @param list 资产list
+     * @return 影响记录数
+     */
+    int batchUpsert(@Param("list") List<CloudResourceInstancePO> list);
+
+    /**
+     * 内容未变化的资产只刷新版本与修改时间，并清理预删除标记
+     *
+     * @param idList 资产id list
+     * @return 影响记录数
+     */
+    int refreshByIdList(@Param("idList") List<Long> idList, @Param("version") String version,
+                        @Param("tenantId") Long tenantId, @Param("gmtModified") Date gmtModified);
+
+    /**
+     * Resource ids and content fingerprints of a resource type of an account, for the delta push of the collector
+     */
+    List<CloudResourceInstancePO> findManifest(@Param("platform") String platform,
+                                               @Param("resourceType") String resourceType,
+                                               @Param("cloudAccountId") String cloudAccountId);
+
+    /**
+     * Refresh the version of the resources a delta push reports unchanged and clear their pre-delete mark
+     */
+    int refreshByResourceIdList(@Param("platform") String platform,
+                                @Param("resourceType") String resourceType,
+                                @Param("cloudAccountId") String cloudAccountId,
+                                @Param("resourceIdList") List<String> resourceIdList,
+                                @Param("version") String version,
+                                @Param("tenantId") Long tenantId,
+                                @Param("gmtModified") Date gmtModified);
+
+    List<Long> findIdListByResourceIdList(@Param("platform") String platform,
+                                          @Param("resourceType") String resourceType,
+                                          @Param("cloudAccountId") String cloudAccountId,
+                                          @Param("resourceIdList") List<String> resourceIdList);
+
+    /**
+     * Id, resource type and document of the rows still storing the instance as plain json, for the compression
+     * migration
+     */
+    List<CloudResourceInstancePO> findPlainInstanceWithScrollId(@Param("scrollId") Long scrollId, @Param("size") int size);
+
+    /**
+     * Replace the plain document of a row with the compressed one, unless it was rewritten since it was read
+     *
+     * @param instance the plain document read
+     * @return 影响记录数
+     */
+    int compressInstance(@Param("id") Long id, @Param("instance") String instance,
+                         @Param("instanceCompressed") byte[] instanceCompressed, @Param("instanceSize") int instanceSize);
+
+    /**
+     * Stored and compressed document bytes per resource type
+     */
+    List<ResourceInstanceStorageDTO> findInstanceStorageStat(@Param("platform") String platform);
+}
@@ -28,6 +28,8 @@ public interface OperationLogMapper {
 
     int insertSelective(OperationLogPO record);
 
+    int insertBatch(List<OperationLogPO> list);
+
     OperationLogPO selectByPrimaryKey(Long id);
 
     int updateByPrimaryKeySelective(OperationLogPO record);
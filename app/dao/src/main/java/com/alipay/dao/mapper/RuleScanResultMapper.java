@@ -36,6 +36,31 @@ public interface RuleScanResultMapper {
                              @Param("cloudAccountId") String cloudAccountId,
                              @Param("ruleId") Long ruleId);
 
+    /**
+     * 批量查询规则在云账号下指定资源的风险，不含大字段
+     */
+    List<RuleScanResultPO> findByResourceIdList(@Param("ruleId") Long ruleId,
+                                                @Param("cloudAccountId") String cloudAccountId,
+                                                @Param("resourceIdList") List<String> resourceIdList);
+
+    /**
+     * 查询云账号下一个资源在所有规则上的风险，不含大字段
+     */
+    List<RuleScanResultPO> findByResourceId(@Param("cloudAccountId") String cloudAccountId,
+                                            @Param("resourceId") String resourceId);
+
+    /**
+     * 批量查询规则在云账号下指定资源的风险及检测结果，用于增量扫描沿用上次的结果
+     */
+    List<RuleScanResultPO> findResultByResourceIdList(@Param("ruleId") Long ruleId,
+                                                      @Param("cloudAccountId") String cloudAccountId,
+                                                      @Param("resourceIdList") List<String> resourceIdList);
+
+    /**
+     * 批量写入风险，按(rule_id, resource_id, cloud_account_id)唯一键存在则更新
+     */
+    int batchUpsert(@Param("list") List<RuleScanResultPO> list);
+
 
     RuleScanResultPO findOneJoinRule(@Param("resourceId") String resourceId,
                                      @Param("cloudAccountId") String cloudAccountId,
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.dao.mapper;
+
+import com.alipay.dao.po.RuleScanShardRunPO;
+import org.apache.ibatis.annotations.Param;
+
+public interface RuleScanShardRunMapper {
+
+    RuleScanShardRunPO findOne(@Param("ruleId") Long ruleId);
+
+    /**
+     * Start a new run of the rule, replacing the previous one
+     */
+    int start(RuleScanShardRunPO po);
+
+    /**
+     * Record that a node finished its shard of the run
+     */
+    int finishNode(@Param("ruleId") Long ruleId, @Param("runId") String runId, @Param("nodeBit") long nodeBit);
+
+    /**
+     * Mark the run finished once every node finished its shard, only one node gets 1
+     */
+    int finishRun(@Param("ruleId") Long ruleId, @Param("runId") String runId, @Param("allNodes") long allNodes);
+}
@@ -16,9 +16,11 @@
  */
 package com.alipay.dao.po;
 
+import com.alipay.dao.converter.InstanceDocumentCodec;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
 @Getter
@@ -57,4 +59,41 @@ public class CloudResourceInstancePO {
     private Long tenantId;
 
     private Integer delNum;
+
+    /**
+     * Fingerprint of the content computed by the collector, null when it was pushed by a collector without delta
+     * support
+     */
+    private String contentFingerprint;
+
+    /**
+     * Instance document encoded by {@link InstanceDocumentCodec}, a row stores either it or the plain instance
+     */
+    private byte[] instanceCompressed;
+
+    /**
+     * UTF-8 length of the plain instance document of a compressed row, the base of the bytes saved report
+     */
+    private Integer instanceSize;
+
+    public void setInstanceCompressed(byte[] instanceCompressed) {
+        this.instanceCompressed = instanceCompressed;
+        // A null column is not set by MyBatis, so a plain row keeps its instance
+        if (instanceCompressed != null) {
+            this.instance = InstanceDocumentCodec.decode(instanceCompressed);
+        }
+    }
+
+    /**
+     * Move the plain instance document into {@link #instanceCompressed} before the row is written
+     */
+    public void compressInstance(int level) {
+        if (instance == null) {
+            return;
+        }
+        byte[] plain = instance.getBytes(StandardCharsets.UTF_8);
+        this.instanceCompressed = InstanceDocumentCodec.encode(plain, level);
+        this.instanceSize = plain.length;
+        this.instance = null;
+    }
 }
\ No newline at end of file
@@ -58,6 +58,8 @@ public class RulePO {
 
     private String linkedDataList;
 
+    private String preFilter;
+
     private String ruleCode;
 
     private Integer riskCount;
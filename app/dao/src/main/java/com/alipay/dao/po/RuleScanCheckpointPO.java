@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.dao.po;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Position of a rule scan on a cloud account, an interrupted scan resumes from it
+ */
+@Data
+public class RuleScanCheckpointPO {
+    private Long id;
+
+    private Date gmtCreate;
+
+    private Date gmtModified;
+
+    private Long ruleId;
+
+    private String cloudAccountId;
+
+    /**
+     * version the findings of the scan are written with
+     */
+    private Long version;
+
+    /**
+     * id of the last resource whose findings are written
+     */
+    private Long scrollId;
+
+    /**
+     * RUNNING or FINISHED
+     */
+    private String status;
+
+    /**
+     * start time of the rule run the scan belongs to
+     */
+    private Date runStartTime;
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.dao.po;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Run of a rule shared by the nodes of a sharded scan, it is started and finished once for all of them
+ */
+@Data
+public class RuleScanShardRunPO {
+    private Long id;
+
+    private Date gmtCreate;
+
+    private Date gmtModified;
+
+    private Long ruleId;
+
+    private String runId;
+
+    /**
+     * start time of the rule run, the checkpoints of every node are written with it
+     */
+    private Date runStartTime;
+
+    private Integer nodeCount;
+
+    /**
+     * bit i is set when node i finished its shard
+     */
+    private Long finishedNodes;
+
+    /**
+     * RUNNING or FINISHED
+     */
+    private String status;
+}
@@ -31,6 +31,8 @@ type Options struct {
 	Sites []string // Deployment site. If the deployment site is configured as ['H1'], only cloudAccount of this site can be obtained.
 	// not required
 	AttentionErrorTexts []string //Pay attention to the risk error information. If the error message contains text, the risk will be submitted to the server.
+	// not required
+	DeltaPush bool // Push only new and changed resources plus the ids of the unchanged and deleted ones, full pushes are used when the server does not support it
 }
 
 var (
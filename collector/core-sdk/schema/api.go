@@ -22,6 +22,7 @@ import (
 	"io"
 	"io/ioutil"
 	"net/http"
+	"strconv"
 	"strings"
 	"time"
 
@@ -35,6 +36,8 @@ type Client struct {
 	ServerUrl       string
 	OnceToken       string
 	PersistentToken string
+	// DeltaPush push only new and changed resources when the server hands out a manifest
+	DeltaPush bool
 }
 
 func NewClientWithPersistentToken(platform string, sites []string, serverUrl string, persistentToken string) *Client {
@@ -247,6 +250,14 @@ func (c *Client) postWithPersistentToken(action, body, persistentToken string) (
 }
 
 func (c *Client) SendResource(cloudAccount CloudAccount, resource Resource, resourceInstanceList []*ResourceInstance, version string) error {
+	return c.SendResourceDelta(cloudAccount, resource, resourceInstanceList, nil, nil, version)
+}
+
+// SendResourceDelta pushes resources together with the ids of the unchanged and the deleted resources of a delta push
+func (c *Client) SendResourceDelta(cloudAccount CloudAccount, resource Resource, resourceInstanceList []*ResourceInstance, unchangedResourceIds []string, deletedResourceIds []string, version string) error {
+	if resourceInstanceList == nil {
+		resourceInstanceList = []*ResourceInstance{}
+	}
 	dataPushRequest := DataPushRequest{
 		Platform:             c.Platform,
 		Version:              version,
@@ -257,6 +268,8 @@ func (c *Client) SendResource(cloudAccount CloudAccount, resource Resource, reso
 		ResourceGroupType:    resource.ResourceGroupType,
 		DocLink:              resource.Desc,
 		ResourceInstancesAll: resourceInstanceList,
+		UnchangedResourceIds: unchangedResourceIds,
+		DeletedResourceIds:   deletedResourceIds,
 	}
 
 	req, err := json.Marshal(dataPushRequest)
@@ -272,7 +285,7 @@ func (c *Client) SendResource(cloudAccount CloudAccount, resource Resource, reso
 		return fmt.Errorf("failed to marshal param: %v", err)
 	}
 
-	resp, err := c.postWithPersistentToken("/api/agent/resource", string(param), c.PersistentToken)
+	resp, err := c.postResource(string(param))
 	if err != nil {
 		errMsg := fmt.Sprintf("sendResource error: %s", err.Error())
 		return fmt.Errorf(errMsg)
@@ -294,10 +307,88 @@ func (c *Client) SendResource(cloudAccount CloudAccount, resource Resource, reso
 		return fmt.Errorf(errMsg)
 	}
 
-	log.GetWLogger().Info(fmt.Sprintf("CloudAccountId %s Submit %d %s resource data to the server %s successfully", cloudAccount.CloudAccountId, len(resourceInstanceList), resource.ResourceType, c.ServerUrl))
+	log.GetWLogger().Info(fmt.Sprintf("CloudAccountId %s Submit %d %s resource data to the server %s successfully, unchanged %d, deleted %d", cloudAccount.CloudAccountId, len(resourceInstanceList), resource.ResourceType, c.ServerUrl, len(unchangedResourceIds), len(deletedResourceIds)))
 	return nil
 }
 
+// LoadResourceManifest reads the fingerprints of the stored resources of a resource type of an account, enabled is
+// false when the server wants full pushes
+func (c *Client) LoadResourceManifest(cloudAccountId string, resourceType string) (fingerprints map[string]string, enabled bool, err error) {
+	param, err := json.Marshal(map[string]string{
+		"cloudAccountId": cloudAccountId,
+		"resourceType":   resourceType,
+	})
+	if err != nil {
+		return nil, false, err
+	}
+
+	resp, err := c.postWithPersistentToken("/api/agent/resourceManifest", string(param), c.PersistentToken)
+	if err != nil {
+		return nil, false, err
+	}
+	defer func(Body io.ReadCloser) {
+		_ = Body.Close()
+	}(resp.Body)
+	if resp.StatusCode != http.StatusOK {
+		return nil, false, fmt.Errorf("server returned non-OK status: %s", resp.Status)
+	}
+
+	body, err := ioutil.ReadAll(resp.Body)
+	if err != nil {
+		return nil, false, err
+	}
+	res := &res{}
+	if err = json.Unmarshal(body, &res); err != nil {
+		return nil, false, err
+	}
+	if res.Code != constant.SuccessCode {
+		return nil, false, fmt.Errorf("load resource manifest from server error: %v", res.Msg)
+	}
+
+	marshal, _ := json.Marshal(res.Content)
+	manifest := &ResourceManifest{}
+	if err = json.Unmarshal(marshal, manifest); err != nil {
+		return nil, false, err
+	}
+	return manifest.Fingerprints, manifest.Enabled, nil
+}
+
+const (
+	// maxResourcePushAttempts bounds the pushes of one batch the server answers with 429
+	maxResourcePushAttempts = 5
+	// maxRetryAfter caps the Retry-After delay of the server
+	maxRetryAfter = 60 * time.Second
+)
+
+// postResource pushes resources, a full ingest queue on the server answers 429 and the push is retried after the
+// Retry-After delay
+func (c *Client) postResource(body string) (resp *http.Response, err error) {
+	for attempt := 1; ; attempt++ {
+		resp, err = c.postWithPersistentToken("/api/agent/resource", body, c.PersistentToken)
+		if err != nil || resp.StatusCode != http.StatusTooManyRequests || attempt >= maxResourcePushAttempts {
+			return resp, err
+		}
+
+		delay := retryAfter(resp.Header.Get("Retry-After"))
+		_ = resp.Body.Close()
+		log.GetWLogger().Warn(fmt.Sprintf("server ingest queue is full, retry in %s (attempt %d/%d)", delay, attempt, maxResourcePushAttempts))
+		time.Sleep(delay)
+	}
+}
+
+// retryAfter reads the delay in seconds of a Retry-After header
+func retryAfter(header string) time.Duration {
+	seconds, err := strconv.Atoi(strings.TrimSpace(header))
+	if err != nil || seconds <= 0 {
+		return 5 * time.Second
+	}
+	delay := time.Duration(seconds) * time.Second
+	if delay > maxRetryAfter {
+		return maxRetryAfter
+	}
+	return delay
+}
+
 func (c *Client) SendRunningStartSignal(info CollectRecordInfo) (err error) {
 	t := time.NewTimer(time.Second * 10)
 	defer t.Stop()
@@ -0,0 +1,121 @@
+// Licensed to the Apache Software Foundation (ASF) under one or more
+// contributor license agreements.  See the NOTICE file distributed with
+// this work for additional information regarding copyright ownership.
+// The ASF licenses this file to You under the Apache License, Version 2.0
+// (the "License"); you may not use this file except in compliance with
+// the License.  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package schema
+
+import (
+	"crypto/sha256"
+	"encoding/hex"
+	"encoding/json"
+	"fmt"
+	"sync"
+
+	"github.com/core-sdk/log"
+)
+
+// maxUnchangedIdsPerPush bounds the unchanged resource ids sent with one push
+const maxUnchangedIdsPerPush = 2000
+
+// DeltaRun is the delta push of one resource type of an account, shared by the Submit of every region. Only the
+// resources whose fingerprint differs from the manifest are pushed, the unchanged ones are reported by id and the
+// resources of the manifest no region found are reported deleted once every region finished without error
+type DeltaRun struct {
+	manifest map[string]string
+
+	mu     sync.Mutex
+	seen   map[string]struct{}
+	failed bool
+}
+
+// NewDeltaRun loads the manifest of the server, nil means a full push
+func NewDeltaRun(client *Client, cloudAccountId string, resourceType string) *DeltaRun {
+	if client == nil || !client.DeltaPush {
+		return nil
+	}
+	fingerprints, enabled, err := client.LoadResourceManifest(cloudAccountId, resourceType)
+	if err != nil {
+		log.GetWLogger().Warn(fmt.Sprintf("CloudAccountId %s %s load resource manifest error, full push: %s", cloudAccountId, resourceType, err.Error()))
+		return nil
+	}
+	if !enabled {
+		return nil
+	}
+	if fingerprints == nil {
+		fingerprints = map[string]string{}
+	}
+	return &DeltaRun{
+		manifest: fingerprints,
+		seen:     make(map[string]struct{}, len(fingerprints)),
+	}
+}
+
+// Unchanged records the resource as found, it is true when the manifest has the same fingerprint, otherwise the
+// fingerprint is set on the resource so the server stores it
+func (d *DeltaRun) Unchanged(instance *ResourceInstance) (resourceId string, unchanged bool) {
+	resourceId = resourceIdString(instance.ResourceId)
+	instance.Fingerprint = ""
+	content, err := json.Marshal(instance)
+	if err != nil {
+		return resourceId, false
+	}
+	sum := sha256.Sum256(content)
+	fingerprint := hex.EncodeToString(sum[:])
+
+	d.mu.Lock()
+	d.seen[resourceId] = struct{}{}
+	d.mu.Unlock()
+
+	if stored, ok := d.manifest[resourceId]; ok && stored == fingerprint {
+		return resourceId, true
+	}
+	instance.Fingerprint = fingerprint
+	return resourceId, false
+}
+
+// Fail keeps the resources not found from being reported deleted, a region may have been skipped
+func (d *DeltaRun) Fail() {
+	d.mu.Lock()
+	d.failed = true
+	d.mu.Unlock()
+}
+
+// Deleted resources of the manifest no region found, nil after a failure
+func (d *DeltaRun) Deleted() []string {
+	d.mu.Lock()
+	defer d.mu.Unlock()
+	if d.failed {
+		return nil
+	}
+	var deleted []string
+	for resourceId := range d.manifest {
+		if _, ok := d.seen[resourceId]; !ok {
+			deleted = append(deleted, resourceId)
+		}
+	}
+	return deleted
+}
+
+// resourceIdString the resource id as the server reads it from the pushed json
+func resourceIdString(resourceId interface{}) string {
+	if s, ok := resourceId.(string); ok {
+		return s
+	}
+	b, err := json.Marshal(resourceId)
+	if err != nil {
+		return fmt.Sprintf("%v", resourceId)
+	}
+	return string(b)
+}
@@ -62,6 +62,12 @@ type SupportResourceTypeListRequest struct {
 	ResourceList  []SupportResource `json:"resourceList"`
 }
 
+// ResourceManifest stored resources of a resource type of an account, for the delta push
+type ResourceManifest struct {
+	Enabled      bool              `json:"enabled"`
+	Fingerprints map[string]string `json:"fingerprints"`
+}
+
 type SupportResource struct {
 	ResourceType      string `json:"resourceType"`
 	ResourceTypeName  string `json:"resourceTypeName"`
@@ -78,6 +84,10 @@ type DataPushRequest struct {
 	ResourceGroupType    string              `json:"resourceGroupType"`
 	DocLink              string              `json:"docLink"`
 	ResourceInstancesAll []*ResourceInstance `json:"resourceInstancesAll"`
+	// UnchangedResourceIds resources of the manifest whose fingerprint still matches, delta push only
+	UnchangedResourceIds []string `json:"unchangedResourceIds,omitempty"`
+	// DeletedResourceIds resources of the manifest that were not found, delta push only
+	DeletedResourceIds []string `json:"deletedResourceIds,omitempty"`
 }
 
 func ReturnGeneral() []byte {
@@ -96,6 +96,7 @@ func (e *Executor) Register() (err error) {
 	}
 
 	e.platform.client = NewClientWithPersistentToken(e.platform.Name, e.opts.Sites, e.opts.ServerUrl, resp.PersistentToken)
+	e.platform.client.DeltaPush = e.opts.DeltaPush
 	e.registered = true
 	go func() {
 		e.client.RegistryCycle(e.registry)
@@ -336,6 +336,19 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 	resourceKey := account.Platform + resource.ResourceType + account.CloudAccountId
 	version := p.generateUUIDWithVersion(resourceKey)
 
+	// A delta run pushes only new and changed resources, a region that fails keeps the missing ones from being
+	// reported deleted
+	var delta *DeltaRun
+	if collectorParam.registered {
+		delta = NewDeltaRun(p.client, account.CloudAccountId, resource.ResourceType)
+	}
+	failDelta := func() {
+		if delta != nil {
+			delta.Fail()
+		}
+	}
+	deltaSubmitWait := &sync.WaitGroup{}
+
 	// loop regions
 	loopRegionWait := &sync.WaitGroup{}
 	for _, region := range loopRegions {
@@ -347,13 +360,18 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 			errorMsg := fmt.Sprintf("Code:[%s] Init Client error %v", CollectorError, err)
 			log.CtxLogger(ctx).Warn(errorMsg)
 			collectorParam.CloudRecLogger.logAccountError(account.Platform, resource.ResourceType, account.CloudAccountId, account.CollectRecordId, errors.New(errorMsg))
+			failDelta()
 			continue
 		}
 
 		// Open the chan that receives resource data
 		resourceChan := make(chan *ResourceInstance, constant.DefaultPageSize)
 		submitWait.Add(1)
-		go Submit(p.client, account, resource, resourceChan, collectorParam.registered, version, submitWait)
+		deltaSubmitWait.Add(1)
+		go func() {
+			defer deltaSubmitWait.Done()
+			Submit(p.client, account, resource, resourceChan, collectorParam.registered, version, submitWait, delta)
+		}()
 
 		// for region chan
 		regionCh := make(chan interface{}, constant.DefaultPageSize)
@@ -365,6 +383,7 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 				if r := recover(); r != nil {
 					errorMsg := fmt.Sprintf("Code:[%s] Consumer goroutine recovered from panic: %v", UnknownError, r)
 					log.CtxLogger(ctx).Error(errorMsg)
+					failDelta()
 					collectorParam.CloudRecLogger.logAccountError(account.Platform, resource.ResourceType, account.CloudAccountId, account.CollectRecordId, errors.New(errorMsg))
 				}
 			}()
@@ -391,6 +410,7 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 					if err != nil {
 						errorMsg := fmt.Sprintf("Code:[%s] %s  The data will not be submitted to the server", CollectorError, err.Error())
 						log.CtxLogger(ctx).Warn(errorMsg)
+						failDelta()
 						collectorParam.CloudRecLogger.logAccountError(account.Platform, resource.ResourceType, account.CloudAccountId, account.CollectRecordId, errors.New(errorMsg))
 						continue
 					}
@@ -422,6 +442,7 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 				<-limiter
 				// Handle panic caused by timeout shutdown of chan
 				if r := recover(); r != nil {
+					failDelta()
 					errMsg := fmt.Sprintf("%v", r)
 					if strings.Contains(errMsg, "send on closed channel") {
 						log.CtxLogger(ctx).Warn(fmt.Sprintf("Timeout, more than %d seconds !!!", constant.TimeOut))
@@ -438,6 +459,7 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 				if err = resource.ResourceDetailFunc(regionCtx, regionService, regionCh); err != nil {
 					errmsg := fmt.Sprintf("Code:[%s] ResourceDetailFunc ERROR: %s", CollectorError, err.Error())
 					log.CtxLogger(ctx).Warn(errmsg)
+					failDelta()
 					collectorParam.CloudRecLogger.logAccountError(account.Platform, resource.ResourceType, account.CloudAccountId, account.CollectRecordId, errors.New(errmsg))
 				}
 			}
@@ -446,6 +468,7 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 				if err = resource.ResourceDetailFuncWithCancel(regionCtx, cancel, regionService, regionCh); err != nil {
 					errmsg := fmt.Sprintf("Code:[%s] ResourceDetailFuncWithCancel ERROR: %s", SDKError, err.Error())
 					log.CtxLogger(ctx).Warn(errmsg)
+					failDelta()
 					collectorParam.CloudRecLogger.logAccountError(account.Platform, resource.ResourceType, account.CloudAccountId, account.CollectRecordId, errors.New(errmsg))
 				}
 				// Waiting timeout or Cancel
@@ -462,6 +485,21 @@ func (p *Platform) handleResource(ctx context.Context, account CloudAccount, res
 		// time.Sleep(1 * time.Second)
 	}
 	loopRegionWait.Wait()
+
+	if delta != nil {
+		// every region is submitted before the resources not found are reported deleted
+		deltaSubmitWait.Wait()
+		deleted := delta.Deleted()
+		for i := 0; i < len(deleted); i += maxUnchangedIdsPerPush {
+			end := i + maxUnchangedIdsPerPush
+			if end > len(deleted) {
+				end = len(deleted)
+			}
+			if err := p.client.SendResourceDelta(account, resource, nil, nil, deleted[i:end], version); err != nil {
+				log.CtxLogger(ctx).Warn(fmt.Sprintf("Code:[%s] send deleted resources error %s", CollectorError, err))
+			}
+		}
+	}
 }
 
 // Get the list of regions that need to be loop
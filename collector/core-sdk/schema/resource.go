@@ -41,6 +41,9 @@ type ResourceInstance struct {
 	TagList []*string `json:"tagList,omitempty"`
 
 	Instance *interface{} `json:"instance,omitempty"`
+
+	// Fingerprint of the content, only set by a delta push
+	Fingerprint string `json:"fingerprint,omitempty"`
 }
 
 // Builder set builder interface
@@ -231,8 +234,9 @@ type RowField struct {
 type ResourceDetailFunc func(ctx context.Context, service ServiceInterface, res chan<- any) error
 type ResourceDetailFuncWithCancel func(ctx context.Context, cancel context.CancelFunc, service ServiceInterface, res chan<- any) error
 
-// Submit batch submit resource to server
-func Submit(client *Client, account CloudAccount, resource Resource, res chan *ResourceInstance, registered bool, version string, submitWait *sync.WaitGroup) {
+// Submit batch submit resource to server, with a delta run only the new and changed resources are pushed and the
+// unchanged ones are reported by id
+func Submit(client *Client, account CloudAccount, resource Resource, res chan *ResourceInstance, registered bool, version string, submitWait *sync.WaitGroup, delta *DeltaRun) {
 	if submitWait != nil {
 		defer func() {
 			if r := recover(); r != nil {
@@ -250,39 +254,54 @@ func Submit(client *Client, account CloudAccount, resource Resource, res chan *R
 	}
 
 	var resourceInstances []*ResourceInstance
+	var unchangedResourceIds []string
+
+	push := func(instances []*ResourceInstance, unchanged []string) {
+		const maxRetries = 3
+		var err error
+		for retry := 0; retry < maxRetries; retry++ {
+			err = client.SendResourceDelta(account, resource, instances, unchanged, nil, version)
+			if err == nil {
+				break
+			}
 
-	sendResourceBatch := func() {
-		if len(resourceInstances) == 0 {
-			return
+			log.GetWLogger().Warn(fmt.Sprintf("Failed to send resource batch (retry %d/%d): %s", retry+1, maxRetries, err.Error()))
+			if retry < maxRetries-1 {
+				time.Sleep(time.Duration(retry+1) * 3 * time.Second)
+			}
+		}
+
+		if err != nil {
+			log.GetWLogger().Error(fmt.Sprintf("Failed to send resource batch after %d retries: %s", maxRetries, err.Error()))
 		}
+	}
+
+	sendResourceBatch := func() {
 		for i := 0; i < len(resourceInstances); i += constant.MaxResourcePushCount {
 			end := i + constant.MaxResourcePushCount
 			if end > len(resourceInstances) {
 				end = len(resourceInstances)
 			}
-
-			const maxRetries = 3
-			var err error
-			for retry := 0; retry < maxRetries; retry++ {
-				err = client.SendResource(account, resource, resourceInstances[i:end], version)
-				if err == nil {
-					break
-				}
-
-				log.GetWLogger().Warn(fmt.Sprintf("Failed to send resource batch (retry %d/%d): %s", retry+1, maxRetries, err.Error()))
-				if retry < maxRetries-1 {
-					time.Sleep(time.Duration(retry+1) * 3 * time.Second)
-				}
-			}
-
-			if err != nil {
-				log.GetWLogger().Error(fmt.Sprintf("Failed to send resource batch after %d retries: %s", maxRetries, err.Error()))
-			}
+			push(resourceInstances[i:end], nil)
 		}
 		resourceInstances = resourceInstances[:0]
+
+		if len(unchangedResourceIds) > 0 {
+			push(nil, unchangedResourceIds)
+			unchangedResourceIds = nil
+		}
 	}
 
 	for ret := range res {
+		if delta != nil {
+			if resourceId, unchanged := delta.Unchanged(ret); unchanged {
+				unchangedResourceIds = append(unchangedResourceIds, resourceId)
+				if len(unchangedResourceIds) >= maxUnchangedIdsPerPush {
+					sendResourceBatch()
+				}
+				continue
+			}
+		}
 		resourceInstances = append(resourceInstances, ret)
 		if len(resourceInstances) >= constant.MaxResourcePushCount {
 			sendResourceBatch()
@@ -947,3 +947,72 @@ ALTER TABLE `collector_record`
     ADD COLUMN `collect_record_info` mediumtext DEFAULT NULL COMMENT '采集记录信息 JSON';
 
 ALTER TABLE `cloud_account` ADD COLUMN `enable_inverse_selection` tinyint(4) DEFAULT '0' COMMENT '资产类型是否反选0,1';
+
+-- scan results are written with INSERT ... ON DUPLICATE KEY UPDATE, one row per (rule, resource, account).
+-- A database created before this key may hold duplicates, run db/migration/rule_scan_result_unique_key.sql on it instead
+ALTER TABLE `rule_scan_result`
+    ADD UNIQUE KEY `uk_rule_id_resource_id_cloud_account_id`(`rule_id`, `resource_id`, `cloud_account_id`);
+
+/********************************************************************/
+/*   DatabaseName = cloudrec_db   */
+/*   TableName = rule_scan_fingerprint   */
+/********************************************************************/
+CREATE TABLE IF NOT EXISTS `rule_scan_fingerprint` (
+    `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `gmt_create` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `gmt_modified` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '修改时间',
+    `rule_id` bigint(20) unsigned NOT NULL COMMENT '规则id',
+    `cloud_account_id` varchar(100) NOT NULL COMMENT '云账号id',
+    `resource_id` varchar(255) NOT NULL COMMENT '资产id',
+    `content_hash` char(64) NOT NULL COMMENT '最近一次评估的资产内容指纹',
+    `rule_revision` char(64) NOT NULL COMMENT '最近一次评估的规则版本指纹',
+    `risk` tinyint(4) NOT NULL DEFAULT '0' COMMENT '最近一次评估是否存在风险',
+    PRIMARY KEY(`id`),
+    UNIQUE KEY `uk_rule_id_cloud_account_id_resource_id`(`rule_id`, `cloud_account_id`, `resource_id`)
+    ) AUTO_INCREMENT = 1 DEFAULT CHARSET = utf8mb4 COMMENT = '增量扫描指纹';
+
+/********************************************************************/
+/*   DatabaseName = cloudrec_db   */
+/*   TableName = rule_scan_checkpoint   */
+/********************************************************************/
+CREATE TABLE IF NOT EXISTS `rule_scan_checkpoint` (
+    `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `gmt_create` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `gmt_modified` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '修改时间',
+    `rule_id` bigint(20) unsigned NOT NULL COMMENT '规则id',
+    `cloud_account_id` varchar(100) NOT NULL COMMENT '云账号id',
+    `version` bigint(20) NOT NULL COMMENT '本次扫描写入的风险版本',
+    `scroll_id` bigint(20) NOT NULL DEFAULT '0' COMMENT '已写入结果的最后一个资产id',
+    `status` varchar(32) NOT NULL COMMENT 'RUNNING/FINISHED',
+    `run_start_time` timestamp NULL DEFAULT NULL COMMENT '所属规则扫描的开始时间',
+    PRIMARY KEY(`id`),
+    UNIQUE KEY `uk_rule_id_cloud_account_id`(`rule_id`, `cloud_account_id`),
+    KEY `idx_status_gmt_modified`(`status`, `gmt_modified`)
+    ) AUTO_INCREMENT = 1 DEFAULT CHARSET = utf8mb4 COMMENT = '规则扫描断点';
+
+ALTER TABLE `rule` ADD COLUMN `pre_filter` text DEFAULT NULL COMMENT '预过滤条件的json' AFTER `linked_data_list`;
+
+ALTER TABLE `cloud_resource_instance_v1`
+    ADD COLUMN `content_fingerprint` varchar(64) DEFAULT NULL COMMENT '采集端计算的内容指纹';
+
+ALTER TABLE `cloud_resource_instance_v1`
+    ADD COLUMN `instance_zstd` mediumblob DEFAULT NULL COMMENT 'zstd压缩的资产json，与instance只存其一',
+    ADD COLUMN `instance_size` int(11) DEFAULT NULL COMMENT '压缩前的资产json字节数';
+
+/********************************************************************/
+/*   DatabaseName = cloudrec_db   */
+/*   TableName = rule_scan_shard_run   */
+/********************************************************************/
+CREATE TABLE IF NOT EXISTS `rule_scan_shard_run` (
+    `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `gmt_create` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `gmt_modified` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '修改时间',
+    `rule_id` bigint(20) unsigned NOT NULL COMMENT '规则id',
+    `run_id` varchar(64) NOT NULL COMMENT '分片扫描的运行id',
+    `run_start_time` timestamp NULL DEFAULT NULL COMMENT '规则本次扫描的开始时间',
+    `node_count` int(11) NOT NULL COMMENT '参与分片的节点数',
+    `finished_nodes` bigint(20) NOT NULL DEFAULT '0' COMMENT '已完成分片的节点位图',
+    `status` varchar(32) NOT NULL COMMENT 'RUNNING/FINISHED',
+    PRIMARY KEY(`id`),
+    UNIQUE KEY `uk_rule_id`(`rule_id`)
+    ) AUTO_INCREMENT = 1 DEFAULT CHARSET = utf8mb4 COMMENT = '规则分片扫描的运行';
@@ -0,0 +1,92 @@
+/*
+ Adds the unique key `uk_rule_id_resource_id_cloud_account_id` to `rule_scan_result` of a database created before it.
+
+ Scan results are written with INSERT ... ON DUPLICATE KEY UPDATE on (rule_id, resource_id, cloud_account_id), older
+ versions could leave several rows of the same risk and the key can not be added while they exist. Of each group of
+ duplicates this script keeps one row and merges the others into it:
+
+ - the row that was triaged is kept: whitelisted first, then ignored, then unrepaired, then the highest version and id.
+   Its status, ignore reason and whitelist are kept as they are;
+ - the scan data of the row with the highest version is copied to the kept row, and the kept row takes the earliest
+   create time of the group;
+ - the operation logs of the removed rows are moved to the kept row;
+ - the other rows are deleted, then the key is added.
+
+ Stop the server before running it, so no scan writes new duplicates in the meantime:
+
+   mysql -u root -p cloudrec_db < db/migration/rule_scan_result_unique_key.sql
+
+ New databases already get the key from init.sql and do not need this script. This directory is not mounted into
+ docker-entrypoint-initdb.d, the script only runs when called.
+*/
+
+USE `cloudrec_db`;
+
+/********************************************************************/
+/*   DatabaseName = cloudrec_db   */
+/*   TableName = rule_scan_result_dedup   */
+/********************************************************************/
+DROP TABLE IF EXISTS `rule_scan_result_dedup`;
+CREATE TABLE `rule_scan_result_dedup` (
+    `id` bigint(20) unsigned NOT NULL COMMENT '重复的扫描结果id',
+    `keep_id` bigint(20) unsigned NOT NULL COMMENT '保留的扫描结果id',
+    `fresh_id` bigint(20) unsigned NOT NULL COMMENT '版本最新的扫描结果id',
+    `first_create` timestamp NOT NULL COMMENT '最早的创建时间',
+    PRIMARY KEY(`id`),
+    KEY `idx_keep_id`(`keep_id`)
+    ) DEFAULT CHARSET = utf8mb4 COMMENT = '扫描结果去重映射，迁移完成后删除';
+
+INSERT INTO `rule_scan_result_dedup`(`id`, `keep_id`, `fresh_id`, `first_create`)
+SELECT r.`id`,
+       FIRST_VALUE(r.`id`) OVER w_keep,
+       FIRST_VALUE(r.`id`) OVER w_fresh,
+       MIN(r.`gmt_create`) OVER w_group
+FROM `rule_scan_result` r
+    JOIN (SELECT `rule_id`, `resource_id`, `cloud_account_id`
+          FROM `rule_scan_result`
+          GROUP BY `rule_id`, `resource_id`, `cloud_account_id`
+          HAVING COUNT(*) > 1) d
+        ON r.`rule_id` = d.`rule_id` AND r.`resource_id` = d.`resource_id`
+        AND r.`cloud_account_id` = d.`cloud_account_id`
+WINDOW w_group AS (PARTITION BY r.`rule_id`, r.`resource_id`, r.`cloud_account_id`),
+       w_keep AS (w_group ORDER BY CASE
+                      WHEN r.`whited_id` IS NOT NULL OR r.`status` = 'WHITED' THEN 0
+                      WHEN r.`status` = 'IGNORED' THEN 1
+                      WHEN r.`status` = 'UNREPAIRED' THEN 2
+                      ELSE 3 END,
+                  r.`version` DESC, r.`id` DESC),
+       w_fresh AS (w_group ORDER BY r.`version` DESC, r.`id` DESC);
+
+START TRANSACTION;
+
+-- the kept row takes the scan data of the newest row, its triage stays as it is
+UPDATE `rule_scan_result` k
+    JOIN (SELECT DISTINCT `keep_id`, `fresh_id`, `first_create` FROM `rule_scan_result_dedup`) m ON k.`id` = m.`keep_id`
+    JOIN `rule_scan_result` f ON f.`id` = m.`fresh_id`
+SET k.`gmt_create` = m.`first_create`,
+    k.`version` = f.`version`,
+    k.`update_time` = f.`update_time`,
+    k.`result` = f.`result`,
+    k.`rule_snapshoot` = f.`rule_snapshoot`,
+    k.`resource_snapshoot` = f.`resource_snapshoot`,
+    k.`resource_name` = f.`resource_name`,
+    k.`resource_status` = f.`resource_status`,
+    k.`region` = f.`region`,
+    k.`cloud_resource_instance_id` = f.`cloud_resource_instance_id`;
+
+-- operation logs of a risk reference it by correlation_id
+UPDATE `operation_log` l
+    JOIN `rule_scan_result_dedup` m ON l.`correlation_id` = m.`id`
+SET l.`correlation_id` = m.`keep_id`
+WHERE l.`type` = 'RISK' AND m.`id` <> m.`keep_id`;
+
+DELETE r FROM `rule_scan_result` r
+    JOIN `rule_scan_result_dedup` m ON r.`id` = m.`id`
+WHERE m.`id` <> m.`keep_id`;
+
+COMMIT;
+
+ALTER TABLE `rule_scan_result`
+    ADD UNIQUE KEY `uk_rule_id_resource_id_cloud_account_id`(`rule_id`, `resource_id`, `cloud_account_id`);
+
+DROP TABLE `rule_scan_result_dedup`;